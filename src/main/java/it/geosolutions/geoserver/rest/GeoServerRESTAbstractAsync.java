@@ -0,0 +1,131 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Common plumbing of the asynchronous facades.
+ * <P>
+ * The REST calls are blocking, so they are run on a bounded pool of worker
+ * threads: any number of calls can be submitted, but only as many as the pool
+ * size are in flight at the same time, the others wait in the executor queue.
+ * The pool size should not exceed the number of pooled connections per host
+ * of the underlying {@link HTTPTransport}.
+ * 
+ * @see GeoServerRESTAsyncReader
+ * @see GeoServerRESTAsyncPublisher
+ */
+public abstract class GeoServerRESTAbstractAsync {
+
+    /** Default number of worker threads. */
+    public static final int DEFAULT_THREADS = HTTPTransport.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    protected final ExecutorService executor;
+
+    private final boolean ownExecutor;
+
+    /**
+     * Runs the calls on a dedicated pool of the given size.
+     * 
+     * @param threads max number of calls in flight
+     */
+    protected GeoServerRESTAbstractAsync(int threads) {
+        this(newExecutor(threads), true);
+    }
+
+    /**
+     * Runs the calls on the given executor, which may be shared and is not
+     * shut down by {@link #shutdown()}.
+     * 
+     * @param executor the executor running the calls
+     * @throws IllegalArgumentException if the executor is null
+     */
+    protected GeoServerRESTAbstractAsync(ExecutorService executor) throws IllegalArgumentException {
+        this(executor, false);
+    }
+
+    private GeoServerRESTAbstractAsync(ExecutorService executor, boolean ownExecutor) {
+        if (executor == null)
+            throw new IllegalArgumentException("Unable to create the async facade using a null executor");
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+    }
+
+    /**
+     * Creates a fixed pool of daemon worker threads.
+     * 
+     * @param threads the pool size
+     * @return the executor
+     */
+    public static ExecutorService newExecutor(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("The number of threads should be a positive integer");
+        final String prefix = "gsmanager-async-" + POOL_COUNT.incrementAndGet() + "-";
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, prefix + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Submits a generic call, for the operations not exposed by the facade.
+     * 
+     * @param call the blocking call
+     * @return the pending result
+     */
+    public <T> Future<T> submit(Callable<T> call) {
+        return executor.submit(call);
+    }
+
+    /**
+     * @return the executor running the calls
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Shuts down the worker threads, if they were created by this facade.
+     * Already submitted calls are completed.
+     */
+    public void shutdown() {
+        if (ownExecutor)
+            executor.shutdown();
+    }
+}
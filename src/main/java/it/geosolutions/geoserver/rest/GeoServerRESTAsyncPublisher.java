@@ -0,0 +1,453 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.StoreType;
+import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSResourceEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSResourceEncoder.ProjectionPolicy;
+import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous facade over a {@link GeoServerRESTPublisher}.
+ * <P>
+ * Each call is submitted to a bounded executor and returns immediately with a
+ * {@link Future}; uploads and catalog changes run on the worker threads. Note
+ * that calls submitted together run concurrently: when an operation depends on a
+ * previous one (i.e. a layer on its store) wait for the first {@link Future}
+ * before submitting the second.
+ * <P>
+ * Operations which are not exposed here can be run through
+ * {@link #submit(Callable)}.
+ */
+public class GeoServerRESTAsyncPublisher extends GeoServerRESTAbstractAsync {
+
+    private final GeoServerRESTPublisher publisher;
+
+    /**
+     * Creates a facade running the calls on a dedicated pool of
+     * {@link #DEFAULT_THREADS} threads.
+     * 
+     * @param publisher the blocking publisher
+     */
+    public GeoServerRESTAsyncPublisher(GeoServerRESTPublisher publisher) {
+        this(publisher, DEFAULT_THREADS);
+    }
+
+    /**
+     * Creates a facade running the calls on a dedicated pool.
+     * 
+     * @param publisher the blocking publisher
+     * @param threads max number of calls in flight
+     */
+    public GeoServerRESTAsyncPublisher(GeoServerRESTPublisher publisher, int threads) {
+        super(threads);
+        this.publisher = checkPublisher(publisher);
+    }
+
+    /**
+     * Creates a facade running the calls on the given executor.
+     * 
+     * @param publisher the blocking publisher
+     * @param executor the (possibly shared) executor
+     */
+    public GeoServerRESTAsyncPublisher(GeoServerRESTPublisher publisher, ExecutorService executor) {
+        super(executor);
+        this.publisher = checkPublisher(publisher);
+    }
+
+    private static GeoServerRESTPublisher checkPublisher(GeoServerRESTPublisher publisher) {
+        if (publisher == null)
+            throw new IllegalArgumentException("Unable to create the async publisher using a null publisher");
+        return publisher;
+    }
+
+    /**
+     * @return the blocking publisher
+     */
+    public GeoServerRESTPublisher getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Asynchronously creates a Workspace.
+     * 
+     * @see GeoServerRESTPublisher#createWorkspace(String)
+     */
+    public Future<Boolean> createWorkspace(final String workspace) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.createWorkspace(workspace);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously creates a Workspace and its Namespace.
+     * 
+     * @see GeoServerRESTPublisher#createWorkspace(String, URI)
+     */
+    public Future<Boolean> createWorkspace(final String name, final URI uri) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.createWorkspace(name, uri);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously removes a Workspace.
+     * 
+     * @see GeoServerRESTPublisher#removeWorkspace(String, boolean)
+     */
+    public Future<Boolean> removeWorkspace(final String workspace, final boolean recurse) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.removeWorkspace(workspace, recurse);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously publishes a Style.
+     * 
+     * @see GeoServerRESTPublisher#publishStyle(String, String)
+     */
+    public Future<Boolean> publishStyle(final String sldBody, final String name) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.publishStyle(sldBody, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously publishes a Style from an SLD file.
+     * 
+     * @see GeoServerRESTPublisher#publishStyle(File, String)
+     */
+    public Future<Boolean> publishStyle(final File sldFile, final String name) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.publishStyle(sldFile, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously publishes a Style in a workspace.
+     * 
+     * @see GeoServerRESTPublisher#publishStyleInWorkspace(String, String, String)
+     */
+    public Future<Boolean> publishStyleInWorkspace(final String workspace, final String sldBody, final String name) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.publishStyleInWorkspace(workspace, sldBody, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously publishes a Style in a workspace from an SLD file.
+     * 
+     * @see GeoServerRESTPublisher#publishStyleInWorkspace(String, File, String)
+     */
+    public Future<Boolean> publishStyleInWorkspace(final String workspace, final File sldFile, final String name) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.publishStyleInWorkspace(workspace, sldFile, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously updates a Style.
+     * 
+     * @see GeoServerRESTPublisher#updateStyle(String, String)
+     */
+    public Future<Boolean> updateStyle(final String sldBody, final String name) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.updateStyle(sldBody, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously removes a Style.
+     * 
+     * @see GeoServerRESTPublisher#removeStyle(String, boolean)
+     */
+    public Future<Boolean> removeStyle(final String styleName, final boolean purge) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.removeStyle(styleName, purge);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously removes a Style in a workspace.
+     * 
+     * @see GeoServerRESTPublisher#removeStyleInWorkspace(String, String, boolean)
+     */
+    public Future<Boolean> removeStyleInWorkspace(final String workspace, final String styleName, final boolean purge) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.removeStyleInWorkspace(workspace, styleName, purge);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously publishes a DB layer.
+     * 
+     * @see GeoServerRESTPublisher#publishDBLayer(String, String, GSFeatureTypeEncoder, GSLayerEncoder)
+     */
+    public Future<Boolean> publishDBLayer(final String workspace, final String storename, final GSFeatureTypeEncoder fte, final GSLayerEncoder layerEncoder) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.publishDBLayer(workspace, storename, fte, layerEncoder);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously uploads and publishes a zipped Shapefile.
+     * 
+     * @see GeoServerRESTPublisher#publishShp(String, String, String, File, String, String)
+     */
+    public Future<Boolean> publishShp(final String workspace, final String storename, final String layerName, final File zipFile, final String srs, final String defaultStyle) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return publisher.publishShp(workspace, storename, layerName, zipFile, srs, defaultStyle);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously uploads and publishes a GeoTIFF.
+     * 
+     * @see GeoServerRESTPublisher#publishGeoTIFF(String, String, String, File, String, ProjectionPolicy, String, double[])
+     */
+    public Future<Boolean> publishGeoTIFF(final String workspace, final String storeName, final String coverageName, final File geotiff, final String srs, final ProjectionPolicy policy, final String defaultStyle, final double[] bbox) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return publisher.publishGeoTIFF(workspace, storeName, coverageName, geotiff, srs, policy, defaultStyle, bbox);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously uploads and publishes a zipped ImageMosaic.
+     * 
+     * @see GeoServerRESTPublisher#publishImageMosaic(String, String, File)
+     */
+    public Future<Boolean> publishImageMosaic(final String workspace, final String storeName, final File zipFile) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return publisher.publishImageMosaic(workspace, storeName, zipFile);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously creates a Resource.
+     * 
+     * @see GeoServerRESTPublisher#createResource(String, StoreType, String, GSResourceEncoder)
+     */
+    public Future<Boolean> createResource(final String workspace, final StoreType dsType, final String storeName, final GSResourceEncoder re) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.createResource(workspace, dsType, storeName, re);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously configures a Resource.
+     * 
+     * @see GeoServerRESTPublisher#configureResource(String, StoreType, String, GSResourceEncoder)
+     */
+    public Future<Boolean> configureResource(final String workspace, final StoreType dsType, final String storeName, final GSResourceEncoder re) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.configureResource(workspace, dsType, storeName, re);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously configures a Layer.
+     * 
+     * @see GeoServerRESTPublisher#configureLayer(String, String, GSLayerEncoder)
+     */
+    public Future<Boolean> configureLayer(final String workspace, final String resourceName, final GSLayerEncoder layer) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.configureLayer(workspace, resourceName, layer);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously creates a LayerGroup.
+     * 
+     * @see GeoServerRESTPublisher#createLayerGroup(String, String, GSLayerGroupEncoder)
+     */
+    public Future<Boolean> createLayerGroup(final String workspace, final String name, final GSLayerGroupEncoder group) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.createLayerGroup(workspace, name, group);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously configures a LayerGroup.
+     * 
+     * @see GeoServerRESTPublisher#configureLayerGroup(String, String, GSLayerGroupEncoder)
+     */
+    public Future<Boolean> configureLayerGroup(final String workspace, final String name, final GSLayerGroupEncoder group) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.configureLayerGroup(workspace, name, group);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously removes a LayerGroup.
+     * 
+     * @see GeoServerRESTPublisher#removeLayerGroup(String, String)
+     */
+    public Future<Boolean> removeLayerGroup(final String workspace, final String name) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.removeLayerGroup(workspace, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously removes a Layer.
+     * 
+     * @see GeoServerRESTPublisher#removeLayer(String, String)
+     */
+    public Future<Boolean> removeLayer(final String workspace, final String layerName) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.removeLayer(workspace, layerName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously removes a DataStore.
+     * 
+     * @see GeoServerRESTPublisher#removeDatastore(String, String, boolean)
+     */
+    public Future<Boolean> removeDatastore(final String workspace, final String storename, final boolean recurse) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.removeDatastore(workspace, storename, recurse);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously removes a CoverageStore.
+     * 
+     * @see GeoServerRESTPublisher#removeCoverageStore(String, String, boolean)
+     */
+    public Future<Boolean> removeCoverageStore(final String workspace, final String storename, final boolean recurse) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.removeCoverageStore(workspace, storename, recurse);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously unpublishes a FeatureType.
+     * 
+     * @see GeoServerRESTPublisher#unpublishFeatureType(String, String, String)
+     */
+    public Future<Boolean> unpublishFeatureType(final String workspace, final String storename, final String layerName) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.unpublishFeatureType(workspace, storename, layerName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously unpublishes a Coverage.
+     * 
+     * @see GeoServerRESTPublisher#unpublishCoverage(String, String, String)
+     */
+    public Future<Boolean> unpublishCoverage(final String workspace, final String storename, final String layerName) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.unpublishCoverage(workspace, storename, layerName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously reloads the GeoServer catalog and configuration.
+     * 
+     * @see GeoServerRESTPublisher#reload()
+     */
+    public Future<Boolean> reload() {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.reload();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously resets the GeoServer caches.
+     * 
+     * @see GeoServerRESTPublisher#reset()
+     */
+    public Future<Boolean> reset() {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return publisher.reset();
+            }
+        });
+    }
+
+}
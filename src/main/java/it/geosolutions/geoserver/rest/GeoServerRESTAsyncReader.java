@@ -0,0 +1,568 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.decoder.RESTCoverage;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageList;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageStore;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageStoreList;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStoreList;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureTypeList;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerGroup;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerGroupList;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+import it.geosolutions.geoserver.rest.decoder.RESTNamespaceList;
+import it.geosolutions.geoserver.rest.decoder.RESTResource;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList;
+import it.geosolutions.geoserver.rest.decoder.RESTStyle;
+import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
+import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
+import it.geosolutions.geoserver.rest.decoder.about.GSVersionDecoder;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous facade over a {@link GeoServerRESTReader}.
+ * <P>
+ * Each call is submitted to a bounded executor and returns immediately with a
+ * {@link Future}; the REST round-trip is performed by one of the worker threads.
+ * This way many reads can be kept in flight, against one or several GeoServer
+ * instances, without creating a thread per request.
+ * <P>
+ * Operations which are not exposed here can be run through
+ * {@link #submit(Callable)}.
+ */
+public class GeoServerRESTAsyncReader extends GeoServerRESTAbstractAsync {
+
+    private final GeoServerRESTReader reader;
+
+    /**
+     * Creates a facade running the calls on a dedicated pool of
+     * {@link #DEFAULT_THREADS} threads.
+     * 
+     * @param reader the blocking reader
+     */
+    public GeoServerRESTAsyncReader(GeoServerRESTReader reader) {
+        this(reader, DEFAULT_THREADS);
+    }
+
+    /**
+     * Creates a facade running the calls on a dedicated pool.
+     * 
+     * @param reader the blocking reader
+     * @param threads max number of calls in flight
+     */
+    public GeoServerRESTAsyncReader(GeoServerRESTReader reader, int threads) {
+        super(threads);
+        this.reader = checkReader(reader);
+    }
+
+    /**
+     * Creates a facade running the calls on the given executor.
+     * 
+     * @param reader the blocking reader
+     * @param executor the (possibly shared) executor
+     */
+    public GeoServerRESTAsyncReader(GeoServerRESTReader reader, ExecutorService executor) {
+        super(executor);
+        this.reader = checkReader(reader);
+    }
+
+    private static GeoServerRESTReader checkReader(GeoServerRESTReader reader) {
+        if (reader == null)
+            throw new IllegalArgumentException("Unable to create the async reader using a null reader");
+        return reader;
+    }
+
+    /**
+     * @return the blocking reader
+     */
+    public GeoServerRESTReader getReader() {
+        return reader;
+    }
+
+    /**
+     * Asynchronously checks if the configured GeoServer is up.
+     * 
+     * @see GeoServerRESTReader#existGeoserver()
+     */
+    public Future<Boolean> existGeoserver() {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existGeoserver();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets the version of the target GeoServer.
+     * 
+     * @see GeoServerRESTReader#getGeoserverVersion()
+     */
+    public Future<GSVersionDecoder> getGeoserverVersion() {
+        return submit(new Callable<GSVersionDecoder>() {
+            public GSVersionDecoder call() {
+                return reader.getGeoserverVersion();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets summary info about all Workspaces.
+     * 
+     * @see GeoServerRESTReader#getWorkspaces()
+     */
+    public Future<RESTWorkspaceList> getWorkspaces() {
+        return submit(new Callable<RESTWorkspaceList>() {
+            public RESTWorkspaceList call() {
+                return reader.getWorkspaces();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets the names of all the Workspaces.
+     * 
+     * @see GeoServerRESTReader#getWorkspaceNames()
+     */
+    public Future<List<String>> getWorkspaceNames() {
+        return submit(new Callable<List<String>>() {
+            public List<String> call() {
+                return reader.getWorkspaceNames();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously checks if a Workspace exists.
+     * 
+     * @see GeoServerRESTReader#existsWorkspace(String)
+     */
+    public Future<Boolean> existsWorkspace(final String prefix) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existsWorkspace(prefix);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets summary info about all Namespaces.
+     * 
+     * @see GeoServerRESTReader#getNamespaces()
+     */
+    public Future<RESTNamespaceList> getNamespaces() {
+        return submit(new Callable<RESTNamespaceList>() {
+            public RESTNamespaceList call() {
+                return reader.getNamespaces();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets summary info about all Styles.
+     * 
+     * @see GeoServerRESTReader#getStyles()
+     */
+    public Future<RESTStyleList> getStyles() {
+        return submit(new Callable<RESTStyleList>() {
+            public RESTStyleList call() {
+                return reader.getStyles();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets summary info about all Styles in a workspace.
+     * 
+     * @see GeoServerRESTReader#getStyles(String)
+     */
+    public Future<RESTStyleList> getStyles(final String workspace) {
+        return submit(new Callable<RESTStyleList>() {
+            public RESTStyleList call() {
+                return reader.getStyles(workspace);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets a Style.
+     * 
+     * @see GeoServerRESTReader#getStyle(String)
+     */
+    public Future<RESTStyle> getStyle(final String name) {
+        return submit(new Callable<RESTStyle>() {
+            public RESTStyle call() {
+                return reader.getStyle(name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets a Style in a workspace.
+     * 
+     * @see GeoServerRESTReader#getStyle(String, String)
+     */
+    public Future<RESTStyle> getStyle(final String workspace, final String name) {
+        return submit(new Callable<RESTStyle>() {
+            public RESTStyle call() {
+                return reader.getStyle(workspace, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets the SLD body of a Style.
+     * 
+     * @see GeoServerRESTReader#getSLD(String)
+     */
+    public Future<String> getSLD(final String styleName) {
+        return submit(new Callable<String>() {
+            public String call() {
+                return reader.getSLD(styleName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets the SLD body of a Style in a workspace.
+     * 
+     * @see GeoServerRESTReader#getSLD(String, String)
+     */
+    public Future<String> getSLD(final String workspace, final String styleName) {
+        return submit(new Callable<String>() {
+            public String call() {
+                return reader.getSLD(workspace, styleName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously checks if a Style exists.
+     * 
+     * @see GeoServerRESTReader#existsStyle(String)
+     */
+    public Future<Boolean> existsStyle(final String styleName) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existsStyle(styleName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously checks if a Style exists in a workspace.
+     * 
+     * @see GeoServerRESTReader#existsStyle(String, String)
+     */
+    public Future<Boolean> existsStyle(final String workspace, final String styleName) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existsStyle(workspace, styleName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets summary info about all DataStores in a workspace.
+     * 
+     * @see GeoServerRESTReader#getDatastores(String)
+     */
+    public Future<RESTDataStoreList> getDatastores(final String workspace) {
+        return submit(new Callable<RESTDataStoreList>() {
+            public RESTDataStoreList call() {
+                return reader.getDatastores(workspace);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets a DataStore.
+     * 
+     * @see GeoServerRESTReader#getDatastore(String, String)
+     */
+    public Future<RESTDataStore> getDatastore(final String workspace, final String dsName) {
+        return submit(new Callable<RESTDataStore>() {
+            public RESTDataStore call() {
+                return reader.getDatastore(workspace, dsName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously checks if a DataStore exists.
+     * 
+     * @see GeoServerRESTReader#existsDatastore(String, String)
+     */
+    public Future<Boolean> existsDatastore(final String workspace, final String dsName) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existsDatastore(workspace, dsName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets summary info about all FeatureTypes in a workspace.
+     * 
+     * @see GeoServerRESTReader#getFeatureTypes(String)
+     */
+    public Future<RESTFeatureTypeList> getFeatureTypes(final String workspace) {
+        return submit(new Callable<RESTFeatureTypeList>() {
+            public RESTFeatureTypeList call() {
+                return reader.getFeatureTypes(workspace);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets the FeatureType published by a Layer.
+     * 
+     * @see GeoServerRESTReader#getFeatureType(RESTLayer)
+     */
+    public Future<RESTFeatureType> getFeatureType(final RESTLayer layer) {
+        return submit(new Callable<RESTFeatureType>() {
+            public RESTFeatureType call() {
+                return reader.getFeatureType(layer);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously checks if a FeatureType exists.
+     * 
+     * @see GeoServerRESTReader#existsFeatureType(String, String, String)
+     */
+    public Future<Boolean> existsFeatureType(final String workspace, final String dsName, final String ftName) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existsFeatureType(workspace, dsName, ftName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets summary info about all CoverageStores in a workspace.
+     * 
+     * @see GeoServerRESTReader#getCoverageStores(String)
+     */
+    public Future<RESTCoverageStoreList> getCoverageStores(final String workspace) {
+        return submit(new Callable<RESTCoverageStoreList>() {
+            public RESTCoverageStoreList call() {
+                return reader.getCoverageStores(workspace);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets a CoverageStore.
+     * 
+     * @see GeoServerRESTReader#getCoverageStore(String, String)
+     */
+    public Future<RESTCoverageStore> getCoverageStore(final String workspace, final String csName) {
+        return submit(new Callable<RESTCoverageStore>() {
+            public RESTCoverageStore call() {
+                return reader.getCoverageStore(workspace, csName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously checks if a CoverageStore exists.
+     * 
+     * @see GeoServerRESTReader#existsCoveragestore(String, String)
+     */
+    public Future<Boolean> existsCoveragestore(final String workspace, final String csName) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existsCoveragestore(workspace, csName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets the Coverages of a CoverageStore.
+     * 
+     * @see GeoServerRESTReader#getCoverages(String, String)
+     */
+    public Future<RESTCoverageList> getCoverages(final String workspace, final String csName) {
+        return submit(new Callable<RESTCoverageList>() {
+            public RESTCoverageList call() {
+                return reader.getCoverages(workspace, csName);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets a Coverage.
+     * 
+     * @see GeoServerRESTReader#getCoverage(String, String, String)
+     */
+    public Future<RESTCoverage> getCoverage(final String workspace, final String store, final String name) {
+        return submit(new Callable<RESTCoverage>() {
+            public RESTCoverage call() {
+                return reader.getCoverage(workspace, store, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets the Coverage published by a Layer.
+     * 
+     * @see GeoServerRESTReader#getCoverage(RESTLayer)
+     */
+    public Future<RESTCoverage> getCoverage(final RESTLayer layer) {
+        return submit(new Callable<RESTCoverage>() {
+            public RESTCoverage call() {
+                return reader.getCoverage(layer);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously checks if a Coverage exists.
+     * 
+     * @see GeoServerRESTReader#existsCoverage(String, String, String)
+     */
+    public Future<Boolean> existsCoverage(final String workspace, final String store, final String name) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existsCoverage(workspace, store, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets the Resource published by a Layer.
+     * 
+     * @see GeoServerRESTReader#getResource(RESTLayer)
+     */
+    public Future<RESTResource> getResource(final RESTLayer layer) {
+        return submit(new Callable<RESTResource>() {
+            public RESTResource call() {
+                return reader.getResource(layer);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets summary info about all Layers.
+     * 
+     * @see GeoServerRESTReader#getLayers()
+     */
+    public Future<RESTLayerList> getLayers() {
+        return submit(new Callable<RESTLayerList>() {
+            public RESTLayerList call() {
+                return reader.getLayers();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets a Layer.
+     * 
+     * @see GeoServerRESTReader#getLayer(String, String)
+     */
+    public Future<RESTLayer> getLayer(final String workspace, final String name) {
+        return submit(new Callable<RESTLayer>() {
+            public RESTLayer call() {
+                return reader.getLayer(workspace, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously checks if a Layer exists.
+     * 
+     * @see GeoServerRESTReader#existsLayer(String, String)
+     */
+    public Future<Boolean> existsLayer(final String workspace, final String name) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existsLayer(workspace, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets summary info about all LayerGroups in a workspace.
+     * 
+     * @see GeoServerRESTReader#getLayerGroups(String)
+     */
+    public Future<RESTLayerGroupList> getLayerGroups(final String workspace) {
+        return submit(new Callable<RESTLayerGroupList>() {
+            public RESTLayerGroupList call() {
+                return reader.getLayerGroups(workspace);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets a LayerGroup.
+     * 
+     * @see GeoServerRESTReader#getLayerGroup(String, String)
+     */
+    public Future<RESTLayerGroup> getLayerGroup(final String workspace, final String name) {
+        return submit(new Callable<RESTLayerGroup>() {
+            public RESTLayerGroup call() {
+                return reader.getLayerGroup(workspace, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously checks if a LayerGroup exists.
+     * 
+     * @see GeoServerRESTReader#existsLayerGroup(String, String)
+     */
+    public Future<Boolean> existsLayerGroup(final String workspace, final String name) {
+        return submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reader.existsLayerGroup(workspace, name);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets a page of the granules of a structured coverage.
+     * 
+     * @see GeoServerRESTReader#getGranules(String, String, String, String, Integer, Integer)
+     */
+    public Future<RESTStructuredCoverageGranulesList> getGranules(final String workspace, final String coverageStore, final String coverage, final String filter, final Integer offset, final Integer limit) {
+        return submit(new Callable<RESTStructuredCoverageGranulesList>() {
+            public RESTStructuredCoverageGranulesList call() throws Exception {
+                return reader.getGranules(workspace, coverageStore, coverage, filter, offset, limit);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,717 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.StoreType;
+import it.geosolutions.geoserver.rest.encoder.GSAbstractStoreEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSResourceEncoder;
+import it.geosolutions.geoserver.rest.manager.GeoServerRESTStoreManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.jdom.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes many workspaces, styles, stores, resources, layers and layer
+ * groups at once, running the independent ones concurrently.
+ * <P>
+ * The items of a {@link Plan} depend on the items of the same plan they
+ * refer to: a store on its workspace, a resource on its store, a layer on its
+ * resource and on its styles, a layer group on its workspace and on its layers
+ * and groups, a style on its workspace. Further dependencies can be added with
+ * {@link Item#dependsOn(Item...)}. Each item is started as soon as the items it
+ * depends on have succeeded; when an item fails, the items depending on it,
+ * directly or not, are skipped.
+ * <P>
+ * The calls are run on a bounded executor: its size is the max number of
+ * calls in flight against the GeoServer node, and should not exceed the
+ * number of pooled connections per host of the transport.
+ * 
+ * @see GeoServerRESTAsyncPublisher
+ */
+public class GeoServerRESTBatchPublisher extends GeoServerRESTAbstractAsync {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTBatchPublisher.class);
+
+    /**
+     * The kinds of items, in the order they are usually published.
+     */
+    public enum Kind {
+        WORKSPACE, STYLE, STORE, RESOURCE, LAYER, LAYER_GROUP
+    }
+
+    /**
+     * The outcome of an item.
+     */
+    public enum Status {
+        /** The call succeeded */
+        SUCCEEDED,
+        /** The call returned false or threw an exception */
+        FAILED,
+        /** Not run, because an item it depends on did not succeed */
+        SKIPPED
+    }
+
+    /**
+     * An operation of a {@link Plan}.
+     */
+    public static abstract class Item {
+
+        private final Kind kind;
+
+        private final String workspace;
+
+        private final String name;
+
+        private final Set<Item> dependencies = new LinkedHashSet<Item>();
+
+        Item(Kind kind, String workspace, String name) {
+            this.kind = kind;
+            this.workspace = workspace;
+            this.name = name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the workspace, or null for global styles and layer groups
+         */
+        public String getWorkspace() {
+            return workspace;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Runs this item only once the given items have succeeded.
+         * 
+         * @return this item
+         */
+        public Item dependsOn(Item... items) {
+            for (Item item : items) {
+                if (item == null || item == this)
+                    throw new IllegalArgumentException("Bad dependency: " + item);
+                dependencies.add(item);
+            }
+            return this;
+        }
+
+        abstract boolean run(GeoServerRESTPublisher publisher, GeoServerRESTStoreManager storeManager)
+                throws Exception;
+
+        @Override
+        public String toString() {
+            return kind + " " + (kind == Kind.WORKSPACE ? name : key(workspace, name));
+        }
+    }
+
+    /**
+     * The items to publish; not thread-safe.
+     */
+    public static class Plan {
+
+        private final List<Item> items = new ArrayList<Item>();
+
+        private <T extends Item> T add(T item) {
+            items.add(item);
+            return item;
+        }
+
+        /**
+         * @see GeoServerRESTPublisher#createWorkspace(String)
+         */
+        public Item createWorkspace(final String workspace) {
+            checkName(workspace);
+            return add(new Item(Kind.WORKSPACE, workspace, workspace) {
+                boolean run(GeoServerRESTPublisher publisher, GeoServerRESTStoreManager storeManager) {
+                    return publisher.createWorkspace(workspace);
+                }
+            });
+        }
+
+        /**
+         * @param workspace the workspace, or null for a global style
+         * @see GeoServerRESTPublisher#publishStyle(String, String)
+         * @see GeoServerRESTPublisher#publishStyleInWorkspace(String, String, String)
+         */
+        public Item publishStyle(final String workspace, final String name, final String sldBody) {
+            checkName(name);
+            if (sldBody == null)
+                throw new IllegalArgumentException("Null argument");
+            return add(new Item(Kind.STYLE, workspace, name) {
+                boolean run(GeoServerRESTPublisher publisher, GeoServerRESTStoreManager storeManager) {
+                    return workspace == null ? publisher.publishStyle(sldBody, name) : publisher
+                            .publishStyleInWorkspace(workspace, sldBody, name);
+                }
+            });
+        }
+
+        /**
+         * @see GeoServerRESTStoreManager#create(String, GSAbstractStoreEncoder)
+         */
+        public Item createStore(final String workspace, final GSAbstractStoreEncoder store) {
+            checkName(workspace);
+            if (store == null)
+                throw new IllegalArgumentException("Null argument");
+            checkName(store.getName());
+            return add(new Item(Kind.STORE, workspace, store.getName()) {
+                boolean run(GeoServerRESTPublisher publisher, GeoServerRESTStoreManager storeManager) {
+                    return storeManager.create(workspace, store);
+                }
+            });
+        }
+
+        /**
+         * @see GeoServerRESTPublisher#createResource(String, StoreType, String, GSResourceEncoder)
+         */
+        public Item createResource(final String workspace, final StoreType storeType,
+                final String storeName, final GSResourceEncoder resource) {
+            checkName(workspace);
+            checkName(storeName);
+            if (storeType == null || resource == null)
+                throw new IllegalArgumentException("Null argument");
+            checkName(resource.getName());
+            final Item item = new Item(Kind.RESOURCE, workspace, resource.getName()) {
+                boolean run(GeoServerRESTPublisher publisher, GeoServerRESTStoreManager storeManager) {
+                    return publisher.createResource(workspace, storeType, storeName, resource);
+                }
+            };
+            resourceStores.put(item, storeName);
+            return add(item);
+        }
+
+        /**
+         * @see GeoServerRESTPublisher#configureLayer(String, String, GSLayerEncoder)
+         */
+        public Item configureLayer(final String workspace, final String resourceName,
+                final GSLayerEncoder layer) {
+            checkName(workspace);
+            checkName(resourceName);
+            if (layer == null)
+                throw new IllegalArgumentException("Null argument");
+            final Item item = new Item(Kind.LAYER, workspace, resourceName) {
+                boolean run(GeoServerRESTPublisher publisher, GeoServerRESTStoreManager storeManager) {
+                    return publisher.configureLayer(workspace, resourceName, layer);
+                }
+            };
+            layerStyles.put(item, styleNames(layer));
+            return add(item);
+        }
+
+        /**
+         * @param workspace the workspace, or null for a global group
+         * @see GeoServerRESTPublisher#createLayerGroup(String, String, GSLayerGroupEncoder)
+         */
+        public Item createLayerGroup(final String workspace, final String name,
+                final GSLayerGroupEncoder group) {
+            checkName(name);
+            if (group == null)
+                throw new IllegalArgumentException("Null argument");
+            final Item item = new Item(Kind.LAYER_GROUP, workspace, name) {
+                boolean run(GeoServerRESTPublisher publisher, GeoServerRESTStoreManager storeManager) {
+                    return publisher.createLayerGroup(workspace, name, group);
+                }
+            };
+            groupMembers.put(item, group.getPublishedNames());
+            return add(item);
+        }
+
+        /** Store of each resource */
+        private final Map<Item, String> resourceStores = new HashMap<Item, String>();
+
+        /** Styles referred by each layer */
+        private final Map<Item, List<String>> layerStyles = new HashMap<Item, List<String>>();
+
+        /** Layers and groups of each group */
+        private final Map<Item, List<String>> groupMembers = new HashMap<Item, List<String>>();
+
+        /**
+         * @return the items, in the order they were added
+         */
+        public List<Item> getItems() {
+            return Collections.unmodifiableList(items);
+        }
+
+        /**
+         * @return the dependencies of each item: the explicit ones and the
+         *         ones on the items it refers to
+         */
+        Map<Item, Set<Item>> getDependencies() {
+            final Map<Kind, Map<String, Item>> byKey = new HashMap<Kind, Map<String, Item>>();
+            for (Kind kind : Kind.values()) {
+                byKey.put(kind, new HashMap<String, Item>());
+            }
+            // layers are known by name alone too, when unique
+            final Map<String, Item> layersByName = new HashMap<String, Item>();
+            for (Item item : items) {
+                final Item previous = byKey.get(item.kind).put(
+                        item.kind == Kind.WORKSPACE ? item.name : key(item.workspace, item.name), item);
+                if (previous != null)
+                    throw new IllegalArgumentException("Duplicate item: " + item);
+                if (item.kind == Kind.LAYER)
+                    layersByName.put(item.name, layersByName.containsKey(item.name) ? null : item);
+            }
+
+            final Map<Item, Set<Item>> dependencies = new LinkedHashMap<Item, Set<Item>>();
+            for (Item item : items) {
+                final Set<Item> dependsOn = new LinkedHashSet<Item>(item.dependencies);
+                if (item.kind != Kind.WORKSPACE && item.workspace != null)
+                    addIfPlanned(dependsOn, byKey.get(Kind.WORKSPACE).get(item.workspace));
+                switch (item.kind) {
+                case RESOURCE:
+                    addIfPlanned(dependsOn, byKey.get(Kind.STORE).get(
+                            key(item.workspace, resourceStores.get(item))));
+                    break;
+                case LAYER:
+                    addIfPlanned(dependsOn, byKey.get(Kind.RESOURCE).get(key(item.workspace, item.name)));
+                    for (String style : layerStyles.get(item)) {
+                        addIfPlanned(dependsOn, resolve(byKey.get(Kind.STYLE), item.workspace, style));
+                    }
+                    break;
+                case LAYER_GROUP:
+                    for (String member : groupMembers.get(item)) {
+                        Item found = resolve(byKey.get(Kind.LAYER_GROUP), item.workspace, member);
+                        if (found == null)
+                            found = resolve(byKey.get(Kind.LAYER), item.workspace, member);
+                        if (found == null && member.indexOf(':') < 0)
+                            found = layersByName.get(member);
+                        addIfPlanned(dependsOn, found);
+                    }
+                    break;
+                default:
+                    break;
+                }
+                dependsOn.remove(item);
+                dependencies.put(item, dependsOn);
+            }
+            return dependencies;
+        }
+
+        private void addIfPlanned(Set<Item> dependsOn, Item item) {
+            if (item != null)
+                dependsOn.add(item);
+        }
+
+        /**
+         * Looks for a qualified name, then for the name in the workspace, then
+         * for a global item.
+         */
+        private static Item resolve(Map<String, Item> items, String workspace, String name) {
+            Item found = items.get(name);
+            if (found == null && workspace != null && name.indexOf(':') < 0)
+                found = items.get(key(workspace, name));
+            return found;
+        }
+
+        private static void checkName(String name) {
+            if (name == null || name.isEmpty())
+                throw new IllegalArgumentException("Null or empty name");
+        }
+
+        /**
+         * @return the default style and the styles of the layer
+         */
+        private static List<String> styleNames(GSLayerEncoder layer) {
+            final List<String> names = new ArrayList<String>();
+            final Element root = layer.getRoot();
+            final Element defaultStyle = root.getChild("defaultStyle");
+            if (defaultStyle != null) {
+                final String name = defaultStyle.getChildText("name");
+                if (name == null)
+                    names.add(defaultStyle.getTextTrim());
+                else
+                    names.add(key(defaultStyle.getChildText("workspace"), name));
+            }
+            final Element styles = root.getChild(GSLayerEncoder.STYLES);
+            if (styles != null) {
+                for (Object style : styles.getChildren()) {
+                    names.add(((Element) style).getTextTrim());
+                }
+            }
+            return names;
+        }
+    }
+
+    /**
+     * The outcome of an item.
+     */
+    public static class Result {
+
+        private final Status status;
+
+        private final Throwable error;
+
+        private final long elapsed;
+
+        Result(Status status, Throwable error, long elapsed) {
+            this.status = status;
+            this.error = error;
+            this.elapsed = elapsed;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the exception thrown by the call, if any
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        /**
+         * @return the duration of the call, in milliseconds
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return status + (error != null ? " (" + error + ")" : "") + " in " + elapsed + " ms";
+        }
+    }
+
+    /**
+     * The outcomes of the items of a plan.
+     */
+    public static class Report {
+
+        private final Map<Item, Result> results;
+
+        private final long elapsed;
+
+        Report(Map<Item, Result> results, long elapsed) {
+            this.results = Collections.unmodifiableMap(results);
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * @return the outcome of each item, in the order of the plan
+         */
+        public Map<Item, Result> getResults() {
+            return results;
+        }
+
+        public Result getResult(Item item) {
+            return results.get(item);
+        }
+
+        /**
+         * @return the number of items with the given outcome
+         */
+        public int getCount(Status status) {
+            int count = 0;
+            for (Result result : results.values()) {
+                if (result.status == status)
+                    count++;
+            }
+            return count;
+        }
+
+        /**
+         * @return true if all the items succeeded
+         */
+        public boolean isSuccessful() {
+            return getCount(Status.SUCCEEDED) == results.size();
+        }
+
+        /**
+         * @return the duration of the whole plan, in milliseconds
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        /**
+         * @return the succeeded items per second
+         */
+        public double getThroughput() {
+            return getCount(Status.SUCCEEDED) * 1000.0 / Math.max(elapsed, 1);
+        }
+
+        @Override
+        public String toString() {
+            return results.size() + " items in " + elapsed + " ms: "
+                    + getCount(Status.SUCCEEDED) + " succeeded, " + getCount(Status.FAILED)
+                    + " failed, " + getCount(Status.SKIPPED) + " skipped ("
+                    + String.format("%.1f", getThroughput()) + " items/s)";
+        }
+    }
+
+    private final GeoServerRESTPublisher publisher;
+
+    private final GeoServerRESTStoreManager storeManager;
+
+    /**
+     * Runs the plans on a dedicated pool of {@link #DEFAULT_THREADS} threads.
+     */
+    public GeoServerRESTBatchPublisher(GeoServerRESTManager manager) {
+        this(manager, DEFAULT_THREADS);
+    }
+
+    /**
+     * Runs the plans on a dedicated pool.
+     * 
+     * @param threads max number of calls in flight
+     */
+    public GeoServerRESTBatchPublisher(GeoServerRESTManager manager, int threads) {
+        this(checkManager(manager).getPublisher(), manager.getStoreManager(), threads);
+    }
+
+    /**
+     * Runs the plans on a dedicated pool.
+     * 
+     * @param publisher the blocking publisher
+     * @param storeManager the store manager, used to create the stores
+     * @param threads max number of calls in flight
+     */
+    public GeoServerRESTBatchPublisher(GeoServerRESTPublisher publisher,
+            GeoServerRESTStoreManager storeManager, int threads) {
+        super(threads);
+        this.publisher = checkPublisher(publisher);
+        this.storeManager = checkStoreManager(storeManager);
+    }
+
+    /**
+     * Runs the plans on the given executor.
+     * 
+     * @param publisher the blocking publisher
+     * @param storeManager the store manager, used to create the stores
+     * @param executor the (possibly shared) executor
+     */
+    public GeoServerRESTBatchPublisher(GeoServerRESTPublisher publisher,
+            GeoServerRESTStoreManager storeManager, ExecutorService executor) {
+        super(executor);
+        this.publisher = checkPublisher(publisher);
+        this.storeManager = checkStoreManager(storeManager);
+    }
+
+    private static GeoServerRESTManager checkManager(GeoServerRESTManager manager) {
+        if (manager == null)
+            throw new IllegalArgumentException("Unable to create the batch publisher using a null manager");
+        return manager;
+    }
+
+    private static GeoServerRESTPublisher checkPublisher(GeoServerRESTPublisher publisher) {
+        if (publisher == null)
+            throw new IllegalArgumentException("Unable to create the batch publisher using a null publisher");
+        return publisher;
+    }
+
+    private static GeoServerRESTStoreManager checkStoreManager(GeoServerRESTStoreManager storeManager) {
+        if (storeManager == null)
+            throw new IllegalArgumentException("Unable to create the batch publisher using a null store manager");
+        return storeManager;
+    }
+
+    /**
+     * @return a new empty plan
+     */
+    public Plan newPlan() {
+        return new Plan();
+    }
+
+    /**
+     * Runs a plan, waiting for all its items to complete.
+     * <P>
+     * If the calling thread is interrupted, the items not started yet are
+     * skipped, the running ones are cancelled and the interrupt status is set
+     * again.
+     * 
+     * @param plan the items to publish
+     * @return the outcome of each item
+     * @throws IllegalArgumentException if the plan is null, contains the same
+     *         item twice or its dependencies form a cycle; nothing is run
+     */
+    public Report execute(Plan plan) throws IllegalArgumentException {
+        if (plan == null)
+            throw new IllegalArgumentException("Null argument");
+        final Map<Item, Set<Item>> dependencies = plan.getDependencies();
+        final List<Item> items = plan.items;
+        final int size = items.size();
+
+        // the graph, by position in the plan
+        final Map<Item, Integer> positions = new HashMap<Item, Integer>();
+        for (int i = 0; i < size; i++) {
+            positions.put(items.get(i), i);
+        }
+        final int[] pending = new int[size];
+        final List<List<Integer>> dependents = new ArrayList<List<Integer>>(size);
+        for (int i = 0; i < size; i++) {
+            dependents.add(new ArrayList<Integer>(2));
+        }
+        for (int i = 0; i < size; i++) {
+            for (Item dependency : dependencies.get(items.get(i))) {
+                final Integer from = positions.get(dependency);
+                if (from == null)
+                    throw new IllegalArgumentException(items.get(i) + " depends on " + dependency
+                            + ", which is not in the plan");
+                dependents.get(from).add(i);
+                pending[i]++;
+            }
+        }
+        checkCycles(items, pending, dependents);
+
+        final long start = System.currentTimeMillis();
+        final Result[] results = new Result[size];
+        final BlockingQueue<Integer> completed = new LinkedBlockingQueue<Integer>();
+        final List<Future<?>> running = new ArrayList<Future<?>>();
+        int done = 0;
+        for (int i = 0; i < size; i++) {
+            if (pending[i] == 0)
+                running.add(start(items.get(i), i, results, completed));
+        }
+        try {
+            while (done < size) {
+                final int i = completed.take();
+                done++;
+                final boolean succeeded = results[i].status == Status.SUCCEEDED;
+                if (LOGGER.isDebugEnabled())
+                    LOGGER.debug(items.get(i) + ": " + results[i]);
+                for (int dependent : dependents.get(i)) {
+                    if (results[dependent] != null)
+                        continue;
+                    if (!succeeded) {
+                        done += skip(dependent, results, dependents);
+                    } else if (--pending[dependent] == 0) {
+                        running.add(start(items.get(dependent), dependent, results, completed));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> future : running) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+        }
+
+        final Map<Item, Result> outcomes = new LinkedHashMap<Item, Result>();
+        for (int i = 0; i < size; i++) {
+            synchronized (results) {
+                outcomes.put(items.get(i), results[i] != null ? results[i] : new Result(
+                        Status.SKIPPED, null, 0));
+            }
+        }
+        final Report report = new Report(outcomes, System.currentTimeMillis() - start);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Batch publishing: " + report);
+        return report;
+    }
+
+    private Future<?> start(final Item item, final int i, final Result[] results,
+            final BlockingQueue<Integer> completed) {
+        return executor.submit(new Callable<Void>() {
+            public Void call() {
+                final long start = System.currentTimeMillis();
+                Result result;
+                try {
+                    result = new Result(item.run(publisher, storeManager) ? Status.SUCCEEDED
+                            : Status.FAILED, null, System.currentTimeMillis() - start);
+                } catch (Exception e) {
+                    LOGGER.warn("Unable to publish " + item + ": " + e.getLocalizedMessage());
+                    result = new Result(Status.FAILED, e, System.currentTimeMillis() - start);
+                }
+                synchronized (results) {
+                    results[i] = result;
+                }
+                completed.add(i);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Skips an item and, recursively, its dependents.
+     * 
+     * @return the number of items skipped
+     */
+    private static int skip(int i, Result[] results, List<List<Integer>> dependents) {
+        synchronized (results) {
+            if (results[i] != null)
+                return 0;
+            results[i] = new Result(Status.SKIPPED, null, 0);
+        }
+        int skipped = 1;
+        for (int dependent : dependents.get(i)) {
+            skipped += skip(dependent, results, dependents);
+        }
+        return skipped;
+    }
+
+    /**
+     * Sorts the items topologically, failing on cycles.
+     */
+    private static void checkCycles(List<Item> items, int[] pending, List<List<Integer>> dependents) {
+        final int[] left = pending.clone();
+        final List<Integer> ready = new ArrayList<Integer>();
+        for (int i = 0; i < left.length; i++) {
+            if (left[i] == 0)
+                ready.add(i);
+        }
+        int sorted = 0;
+        while (!ready.isEmpty()) {
+            final int i = ready.remove(ready.size() - 1);
+            sorted++;
+            for (int dependent : dependents.get(i)) {
+                if (--left[dependent] == 0)
+                    ready.add(dependent);
+            }
+        }
+        if (sorted < left.length) {
+            final List<Item> cycle = new ArrayList<Item>();
+            for (int i = 0; i < left.length; i++) {
+                if (left[i] > 0)
+                    cycle.add(items.get(i));
+            }
+            throw new IllegalArgumentException("Cyclic dependencies among " + cycle);
+        }
+    }
+
+    private static String key(String workspace, String name) {
+        return workspace == null ? name : workspace + ":" + name;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.decoder.RESTCatalogSnapshot;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverage;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageStore;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+import it.geosolutions.geoserver.rest.decoder.RESTResource;
+import it.geosolutions.geoserver.rest.decoder.RESTStyle;
+import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads a {@link RESTCatalogSnapshot}: layers are loaded concurrently, and so
+ * are their resources, stores and styles; items shared by several layers are
+ * requested once. Stores and styles can be skipped when only the resources are
+ * needed.
+ */
+class GeoServerRESTCatalogCrawler {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTCatalogCrawler.class);
+
+    private final GeoServerRESTReader reader;
+
+    private final String workspace;
+
+    private final ExecutorService executor;
+
+    private final boolean resourcesOnly;
+
+    private final RESTCatalogSnapshot.Builder snapshot = new RESTCatalogSnapshot.Builder();
+
+    /** Fetches in progress or completed, by URL or qualified name */
+    private final ConcurrentMap<String, FutureTask<Object>> fetches = new ConcurrentHashMap<String, FutureTask<Object>>();
+
+    /**
+     * @param workspace the workspace to load, null for the whole catalog
+     * @param resourcesOnly if true, stores and styles are not loaded
+     */
+    GeoServerRESTCatalogCrawler(GeoServerRESTReader reader, String workspace,
+            ExecutorService executor, boolean resourcesOnly) {
+        this.reader = reader;
+        this.workspace = workspace;
+        this.executor = executor;
+        this.resourcesOnly = resourcesOnly;
+    }
+
+    /**
+     * @return the snapshot, or null if the layers cannot be listed
+     * @throws RuntimeException if any of the requests fails
+     */
+    RESTCatalogSnapshot crawl() throws RuntimeException {
+        final RESTLayerList layers = reader.getLayers();
+        if (layers == null)
+            return null;
+        return crawl(layers.getNames());
+    }
+
+    /**
+     * Loads the given layers only; the ones which are missing are listed as
+     * failures.
+     * 
+     * @param layerNames the layer names, qualified by their workspace
+     * @return the snapshot
+     * @throws RuntimeException if any of the requests fails
+     */
+    RESTCatalogSnapshot crawl(Collection<String> layerNames) throws RuntimeException {
+        final List<Future<?>> pending = new ArrayList<Future<?>>();
+        try {
+            for (final String qualified : layerNames) {
+                final int sep = qualified.indexOf(':');
+                final String ws = sep < 0 ? null : qualified.substring(0, sep);
+                if (workspace != null && ws != null && !workspace.equals(ws))
+                    continue;
+                final String name = qualified.substring(sep + 1);
+                pending.add(executor.submit(new Runnable() {
+                    public void run() {
+                        crawlLayer(ws, name);
+                    }
+                }));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            for (Future<?> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return snapshot.build();
+    }
+
+    private void crawlLayer(String ws, String name) {
+        final RESTLayer layer = ws == null ? getUnqualifiedLayer(name) : reader.getLayer(ws, name);
+        if (layer == null) {
+            snapshot.addFailure("layer " + (ws == null ? name : ws + ":" + name));
+            return;
+        }
+        final RESTResource resource = loadResource(layer);
+        if (ws == null) {
+            // unqualified name, as returned by old GeoServer versions
+            ws = resource == null ? null : resource.getNameSpace();
+            if (ws == null) {
+                snapshot.addFailure("layer " + name);
+                return;
+            }
+            if (workspace != null && !workspace.equals(ws))
+                return;
+        }
+        snapshot.addLayer(ws, name, layer, resource);
+        if (resourcesOnly)
+            return;
+        if (resource != null)
+            loadStore(ws, resource);
+
+        if (layer.getDefaultStyle() != null)
+            loadStyle(layer.getDefaultStyleWorkspace(), layer.getDefaultStyle());
+        final RESTStyleList styles = layer.getStyles();
+        if (styles != null) {
+            for (String style : styles.getNames()) {
+                loadStyle(null, style);
+            }
+        }
+    }
+
+    /**
+     * Old GeoServer versions list the layers without their workspace, which
+     * only the deprecated {@link GeoServerRESTReader#getLayer(String)} can
+     * load: {@link GeoServerRESTReader#getLayer(String, String)} requires it.
+     */
+    @SuppressWarnings("deprecation")
+    private RESTLayer getUnqualifiedLayer(String name) {
+        return reader.getLayer(name);
+    }
+
+    private RESTResource loadResource(final RESTLayer layer) {
+        final String url = layer.getResourceUrl();
+        final RESTResource resource = (RESTResource) once(url, new Callable<Object>() {
+            public Object call() {
+                switch (layer.getType()) {
+                case VECTOR:
+                    return reader.getFeatureType(layer);
+                case RASTER:
+                    return reader.getCoverage(layer);
+                default:
+                    return reader.getResource(layer);
+                }
+            }
+        });
+        if (resource == null)
+            snapshot.addFailure("resource " + url);
+        return resource;
+    }
+
+    private void loadStore(final String ws, final RESTResource resource) {
+        final String url = resource.getStoreUrl();
+        if (url == null)
+            return;
+        once(url, new Callable<Object>() {
+            public Object call() {
+                if (resource instanceof RESTFeatureType) {
+                    RESTDataStore store = reader.getDatastore((RESTFeatureType) resource);
+                    if (store != null)
+                        snapshot.addDataStore(ws, store);
+                    else
+                        snapshot.addFailure("store " + url);
+                    return store;
+                } else if (resource instanceof RESTCoverage) {
+                    RESTCoverageStore store = reader.getCoverageStore((RESTCoverage) resource);
+                    if (store != null)
+                        snapshot.addCoverageStore(ws, store);
+                    else
+                        snapshot.addFailure("store " + url);
+                    return store;
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @param ws the workspace of the style, null if global or if the name is qualified
+     */
+    private void loadStyle(String ws, String name) {
+        final int sep = name.indexOf(':');
+        if (sep >= 0) {
+            ws = name.substring(0, sep);
+            name = name.substring(sep + 1);
+        }
+        final String styleWs = ws;
+        final String styleName = name;
+        final String key = "style " + (ws == null ? name : ws + ":" + name);
+        once(key, new Callable<Object>() {
+            public Object call() {
+                RESTStyle style = styleWs == null ? reader.getStyle(styleName) : reader.getStyle(
+                        styleWs, styleName);
+                if (style != null)
+                    snapshot.addStyle(styleWs, styleName, style);
+                else
+                    snapshot.addFailure(key);
+                return style;
+            }
+        });
+    }
+
+    /**
+     * Runs the fetch in the calling thread, unless another thread already
+     * started it: in that case, waits for its outcome.
+     */
+    private Object once(String key, Callable<Object> fetch) {
+        final FutureTask<Object> task = new FutureTask<Object>(fetch);
+        FutureTask<Object> existing = fetches.putIfAbsent(key, task);
+        if (existing == null) {
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Loading " + key);
+            task.run();
+            existing = task;
+        }
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+}
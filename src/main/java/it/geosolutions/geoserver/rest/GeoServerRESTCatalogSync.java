@@ -0,0 +1,723 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.StoreType;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import it.geosolutions.geoserver.rest.encoder.GSAbstractStoreEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSResourceEncoder;
+import it.geosolutions.geoserver.rest.encoder.utils.ElementDiff;
+import it.geosolutions.geoserver.rest.manager.GeoServerRESTStoreManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.jdom.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Brings the catalog to a desired state with the fewest write requests.
+ * <P>
+ * The desired state is described with the same encoders used to publish:
+ * each item is loaded from GeoServer and compared with its encoder (see
+ * {@link ElementDiff}); missing items are created, differing ones are
+ * configured again and matching ones are left alone. Passwords are not
+ * compared, since GeoServer returns them encrypted: changing only a password
+ * does not trigger an update. The items of the
+ * workspaces declared with {@link DesiredState#prune(String)} which are not
+ * in the desired state are removed. The items are loaded concurrently, so that
+ * a deploy costs a round of reads plus one write per actual change.
+ * <P>
+ * {@link #diff(DesiredState)} only computes the changes, which
+ * {@link #sync(DesiredState)} then applies: stores, resources, layers and
+ * layer groups are created and configured in this order, then the removed
+ * layer groups, resources and stores are deleted in the reverse order. The
+ * changes of a step are applied concurrently.
+ */
+public class GeoServerRESTCatalogSync extends GeoServerRESTAbstractAsync {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTCatalogSync.class);
+
+    /** The write-only parameters, which GeoServer returns encrypted. */
+    private static final Set<String> WRITE_ONLY = Collections.unmodifiableSet(
+            new HashSet<String>(Arrays.asList("passwd", "password")));
+
+    /**
+     * The kinds of items, in the order they are created.
+     */
+    public enum Kind {
+        STORE, RESOURCE, LAYER, LAYER_GROUP
+    }
+
+    /**
+     * The requests a change is applied with.
+     */
+    public enum Action {
+        /** POST of the encoder */
+        CREATE,
+        /** PUT of the encoder */
+        UPDATE,
+        /** DELETE of the item; resources are deleted along with their layer */
+        DELETE
+    }
+
+    /**
+     * An item of the desired state.
+     */
+    private static class Item {
+
+        final Kind kind;
+
+        final String workspace;
+
+        final StoreType storeType;
+
+        /** The store of a resource */
+        final String store;
+
+        final String name;
+
+        final Object encoder;
+
+        Item(Kind kind, String workspace, StoreType storeType, String store, String name,
+                Object encoder) {
+            this.kind = kind;
+            this.workspace = workspace;
+            this.storeType = storeType;
+            this.store = store;
+            this.name = name;
+            this.encoder = encoder;
+        }
+
+        String getKey() {
+            return kind + " " + (workspace == null ? "" : workspace + ":")
+                    + (store == null ? "" : store + "/") + name;
+        }
+    }
+
+    /**
+     * The desired state of (part of) the catalog; not thread-safe.
+     */
+    public static class DesiredState {
+
+        private final Map<String, Item> items = new LinkedHashMap<String, Item>();
+
+        private final Set<String> pruned = new LinkedHashSet<String>();
+
+        private void add(Item item) {
+            if (items.put(item.getKey(), item) != null)
+                throw new IllegalArgumentException("Duplicate item: " + item.getKey());
+        }
+
+        /**
+         * @param workspace the workspace of the store
+         * @param store the store, with its name and type
+         */
+        public DesiredState addStore(String workspace, GSAbstractStoreEncoder store) {
+            checkName(workspace);
+            if (store == null)
+                throw new IllegalArgumentException("Null argument");
+            checkName(store.getName());
+            add(new Item(Kind.STORE, workspace, store.getStoreType(), null, store.getName(), store));
+            return this;
+        }
+
+        /**
+         * @param workspace the workspace of the store
+         * @param storeType the type of the store
+         * @param store the store of the resource
+         * @param resource a feature type or coverage encoder, with its name
+         */
+        public DesiredState addResource(String workspace, StoreType storeType, String store,
+                GSResourceEncoder resource) {
+            checkName(workspace);
+            checkName(store);
+            if (storeType == null || resource == null)
+                throw new IllegalArgumentException("Null argument");
+            checkName(resource.getName());
+            add(new Item(Kind.RESOURCE, workspace, storeType, store, resource.getName(), resource));
+            return this;
+        }
+
+        /**
+         * @param workspace the workspace of the layer
+         * @param resourceName the name of the layer
+         * @param layer the configuration of the layer
+         */
+        public DesiredState addLayer(String workspace, String resourceName, GSLayerEncoder layer) {
+            checkName(workspace);
+            checkName(resourceName);
+            if (layer == null)
+                throw new IllegalArgumentException("Null argument");
+            add(new Item(Kind.LAYER, workspace, null, null, resourceName, layer));
+            return this;
+        }
+
+        /**
+         * @param workspace the workspace of the group, or null for a global
+         *        group
+         * @param name the name of the group
+         * @param group the configuration of the group
+         */
+        public DesiredState addLayerGroup(String workspace, String name, GSLayerGroupEncoder group) {
+            checkName(name);
+            if (group == null)
+                throw new IllegalArgumentException("Null argument");
+            add(new Item(Kind.LAYER_GROUP, workspace, null, null, name, group));
+            return this;
+        }
+
+        /**
+         * Declares that the desired state describes the whole workspace: its
+         * stores, the resources of these stores and its layer groups which are
+         * not in the desired state are removed.
+         */
+        public DesiredState prune(String workspace) {
+            checkName(workspace);
+            pruned.add(workspace);
+            return this;
+        }
+
+        private static void checkName(String name) {
+            if (name == null || name.isEmpty())
+                throw new IllegalArgumentException("Null or empty name");
+        }
+    }
+
+    /**
+     * A write request needed to reach the desired state.
+     */
+    public static class Change {
+
+        private final Action action;
+
+        private final Kind kind;
+
+        private final String workspace;
+
+        private final StoreType storeType;
+
+        private final String store;
+
+        private final String name;
+
+        private final List<String> differences;
+
+        private final Object encoder;
+
+        Change(Action action, Item item, List<String> differences) {
+            this(action, item.kind, item.workspace, item.storeType, item.store, item.name,
+                    differences, item.encoder);
+        }
+
+        Change(Action action, Kind kind, String workspace, StoreType storeType, String store,
+                String name, List<String> differences, Object encoder) {
+            this.action = action;
+            this.kind = kind;
+            this.workspace = workspace;
+            this.storeType = storeType;
+            this.store = store;
+            this.name = name;
+            this.differences = Collections.unmodifiableList(differences);
+            this.encoder = encoder;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the workspace, or null for a global layer group
+         */
+        public String getWorkspace() {
+            return workspace;
+        }
+
+        /**
+         * @return the type of a store or of the store of a resource, or null
+         */
+        public StoreType getStoreType() {
+            return storeType;
+        }
+
+        /**
+         * @return the store of a resource, or null
+         */
+        public String getStore() {
+            return store;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the paths of the desired elements GeoServer does not match,
+         *         for updates
+         */
+        public List<String> getDifferences() {
+            return differences;
+        }
+
+        @Override
+        public String toString() {
+            return action + " " + kind + " " + (workspace == null ? "" : workspace + ":")
+                    + (store == null ? "" : store + "/") + name
+                    + (differences.isEmpty() ? "" : " " + differences);
+        }
+    }
+
+    /**
+     * The outcome of a synchronization.
+     */
+    public static class Report {
+
+        private final Map<Change, Boolean> outcomes;
+
+        private final int unchanged;
+
+        private final long elapsed;
+
+        Report(Map<Change, Boolean> outcomes, int unchanged, long elapsed) {
+            this.outcomes = Collections.unmodifiableMap(outcomes);
+            this.unchanged = unchanged;
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * @return the outcome of each change, in the order they were applied
+         */
+        public Map<Change, Boolean> getOutcomes() {
+            return outcomes;
+        }
+
+        /**
+         * @return the changes which failed
+         */
+        public List<Change> getFailures() {
+            final List<Change> failures = new ArrayList<Change>();
+            for (Map.Entry<Change, Boolean> outcome : outcomes.entrySet()) {
+                if (!outcome.getValue())
+                    failures.add(outcome.getKey());
+            }
+            return failures;
+        }
+
+        /**
+         * @return true if all the changes succeeded
+         */
+        public boolean isSuccessful() {
+            return !outcomes.containsValue(Boolean.FALSE);
+        }
+
+        /**
+         * @return the number of desired items already matching
+         */
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * @return the duration of the synchronization, in milliseconds
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return outcomes.size() + " changes (" + getFailures().size() + " failed), "
+                    + unchanged + " unchanged, in " + elapsed + " ms";
+        }
+    }
+
+    private final GeoServerRESTReader reader;
+
+    private final GeoServerRESTPublisher publisher;
+
+    private final GeoServerRESTStoreManager storeManager;
+
+    /**
+     * Loads the items on a dedicated pool of {@link #DEFAULT_THREADS} threads.
+     */
+    public GeoServerRESTCatalogSync(GeoServerRESTManager manager) {
+        this(manager, DEFAULT_THREADS);
+    }
+
+    /**
+     * Loads the items on a dedicated pool.
+     * 
+     * @param threads max number of requests in flight
+     */
+    public GeoServerRESTCatalogSync(GeoServerRESTManager manager, int threads) {
+        this(checkManager(manager).getReader(), manager.getPublisher(), manager.getStoreManager(),
+                threads);
+    }
+
+    /**
+     * Loads the items on a dedicated pool.
+     * 
+     * @param threads max number of requests in flight
+     */
+    public GeoServerRESTCatalogSync(GeoServerRESTReader reader, GeoServerRESTPublisher publisher,
+            GeoServerRESTStoreManager storeManager, int threads) {
+        super(threads);
+        this.reader = check(reader);
+        this.publisher = check(publisher);
+        this.storeManager = check(storeManager);
+    }
+
+    /**
+     * Loads the items on the given executor.
+     * 
+     * @param executor the (possibly shared) executor
+     */
+    public GeoServerRESTCatalogSync(GeoServerRESTReader reader, GeoServerRESTPublisher publisher,
+            GeoServerRESTStoreManager storeManager, ExecutorService executor) {
+        super(executor);
+        this.reader = check(reader);
+        this.publisher = check(publisher);
+        this.storeManager = check(storeManager);
+    }
+
+    private static GeoServerRESTManager checkManager(GeoServerRESTManager manager) {
+        if (manager == null)
+            throw new IllegalArgumentException("Unable to create the catalog sync using a null manager");
+        return manager;
+    }
+
+    private static <T> T check(T argument) {
+        if (argument == null)
+            throw new IllegalArgumentException("Null argument");
+        return argument;
+    }
+
+    /**
+     * @return a new empty desired state
+     */
+    public DesiredState newDesiredState() {
+        return new DesiredState();
+    }
+
+    /**
+     * Computes the changes needed to reach the desired state, without applying
+     * them.
+     * 
+     * @return the changes, in the order they would be applied
+     * @throws IllegalArgumentException if the state is null
+     * @throws RuntimeException if some item cannot be loaded
+     */
+    public List<Change> diff(DesiredState state) throws IllegalArgumentException, RuntimeException {
+        return diff(state, null);
+    }
+
+    /**
+     * Applies the changes needed to reach the desired state.
+     * <P>
+     * A failed change does not stop the others; note that the changes
+     * depending on it, such as the resources of a store which could not be
+     * created, are likely to fail too.
+     * 
+     * @return the outcome of each change
+     * @throws IllegalArgumentException if the state is null
+     * @throws RuntimeException if some item cannot be loaded, in which case
+     *         no change is applied
+     */
+    public Report sync(DesiredState state) throws IllegalArgumentException, RuntimeException {
+        final long start = System.currentTimeMillis();
+        final int[] unchanged = new int[1];
+        final List<Change> changes = diff(state, unchanged);
+
+        final Map<Change, Boolean> outcomes = new LinkedHashMap<Change, Boolean>();
+        List<Change> step = new ArrayList<Change>();
+        for (Change change : changes) {
+            if (!step.isEmpty() && !sameStep(step.get(0), change)) {
+                apply(step, outcomes);
+                step = new ArrayList<Change>();
+            }
+            step.add(change);
+        }
+        apply(step, outcomes);
+
+        final Report report = new Report(outcomes, unchanged[0], System.currentTimeMillis() - start);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Catalog sync: " + report);
+        return report;
+    }
+
+    private static boolean sameStep(Change a, Change b) {
+        return a.kind == b.kind && (a.action == Action.DELETE) == (b.action == Action.DELETE);
+    }
+
+    /**
+     * @param unchanged where to store the number of matching items, or null
+     */
+    private List<Change> diff(final DesiredState state, int[] unchanged) throws IllegalArgumentException,
+            RuntimeException {
+        if (state == null)
+            throw new IllegalArgumentException("Null argument");
+
+        final List<Future<Change>> compared = new ArrayList<Future<Change>>();
+        final List<Future<List<Change>>> pruned = new ArrayList<Future<List<Change>>>();
+        final List<Change> changes = new ArrayList<Change>();
+        try {
+            for (final Item item : state.items.values()) {
+                compared.add(executor.submit(new Callable<Change>() {
+                    public Change call() {
+                        return compare(item);
+                    }
+                }));
+            }
+            for (final String workspace : state.pruned) {
+                pruned.add(executor.submit(new Callable<List<Change>>() {
+                    public List<Change> call() {
+                        return prune(workspace, state);
+                    }
+                }));
+            }
+
+            int matching = 0;
+            for (Future<Change> future : compared) {
+                final Change change = future.get();
+                if (change == null)
+                    matching++;
+                else
+                    changes.add(change);
+            }
+            for (Future<List<Change>> future : pruned) {
+                changes.addAll(future.get());
+            }
+            if (unchanged != null)
+                unchanged[0] = matching;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            for (Future<?> future : compared) {
+                future.cancel(true);
+            }
+            for (Future<?> future : pruned) {
+                future.cancel(true);
+            }
+        }
+
+        // creations and updates by kind, then deletions by reverse kind
+        final List<Change> sorted = new ArrayList<Change>(changes.size());
+        for (Kind kind : Kind.values()) {
+            for (Change change : changes) {
+                if (change.kind == kind && change.action != Action.DELETE)
+                    sorted.add(change);
+            }
+        }
+        for (int k = Kind.values().length - 1; k >= 0; k--) {
+            for (Change change : changes) {
+                if (change.kind == Kind.values()[k] && change.action == Action.DELETE)
+                    sorted.add(change);
+            }
+        }
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Catalog changes: " + sorted);
+        return sorted;
+    }
+
+    /**
+     * @return the change needed by the item, or null if it matches
+     */
+    private Change compare(Item item) {
+        final Element desired;
+        switch (item.kind) {
+        case LAYER_GROUP:
+            // the group encoder completes its element when serialized only
+            desired = JDOMBuilder.buildElement(item.encoder.toString());
+            break;
+        case STORE:
+            desired = ((GSAbstractStoreEncoder) item.encoder).getRoot();
+            break;
+        case RESOURCE:
+            desired = ((GSResourceEncoder) item.encoder).getRoot();
+            break;
+        default:
+            desired = ((GSLayerEncoder) item.encoder).getRoot();
+            break;
+        }
+
+        final Element current = reader.loadElement(path(item));
+        if (current == null) {
+            // layers are created along with their resource, and configured later
+            return new Change(item.kind == Kind.LAYER ? Action.UPDATE : Action.CREATE, item,
+                    item.kind == Kind.LAYER ? Collections.singletonList(desired.getName())
+                            : Collections.<String> emptyList());
+        }
+        final List<String> differences = ElementDiff.diff(desired, current, WRITE_ONLY);
+        return differences.isEmpty() ? null : new Change(Action.UPDATE, item, differences);
+    }
+
+    private static String path(Item item) {
+        final String ws = "/rest/workspaces/" + item.workspace;
+        switch (item.kind) {
+        case STORE:
+            return ws + "/" + item.storeType + "/" + item.name + ".xml";
+        case RESOURCE:
+            return ws + "/" + item.storeType + "/" + item.store + "/"
+                    + item.storeType.getTypeName().toLowerCase() + "/" + item.name + ".xml";
+        case LAYER:
+            return "/rest/layers/" + item.workspace + ":" + item.name + ".xml";
+        default:
+            return (item.workspace == null ? "/rest" : ws) + "/layergroups/" + item.name + ".xml";
+        }
+    }
+
+    /**
+     * @return the deletions of the items of the workspace which are not in
+     *         the desired state
+     */
+    private List<Change> prune(String workspace, DesiredState state) {
+        final List<Change> deletions = new ArrayList<Change>();
+        final String ws = "/rest/workspaces/" + workspace;
+        for (StoreType type : StoreType.values()) {
+            for (String store : reader.loadNames(ws + "/" + type + ".xml")) {
+                final Item desired = state.items.get(new Item(Kind.STORE, workspace, type, null,
+                        store, null).getKey());
+                if (desired == null) {
+                    // removed recursively, along with its resources
+                    deletions.add(new Change(Action.DELETE, Kind.STORE, workspace, type, null,
+                            store, Collections.<String> emptyList(), null));
+                    continue;
+                }
+                for (String resource : reader.loadNames(ws + "/" + type + "/" + store + "/"
+                        + type.getTypeNameWithFormat(GeoServerRESTPublisher.Format.XML))) {
+                    if (!state.items.containsKey(new Item(Kind.RESOURCE, workspace, type, store,
+                            resource, null).getKey()))
+                        deletions.add(new Change(Action.DELETE, Kind.RESOURCE, workspace, type,
+                                store, resource, Collections.<String> emptyList(), null));
+                }
+            }
+        }
+        for (String group : reader.loadNames(ws + "/layergroups.xml")) {
+            if (!state.items.containsKey(new Item(Kind.LAYER_GROUP, workspace, null, null, group,
+                    null).getKey()))
+                deletions.add(new Change(Action.DELETE, Kind.LAYER_GROUP, workspace, null, null,
+                        group, Collections.<String> emptyList(), null));
+        }
+        return deletions;
+    }
+
+    /**
+     * Applies the changes concurrently, adding their outcome.
+     */
+    private void apply(List<Change> changes, Map<Change, Boolean> outcomes) {
+        final List<Future<Boolean>> applied = new ArrayList<Future<Boolean>>(changes.size());
+        for (final Change change : changes) {
+            applied.add(executor.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    try {
+                        return apply(change);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Unable to apply " + change + ": " + e.getLocalizedMessage());
+                        return false;
+                    }
+                }
+            }));
+        }
+        try {
+            for (int i = 0; i < changes.size(); i++) {
+                outcomes.put(changes.get(i), applied.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> future : applied) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private boolean apply(Change change) {
+        final String ws = change.workspace;
+        switch (change.kind) {
+        case STORE:
+            switch (change.action) {
+            case CREATE:
+                return storeManager.create(ws, (GSAbstractStoreEncoder) change.encoder);
+            case UPDATE:
+                return storeManager.update(ws, (GSAbstractStoreEncoder) change.encoder);
+            default:
+                return publisher.removeStore(ws, change.name, change.storeType, true,
+                        GeoServerRESTPublisher.Purge.NONE);
+            }
+        case RESOURCE:
+            switch (change.action) {
+            case CREATE:
+                return publisher.createResource(ws, change.storeType, change.store,
+                        (GSResourceEncoder) change.encoder);
+            case UPDATE:
+                return publisher.configureResource(ws, change.storeType, change.store,
+                        (GSResourceEncoder) change.encoder);
+            default:
+                return change.storeType == StoreType.DATASTORES ? publisher.unpublishFeatureType(
+                        ws, change.store, change.name) : publisher.unpublishCoverage(ws,
+                        change.store, change.name);
+            }
+        case LAYER:
+            return publisher.configureLayer(ws, change.name, (GSLayerEncoder) change.encoder);
+        default:
+            switch (change.action) {
+            case CREATE:
+                return publisher.createLayerGroup(ws, change.name,
+                        (GSLayerGroupEncoder) change.encoder);
+            case UPDATE:
+                return publisher.configureLayerGroup(ws, change.name,
+                        (GSLayerGroupEncoder) change.encoder);
+            default:
+                return publisher.removeLayerGroup(ws, change.name);
+            }
+        }
+    }
+}
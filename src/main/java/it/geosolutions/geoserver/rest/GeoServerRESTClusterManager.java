@@ -0,0 +1,500 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point to a cluster of GeoServer nodes sharing the same data directory.
+ * <P>
+ * One {@link GeoServerRESTManager} is created for each node, all sharing the
+ * same pooled {@link HTTPTransport}. The first node is the <i>primary</i>:
+ * catalog changes are sent to it through {@link #getPublisher()}, and can then
+ * be propagated to the other nodes using {@link #reloadAll()}.
+ * <P>
+ * Reads are spread on the healthy nodes using
+ * {@link #read(ReadOperation)}: each operation goes to the node with the
+ * least outstanding requests, and moves to another node if the selected one
+ * cannot be reached. The health of a node is probed with
+ * {@link GeoServerRESTReader#existGeoserver()}, in background, whenever the
+ * last probe is older than the health check interval. The health is kept
+ * by the GeoServer URL of each node, so that two nodes deployed on the same
+ * <TT>host:port</TT> under different context paths are told apart; the
+ * requests rejected by an open circuit (see
+ * {@link HTTPTransportPolicy#setCircuitBreaker(HTTPCircuitBreaker)}) are
+ * failures of the node they were sent to. When no node is healthy, reads go
+ * to the least loaded node anyway.
+ * <P>
+ * Instances are thread-safe.
+ */
+public class GeoServerRESTClusterManager {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTClusterManager.class);
+
+    /** Default time after which the health of a node is probed again, in milliseconds. */
+    public static final long DEFAULT_HEALTH_CHECK_INTERVAL = 10000;
+
+    /**
+     * A read operation, run against the reader of the selected node.
+     */
+    public interface ReadOperation<T> {
+
+        /**
+         * @param reader the reader of the selected node
+         * @return the result of the operation
+         */
+        T read(GeoServerRESTReader reader);
+    }
+
+    private static final class Node {
+        final URL url;
+
+        /** the GeoServer URL, without the trailing slash */
+        final String base;
+
+        final GeoServerRESTManager manager;
+
+        final AtomicInteger outstanding = new AtomicInteger();
+
+        final AtomicBoolean probing = new AtomicBoolean();
+
+        /** the requests which could not reach the node */
+        final AtomicInteger failures = new AtomicInteger();
+
+        volatile boolean healthy = true;
+
+        volatile long lastProbe;
+
+        Node(URL url, GeoServerRESTManager manager) {
+            this.url = url;
+            this.manager = manager;
+            this.base = HTTPUtils.decurtSlash(url.toExternalForm());
+            this.lastProbe = System.currentTimeMillis();
+        }
+
+        /**
+         * @return true if the request URL targets this node
+         */
+        boolean targets(String requestUrl) {
+            return requestUrl.startsWith(base)
+                    && (requestUrl.length() == base.length() || requestUrl.charAt(base.length()) == '/');
+        }
+    }
+
+    private final List<Node> nodes;
+
+    private final HTTPTransport transport;
+
+    private final boolean ownTransport;
+
+    private final ExecutorService executor;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final HTTPTransport.FailureListener failureListener = new HTTPTransport.FailureListener() {
+        public void failed(String hostPort, String url, IOException cause) {
+            for (Node node : nodes) {
+                if (node.targets(url))
+                    node.failures.incrementAndGet();
+            }
+        }
+    };
+
+    private volatile long healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+
+    /**
+     * Creates a cluster manager using a dedicated pooled transport.
+     * 
+     * @param nodes the GeoServer URLs of the nodes, the primary first
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @throws IllegalArgumentException if no node is given
+     */
+    public GeoServerRESTClusterManager(List<URL> nodes, String username, String password)
+            throws IllegalArgumentException {
+        this(nodes, username, password, new HTTPTransport(), true);
+    }
+
+    /**
+     * Creates a cluster manager using a dedicated pooled transport applying
+     * the given policy.
+     * 
+     * @param nodes the GeoServer URLs of the nodes, the primary first
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @param policy the transport policy
+     * @throws IllegalArgumentException if no node is given or the policy is null
+     */
+    public GeoServerRESTClusterManager(List<URL> nodes, String username, String password,
+            HTTPTransportPolicy policy) throws IllegalArgumentException {
+        this(nodes, username, password, new HTTPTransport(policy), true);
+    }
+
+    /**
+     * Creates a cluster manager using the given transport.
+     * 
+     * @param nodes the GeoServer URLs of the nodes, the primary first
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @param transport the HTTP transport, which is not shut down by {@link #shutdown()}
+     * @throws IllegalArgumentException if no node is given or the transport is null
+     */
+    public GeoServerRESTClusterManager(List<URL> nodes, String username, String password,
+            HTTPTransport transport) throws IllegalArgumentException {
+        this(nodes, username, password, transport, false);
+    }
+
+    private GeoServerRESTClusterManager(List<URL> urls, String username, String password,
+            HTTPTransport transport, boolean ownTransport) {
+        if (urls == null || urls.isEmpty())
+            throw new IllegalArgumentException("Unable to create the cluster manager without nodes");
+        if (transport == null)
+            throw new IllegalArgumentException("Unable to create the cluster manager using a null transport");
+        this.transport = transport;
+        this.ownTransport = ownTransport;
+        final List<Node> list = new ArrayList<Node>(urls.size());
+        for (URL url : urls) {
+            list.add(new Node(url, new GeoServerRESTManager(url, username, password, transport)));
+        }
+        this.nodes = Collections.unmodifiableList(list);
+        this.executor = GeoServerRESTAbstractAsync.newExecutor(list.size());
+        transport.addFailureListener(failureListener);
+    }
+
+    /**
+     * @return the URLs of the nodes, the primary first
+     */
+    public List<URL> getNodes() {
+        final List<URL> urls = new ArrayList<URL>(nodes.size());
+        for (Node node : nodes) {
+            urls.add(node.url);
+        }
+        return urls;
+    }
+
+    /**
+     * @return the manager of the primary node
+     */
+    public GeoServerRESTManager getPrimary() {
+        return nodes.get(0).manager;
+    }
+
+    /**
+     * @return the publisher of the primary node, where catalog changes are sent
+     */
+    public GeoServerRESTPublisher getPublisher() {
+        return getPrimary().getPublisher();
+    }
+
+    /**
+     * @param url the URL of a node
+     * @return the manager of the node, or null if it is not part of the cluster
+     */
+    public GeoServerRESTManager getManager(URL url) {
+        final Node node = find(url);
+        return node == null ? null : node.manager;
+    }
+
+    /**
+     * @return the HTTP transport shared by the nodes
+     */
+    public HTTPTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Runs a read operation on the healthy node with the least outstanding
+     * requests. If the operation fails with an exception, or any of its
+     * requests could not reach the node (the reader would take it for a
+     * missing resource), the node is marked unhealthy and the operation is run
+     * once more on another node.
+     * 
+     * @param operation the operation
+     * @return the result of the operation
+     * @throws RuntimeException if the operation fails on the other node too,
+     *         or there is no other node
+     */
+    public <T> T read(ReadOperation<T> operation) {
+        Node node = select(null);
+        try {
+            return read(node, operation);
+        } catch (RuntimeException e) {
+            setHealthy(node, false);
+            final Node other = select(node);
+            if (other == node)
+                throw e;
+            LOGGER.warn("Read failed on " + node.url + ", retrying on " + other.url + ": "
+                    + e.getLocalizedMessage());
+            return read(other, operation);
+        }
+    }
+
+    private <T> T read(Node node, ReadOperation<T> operation) {
+        node.outstanding.incrementAndGet();
+        try {
+            final int failures = node.failures.get();
+            final T result = operation.read(node.manager.getReader());
+            if (node.failures.get() != failures)
+                throw new RuntimeException("Unable to reach the GeoServer node " + node.url);
+            return result;
+        } finally {
+            node.outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the reader of the healthy node with the least outstanding
+     * requests. The calls performed on the returned reader are not counted as
+     * outstanding: prefer {@link #read(ReadOperation)}.
+     * 
+     * @return the reader of the selected node
+     */
+    public GeoServerRESTReader getReader() {
+        return select(null).manager.getReader();
+    }
+
+    /**
+     * Selects the healthy node with the least outstanding requests, rotating
+     * among the equally loaded ones.
+     * 
+     * @param exclude a node to skip, if possible
+     */
+    private Node select(Node exclude) {
+        final int size = nodes.size();
+        final int start = (next.getAndIncrement() & Integer.MAX_VALUE) % size;
+        Node best = null;
+        Node fallback = null;
+        for (int i = 0; i < size; i++) {
+            final Node node = nodes.get((start + i) % size);
+            if (node == exclude)
+                continue;
+            if (isHealthy(node)) {
+                if (best == null || node.outstanding.get() < best.outstanding.get())
+                    best = node;
+            } else if (fallback == null || node.outstanding.get() < fallback.outstanding.get()) {
+                fallback = node;
+            }
+        }
+        if (best != null)
+            return best;
+        if (fallback != null) {
+            LOGGER.warn("No healthy GeoServer node available, using " + fallback.url);
+            return fallback;
+        }
+        return exclude;
+    }
+
+    private boolean isHealthy(Node node) {
+        if (System.currentTimeMillis() - node.lastProbe >= healthCheckInterval)
+            probeLater(node);
+        return node.healthy;
+    }
+
+    private void probeLater(final Node node) {
+        if (!node.probing.compareAndSet(false, true))
+            return;
+        try {
+            executor.submit(new Runnable() {
+                public void run() {
+                    try {
+                        probe(node);
+                    } finally {
+                        node.probing.set(false);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // executor shut down
+            node.probing.set(false);
+        }
+    }
+
+    private boolean probe(Node node) {
+        boolean healthy;
+        try {
+            healthy = node.manager.getReader().existGeoserver();
+        } catch (RuntimeException e) {
+            healthy = false;
+        }
+        setHealthy(node, healthy);
+        return healthy;
+    }
+
+    private void setHealthy(Node node, boolean healthy) {
+        node.lastProbe = System.currentTimeMillis();
+        if (node.healthy != healthy) {
+            node.healthy = healthy;
+            if (healthy)
+                LOGGER.info("GeoServer node " + node.url + " is back");
+            else
+                LOGGER.warn("GeoServer node " + node.url + " is unhealthy");
+        }
+    }
+
+    /**
+     * Probes the health of all the nodes in parallel.
+     * 
+     * @return the health of each node
+     */
+    public Map<URL, Boolean> checkHealth() {
+        return fanOut(new NodeOperation() {
+            public boolean run(Node node) {
+                return probe(node);
+            }
+        });
+    }
+
+    /**
+     * @param url the URL of a node
+     * @return true if the node is considered healthy
+     * @throws IllegalArgumentException if the node is not part of the cluster
+     */
+    public boolean isHealthy(URL url) throws IllegalArgumentException {
+        return isHealthy(check(url));
+    }
+
+    /**
+     * @param url the URL of a node
+     * @return the number of reads in progress on the node
+     * @throws IllegalArgumentException if the node is not part of the cluster
+     */
+    public int getOutstanding(URL url) throws IllegalArgumentException {
+        return check(url).outstanding.get();
+    }
+
+    /**
+     * Reloads the catalog and configuration of all the nodes in parallel, i.e.
+     * to make them pick up the changes sent to the primary.
+     * 
+     * @return the outcome on each node
+     */
+    public Map<URL, Boolean> reloadAll() {
+        return fanOut(new NodeOperation() {
+            public boolean run(Node node) {
+                return node.manager.getPublisher().reload();
+            }
+        });
+    }
+
+    /**
+     * Resets the caches of all the nodes in parallel.
+     * 
+     * @return the outcome on each node
+     */
+    public Map<URL, Boolean> resetAll() {
+        return fanOut(new NodeOperation() {
+            public boolean run(Node node) {
+                return node.manager.getPublisher().reset();
+            }
+        });
+    }
+
+    private interface NodeOperation {
+        boolean run(Node node);
+    }
+
+    private Map<URL, Boolean> fanOut(final NodeOperation operation) {
+        final Map<Node, Future<Boolean>> pending = new LinkedHashMap<Node, Future<Boolean>>();
+        for (final Node node : nodes) {
+            pending.put(node, executor.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    return operation.run(node);
+                }
+            }));
+        }
+        final Map<URL, Boolean> result = new LinkedHashMap<URL, Boolean>();
+        for (Map.Entry<Node, Future<Boolean>> entry : pending.entrySet()) {
+            boolean outcome;
+            try {
+                outcome = entry.getValue().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                outcome = false;
+            } catch (ExecutionException e) {
+                LOGGER.warn("Error talking to " + entry.getKey().url + ": "
+                        + e.getCause().getLocalizedMessage());
+                outcome = false;
+            }
+            result.put(entry.getKey().url, outcome);
+        }
+        return result;
+    }
+
+    /**
+     * @return the time after which the health of a node is probed again, in milliseconds
+     */
+    public long getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    /**
+     * @param healthCheckInterval the time after which the health of a node is
+     *        probed again, in milliseconds
+     */
+    public void setHealthCheckInterval(long healthCheckInterval) {
+        this.healthCheckInterval = Math.max(0, healthCheckInterval);
+    }
+
+    /**
+     * Stops the background probes; the transport is shut down as well if it
+     * was created by this cluster manager.
+     */
+    public void shutdown() {
+        transport.removeFailureListener(failureListener);
+        executor.shutdown();
+        if (ownTransport)
+            transport.shutdown();
+    }
+
+    private Node find(URL url) {
+        for (Node node : nodes) {
+            if (node.url.toExternalForm().equals(url.toExternalForm()))
+                return node;
+        }
+        return null;
+    }
+
+    private Node check(URL url) {
+        final Node node = url == null ? null : find(url);
+        if (node == null)
+            throw new IllegalArgumentException("Not a node of the cluster: " + url);
+        return node;
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.decoder.RESTCatalogSnapshot;
+import it.geosolutions.geoserver.rest.decoder.RESTEnvelope;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerEnvelopes;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+import it.geosolutions.geoserver.rest.decoder.utils.STRtree;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client-side spatial index of the lat/lon extents of the layers, answering
+ * bounding box and point queries from memory.
+ * <P>
+ * The extents are loaded concurrently, as in
+ * {@link GeoServerRESTReader#getLayerEnvelopes(String, ExecutorService)}, and
+ * packed into an {@link STRtree}. The index listens to the transport of the
+ * reader: the PUT, POST and DELETE requests sent through it, for instance by a
+ * {@link GeoServerRESTPublisher} created by the same
+ * {@link GeoServerRESTManager}, mark the layers they touch as stale, or their
+ * whole workspace when the touched layers cannot be told. {@link #refresh()}
+ * then reloads only the stale layers. Changes made by other clients are not
+ * seen: use the <TT>markDirty</TT> methods or {@link #load()}.
+ * <P>
+ * Layers are named <TT>workspace:name</TT>. Queries do not lock and see the
+ * index as of the last completed refresh; refreshes are serialized.
+ * {@link #close()} stops listening to the transport.
+ */
+public class GeoServerRESTLayerIndex {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTLayerIndex.class);
+
+    private final GeoServerRESTReader reader;
+
+    private final String workspace;
+
+    private final HTTPTransport.ChangeListener listener;
+
+    private volatile Entries entries = new Entries(new TreeMap<String, RESTEnvelope>());
+
+    private final Object refreshLock = new Object();
+
+    /** The following fields are guarded by dirtyLock */
+    private final Object dirtyLock = new Object();
+
+    private boolean dirtyAll = true;
+
+    private final Set<String> dirtyWorkspaces = new HashSet<String>();
+
+    private final Set<String> dirtyLayers = new HashSet<String>();
+
+    /**
+     * Immutable state of the index.
+     */
+    private static final class Entries {
+
+        final SortedMap<String, RESTEnvelope> envelopes;
+
+        final String[] names;
+
+        final STRtree tree;
+
+        Entries(SortedMap<String, RESTEnvelope> envelopes) {
+            this.envelopes = Collections.unmodifiableSortedMap(envelopes);
+            this.names = envelopes.keySet().toArray(new String[envelopes.size()]);
+            double[] coords = new double[4 * names.length];
+            int i = 0;
+            for (RESTEnvelope envelope : envelopes.values()) {
+                coords[i++] = envelope.getMinX();
+                coords[i++] = envelope.getMinY();
+                coords[i++] = envelope.getMaxX();
+                coords[i++] = envelope.getMaxY();
+            }
+            this.tree = new STRtree(coords, names.length);
+        }
+    }
+
+    /**
+     * Indexes the layers of the whole catalog.
+     * 
+     * @see #GeoServerRESTLayerIndex(GeoServerRESTReader, String)
+     */
+    public GeoServerRESTLayerIndex(GeoServerRESTReader reader) throws IllegalArgumentException {
+        this(reader, null);
+    }
+
+    /**
+     * Creates an empty index; it is filled by the first {@link #refresh()}.
+     * 
+     * @param reader the reader loading the extents
+     * @param workspace the workspace to index, null for the whole catalog
+     * @throws IllegalArgumentException if the reader is null
+     */
+    public GeoServerRESTLayerIndex(GeoServerRESTReader reader, String workspace)
+            throws IllegalArgumentException {
+        if (reader == null)
+            throw new IllegalArgumentException("Unable to create the index using a null reader");
+        this.reader = reader;
+        this.workspace = workspace;
+        this.listener = new HTTPTransport.ChangeListener() {
+            public void changed(String url) {
+                GeoServerRESTLayerIndex.this.changed(url);
+            }
+        };
+        reader.getTransport().addChangeListener(listener);
+    }
+
+    /**
+     * @return the indexed workspace, null for the whole catalog
+     */
+    public String getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Reloads the whole index.
+     * 
+     * @see #refresh()
+     */
+    public boolean load() throws RuntimeException {
+        markDirty();
+        return refresh();
+    }
+
+    /**
+     * Reloads the stale layers, sending up to
+     * {@link GeoServerRESTAbstractAsync#DEFAULT_THREADS} concurrent requests.
+     * 
+     * @see #refresh(ExecutorService)
+     */
+    public boolean refresh() throws RuntimeException {
+        if (!isDirty())
+            return true;
+        final ExecutorService executor = GeoServerRESTAbstractAsync
+                .newExecutor(GeoServerRESTAbstractAsync.DEFAULT_THREADS);
+        try {
+            return refresh(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Reloads the stale layers on the given executor; the index is loaded
+     * entirely the first time. Queries keep being served from the previous
+     * state until the refresh completes.
+     * 
+     * @param executor the executor running the requests
+     * @return false if the layers could not be listed: the index is not
+     *         changed and stays stale
+     * @throws RuntimeException if any of the requests fails; the index is not
+     *         changed and stays stale
+     */
+    public boolean refresh(ExecutorService executor) throws RuntimeException {
+        if (executor == null)
+            throw new IllegalArgumentException("Unable to refresh the index using a null executor");
+        synchronized (refreshLock) {
+            final boolean all;
+            final Set<String> workspaces;
+            final Set<String> layers;
+            synchronized (dirtyLock) {
+                all = dirtyAll;
+                workspaces = new HashSet<String>(dirtyWorkspaces);
+                layers = new HashSet<String>(dirtyLayers);
+                dirtyAll = false;
+                dirtyWorkspaces.clear();
+                dirtyLayers.clear();
+            }
+            boolean done = false;
+            try {
+                done = all ? reload(executor) : reload(executor, workspaces, layers);
+                return done;
+            } finally {
+                if (!done) {
+                    synchronized (dirtyLock) {
+                        dirtyAll |= all;
+                        dirtyWorkspaces.addAll(workspaces);
+                        dirtyLayers.addAll(layers);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean reload(ExecutorService executor) {
+        final RESTCatalogSnapshot snapshot = new GeoServerRESTCatalogCrawler(reader, workspace,
+                executor, true).crawl();
+        if (snapshot == null)
+            return false;
+        final SortedMap<String, RESTEnvelope> envelopes = new TreeMap<String, RESTEnvelope>();
+        put(envelopes, snapshot);
+        entries = new Entries(envelopes);
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Indexed " + envelopes.size() + " layer extents");
+        return true;
+    }
+
+    private boolean reload(ExecutorService executor, Set<String> workspaces, Set<String> layers) {
+        if (workspaces.isEmpty() && layers.isEmpty())
+            return true;
+        final Set<String> names = new HashSet<String>(layers);
+        if (!workspaces.isEmpty()) {
+            final RESTLayerList list = reader.getLayers();
+            if (list == null)
+                return false;
+            for (String name : list.getNames()) {
+                final int sep = name.indexOf(':');
+                // unqualified names, as returned by old GeoServer versions, may be in any workspace
+                if (sep < 0 || workspaces.contains(name.substring(0, sep)))
+                    names.add(name);
+            }
+        }
+        final RESTCatalogSnapshot snapshot = new GeoServerRESTCatalogCrawler(reader, workspace,
+                executor, true).crawl(names);
+
+        final SortedMap<String, RESTEnvelope> envelopes = new TreeMap<String, RESTEnvelope>(
+                entries.envelopes);
+        for (Iterator<String> it = envelopes.keySet().iterator(); it.hasNext();) {
+            final String name = it.next();
+            if (layers.contains(name) || workspaces.contains(name.substring(0, name.indexOf(':'))))
+                it.remove();
+        }
+        put(envelopes, snapshot);
+        entries = new Entries(envelopes);
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Refreshed " + names.size() + " layer extents");
+        return true;
+    }
+
+    private static void put(Map<String, RESTEnvelope> envelopes, RESTCatalogSnapshot snapshot) {
+        final RESTLayerEnvelopes extents = RESTLayerEnvelopes.build(snapshot);
+        for (int i = 0; i < extents.size(); i++) {
+            envelopes.put(extents.getWorkspace(i) + ":" + extents.getName(i), new RESTEnvelope(
+                    extents.getMinX(i), extents.getMinY(i), extents.getMaxX(i), extents.getMaxY(i),
+                    "EPSG:4326"));
+        }
+    }
+
+    /**
+     * @return true if some layers changed since the last refresh
+     */
+    public boolean isDirty() {
+        synchronized (dirtyLock) {
+            return dirtyAll || !dirtyWorkspaces.isEmpty() || !dirtyLayers.isEmpty();
+        }
+    }
+
+    /**
+     * Marks the whole index as stale.
+     */
+    public void markDirty() {
+        synchronized (dirtyLock) {
+            dirtyAll = true;
+        }
+    }
+
+    /**
+     * Marks the layers of a workspace as stale, including the ones which are
+     * not indexed yet.
+     */
+    public void markDirty(String workspace) {
+        if (workspace == null || (this.workspace != null && !this.workspace.equals(workspace)))
+            return;
+        synchronized (dirtyLock) {
+            dirtyWorkspaces.add(workspace);
+        }
+    }
+
+    /**
+     * Marks a layer as stale, whether it is indexed or not.
+     */
+    public void markDirty(String workspace, String layerName) {
+        if (workspace == null || layerName == null
+                || (this.workspace != null && !this.workspace.equals(workspace)))
+            return;
+        synchronized (dirtyLock) {
+            dirtyLayers.add(workspace + ":" + layerName);
+        }
+    }
+
+    /**
+     * Maps the URL of a modifying request to the layers it may have changed.
+     */
+    void changed(String url) {
+        int start = url.indexOf("/rest/");
+        if (start < 0)
+            return;
+        String path = url.substring(start + 6);
+        final int query = path.indexOf('?');
+        if (query >= 0)
+            path = path.substring(0, query);
+        final String[] segments = path.split("/");
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = decode(segments[i]);
+        }
+        final String last = segments[segments.length - 1];
+        for (String ext : new String[] { ".xml", ".json", ".html" }) {
+            if (last.endsWith(ext))
+                segments[segments.length - 1] = last.substring(0, last.length() - ext.length());
+        }
+
+        final String root = segments[0];
+        if (root.equals("reload")) {
+            markDirty();
+        } else if ((root.equals("workspaces") || root.equals("namespaces")) && segments.length > 1) {
+            final String ws = segments[1];
+            if (segments.length > 5
+                    && (segments[4].equals("featuretypes") || segments[4].equals("coverages"))) {
+                markDirty(ws, segments[5]);
+            } else if (segments.length == 2
+                    || segments[2].equals("datastores") || segments[2].equals("coveragestores")) {
+                // new, replaced or removed resources
+                markDirty(ws);
+            }
+        } else if (root.equals("layers") && segments.length > 1) {
+            final String name = segments[1];
+            final int sep = name.indexOf(':');
+            if (sep >= 0) {
+                markDirty(name.substring(0, sep), name.substring(sep + 1));
+            } else {
+                for (String indexed : entries.names) {
+                    if (indexed.endsWith(":" + name)) {
+                        final int s = indexed.indexOf(':');
+                        markDirty(indexed.substring(0, s), indexed.substring(s + 1));
+                    }
+                }
+            }
+        }
+    }
+
+    private static String decode(String segment) {
+        try {
+            return URLDecoder.decode(segment, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return segment;
+        } catch (IllegalArgumentException e) {
+            return segment;
+        }
+    }
+
+    /**
+     * @return the layers whose extent intersects the box, in no particular order
+     */
+    public List<String> query(double minX, double minY, double maxX, double maxY) {
+        final Entries current = entries;
+        final int[] ids = current.tree.query(minX, minY, maxX, maxY);
+        final List<String> names = new ArrayList<String>(ids.length);
+        for (int id : ids) {
+            names.add(current.names[id]);
+        }
+        return names;
+    }
+
+    /**
+     * @return the layers whose extent contains the point, in no particular order
+     */
+    public List<String> query(double x, double y) {
+        return query(x, y, x, y);
+    }
+
+    /**
+     * @return the indexed extent of the layer, or null if not indexed
+     */
+    public RESTEnvelope getEnvelope(String workspace, String layerName) {
+        return entries.envelopes.get(workspace + ":" + layerName);
+    }
+
+    /**
+     * @return the number of indexed layers
+     */
+    public int size() {
+        return entries.names.length;
+    }
+
+    /**
+     * Stops tracking the changes sent through the transport of the reader.
+     */
+    public void close() {
+        reader.getTransport().removeChangeListener(listener);
+    }
+}
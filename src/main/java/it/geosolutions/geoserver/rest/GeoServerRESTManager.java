@@ -55,10 +55,17 @@ public class GeoServerRESTManager extends GeoServerRESTAbstractManager {
     
     private final GeoServerRESTStructuredGridCoverageReaderManager structuredGridCoverageReader;
 
+    /** The transport created by this manager, to shut down on close */
+    private volatile HTTPTransport ownedTransport;
+
     /**
      * Default constructor.
      * 
      * Indicates connection parameters to remote GeoServer instance.
+     * A dedicated pooled {@link HTTPTransport} is created and shared by the
+     * publisher, the reader and all the managers, so that its cache, policy
+     * and listeners do not affect other managers; call {@link #close()} to
+     * release it.
      * 
      * @param restURL GeoServer REST API endpoint
      * @param username GeoServer REST API authorized username
@@ -67,14 +74,49 @@ public class GeoServerRESTManager extends GeoServerRESTAbstractManager {
      */
     public GeoServerRESTManager(URL restURL, String username, String password)
             throws IllegalArgumentException {
-        super(restURL, username, password);
+        this(restURL, username, password, new HTTPTransport());
+        ownedTransport = transport;
+    }
+
+    /**
+     * Indicates connection parameters to remote GeoServer instance and the
+     * timeouts, retries and circuit breaker to apply.
+     * A dedicated pooled {@link HTTPTransport} using the given policy is
+     * created and shared by the publisher, the reader and all the managers;
+     * call {@link #close()} to release it.
+     * 
+     * @param restURL GeoServer REST API endpoint
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @param policy the transport policy
+     * @throws IllegalArgumentException if the policy is null, or {@link GeoServerRESTAbstractManager#GeoServerRESTAbstractManager(URL, String, String)}
+     */
+    public GeoServerRESTManager(URL restURL, String username, String password,
+            HTTPTransportPolicy policy) throws IllegalArgumentException {
+        this(restURL, username, password, new HTTPTransport(policy));
+        ownedTransport = transport;
+    }
+
+    /**
+     * Indicates connection parameters to remote GeoServer instance and the
+     * transport to be shared by the publisher, the reader and all the managers.
+     * 
+     * @param restURL GeoServer REST API endpoint
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @param transport the HTTP transport
+     * @throws IllegalArgumentException {@link GeoServerRESTAbstractManager#GeoServerRESTAbstractManager(URL, String, String, HTTPTransport)}
+     */
+    public GeoServerRESTManager(URL restURL, String username, String password,
+            HTTPTransport transport) throws IllegalArgumentException {
+        super(restURL, username, password, transport);
 
         // Internal publisher and reader, provide simple access methods.
-        publisher = new GeoServerRESTPublisher(restURL.toString(), username, password);
-        reader = new GeoServerRESTReader(restURL, username, password);
-        structuredGridCoverageReader = new GeoServerRESTStructuredGridCoverageReaderManager(restURL, username, password);
-        storeManager = new GeoServerRESTStoreManager(restURL, gsuser, gspass);
-        styleManager = new GeoServerRESTStyleManager(restURL, gsuser, gspass);
+        publisher = new GeoServerRESTPublisher(restURL.toString(), username, password, transport);
+        reader = new GeoServerRESTReader(restURL, username, password, transport);
+        structuredGridCoverageReader = new GeoServerRESTStructuredGridCoverageReaderManager(restURL, username, password, transport);
+        storeManager = new GeoServerRESTStoreManager(restURL, gsuser, gspass, transport);
+        styleManager = new GeoServerRESTStyleManager(restURL, gsuser, gspass, transport);
     }
 
     public GeoServerRESTPublisher getPublisher() {
@@ -97,4 +139,15 @@ public class GeoServerRESTManager extends GeoServerRESTAbstractManager {
         return structuredGridCoverageReader;
     }
 
+    /**
+     * Shuts down the transport created by this manager, if any; a transport
+     * given by the caller is left open.
+     */
+    public void close() {
+        final HTTPTransport owned = ownedTransport;
+        ownedTransport = null;
+        if (owned != null)
+            owned.shutdown();
+    }
+
 }
@@ -52,6 +52,7 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.ZipFile;
 
 import org.apache.commons.httpclient.NameValuePair;
@@ -92,6 +93,15 @@ public class GeoServerRESTPublisher {
      */
     private final String gspass;
 
+    /**
+     * HTTP transport shared with the internal managers
+     */
+    private final HTTPTransport transport;
+
+    /**
+     * Uploader used to send the data files
+     */
+    private volatile HTTPUploader uploader;
 
     private final GeoServerRESTStyleManager styleManager;
 
@@ -105,9 +115,27 @@ public class GeoServerRESTPublisher {
      * @param password auth credential
      */
     public GeoServerRESTPublisher(String restURL, String username, String password) {
+        this(restURL, username, password, HTTPTransport.getDefault());
+    }
+
+    /**
+     * Creates a <TT>GeoServerRESTPublisher</TT> to connect against a GeoServer instance with the given URL and user credentials,
+     * talking to it through the given transport.
+     * 
+     * @param restURL the base GeoServer URL (e.g.: <TT>http://localhost:8080/geoserver</TT>)
+     * @param username auth credential
+     * @param password auth credential
+     * @param transport the (possibly shared) HTTP transport
+     */
+    public GeoServerRESTPublisher(String restURL, String username, String password,
+            HTTPTransport transport) {
+        if (transport == null)
+            throw new IllegalArgumentException("Unable to create the publisher using a null transport");
         this.restURL = HTTPUtils.decurtSlash(restURL);
         this.gsuser = username;
         this.gspass = password;
+        this.transport = transport;
+        this.uploader = new HTTPUploader(transport);
 
         URL url = null;
         try {
@@ -115,8 +143,35 @@ public class GeoServerRESTPublisher {
         } catch (MalformedURLException ex) {
             LOGGER.error("Bad URL: Calls to GeoServer are going to fail" , ex);
         }
-        styleManager = new GeoServerRESTStyleManager(url, username, password);
-        importerManager = new GeoServerRESTImporterManager(url, username, password);
+        styleManager = new GeoServerRESTStyleManager(url, username, password, transport);
+        importerManager = new GeoServerRESTImporterManager(url, username, password, transport);
+    }
+
+    /**
+     * @return the HTTP transport used by this publisher
+     */
+    public HTTPTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return the uploader used to send the data files
+     */
+    public HTTPUploader getUploader() {
+        return uploader;
+    }
+
+    /**
+     * Sets the uploader used to send the data files, i.e. to track the
+     * progress of the uploads or to change the retry policy.
+     * 
+     * @param uploader the uploader
+     * @throws IllegalArgumentException if the uploader is null
+     */
+    public void setUploader(HTTPUploader uploader) throws IllegalArgumentException {
+        if (uploader == null)
+            throw new IllegalArgumentException("Unable to use a null uploader");
+        this.uploader = uploader;
     }
 
     // ==========================================================================
@@ -174,7 +229,7 @@ public class GeoServerRESTPublisher {
         bkpenc.setIncludeData(includedata);
         bkpenc.setIncludeGwc(includegwc);
         bkpenc.setIncludeLog(includelog);
-        final String result = HTTPUtils.post(bkpUrl.toString(), bkpenc.toString(), "text/xml",
+        final String result = transport.post(bkpUrl.toString(), bkpenc.toString(), "text/xml",
                 gsuser, gspass);
 
         return result;
@@ -204,7 +259,7 @@ public class GeoServerRESTPublisher {
 
         final GSBackupEncoder bkpenc = new GSBackupEncoder(backupDir);
 
-        final String result = HTTPUtils.post(bkpUrl.toString(), bkpenc.toString(), "text/xml",
+        final String result = transport.post(bkpUrl.toString(), bkpenc.toString(), "text/xml",
                 gsuser, gspass);
 
         return result;
@@ -234,7 +289,7 @@ public class GeoServerRESTPublisher {
         final String sUrl = restURL + "/rest/workspaces";
         final GSWorkspaceEncoder wsenc = new GSWorkspaceEncoder(workspace);
         final String wsxml = wsenc.toString();
-        final String result = HTTPUtils.postXml(sUrl, wsxml, gsuser, gspass);
+        final String result = transport.postXml(sUrl, wsxml, gsuser, gspass);
         return result != null;
     }
 
@@ -272,7 +327,7 @@ public class GeoServerRESTPublisher {
         final String sUrl = restURL + "/rest/namespaces";
         final GSNamespaceEncoder nsenc = new GSNamespaceEncoder(prefix, uri);
         final String nsxml = nsenc.toString();
-        final String result = HTTPUtils.postXml(sUrl, nsxml, gsuser, gspass);
+        final String result = transport.postXml(sUrl, nsxml, gsuser, gspass);
         return result != null;
     }
 
@@ -290,7 +345,7 @@ public class GeoServerRESTPublisher {
         final String sUrl = restURL + "/rest/namespaces/" + encode(prefix);
         final GSNamespaceEncoder nsenc = new GSNamespaceEncoder(prefix, uri);
         final String nsxml = nsenc.toString();
-        final String result = HTTPUtils.put(sUrl, nsxml, "application/xml", gsuser, gspass);
+        final String result = transport.put(sUrl, nsxml, "application/xml", gsuser, gspass);
         return result != null;
     }
 
@@ -853,12 +908,12 @@ public class GeoServerRESTPublisher {
             final File file = new File(uri);
             if (!file.exists())
                 throw new FileNotFoundException("unable to locate file: " + file);
-            sentResult = HTTPUtils.put(sbUrl.toString(), file, mimeType, gsuser, gspass);
+            sentResult = uploader.put(sbUrl.toString(), file, mimeType, gsuser, gspass);
         } else if (method.equals(UploadMethod.EXTERNAL)) {
-            sentResult = HTTPUtils.put(sbUrl.toString(), uri.toString(), mimeType, gsuser, gspass);
+            sentResult = transport.put(sbUrl.toString(), uri.toString(), mimeType, gsuser, gspass);
         } else if (method.equals(UploadMethod.URL)) {
             // TODO check
-            sentResult = HTTPUtils.put(sbUrl.toString(), uri.toString(), mimeType, gsuser, gspass);
+            sentResult = transport.put(sbUrl.toString(), uri.toString(), mimeType, gsuser, gspass);
         }
 
         if (sentResult != null) {
@@ -944,8 +999,7 @@ public class GeoServerRESTPublisher {
     public boolean createPostGISDatastore(String workspace,
             GSPostGISDatastoreEncoder datastoreEncoder) {
         String sUrl = restURL + "/rest/workspaces/" + workspace + "/datastores/";
-        String xml = datastoreEncoder.toString();
-        String result = HTTPUtils.postXml(sUrl, xml, gsuser, gspass);
+        String result = transport.postXml(sUrl, datastoreEncoder, gsuser, gspass);
         return result != null;
     }
 
@@ -986,7 +1040,6 @@ public class GeoServerRESTPublisher {
          * 
          * and a PUT to <BR> restURL + "/rest/layers/" workspace + : + layerName
          */
-        String ftypeXml = fte.toString();
         StringBuilder postUrl = new StringBuilder(restURL).append("/rest/workspaces/")
                 .append(workspace).append("/datastores/").append(storename).append("/featuretypes");
 
@@ -997,7 +1050,7 @@ public class GeoServerRESTPublisher {
             return false;
         }
 
-        String configuredResult = HTTPUtils.postXml(postUrl.toString(), ftypeXml, this.gsuser,
+        String configuredResult = transport.postXml(postUrl.toString(), fte, this.gsuser,
                 this.gspass);
         boolean published = configuredResult != null;
         boolean configured = false;
@@ -1712,7 +1765,7 @@ public class GeoServerRESTPublisher {
         if (configureLayer(workspace, coverageName, layerEncoder)) {
             GeoServerRESTReader reader;
             try {
-                reader = new GeoServerRESTReader(this.restURL, this.gsuser, this.gspass);
+                reader = new GeoServerRESTReader(new URL(this.restURL), this.gsuser, this.gspass, transport);
                 return reader.getCoverageStore(workspace, storeName);
             } catch (MalformedURLException e) {
                 LOGGER.error(e.getMessage(), e);
@@ -1921,7 +1974,7 @@ public class GeoServerRESTPublisher {
         if (configureLayer(workspace, coverageName, layerEncoder)) {
             GeoServerRESTReader reader;
             try {
-                reader = new GeoServerRESTReader(this.restURL, this.gsuser, this.gspass);
+                reader = new GeoServerRESTReader(new URL(this.restURL), this.gsuser, this.gspass, transport);
                 return reader.getCoverageStore(workspace, storeName);
             } catch (MalformedURLException e) {
                 LOGGER.error(e.getMessage(), e);
@@ -2037,7 +2090,7 @@ public class GeoServerRESTPublisher {
         String sUrl = restURL + "/rest/workspaces/" + workspace + "/coveragestores/" + storeName
                 + "/external.imagemosaic?configure=" + configure.toString() + "&update="
                 + update.toString();
-        String sendResult = HTTPUtils.put(sUrl, mosaicDir.toURI().toString(), "text/plain", gsuser,
+        String sendResult = transport.put(sUrl, mosaicDir.toURI().toString(), "text/plain", gsuser,
                 gspass);
         return RESTCoverageStore.build(sendResult);
     }
@@ -2165,8 +2218,8 @@ public class GeoServerRESTPublisher {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Going to delete " + "/rest/layers/" + fqLayerName);
             }
-            boolean layerDeleted = HTTPUtils
-                    .delete(deleteLayerUrl.toExternalForm(), gsuser, gspass);
+            boolean layerDeleted = transport.delete(deleteLayerUrl.toExternalForm(), gsuser,
+                    gspass);
             if (!layerDeleted) {
                 LOGGER.warn("Could not delete layer '" + fqLayerName + "'");
                 return false;
@@ -2178,7 +2231,7 @@ public class GeoServerRESTPublisher {
                 LOGGER.debug("Going to delete " + "/rest/workspaces/" + workspace
                         + "/coveragestores/" + storename + "/coverages/" + layerName);
             }
-            boolean covDeleted = HTTPUtils.delete(deleteCovUrl.toExternalForm(), gsuser, gspass);
+            boolean covDeleted = transport.delete(deleteCovUrl.toExternalForm(), gsuser, gspass);
             if (!covDeleted) {
                 LOGGER.warn("Could not delete coverage " + workspace + ":" + storename + "/"
                         + layerName + ", but layer was deleted.");
@@ -2224,8 +2277,8 @@ public class GeoServerRESTPublisher {
             }
             // delete related layer
             URL deleteLayerUrl = new URL(restURL + "/rest/layers/" + fqLayerName);
-            boolean layerDeleted = HTTPUtils
-                    .delete(deleteLayerUrl.toExternalForm(), gsuser, gspass);
+            boolean layerDeleted = transport.delete(deleteLayerUrl.toExternalForm(), gsuser,
+                    gspass);
             if (!layerDeleted) {
                 LOGGER.warn("Could not delete layer '" + fqLayerName + "'");
                 return false;
@@ -2233,7 +2286,7 @@ public class GeoServerRESTPublisher {
             // delete the coverage
             URL deleteFtUrl = new URL(restURL + "/rest/workspaces/" + workspace + "/datastores/"
                     + storename + "/featuretypes/" + layerName);
-            boolean ftDeleted = HTTPUtils.delete(deleteFtUrl.toExternalForm(), gsuser, gspass);
+            boolean ftDeleted = transport.delete(deleteFtUrl.toExternalForm(), gsuser, gspass);
             if (!ftDeleted) {
                 LOGGER.warn("Could not delete featuretype " + workspace + ":" + storename + "/"
                         + layerName + ", but layer was deleted.");
@@ -2362,7 +2415,7 @@ public class GeoServerRESTPublisher {
 
             final URL deleteStore = new URL(url.toString());
 
-            boolean deleted = HTTPUtils.delete(deleteStore.toExternalForm(), gsuser, gspass);
+            boolean deleted = transport.delete(deleteStore.toExternalForm(), gsuser, gspass);
             if (!deleted) {
                 LOGGER.warn("Could not delete store " + workspace + ":" + storename);
             } else {
@@ -2396,26 +2449,61 @@ public class GeoServerRESTPublisher {
      * @param recurse The recurse parameter is used to recursively delete all resources contained by the specified workspace. This includes data
      *        stores, coverage stores, feature types, etc... Allowable values for this parameter are <i>true</i> or <i>false</i>. The default value is
      *        <i>false</i>.
+     *        When recursing, the items of the workspace are deleted concurrently
+     *        by a {@link GeoServerRESTWorkspaceTeardown}, on a dedicated pool
+     *        of {@link GeoServerRESTAbstractAsync#DEFAULT_THREADS} threads.
      * @return <TT>true</TT> if the WorkSpace was successfully removed.
+     * @see GeoServerRESTWorkspaceTeardown to track the progress of the removal
+     *      of a large workspace
      */
     public boolean removeWorkspace(String workspace, boolean recurse)
             throws IllegalArgumentException {
         workspace = sanitize(workspace);
-        try {
-            if (workspace == null)
-                throw new IllegalArgumentException("Arguments may not be null!");
-            if (workspace.isEmpty())
-                throw new IllegalArgumentException("Arguments may not be empty!");
+        if (workspace == null)
+            throw new IllegalArgumentException("Arguments may not be null!");
+        if (workspace.isEmpty())
+            throw new IllegalArgumentException("Arguments may not be empty!");
+
+        if (recurse) {
+            ExecutorService executor = GeoServerRESTAbstractAsync
+                    .newExecutor(GeoServerRESTAbstractAsync.DEFAULT_THREADS);
+            try {
+                GeoServerRESTWorkspaceTeardown teardown = new GeoServerRESTWorkspaceTeardown(
+                        new GeoServerRESTReader(new URL(restURL), gsuser, gspass, transport),
+                        this, executor);
+                GeoServerRESTWorkspaceTeardown.Plan plan = teardown.plan(workspace);
+                return teardown.execute(plan).getOutcomes().get(
+                        plan.getDeletions(GeoServerRESTWorkspaceTeardown.Kind.WORKSPACE).get(0));
+            } catch (MalformedURLException ex) {
+                if (LOGGER.isErrorEnabled())
+                    LOGGER.error(ex.getLocalizedMessage(), ex);
+                return false;
+            } catch (RuntimeException ex) {
+                if (Thread.currentThread().isInterrupted())
+                    return false;
+                LOGGER.warn("Unable to tear down workspace " + workspace + ", removing it directly: "
+                        + ex.getLocalizedMessage());
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        deleteStylesForWorkspace(workspace); // !!! workaround
+        return deleteWorkspace(workspace, recurse);
+    }
 
+    /**
+     * Sends the DELETE of a workspace, leaving its styles behind.
+     */
+    boolean deleteWorkspace(String workspace, boolean recurse) {
+        try {
             StringBuffer url = new StringBuffer(restURL).append("/rest/workspaces/").append(
                     workspace);
             if (recurse)
                 url.append("?recurse=true");
 
-            deleteStylesForWorkspace(workspace); // !!! workaround
-
             final URL deleteUrl = new URL(url.toString());
-            boolean deleted = HTTPUtils.delete(deleteUrl.toExternalForm(), gsuser, gspass);
+            boolean deleted = transport.delete(deleteUrl.toExternalForm(), gsuser, gspass);
             if (!deleted) {
                 LOGGER.warn("Could not delete Workspace " + workspace);
             } else {
@@ -2460,7 +2548,7 @@ public class GeoServerRESTPublisher {
 
         try {
             URL deleteUrl = new URL(url);
-            boolean deleted = HTTPUtils.delete(deleteUrl.toExternalForm(), gsuser, gspass);
+            boolean deleted = transport.delete(deleteUrl.toExternalForm(), gsuser, gspass);
             if (!deleted) {
                 if (LOGGER.isWarnEnabled())
                     LOGGER.warn("Could not delete layergroup " + name);
@@ -2520,7 +2608,7 @@ public class GeoServerRESTPublisher {
 
         final String url = restURL + "/rest/layers/" + fqLayerName;
 
-        boolean result = HTTPUtils.delete(url, gsuser, gspass);
+        boolean result = transport.delete(url, gsuser, gspass);
         if (result) {
             if (LOGGER.isInfoEnabled()) {
                 LOGGER.info("Layer successfully removed: " + fqLayerName);
@@ -2550,7 +2638,7 @@ public class GeoServerRESTPublisher {
             throws IllegalArgumentException {
         final String url = HTTPUtils.append(this.restURL, "/rest/workspaces/", workspace, "/",
                 storeType.toString(), "/", storeName, ".xml").toString();
-        final String store = HTTPUtils.get(url, this.gsuser, this.gspass);
+        final String store = transport.get(url, this.gsuser, this.gspass);
 
         if (store != null) {
             String storeTag = storeType.getTypeName();
@@ -2569,7 +2657,7 @@ public class GeoServerRESTPublisher {
             int start = store.indexOf(startTag);
             String endTag = "</" + storeTag + ">";
             int stop = store.indexOf(endTag) + endTag.length();
-            return HTTPUtils.putXml(url, store.subSequence(0, start) + store.substring(stop),
+            return transport.putXml(url, store.subSequence(0, start) + store.substring(stop),
                     this.gsuser, this.gspass) != null ? true : false;
         } else
             return false;
@@ -2584,7 +2672,7 @@ public class GeoServerRESTPublisher {
      */
     public boolean reload() {
         String sUrl = restURL + "/rest/reload";
-        String result = HTTPUtils.post(sUrl, "", "text/plain", gsuser, gspass);
+        String result = transport.post(sUrl, "", "text/plain", gsuser, gspass);
         return result != null;
     }
 
@@ -2597,7 +2685,7 @@ public class GeoServerRESTPublisher {
      */
     public boolean reset() {
         String sUrl = restURL + "/rest/reset";
-        String result = HTTPUtils.post(sUrl, "", "text/plain", gsuser, gspass);
+        String result = transport.post(sUrl, "", "text/plain", gsuser, gspass);
         return result != null;
     }
 
@@ -2632,8 +2720,7 @@ public class GeoServerRESTPublisher {
 
         final String url = restURL + "/rest/layers/" + fqLayerName;
 
-        String layerXml = layer.toString();
-        String sendResult = HTTPUtils.putXml(url, layerXml, gsuser, gspass);
+        String sendResult = transport.putXml(url, layer, gsuser, gspass);
         if (sendResult != null) {
             if (LOGGER.isInfoEnabled()) {
                 LOGGER.info("Layer successfully configured: " + fqLayerName);
@@ -2676,7 +2763,7 @@ public class GeoServerRESTPublisher {
 
         group.setName(name);
 
-        String sendResult = HTTPUtils.postXml(url, group.toString(), gsuser, gspass);
+        String sendResult = transport.postXml(url, group, gsuser, gspass);
         if (sendResult != null) {
             if (LOGGER.isInfoEnabled()) {
                 LOGGER.info("LayerGroup successfully configured: " + name);
@@ -2716,7 +2803,7 @@ public class GeoServerRESTPublisher {
             url += "/workspaces/" + workspace + "/layergroups/" + name;
         }
 
-        String sendResult = HTTPUtils.putXml(url, group.toString(), gsuser, gspass);
+        String sendResult = transport.putXml(url, group, gsuser, gspass);
         if (sendResult != null) {
             if (LOGGER.isInfoEnabled()) {
                 LOGGER.info("LayerGroup successfully configured: " + name);
@@ -2761,7 +2848,7 @@ public class GeoServerRESTPublisher {
         // retrieve coverage name
         GeoServerRESTReader reader;
         try {
-            reader = new GeoServerRESTReader(restURL, gsuser, gspass);
+            reader = new GeoServerRESTReader(new URL(restURL), gsuser, gspass, transport);
         } catch (MalformedURLException e) {
             if (LOGGER.isErrorEnabled())
                 LOGGER.error(e.getLocalizedMessage(), e);
@@ -2796,8 +2883,7 @@ public class GeoServerRESTPublisher {
         final String url = restURL + "/rest/workspaces/" + wsname + "/coveragestores/" + csname
                 + "/coverages/" + coverageName + ".xml";
 
-        final String xmlBody = ce.toString();
-        final String sendResult = HTTPUtils.putXml(url, xmlBody, gsuser, gspass);
+        final String sendResult = transport.putXml(url, ce, gsuser, gspass);
         if (sendResult != null) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Coverage successfully configured " + wsname + ":" + csname + ":"
@@ -2867,8 +2953,7 @@ public class GeoServerRESTPublisher {
                     "Unable to configure a coverage using unnamed resource encoder");
         }
 
-        final String xmlBody = re.toString();
-        final String sendResult = HTTPUtils.postXml(sbUrl.toString(), xmlBody, gsuser, gspass);
+        final String sendResult = transport.postXml(sbUrl.toString(), re, gsuser, gspass);
         if (sendResult != null) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(dsType + " successfully created " + workspace + ":" + storeName + ":"
@@ -2911,7 +2996,7 @@ public class GeoServerRESTPublisher {
                 .append("/").append(dsType.getTypeName().toLowerCase()).append("/").append(resName)
                 .append(".xml");
 
-        final boolean sendResult = HTTPUtils.delete(sbUrl.toString(), gsuser, gspass);
+        final boolean sendResult = transport.delete(sbUrl.toString(), gsuser, gspass);
         if (sendResult) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(dsType + " successfully delete " + workspace + ":" + storeName + ":"
@@ -2986,8 +3071,7 @@ public class GeoServerRESTPublisher {
                 .append("/").append(dsType.getTypeName().toLowerCase()).append("/").append(resourceName)
                 .append(".xml");
 
-        final String xmlBody = re.toString();
-        final String sendResult = HTTPUtils.putXml(sbUrl.toString(), xmlBody, gsuser, gspass);
+        final String sendResult = transport.putXml(sbUrl.toString(), re, gsuser, gspass);
         if (sendResult != null) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(dsType + " successfully configured " + workspace + ":" + storeName + ":"
@@ -3092,7 +3176,7 @@ public class GeoServerRESTPublisher {
             String path) {
         try {
             GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(
-                    new URL(restURL), gsuser, gspass);
+                    new URL(restURL), gsuser, gspass, transport);
             return manager.harvestExternal(workspace, coverageStore, format, path);
         } catch (IllegalArgumentException e) {
             if (LOGGER.isInfoEnabled()) {
@@ -3180,7 +3264,7 @@ public class GeoServerRESTPublisher {
         String sUrl = ss.toString();
 
         // POST request
-        String result = HTTPUtils.put(sUrl, zipFile, "application/zip", gsuser, gspass);
+        String result = uploader.put(sUrl, zipFile, "application/zip", gsuser, gspass);
         return result != null;
     }
 
@@ -3198,7 +3282,7 @@ public class GeoServerRESTPublisher {
             String granuleId) {
         try {
             GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(
-                    new URL(restURL), gsuser, gspass);
+                    new URL(restURL), gsuser, gspass, transport);
             return manager.removeGranuleById(workspace, coverageStore, coverage, granuleId);
         } catch (IllegalArgumentException e) {
             if (LOGGER.isInfoEnabled()) {
@@ -3228,7 +3312,7 @@ public class GeoServerRESTPublisher {
             String coverage, String filter) throws UnsupportedEncodingException {
         try {
             GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(
-                    new URL(restURL), gsuser, gspass);
+                    new URL(restURL), gsuser, gspass, transport);
             return manager.removeGranulesByCQL(workspace, coverageStore, coverage, filter);
         } catch (IllegalArgumentException e) {
             if (LOGGER.isInfoEnabled()) {
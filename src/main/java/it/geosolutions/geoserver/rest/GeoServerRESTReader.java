@@ -25,19 +25,24 @@
 
 package it.geosolutions.geoserver.rest;
 
+import it.geosolutions.geoserver.rest.decoder.RESTCatalogSnapshot;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverage;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageSummary;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverageList;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverageStore;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverageStoreList;
 import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
 import it.geosolutions.geoserver.rest.decoder.RESTDataStoreList;
 import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureTypeSummary;
 import it.geosolutions.geoserver.rest.decoder.RESTFeatureTypeList;
 import it.geosolutions.geoserver.rest.decoder.RESTLayer;
 import it.geosolutions.geoserver.rest.decoder.RESTLayer21;
 import it.geosolutions.geoserver.rest.decoder.RESTLayerGroup;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerEnvelopes;
 import it.geosolutions.geoserver.rest.decoder.RESTLayerGroupList;
 import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerSummary;
 import it.geosolutions.geoserver.rest.decoder.RESTNamespace;
 import it.geosolutions.geoserver.rest.decoder.RESTNamespaceList;
 import it.geosolutions.geoserver.rest.decoder.RESTResource;
@@ -45,22 +50,38 @@ import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList
 import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageIndexSchema;
 import it.geosolutions.geoserver.rest.decoder.RESTStyle;
 import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
+import it.geosolutions.geoserver.rest.decoder.RESTSummaryList;
 import it.geosolutions.geoserver.rest.decoder.RESTWms;
 import it.geosolutions.geoserver.rest.decoder.RESTWmsList;
 import it.geosolutions.geoserver.rest.decoder.RESTWmsStore;
 import it.geosolutions.geoserver.rest.decoder.RESTWmsStoreList;
 import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
 import it.geosolutions.geoserver.rest.decoder.about.GSVersionDecoder;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import it.geosolutions.geoserver.rest.decoder.utils.JSONBuilder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder21;
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder23;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTStructuredGridCoverageReaderManager;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTStyleManager;
 
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.jdom.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,12 +99,42 @@ public class GeoServerRESTReader {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTReader.class);
 
+    /**
+     * The representation requested to GeoServer.
+     */
+    public enum WireFormat {
+        /** XML representations (the default) */
+        XML(".xml"),
+        /** JSON representations, smaller and decoded into the same objects */
+        JSON(".json");
+
+        private final String extension;
+
+        private WireFormat(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * @return the extension selecting the format on the REST path, with the leading dot
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
     private final String baseurl;
     private String username;
     private String password;
+    private HTTPTransport transport;
 
     private GeoServerRESTStyleManager styleManager;
 
+    private volatile GSVersionDecoder version;
+    private volatile long versionLoadTime;
+    private volatile long versionTTL = -1;
+
+    private volatile WireFormat wireFormat = WireFormat.XML;
+
     /**
      * Creates a <TT>GeoServerRESTReader</TT> for a given GeoServer instance and
      * no auth credentials.
@@ -132,35 +183,117 @@ public class GeoServerRESTReader {
         baseurl = init(gsUrl, username, password);
     }
 
+    /**
+     * Creates a <TT>GeoServerRESTReader</TT> for a given GeoServer instance
+     * with the given auth credentials, talking to it through the given transport.
+     *
+     * @param gsUrl the base GeoServer URL (e.g.: <TT>http://localhost:8080/geoserver</TT>)
+     * @param username username auth credential
+     * @param password password auth credential
+     * @param transport the (possibly shared) HTTP transport
+     */
+    public GeoServerRESTReader(URL gsUrl, String username, String password, HTTPTransport transport) {
+        baseurl = init(gsUrl, username, password, transport);
+    }
+
     private String init(String gsUrl, String username, String password) throws MalformedURLException {
         return init(new URL(gsUrl), username, password);
     }
 
     private String init(URL gsUrl, String username, String password) {
+        return init(gsUrl, username, password, HTTPTransport.getDefault());
+    }
+
+    private String init(URL gsUrl, String username, String password, HTTPTransport transport) {
+        if (transport == null)
+            throw new IllegalArgumentException("Unable to create the reader using a null transport");
         String restUrl = gsUrl.toExternalForm();
         String cleanUrl = restUrl.endsWith("/") ?
                             restUrl.substring(0, restUrl.length()-1) :
                             restUrl;
         this.username = username;
         this.password = password;
+        this.transport = transport;
 
-        styleManager = new GeoServerRESTStyleManager(gsUrl, username, password);
+        styleManager = new GeoServerRESTStyleManager(gsUrl, username, password, transport);
 
         return cleanUrl;
     }
 
-    private String load(String url) {
-        LOGGER.info("Loading from REST path " + url);
-        String response = HTTPUtils.get(baseurl + url, username, password);
+    /**
+     * @return the HTTP transport used by this reader
+     */
+    public HTTPTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return the representation requested to GeoServer
+     */
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * Selects the representation requested to GeoServer. The decoders returned
+     * by this reader expose the same information with either format.
+     * <BR>
+     * The version and the summaries ({@link #getWorkspaceNames()},
+     * {@link #getLayerSummary(String, String)}, ...) are always read as XML.
+     * 
+     * @param wireFormat the format
+     * @throws IllegalArgumentException if the format is null
+     */
+    public void setWireFormat(WireFormat wireFormat) {
+        if (wireFormat == null)
+            throw new IllegalArgumentException("Unable to set a null wire format");
+        this.wireFormat = wireFormat;
+    }
+
+    private InputStream load(String url) {
+        return loadFullURL(baseurl + url);
+    }
+
+    /**
+     * Loads the representation selected by the wire format; a JSON response is
+     * marked so that the decoders parse it as such.
+     */
+    private InputStream loadFullURL(String url) {
+        final WireFormat format = wireFormat;
+        final String formatted = format(url, format);
+        final InputStream response = loadXML(formatted);
+        if (format == WireFormat.JSON && path(formatted).endsWith(WireFormat.JSON.getExtension()))
+            return JSONBuilder.wrap(response);
         return response;
     }
 
-    private String loadFullURL(String url) {
+    private InputStream loadXML(String url) {
         LOGGER.info("Loading from REST path " + url);
-        String response = HTTPUtils.get(url, username, password);
+        InputStream response = transport.getStream(url, username, password);
         return response;
     }
 
+    /**
+     * Replaces the <TT>.xml</TT> extension of the path with the one of the given wire format.
+     */
+    private static String format(String url, WireFormat format) {
+        if (format == WireFormat.XML)
+            return url;
+        final String path = path(url);
+        if (!path.endsWith(WireFormat.XML.getExtension()))
+            return url;
+        return path.substring(0, path.length() - WireFormat.XML.getExtension().length())
+                + format.getExtension() + url.substring(path.length());
+    }
+
+    /**
+     * @return the URL without its query string
+     */
+    private static String path(String url) {
+        final int query = url.indexOf('?');
+        return query < 0 ? url : url.substring(0, query);
+    }
+
     /**
      * Check if a GeoServer instance is running at the given URL.
      * <BR>
@@ -174,22 +307,112 @@ public class GeoServerRESTReader {
      * @return true if a GeoServer instance was found at the configured URL.
      */
     public boolean existGeoserver() {
-        return HTTPUtils.httpPing(baseurl + "/rest/", username, password);
+        return transport.httpPing(baseurl + "/rest/", username, password);
     }
     
     /**
-     * Return the version of the target GeoServer
+     * Return the version of the target GeoServer.
+     * <P>
+     * The version is requested once and then cached by this reader, so that the
+     * version-dependent calls (i.e. {@link #getLayer(String, String)}) don't need
+     * an extra round-trip. The cached value expires after the timeout set by
+     * {@link #setVersionCacheTimeout(long)} (never, by default) and can be
+     * reloaded explicitly using {@link #refreshGeoserverVersion()}.
      */
     public GSVersionDecoder getGeoserverVersion() {
-        final String url = "/rest/about/version.xml";
-        String xml = load(url);
+        GSVersionDecoder v = version;
+        if (v == null || (versionTTL >= 0
+                && System.currentTimeMillis() - versionLoadTime >= versionTTL)) {
+            v = refreshGeoserverVersion();
+        }
+        return v;
+    }
+
+    /**
+     * Reload the version of the target GeoServer, replacing the cached one.
+     * <P>
+     * Useful when the target GeoServer has been upgraded. A GeoServer which
+     * does not publish its version (GeoServer 2.1) is
+     * {@link GSVersionDecoder.VERSION#UNRECOGNIZED}; when the version cannot be
+     * loaded, because of a network or server error, the result is
+     * {@link GSVersionDecoder.VERSION#UNRECOGNIZED} too but it is not cached,
+     * so that the next call tries again.
+     * 
+     * @return the reloaded version
+     */
+    public GSVersionDecoder refreshGeoserverVersion() {
+        final String url = baseurl + "/rest/about/version.xml";
+        InputStream xml = loadXML(url);
+        GSVersionDecoder v;
+        boolean loaded = true;
         if (xml == null) {
-            GSVersionDecoder v = new GSVersionDecoder();
+            v = new GSVersionDecoder();
             v.getGeoServer().setVersion(GSVersionDecoder.VERSION.UNRECOGNIZED.toString());
-            return v;
+            try {
+                // only a missing version resource means GeoServer 2.1
+                loaded = !transport.exists(url, username, password);
+            } catch (RuntimeException e) {
+                loaded = false;
+                LOGGER.warn("Unable to load the GeoServer version: " + e.getLocalizedMessage());
+            }
         } else {
-            return GSVersionDecoder.build(load(url));
+            v = GSVersionDecoder.build(xml);
         }
+        if (loaded) {
+            versionLoadTime = System.currentTimeMillis();
+            version = v;
+        }
+        return v;
+    }
+
+    /**
+     * Set how long the GeoServer version is cached.
+     * 
+     * @param ttl the timeout in milliseconds: 0 disables the cache, a negative
+     *        value caches the version until {@link #refreshGeoserverVersion()}
+     *        is called (the default)
+     */
+    public void setVersionCacheTimeout(long ttl) {
+        this.versionTTL = ttl;
+    }
+
+    /**
+     * @return the GeoServer version cache timeout in milliseconds
+     * @see #setVersionCacheTimeout(long)
+     */
+    public long getVersionCacheTimeout() {
+        return versionTTL;
+    }
+
+    /**
+     * GeoServer 2.1 does not publish its version, which is then unrecognized.
+     */
+    private boolean isGeoserver21() {
+        return getGeoserverVersion().getVersion() == GSVersionDecoder.VERSION.UNRECOGNIZED;
+    }
+
+    /**
+     * Create a layer encoder suitable for the target GeoServer version:
+     * {@link GSLayerEncoder21} for GeoServer 2.1, {@link GSLayerEncoder} otherwise.
+     * 
+     * @return a new layer encoder
+     */
+    public GSLayerEncoder createLayerEncoder() {
+        return isGeoserver21() ? new GSLayerEncoder21() : new GSLayerEncoder();
+    }
+
+    /**
+     * Create a layergroup encoder suitable for the target GeoServer version:
+     * {@link GSLayerGroupEncoder23} for GeoServer 2.3 and above,
+     * {@link GSLayerGroupEncoder} otherwise.
+     * 
+     * @return a new layergroup encoder
+     */
+    public GSLayerGroupEncoder createLayerGroupEncoder() {
+        final GSVersionDecoder.VERSION v = getGeoserverVersion().getVersion();
+        if (v.getVersion() >= GSVersionDecoder.VERSION.v23.getVersion())
+            return new GSLayerGroupEncoder23();
+        return new GSLayerGroupEncoder();
     }
 
     //==========================================================================
@@ -304,8 +527,7 @@ public class GeoServerRESTReader {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("### Retrieving DS from " + url);
         }
-        String response = load(url);
-//        System.out.println("DATASTORE " + workspace+":"+dsName+"\n"+response);
+        InputStream response = load(url);
         return RESTDataStore.build(response);
     }
 
@@ -321,7 +543,7 @@ public class GeoServerRESTReader {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("### Retrieving DS from fullurl " + url);
         }
-        String response = loadFullURL(url);
+        InputStream response = loadFullURL(url);
         return RESTDataStore.build(response);
     }
     
@@ -347,7 +569,7 @@ public class GeoServerRESTReader {
     public boolean existsDatastore(String workspace, String dsName, boolean quietOnNotFound){
         String url = baseurl + "/rest/workspaces/" + workspace + "/datastores/" + dsName + ".xml";
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     //==========================================================================
@@ -365,10 +587,42 @@ public class GeoServerRESTReader {
         if(layer.getType() != RESTLayer.Type.VECTOR)
             throw new RuntimeException("Bad layer type for layer " + layer.getName());
 
-        String response = loadFullURL(layer.getResourceUrl());
+        InputStream response = loadFullURL(layer.getResourceUrl());
         return RESTFeatureType.build(response);
     }
 
+    /**
+     * Get a summary of a given FeatureType.
+     * <BR>
+     * The response is decoded in a single pass into an immutable {@link RESTFeatureTypeSummary},
+     * without keeping the XML tree as {@link #getFeatureType(RESTLayer)} does.
+     *
+     * @param workspace The name of the workspace
+     * @param dsName The name of the DataStore
+     * @param ftName The name of the FeatureType
+     * @return a RESTFeatureTypeSummary with FeatureType information or null
+     */
+    public RESTFeatureTypeSummary getFeatureTypeSummary(String workspace, String dsName, String ftName) {
+        String url = "/rest/workspaces/" + workspace + "/datastores/" + dsName + "/featuretypes/" + ftName + ".xml";
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("### Retrieving FeatureType summary from " + url);
+        }
+        return RESTFeatureTypeSummary.build(loadXML(baseurl + url));
+    }
+
+    /**
+     * Get a summary of a FeatureType given the summary of the Layer where it's published with.
+     *
+     * @param layer A layer publishing the FeatureType
+     * @return a RESTFeatureTypeSummary with FeatureType information or null
+     */
+    public RESTFeatureTypeSummary getFeatureTypeSummary(RESTLayerSummary layer) {
+        if(layer.getType() != RESTLayer.Type.VECTOR)
+            throw new RuntimeException("Bad layer type for layer " + layer.getName());
+
+        return RESTFeatureTypeSummary.build(loadXML(layer.getResourceUrl()));
+    }
+
     /**
      * Checks if the selected FeatureType is present.
      * 
@@ -393,7 +647,7 @@ public class GeoServerRESTReader {
     public boolean existsFeatureType(String workspace, String dsName, String ftName, boolean quietOnNotFound){
         String url = baseurl + "/rest/workspaces/" + workspace + "/datastores/" + dsName + "/featuretypes/" + ftName +".xml";
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     //==========================================================================
@@ -442,7 +696,7 @@ public class GeoServerRESTReader {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("### Retrieving CS from fullurl " + url);
         }
-        String response = loadFullURL(url);
+        InputStream response = loadFullURL(url);
         return RESTCoverageStore.build(response);
     }
     
@@ -457,7 +711,7 @@ public class GeoServerRESTReader {
     public boolean existsCoveragestore(String workspace, String csName, boolean quietOnNotFound){
         String url = baseurl + "/rest/workspaces/" + workspace + "/coveragestores/" + csName + ".xml";
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     /**
@@ -519,7 +773,7 @@ public class GeoServerRESTReader {
     public boolean existsCoverage(String workspace, String store, String name, boolean quietOnNotFound){
         String url = baseurl + "/rest/workspaces/" + workspace + "/coveragestores/" + store + "/coverages/"+name+".xml";
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     /**
@@ -544,10 +798,42 @@ public class GeoServerRESTReader {
         if(layer.getType() != RESTLayer.Type.RASTER)
             throw new RuntimeException("Bad layer type for layer " + layer.getName());
 
-        String response = loadFullURL(layer.getResourceUrl());
+        InputStream response = loadFullURL(layer.getResourceUrl());
         return RESTCoverage.build(response);
     }
 
+    /**
+     * Get a summary of a given Coverage.
+     * <BR>
+     * The response is decoded in a single pass into an immutable {@link RESTCoverageSummary},
+     * without keeping the XML tree as {@link #getCoverage(String, String, String)} does.
+     *
+     * @param workspace The name of the workspace
+     * @param store The name of the CoverageStore
+     * @param name The name of the Coverage
+     * @return a RESTCoverageSummary with Coverage information or null
+     */
+    public RESTCoverageSummary getCoverageSummary(String workspace, String store, String name) {
+        String url = "/rest/workspaces/" + workspace + "/coveragestores/" + store + "/coverages/" + name + ".xml";
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("### Retrieving Coverage summary from " + url);
+        }
+        return RESTCoverageSummary.build(loadXML(baseurl + url));
+    }
+
+    /**
+     * Get a summary of a Coverage given the summary of the Layer where it's published with.
+     *
+     * @param layer A layer publishing the Coverage
+     * @return a RESTCoverageSummary with Coverage information or null
+     */
+    public RESTCoverageSummary getCoverageSummary(RESTLayerSummary layer) {
+        if(layer.getType() != RESTLayer.Type.RASTER)
+            throw new RuntimeException("Bad layer type for layer " + layer.getName());
+
+        return RESTCoverageSummary.build(loadXML(layer.getResourceUrl()));
+    }
+
     //==========================================================================
     //=== WMSSTORES
     //==========================================================================
@@ -593,7 +879,7 @@ public class GeoServerRESTReader {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("### Retrieving CS from fullurl " + url);
         }
-        String response = loadFullURL(url);
+        InputStream response = loadFullURL(url);
         return RESTWmsStore.build(response);
     }
 
@@ -608,7 +894,7 @@ public class GeoServerRESTReader {
     public boolean existsWmsstore(String workspace, String wsName, boolean quietOnNotFound){
         String url = baseurl + "/rest/workspaces/" + workspace + "/wmsstores/" + wsName + ".xml";
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     /**
@@ -668,7 +954,7 @@ public class GeoServerRESTReader {
     public boolean existsWms(String workspace, String store, String name, boolean quietOnNotFound){
         String url = baseurl + "/rest/workspaces/" + workspace + "/wmsstores/" + store + "/wmslayers/"+name+".xml";
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
     
     /**
@@ -690,7 +976,7 @@ public class GeoServerRESTReader {
      * @return Wms details as a {@link RESTWms}
      */
     public RESTWms getWms(RESTLayer layer) {
-        String response = loadFullURL(layer.getResourceUrl());
+        InputStream response = loadFullURL(layer.getResourceUrl());
         return RESTWms.build(response);
     }
     
@@ -704,7 +990,7 @@ public class GeoServerRESTReader {
      * @return Resource details as a {@link RESTResource}
      */
     public RESTResource getResource(RESTLayer layer) {
-        String response = loadFullURL(layer.getResourceUrl());
+        InputStream response = loadFullURL(layer.getResourceUrl());
         return RESTResource.build(response);
     }
 
@@ -788,7 +1074,7 @@ public class GeoServerRESTReader {
             url = baseurl + "/rest/workspaces/" + workspace + "/layergroups/" + name + ".xml";
         }  
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     /**
@@ -866,8 +1152,7 @@ public class GeoServerRESTReader {
         }
         
 		RESTLayer layer = null;
-		if (this.getGeoserverVersion().getVersion()
-				.equals(GSVersionDecoder.VERSION.UNRECOGNIZED)) {
+		if (isGeoserver21()) {
 			layer = RESTLayer21.build(load(url));
 		} else {
 			layer = RESTLayer.build(load(url));
@@ -875,6 +1160,28 @@ public class GeoServerRESTReader {
 		return layer;
     }
     
+    /**
+     * Get a summary of a given Layer.
+     * <BR>
+     * The response is decoded in a single pass into an immutable {@link RESTLayerSummary},
+     * without keeping the XML tree as {@link #getLayer(String, String)} does.
+     * 
+     * @param workspace the workspace name
+     * @param name the layer name
+     * @return a RESTLayerSummary with layer information or null
+     */
+    public RESTLayerSummary getLayerSummary(String workspace, String name) {
+        if (workspace == null || workspace.isEmpty())
+            throw new IllegalArgumentException("Workspace may not be null");
+        if (name == null || name.isEmpty())
+            throw new IllegalArgumentException("Layername may not be null");
+        String url = HTTPUtils.append("/rest/layers/",workspace,":",name,".xml").toString();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("### Retrieving layer summary from " + url);
+        }
+        return RESTLayerSummary.build(loadXML(baseurl + url));
+    }
+
     /**
      * Checks if the selected Layer is present. Parameter quietOnNotFound can be used for controlling the logging when 404 is returned.
      * 
@@ -891,7 +1198,7 @@ public class GeoServerRESTReader {
             url = baseurl + "/rest/layers/" + workspace + ":" + name + ".xml";
         }  
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     /**
@@ -905,6 +1212,167 @@ public class GeoServerRESTReader {
         return existsLayer(workspace, name, Util.DEFAULT_QUIET_ON_NOT_FOUND);
     }
 
+    /**
+     * Checks if the given Layers are present, sending the requests
+     * concurrently over the pooled connections of the transport.
+     * 
+     * @param names the Layer names, qualified with their workspace
+     *        (<TT>workspace:name</TT>) or not
+     * @return whether each Layer exists, in the iteration order of the names
+     * @throws RuntimeException if any of the checks fails
+     */
+    public Map<String, Boolean> existsLayers(Collection<String> names) throws RuntimeException {
+        final int threads = Math.max(1,
+                Math.min(names.size(), GeoServerRESTAbstractAsync.DEFAULT_THREADS));
+        final ExecutorService executor = GeoServerRESTAbstractAsync.newExecutor(threads);
+        try {
+            return existsLayers(names, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Checks if the given Layers are present, sending the requests
+     * concurrently on the given executor.
+     * 
+     * @param names the Layer names, qualified with their workspace
+     *        (<TT>workspace:name</TT>) or not
+     * @param executor the executor running the requests
+     * @return whether each Layer exists, in the iteration order of the names
+     * @throws RuntimeException if any of the checks fails
+     */
+    public Map<String, Boolean> existsLayers(Collection<String> names, ExecutorService executor)
+            throws RuntimeException {
+        final Map<String, String> urls = new LinkedHashMap<String, String>();
+        for (String name : names) {
+            urls.put(name, Util.appendQuietOnNotFound(true, baseurl + "/rest/layers/" + name + ".xml"));
+        }
+        return existsAll(urls, executor);
+    }
+
+    /**
+     * Probes the given URLs concurrently.
+     * 
+     * @param urls the URL to probe for each key
+     * @return whether each resource exists, in the iteration order of the URLs
+     */
+    private <K> Map<K, Boolean> existsAll(Map<K, String> urls, ExecutorService executor) {
+        final Map<K, Future<Boolean>> pending = new LinkedHashMap<K, Future<Boolean>>();
+        for (Map.Entry<K, String> entry : urls.entrySet()) {
+            final String url = entry.getValue();
+            pending.put(entry.getKey(), executor.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    return transport.exists(url, username, password);
+                }
+            }));
+        }
+        final Map<K, Boolean> result = new LinkedHashMap<K, Boolean>();
+        try {
+            for (Map.Entry<K, Future<Boolean>> entry : pending.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            for (Future<Boolean> future : pending.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    //==========================================================================
+    //=== CATALOG SNAPSHOT
+    //==========================================================================
+
+    /**
+     * Loads all the layers of the catalog, with their resources, stores and styles.
+     * 
+     * @see #getCatalogSnapshot(String, ExecutorService)
+     */
+    public RESTCatalogSnapshot getCatalogSnapshot() throws RuntimeException {
+        return getCatalogSnapshot(null);
+    }
+
+    /**
+     * Loads all the layers of a workspace, with their resources, stores and styles,
+     * sending up to {@link GeoServerRESTAbstractAsync#DEFAULT_THREADS} concurrent requests.
+     * 
+     * @see #getCatalogSnapshot(String, ExecutorService)
+     */
+    public RESTCatalogSnapshot getCatalogSnapshot(String workspace) throws RuntimeException {
+        final ExecutorService executor = GeoServerRESTAbstractAsync
+                .newExecutor(GeoServerRESTAbstractAsync.DEFAULT_THREADS);
+        try {
+            return getCatalogSnapshot(workspace, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Loads all the layers of a workspace, with their resources, stores and styles.
+     * <BR>
+     * Layers are loaded concurrently on the given executor; stores and styles shared
+     * by several layers are requested once. Items that cannot be found are listed in
+     * {@link RESTCatalogSnapshot#getFailures()}.
+     * 
+     * @param workspace the workspace name, null for the whole catalog
+     * @param executor the executor running the requests
+     * @return the snapshot, or null if the layers cannot be listed
+     * @throws RuntimeException if any of the requests fails
+     */
+    public RESTCatalogSnapshot getCatalogSnapshot(String workspace, ExecutorService executor)
+            throws RuntimeException {
+        if (executor == null)
+            throw new IllegalArgumentException("Unable to load the snapshot using a null executor");
+        return new GeoServerRESTCatalogCrawler(this, workspace, executor, false).crawl();
+    }
+
+    /**
+     * Loads the lat/lon extents of all the layers of a workspace, sending up to
+     * {@link GeoServerRESTAbstractAsync#DEFAULT_THREADS} concurrent requests.
+     * 
+     * @see #getLayerEnvelopes(String, ExecutorService)
+     */
+    public RESTLayerEnvelopes getLayerEnvelopes(String workspace) throws RuntimeException {
+        final ExecutorService executor = GeoServerRESTAbstractAsync
+                .newExecutor(GeoServerRESTAbstractAsync.DEFAULT_THREADS);
+        try {
+            return getLayerEnvelopes(workspace, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Loads the lat/lon extents of all the layers of a workspace into a packed
+     * array.
+     * <BR>
+     * Layers and resources are loaded concurrently on the given executor, as in
+     * {@link #getCatalogSnapshot(String, ExecutorService)}, but stores and styles
+     * are not requested. Layers whose resource cannot be loaded are left out.
+     * 
+     * @param workspace the workspace name, null for the whole catalog
+     * @param executor the executor running the requests
+     * @return the extents, or null if the layers cannot be listed
+     * @throws RuntimeException if any of the requests fails
+     */
+    public RESTLayerEnvelopes getLayerEnvelopes(String workspace, ExecutorService executor)
+            throws RuntimeException {
+        if (executor == null)
+            throw new IllegalArgumentException("Unable to load the extents using a null executor");
+        return RESTLayerEnvelopes.build(new GeoServerRESTCatalogCrawler(this, workspace, executor,
+                true).crawl());
+    }
+
     //==========================================================================
     //=== NAMESPACES
     //==========================================================================
@@ -948,12 +1416,7 @@ public class GeoServerRESTReader {
      * @return the list of the names of all Namespaces.
      */
     public List<String> getNamespaceNames() {
-        RESTNamespaceList list = getNamespaces();
-        List<String> names = new ArrayList<String>(list.size());
-        for (RESTNamespaceList.RESTShortNamespace item : list) {
-            names.add(item.getName());
-        }
-        return names;
+        return getNames("/rest/namespaces.xml");
     }
 
     /**
@@ -969,7 +1432,7 @@ public class GeoServerRESTReader {
         }
         String url = baseurl + "/rest/namespaces/" + prefix + ".xml";
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     /**
@@ -1007,17 +1470,62 @@ public class GeoServerRESTReader {
      * @return the list of the names of all Workspaces or an empty list.
      */
     public List<String> getWorkspaceNames() {
-        RESTWorkspaceList list = getWorkspaces();
-        if(list==null){
-        	return Collections.emptyList();
+        return getNames("/rest/workspaces.xml");
+    }
+
+    /**
+     * Loads a list of summary data with the pull decoder, keeping the names only.
+     * 
+     * @return the list of the names or an empty list.
+     */
+    private List<String> getNames(String url) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("### Retrieving names from " + url);
         }
-        List<String> names = new ArrayList<String>(list.size());
-        for (RESTWorkspaceList.RESTShortWorkspace item : list) {
-            names.add(item.getName());
+        RESTSummaryList list = RESTSummaryList.build(loadXML(baseurl + url));
+        if (list == null) {
+            return Collections.emptyList();
         }
-        return names;
+        return new ArrayList<String>(list.getNames());
     }
     
+    /**
+     * Loads the XML representation of a catalog item, as parsed by the decoders.
+     * 
+     * @param path the REST path, e.g. <TT>/rest/layers/topp:states.xml</TT>
+     * @return the root element, or null if the item does not exist
+     * @throws RuntimeException if the item exists but cannot be loaded, or if
+     *         the server cannot be reached
+     */
+    Element loadElement(String path) throws RuntimeException {
+        final String url = baseurl + path;
+        final Element element = JDOMBuilder.buildElement(loadXML(url));
+        if (element == null && transport.exists(url, username, password))
+            throw new RuntimeException("Unable to load " + url);
+        return element;
+    }
+
+    /**
+     * Loads the names of the items of a list, such as the stores of a workspace.
+     * 
+     * @param path the REST path of the list
+     * @return the names, empty if the list does not exist
+     * @throws RuntimeException if the list exists but cannot be loaded, or if
+     *         the server cannot be reached
+     */
+    List<String> loadNames(String path) throws RuntimeException {
+        final Element list = loadElement(path);
+        final List<String> names = new ArrayList<String>();
+        if (list != null) {
+            for (Object child : list.getChildren()) {
+                final String name = ((Element) child).getChildText("name");
+                if (name != null)
+                    names.add(name);
+            }
+        }
+        return names;
+    }
+
     /**
      * Checks if the selected Workspace is present. Parameter quietOnNotFound can be used for controlling the logging when 404 is returned.
      * 
@@ -1031,7 +1539,7 @@ public class GeoServerRESTReader {
         }
         String url = baseurl + "/rest/workspaces/" + prefix + ".xml";
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     /**
@@ -1065,7 +1573,7 @@ public class GeoServerRESTReader {
             UnsupportedEncodingException {
         try {
             GeoServerRESTStructuredGridCoverageReaderManager manager = 
-                new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password);
+                new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password, transport);
             return manager.getGranuleById(workspace, coverageStore, coverage, id);
         } catch (IllegalArgumentException e) {
             if(LOGGER.isInfoEnabled()){
@@ -1094,7 +1602,7 @@ public class GeoServerRESTReader {
         String url = baseurl + "/rest/workspaces/" + workspace + "/coveragestores/" + coverageStore
                 + "/coverages/" + coverage + "/index/granules/" + id + ".xml";
         String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-        return HTTPUtils.exists(composed, username, password);
+        return transport.exists(composed, username, password);
     }
 
     /**
@@ -1123,7 +1631,7 @@ public class GeoServerRESTReader {
      public RESTStructuredCoverageIndexSchema getGranuleIndexSchema(final String workspace, String coverageStore, String coverage) {
          try {
              GeoServerRESTStructuredGridCoverageReaderManager manager = 
-                 new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password);
+                 new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password, transport);
              return manager.getGranuleIndexSchema(workspace, coverageStore, coverage);
          } catch (IllegalArgumentException e) {
              if(LOGGER.isInfoEnabled()){
@@ -1154,7 +1662,7 @@ public class GeoServerRESTReader {
              throws  UnsupportedEncodingException {
          try {
              GeoServerRESTStructuredGridCoverageReaderManager manager = 
-                 new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password);
+                 new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password, transport);
              return manager.getGranules(workspace, coverageStore, coverage, filter, offset, limit);
          } catch (IllegalArgumentException e) {
              if(LOGGER.isInfoEnabled()){
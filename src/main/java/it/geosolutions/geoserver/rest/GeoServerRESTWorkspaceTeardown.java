@@ -0,0 +1,539 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.Purge;
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.StoreType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Removes a workspace and everything it contains, deleting the items
+ * concurrently instead of one at a time.
+ * <P>
+ * {@link #plan(String)} lists the layer groups, resources (with their
+ * layers), stores and styles of the workspace without deleting anything, which
+ * can be used as a dry run; {@link #execute(Plan)} deletes them in this order,
+ * the items of each kind concurrently, and finally removes the workspace
+ * recursively, which also takes care of anything left behind. Layer groups
+ * containing other groups of the workspace are deleted in rounds, until no
+ * more deletions succeed.
+ * <P>
+ * A failed deletion does not stop the teardown: it is reported, along with
+ * the progress, to an optional {@link ProgressListener}, and in the
+ * {@link Report}.
+ * 
+ * @see GeoServerRESTPublisher#removeWorkspace(String, boolean)
+ */
+public class GeoServerRESTWorkspaceTeardown extends GeoServerRESTAbstractAsync {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTWorkspaceTeardown.class);
+
+    /**
+     * The kinds of items, in the order they are deleted.
+     */
+    public enum Kind {
+        LAYER_GROUP, RESOURCE, STORE, STYLE, WORKSPACE
+    }
+
+    /**
+     * Receives the progress of a teardown.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called, from the threads of the executor, each time the deletion of
+         * an item ends.
+         * 
+         * @param deletion the item
+         * @param deleted whether the item was deleted
+         * @param done the deletions ended so far
+         * @param total the deletions of the plan
+         */
+        void progress(Deletion deletion, boolean deleted, int done, int total);
+    }
+
+    /**
+     * An item to delete.
+     */
+    public static class Deletion {
+
+        private final Kind kind;
+
+        private final String workspace;
+
+        private final StoreType storeType;
+
+        private final String store;
+
+        private final String name;
+
+        Deletion(Kind kind, String workspace, StoreType storeType, String store, String name) {
+            this.kind = kind;
+            this.workspace = workspace;
+            this.storeType = storeType;
+            this.store = store;
+            this.name = name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getWorkspace() {
+            return workspace;
+        }
+
+        /**
+         * @return the type of a store or of the store of a resource, or null
+         */
+        public StoreType getStoreType() {
+            return storeType;
+        }
+
+        /**
+         * @return the store of a resource, or null
+         */
+        public String getStore() {
+            return store;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + workspace + ":" + (store == null ? "" : store + "/") + name;
+        }
+    }
+
+    /**
+     * The deletions needed to remove a workspace.
+     */
+    public static class Plan {
+
+        private final String workspace;
+
+        private final List<Deletion> deletions;
+
+        Plan(String workspace, List<Deletion> deletions) {
+            this.workspace = workspace;
+            this.deletions = Collections.unmodifiableList(deletions);
+        }
+
+        public String getWorkspace() {
+            return workspace;
+        }
+
+        /**
+         * @return the deletions, in the order they are run
+         */
+        public List<Deletion> getDeletions() {
+            return deletions;
+        }
+
+        /**
+         * @return the deletions of a kind
+         */
+        public List<Deletion> getDeletions(Kind kind) {
+            final List<Deletion> selected = new ArrayList<Deletion>();
+            for (Deletion deletion : deletions) {
+                if (deletion.kind == kind)
+                    selected.add(deletion);
+            }
+            return selected;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Teardown of ").append(workspace).append(":");
+            for (Kind kind : Kind.values()) {
+                sb.append(" ").append(getDeletions(kind).size()).append(" ").append(kind);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * The outcome of a teardown.
+     */
+    public static class Report {
+
+        private final Map<Deletion, Boolean> outcomes;
+
+        private final long elapsed;
+
+        Report(Map<Deletion, Boolean> outcomes, long elapsed) {
+            this.outcomes = Collections.unmodifiableMap(outcomes);
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * @return whether each item was deleted, in the order of the plan
+         */
+        public Map<Deletion, Boolean> getOutcomes() {
+            return outcomes;
+        }
+
+        /**
+         * @return the items which could not be deleted
+         */
+        public List<Deletion> getFailures() {
+            final List<Deletion> failures = new ArrayList<Deletion>();
+            for (Map.Entry<Deletion, Boolean> outcome : outcomes.entrySet()) {
+                if (!outcome.getValue())
+                    failures.add(outcome.getKey());
+            }
+            return failures;
+        }
+
+        /**
+         * @return true if all the items, the workspace included, were deleted
+         */
+        public boolean isSuccessful() {
+            return !outcomes.containsValue(Boolean.FALSE);
+        }
+
+        /**
+         * @return the duration of the teardown, in milliseconds
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return outcomes.size() + " deletions (" + getFailures().size() + " failed) in "
+                    + elapsed + " ms";
+        }
+    }
+
+    private final GeoServerRESTReader reader;
+
+    private final GeoServerRESTPublisher publisher;
+
+    private volatile ProgressListener listener;
+
+    /**
+     * Deletes the items on a dedicated pool of {@link #DEFAULT_THREADS} threads.
+     */
+    public GeoServerRESTWorkspaceTeardown(GeoServerRESTManager manager) {
+        this(manager, DEFAULT_THREADS);
+    }
+
+    /**
+     * Deletes the items on a dedicated pool.
+     * 
+     * @param threads max number of requests in flight
+     */
+    public GeoServerRESTWorkspaceTeardown(GeoServerRESTManager manager, int threads) {
+        this(checkManager(manager).getReader(), manager.getPublisher(), threads);
+    }
+
+    /**
+     * Deletes the items on a dedicated pool.
+     * 
+     * @param threads max number of requests in flight
+     */
+    public GeoServerRESTWorkspaceTeardown(GeoServerRESTReader reader,
+            GeoServerRESTPublisher publisher, int threads) {
+        super(threads);
+        this.reader = check(reader);
+        this.publisher = check(publisher);
+    }
+
+    /**
+     * Deletes the items on the given executor.
+     * 
+     * @param executor the (possibly shared) executor
+     */
+    public GeoServerRESTWorkspaceTeardown(GeoServerRESTReader reader,
+            GeoServerRESTPublisher publisher, ExecutorService executor) {
+        super(executor);
+        this.reader = check(reader);
+        this.publisher = check(publisher);
+    }
+
+    private static GeoServerRESTManager checkManager(GeoServerRESTManager manager) {
+        if (manager == null)
+            throw new IllegalArgumentException("Unable to create the teardown using a null manager");
+        return manager;
+    }
+
+    private static <T> T check(T argument) {
+        if (argument == null)
+            throw new IllegalArgumentException("Null argument");
+        return argument;
+    }
+
+    /**
+     * @return the listener receiving the progress, or null
+     */
+    public ProgressListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param listener the listener receiving the progress, or null to disable
+     *        the notifications
+     */
+    public void setListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Lists the items of a workspace, deleting nothing.
+     * 
+     * @param workspace the workspace to remove
+     * @return the deletions needed; only the workspace itself if it does not
+     *         exist or is empty
+     * @throws IllegalArgumentException if the workspace is null or empty
+     * @throws RuntimeException if some list cannot be loaded
+     */
+    public Plan plan(final String workspace) throws IllegalArgumentException, RuntimeException {
+        if (workspace == null || workspace.isEmpty())
+            throw new IllegalArgumentException("Null or empty workspace");
+        final String ws = "/rest/workspaces/" + workspace;
+
+        // the lists of the workspace, then the resources of each store
+        final Map<String, List<String>> lists = load(ws + "/layergroups.xml", ws + "/styles.xml",
+                ws + "/" + StoreType.DATASTORES + ".xml", ws + "/" + StoreType.COVERAGESTORES + ".xml");
+        final List<String> resourceLists = new ArrayList<String>();
+        final List<StoreType> storeTypes = new ArrayList<StoreType>();
+        final List<String> stores = new ArrayList<String>();
+        for (StoreType type : StoreType.values()) {
+            for (String store : lists.get(ws + "/" + type + ".xml")) {
+                resourceLists.add(ws + "/" + type + "/" + store + "/"
+                        + type.getTypeNameWithFormat(GeoServerRESTPublisher.Format.XML));
+                storeTypes.add(type);
+                stores.add(store);
+            }
+        }
+        final Map<String, List<String>> resources = load(resourceLists
+                .toArray(new String[resourceLists.size()]));
+
+        final List<Deletion> deletions = new ArrayList<Deletion>();
+        for (String group : lists.get(ws + "/layergroups.xml")) {
+            deletions.add(new Deletion(Kind.LAYER_GROUP, workspace, null, null, group));
+        }
+        for (int i = 0; i < stores.size(); i++) {
+            for (String resource : resources.get(resourceLists.get(i))) {
+                deletions.add(new Deletion(Kind.RESOURCE, workspace, storeTypes.get(i),
+                        stores.get(i), resource));
+            }
+        }
+        for (int i = 0; i < stores.size(); i++) {
+            deletions.add(new Deletion(Kind.STORE, workspace, storeTypes.get(i), null,
+                    stores.get(i)));
+        }
+        for (String style : lists.get(ws + "/styles.xml")) {
+            deletions.add(new Deletion(Kind.STYLE, workspace, null, null, style));
+        }
+        deletions.add(new Deletion(Kind.WORKSPACE, workspace, null, null, workspace));
+
+        final Plan plan = new Plan(workspace, deletions);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info(plan.toString());
+        return plan;
+    }
+
+    /**
+     * Removes a workspace and everything it contains.
+     * 
+     * @see #plan(String)
+     * @see #execute(Plan)
+     */
+    public Report teardown(String workspace) throws IllegalArgumentException, RuntimeException {
+        return execute(plan(workspace));
+    }
+
+    /**
+     * Runs the deletions of a plan, waiting for them to end.
+     * 
+     * @return whether each item was deleted
+     * @throws IllegalArgumentException if the plan is null
+     * @throws RuntimeException if the calling thread is interrupted; the
+     *         interrupt status is set again
+     */
+    public Report execute(Plan plan) throws IllegalArgumentException, RuntimeException {
+        if (plan == null)
+            throw new IllegalArgumentException("Null argument");
+        final long start = System.currentTimeMillis();
+        final Map<Deletion, Boolean> outcomes = new LinkedHashMap<Deletion, Boolean>();
+        for (Deletion deletion : plan.deletions) {
+            outcomes.put(deletion, Boolean.FALSE);
+        }
+        final AtomicInteger done = new AtomicInteger();
+        final int total = plan.deletions.size();
+
+        for (Kind kind : Kind.values()) {
+            List<Deletion> pending = plan.getDeletions(kind);
+            // groups may contain other groups: retry while some succeed
+            final boolean rounds = kind == Kind.LAYER_GROUP;
+            while (!pending.isEmpty()) {
+                final List<Deletion> failed = delete(pending, rounds, outcomes, done, total);
+                if (!rounds || failed.size() == pending.size()) {
+                    if (rounds)
+                        fireFailures(failed, done, total);
+                    break;
+                }
+                pending = failed;
+            }
+        }
+
+        final Report report = new Report(outcomes, System.currentTimeMillis() - start);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Teardown of " + plan.workspace + ": " + report);
+        return report;
+    }
+
+    /**
+     * Runs the deletions concurrently, recording their outcome.
+     * 
+     * @param quiet if true, the failures are not notified to the listener
+     * @return the deletions which failed
+     */
+    private List<Deletion> delete(List<Deletion> deletions, final boolean quiet,
+            Map<Deletion, Boolean> outcomes, final AtomicInteger done, final int total) {
+        final List<Future<Boolean>> running = new ArrayList<Future<Boolean>>(deletions.size());
+        for (final Deletion deletion : deletions) {
+            running.add(executor.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    boolean deleted;
+                    try {
+                        deleted = delete(deletion);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Unable to delete " + deletion + ": " + e.getLocalizedMessage());
+                        deleted = false;
+                    }
+                    if (deleted || !quiet)
+                        fireProgress(deletion, deleted, done.incrementAndGet(), total);
+                    return deleted;
+                }
+            }));
+        }
+        final List<Deletion> failed = new ArrayList<Deletion>();
+        try {
+            for (int i = 0; i < deletions.size(); i++) {
+                final boolean deleted = running.get(i).get();
+                outcomes.put(deletions.get(i), deleted);
+                if (!deleted)
+                    failed.add(deletions.get(i));
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> future : running) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        return failed;
+    }
+
+    private void fireFailures(List<Deletion> failed, AtomicInteger done, int total) {
+        for (Deletion deletion : failed) {
+            fireProgress(deletion, false, done.incrementAndGet(), total);
+        }
+    }
+
+    private void fireProgress(Deletion deletion, boolean deleted, int done, int total) {
+        final ProgressListener listener = this.listener;
+        if (listener == null)
+            return;
+        try {
+            listener.progress(deletion, deleted, done, total);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Progress listener failure: " + e.getLocalizedMessage());
+        }
+    }
+
+    private boolean delete(Deletion deletion) {
+        final String ws = deletion.workspace;
+        switch (deletion.kind) {
+        case LAYER_GROUP:
+            return publisher.removeLayerGroup(ws, deletion.name);
+        case RESOURCE:
+            return deletion.storeType == StoreType.DATASTORES ? publisher.unpublishFeatureType(ws,
+                    deletion.store, deletion.name) : publisher.unpublishCoverage(ws,
+                    deletion.store, deletion.name);
+        case STORE:
+            return publisher.removeStore(ws, deletion.name, deletion.storeType, true, Purge.NONE);
+        case STYLE:
+            return publisher.removeStyleInWorkspace(ws, deletion.name, true);
+        default:
+            return publisher.deleteWorkspace(ws, true);
+        }
+    }
+
+    /**
+     * Loads the lists concurrently.
+     * 
+     * @return the names in each list, empty if the list does not exist
+     */
+    private Map<String, List<String>> load(String... paths) throws RuntimeException {
+        final Map<String, Future<List<String>>> loading = new LinkedHashMap<String, Future<List<String>>>();
+        try {
+            for (final String path : paths) {
+                loading.put(path, executor.submit(new Callable<List<String>>() {
+                    public List<String> call() {
+                        return reader.loadNames(path);
+                    }
+                }));
+            }
+            final Map<String, List<String>> lists = new LinkedHashMap<String, List<String>>();
+            for (Map.Entry<String, Future<List<String>>> entry : loading.entrySet()) {
+                lists.put(entry.getKey(), entry.getValue().get());
+            }
+            return lists;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            for (Future<?> future : loading.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breaker keeping track of the health of each GeoServer node
+ * (<TT>host:port</TT>) reached by an {@link HTTPTransport}.
+ * <P>
+ * A node starts {@link State#CLOSED}: requests flow normally. After the
+ * configured number of consecutive failures (connection errors, timeouts or
+ * 502/503/504 responses) the node becomes {@link State#OPEN} and requests to
+ * it fail fast, without touching the network. Once the open time has
+ * elapsed the node becomes {@link State#HALF_OPEN} and a single trial
+ * request is let through: its success closes the circuit again, its failure
+ * opens it for another period.
+ * <P>
+ * Each state change is logged, counted and notified to the optional
+ * {@link Listener}. Instances are thread-safe.
+ */
+public class HTTPCircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HTTPCircuitBreaker.class);
+
+    /** Default number of consecutive failures opening the circuit. */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /** Default time the circuit stays open, in milliseconds. */
+    public static final long DEFAULT_OPEN_TIME = 30000;
+
+    public enum State {
+        /** Requests flow normally. */
+        CLOSED,
+        /** Requests fail fast. */
+        OPEN,
+        /** A single trial request is allowed. */
+        HALF_OPEN
+    }
+
+    /**
+     * Receives the state changes of the nodes.
+     */
+    public interface Listener {
+
+        /**
+         * @param node the node (<TT>host:port</TT>)
+         * @param from the previous state
+         * @param to the new state
+         */
+        void stateChanged(String node, State from, State to);
+    }
+
+    /**
+     * Thrown when a request is not sent because the circuit of the target
+     * node is open.
+     */
+    public static class OpenException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String node;
+
+        public OpenException(String node) {
+            super("Circuit open for " + node + ", the request was not sent");
+            this.node = node;
+        }
+
+        /**
+         * @return the unhealthy node
+         */
+        public String getNode() {
+            return node;
+        }
+    }
+
+    private static final class Node {
+        State state = State.CLOSED;
+
+        int failures;
+
+        long openedAt;
+
+        boolean trialPending;
+    }
+
+    private final int failureThreshold;
+
+    private final long openTime;
+
+    private final Map<String, Node> nodes = new HashMap<String, Node>();
+
+    private volatile Listener listener;
+
+    private final AtomicLong opened = new AtomicLong();
+
+    private final AtomicLong halfOpened = new AtomicLong();
+
+    private final AtomicLong closed = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates a circuit breaker with default settings.
+     */
+    public HTTPCircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_TIME);
+    }
+
+    /**
+     * @param failureThreshold number of consecutive failures opening the circuit
+     * @param openTime time in milliseconds the circuit stays open before a trial
+     *        request is allowed
+     * @throws IllegalArgumentException if the threshold is not positive or the
+     *         time is negative
+     */
+    public HTTPCircuitBreaker(int failureThreshold, long openTime)
+            throws IllegalArgumentException {
+        if (failureThreshold < 1)
+            throw new IllegalArgumentException("The failure threshold should be a positive integer");
+        if (openTime < 0)
+            throw new IllegalArgumentException("The open time may not be negative");
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+
+    /**
+     * @return true if a request to the node can be sent
+     */
+    public boolean allowRequest(String node) {
+        synchronized (nodes) {
+            Node n = node(node);
+            switch (n.state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - n.openedAt < openTime) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                change(node, n, State.HALF_OPEN);
+                n.trialPending = true;
+                return true;
+            default: // HALF_OPEN
+                if (n.trialPending) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                n.trialPending = true;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records a successful request to the node.
+     */
+    public void onSuccess(String node) {
+        synchronized (nodes) {
+            Node n = node(node);
+            n.failures = 0;
+            n.trialPending = false;
+            if (n.state != State.CLOSED)
+                change(node, n, State.CLOSED);
+        }
+    }
+
+    /**
+     * Records a failed request to the node.
+     */
+    public void onFailure(String node) {
+        synchronized (nodes) {
+            Node n = node(node);
+            n.failures++;
+            n.trialPending = false;
+            if (n.state == State.HALF_OPEN
+                    || (n.state == State.CLOSED && n.failures >= failureThreshold)) {
+                n.openedAt = System.currentTimeMillis();
+                change(node, n, State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * @return the current state of the node
+     */
+    public State getState(String node) {
+        synchronized (nodes) {
+            Node n = nodes.get(node);
+            return n == null ? State.CLOSED : n.state;
+        }
+    }
+
+    /**
+     * Closes the circuit of all the nodes.
+     */
+    public void reset() {
+        synchronized (nodes) {
+            nodes.clear();
+        }
+    }
+
+    private Node node(String node) {
+        Node n = nodes.get(node);
+        if (n == null) {
+            n = new Node();
+            nodes.put(node, n);
+        }
+        return n;
+    }
+
+    private void change(String node, Node n, State to) {
+        final State from = n.state;
+        n.state = to;
+        switch (to) {
+        case OPEN:
+            opened.incrementAndGet();
+            LOGGER.warn("Circuit open for " + node + " after " + n.failures + " failures");
+            break;
+        case HALF_OPEN:
+            halfOpened.incrementAndGet();
+            LOGGER.info("Circuit half-open for " + node + ", sending a trial request");
+            break;
+        default:
+            closed.incrementAndGet();
+            LOGGER.info("Circuit closed for " + node);
+        }
+        final Listener l = listener;
+        if (l != null) {
+            try {
+                l.stateChanged(node, from, to);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Circuit breaker listener failed: " + e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @param listener the listener of the state changes, or null
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getOpenTime() {
+        return openTime;
+    }
+
+    /**
+     * @return how many times a circuit has been opened
+     */
+    public long getOpenedCount() {
+        return opened.get();
+    }
+
+    /**
+     * @return how many times a circuit has become half-open
+     */
+    public long getHalfOpenedCount() {
+        return halfOpened.get();
+    }
+
+    /**
+     * @return how many times a circuit has been closed again
+     */
+    public long getClosedCount() {
+        return closed.get();
+    }
+
+    /**
+     * @return how many requests failed fast
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
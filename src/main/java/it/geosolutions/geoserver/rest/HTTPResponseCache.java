@@ -0,0 +1,463 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of REST GET responses, plugged into an {@link HTTPTransport}
+ * using {@link HTTPTransport#setCache(HTTPResponseCache)}.
+ * <P>
+ * Responses are keyed by URL and user and evicted in LRU order once either the
+ * max number of entries or the max overall body size is exceeded. An entry is
+ * served from memory for the configured time to live; after that the transport
+ * revalidates it with a conditional GET (<TT>If-None-Match</TT> /
+ * <TT>If-Modified-Since</TT>) when GeoServer sent an <TT>ETag</TT> or a
+ * <TT>Last-Modified</TT> header, and reloads it otherwise.
+ * <P>
+ * Every PUT, POST or DELETE sent through the same transport invalidates the
+ * entries it may have changed: a call on a workspace (i.e. <TT>/rest/workspaces/ws/...</TT>)
+ * drops the entries of that workspace plus the global layer, layergroup,
+ * workspace and namespace lists; any other call drops all the entries of
+ * the target GeoServer. A GET which was sent before such an invalidation
+ * and answered after it is not cached, since its body may predate the
+ * change.
+ * <P>
+ * Instances are thread-safe.
+ */
+public class HTTPResponseCache {
+
+    /** Default max number of cached responses. */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /** Default max overall size of the cached bodies, in bytes. */
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    /** Default time a response is served without revalidation, in milliseconds. */
+    public static final long DEFAULT_TIME_TO_LIVE = 60000;
+
+    private static final String REST = "/rest";
+
+    private static final String WORKSPACES = "/workspaces";
+
+    private static final String[] GLOBAL_LISTS = { WORKSPACES, "/namespaces", "/layers",
+            "/layergroups" };
+
+    /** Scope suffix of the global lists invalidations; not a valid REST path. */
+    private static final String GLOBAL_LISTS_SCOPE = " lists";
+
+    private final int maxEntries;
+
+    private final long maxBytes;
+
+    private final long timeToLive;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16,
+            0.75f, true);
+
+    private long bytes = 0;
+
+    /**
+     * Invalidation counters by scope: a REST root (a call outside a
+     * workspace), a workspace under a REST root, or the global lists of a REST
+     * root (any call on a workspace); guarded by {@link #entries}.
+     */
+    private final Map<String, Long> generations = new HashMap<String, Long>();
+
+    /** Number of invalidations of any scope; guarded by {@link #entries}. */
+    private long invalidations = 0;
+
+    /** Number of invalidations of all the scopes; guarded by {@link #entries}. */
+    private long clears = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong revalidations = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache with default settings.
+     */
+    public HTTPResponseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Creates a cache.
+     * 
+     * @param maxEntries max number of cached responses
+     * @param maxBytes max overall size of the cached bodies, in bytes
+     * @param timeToLive time in milliseconds a response is served without
+     *        revalidation; 0 revalidates it on every request
+     * @throws IllegalArgumentException if any argument is negative
+     */
+    public HTTPResponseCache(int maxEntries, long maxBytes, long timeToLive)
+            throws IllegalArgumentException {
+        if (maxEntries < 0 || maxBytes < 0 || timeToLive < 0)
+            throw new IllegalArgumentException("The cache limits may not be negative");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * A cached response body with its validators.
+     */
+    public static final class Entry {
+
+        private final String base;
+
+        private final String path;
+
+        private final byte[] body;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        private final long validated;
+
+        private Entry(String base, String path, byte[] body, String etag, String lastModified,
+                long validated) {
+            this.base = base;
+            this.path = path;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.validated = validated;
+        }
+
+        /**
+         * @return the response body; it must not be modified
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * @return the <TT>ETag</TT> response header, or null
+         */
+        public String getETag() {
+            return etag;
+        }
+
+        /**
+         * @return the <TT>Last-Modified</TT> response header, or null
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return true if the entry can be revalidated with a conditional GET
+         */
+        public boolean isRevalidable() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    /**
+     * @return the key of the response of the given URL for the given user
+     */
+    static String key(String url, String username) {
+        return username == null ? url : username + '@' + url;
+    }
+
+    /**
+     * @return the entry, fresh or not, or <TT>null</TT>
+     */
+    Entry get(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * @return true if the entry can be served without contacting GeoServer
+     */
+    boolean isFresh(Entry entry) {
+        return System.currentTimeMillis() - entry.validated < timeToLive;
+    }
+
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    void miss() {
+        misses.incrementAndGet();
+    }
+
+    /**
+     * Reads the invalidation generation of a URL, to be passed to
+     * {@link #put(String, String, byte[], String, String, long)} once the
+     * response is received.
+     * 
+     * @return a value which changes whenever the response of the URL is
+     *         invalidated
+     */
+    long generation(String url) {
+        final String base = base(url);
+        synchronized (entries) {
+            if (base == null)
+                return invalidations;
+            final String path = path(url, base);
+            long generation = clears + scopeGeneration(base);
+            final String workspace = workspace(path);
+            if (workspace != null)
+                generation += scopeGeneration(base + workspace);
+            if (isGlobalList(path))
+                generation += scopeGeneration(base + GLOBAL_LISTS_SCOPE);
+            return generation;
+        }
+    }
+
+    private long scopeGeneration(String scope) {
+        final Long generation = generations.get(scope);
+        return generation == null ? 0 : generation;
+    }
+
+    private void increment(String scope) {
+        generations.put(scope, scopeGeneration(scope) + 1);
+    }
+
+    /**
+     * Stores a response body, unless the response was invalidated after the
+     * request was sent.
+     * 
+     * @param generation the {@link #generation(String)} of the URL read before
+     *        sending the request
+     */
+    void put(String key, String url, byte[] body, String etag, String lastModified,
+            long generation) {
+        final String base = base(url);
+        final Entry entry = new Entry(base, base == null ? null : path(url, base), body, etag,
+                lastModified, System.currentTimeMillis());
+        synchronized (entries) {
+            if (generation(url) != generation)
+                return;
+            Entry old = entries.put(key, entry);
+            if (old != null)
+                bytes -= old.body.length;
+            bytes += body.length;
+            Iterator<Entry> it = entries.values().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+                Entry eldest = it.next();
+                it.remove();
+                bytes -= eldest.body.length;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Marks an entry as confirmed by GeoServer (HTTP 304).
+     */
+    void revalidated(String key, Entry entry) {
+        revalidations.incrementAndGet();
+        synchronized (entries) {
+            if (entries.get(key) == entry) {
+                entries.put(key, new Entry(entry.base, entry.path, entry.body, entry.etag,
+                        entry.lastModified, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Removes a single response.
+     */
+    void remove(String key) {
+        synchronized (entries) {
+            Entry old = entries.remove(key);
+            if (old != null)
+                bytes -= old.body.length;
+        }
+    }
+
+    /**
+     * Invalidates the responses that may have been changed by a PUT, POST or
+     * DELETE on the given URL.
+     * 
+     * @param url the URL of the changed resource
+     */
+    public void invalidate(String url) {
+        final String base = base(url);
+        if (base == null) {
+            clear();
+            return;
+        }
+        final String path = path(url, base);
+        final String workspace = workspace(path);
+        synchronized (entries) {
+            invalidations++;
+            if (workspace == null) {
+                increment(base);
+            } else {
+                increment(base + workspace);
+                increment(base + GLOBAL_LISTS_SCOPE);
+            }
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry e = it.next();
+                if (e.base != null && !e.base.equals(base))
+                    continue;
+                if (e.base == null || workspace == null || isUnder(e.path, workspace)
+                        || isGlobalList(e.path)) {
+                    it.remove();
+                    bytes -= e.body.length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached responses.
+     */
+    public void clear() {
+        synchronized (entries) {
+            // every scope is affected
+            invalidations++;
+            clears++;
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * @return the number of cached responses
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the overall size of the cached bodies, in bytes
+     */
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    /**
+     * @return the number of requests served from memory
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests which needed GeoServer
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of conditional requests answered with HTTP 304
+     */
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    /**
+     * @return the number of responses evicted to honor the size limits
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    private static boolean isUnder(String path, String prefix) {
+        return path.equals(prefix) || path.startsWith(prefix + "/");
+    }
+
+    /**
+     * @return the workspace part of a path (i.e. <TT>/workspaces/ws</TT>), or
+     *         <TT>null</TT> if the path is not under a workspace
+     */
+    private static String workspace(String path) {
+        if (!path.startsWith(WORKSPACES + "/"))
+            return null;
+        int end = path.indexOf('/', WORKSPACES.length() + 1);
+        return end < 0 ? path : path.substring(0, end);
+    }
+
+    private static boolean isGlobalList(String path) {
+        for (String list : GLOBAL_LISTS) {
+            if (isUnder(path, list) && (!WORKSPACES.equals(list) || path.equals(list)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the URL up to the REST root (i.e. <TT>http://host/geoserver/rest</TT>),
+     *         or <TT>null</TT> if the URL is not a REST one
+     */
+    private static String base(String url) {
+        int idx = url.indexOf(REST + "/");
+        if (idx < 0)
+            return url.endsWith(REST) ? url : null;
+        return url.substring(0, idx + REST.length());
+    }
+
+    /**
+     * @return the resource path relative to the REST root, without query
+     *         string, trailing slash and format extension (i.e.
+     *         <TT>/workspaces/ws/datastores/ds</TT>)
+     */
+    private static String path(String url, String base) {
+        String path = url.substring(base.length());
+        int query = path.indexOf('?');
+        if (query >= 0)
+            path = path.substring(0, query);
+        while (path.endsWith("/"))
+            path = path.substring(0, path.length() - 1);
+        int dot = path.lastIndexOf('.');
+        if (dot > path.lastIndexOf('/'))
+            path = path.substring(0, dot);
+        return path;
+    }
+}
@@ -0,0 +1,1178 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.encoder.utils.XmlElement;
+import it.geosolutions.geoserver.rest.encoder.utils.XmlElementRequestEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import net.sf.json.JSON;
+
+import org.apache.commons.httpclient.Credentials;
+import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpState;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.methods.DeleteMethod;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
+import org.apache.commons.httpclient.methods.FileRequestEntity;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.HeadMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.apache.commons.httpclient.methods.multipart.FilePart;
+import org.apache.commons.httpclient.methods.multipart.MultipartRequestEntity;
+import org.apache.commons.httpclient.methods.multipart.Part;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pooled HTTP transport used to talk to the GeoServer REST interface.
+ * <P>
+ * A transport wraps a single {@link HttpClient} backed by a pooling
+ * {@link HttpConnectionManager} (a {@link MultiThreadedHttpConnectionManager}
+ * unless another one is plugged in), so that connections are kept alive and
+ * reused across calls instead of being opened and torn down on every request.
+ * Connections left idle for longer than the configured idle timeout are
+ * evicted from the pool.
+ * <P>
+ * Credentials are passed on each call and kept in a per-request
+ * {@link HttpState}, so a single transport can be safely shared by several
+ * readers, publishers and managers, even when they use different users.
+ * <P>
+ * An optional {@link HTTPResponseCache} can be plugged in to serve repeated
+ * GETs from memory, {@link ChangeListener}s can be registered to be told
+ * about the resources changed through the transport, and
+ * {@link FailureListener}s to be told about the requests which could not
+ * reach GeoServer.
+ * <P>
+ * Instances are thread-safe. {@link HTTPUtils} delegates to the shared
+ * {@link #getDefault() default transport}; a {@link GeoServerRESTManager}
+ * owns its own transport and hands it to all the components it creates.
+ */
+public class HTTPTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HTTPTransport.class);
+
+    /** Default max number of pooled connections per host. */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+
+    /** Default max number of pooled connections overall. */
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
+
+    /** Default connection timeout, in milliseconds. */
+    public static final int DEFAULT_CONNECTION_TIMEOUT = 5000;
+
+    /** Default time after which an idle pooled connection is closed, in milliseconds. */
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+    private static HTTPTransport defaultTransport;
+
+    private final HttpConnectionManager connectionManager;
+
+    private final HttpClient client;
+
+    private final long idleTimeout;
+
+    private volatile HTTPResponseCache cache;
+
+    /** the <TT>host:port</TT> of the nodes which refused a HEAD request */
+    private final Set<String> headUnsupported = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /** a private copy, never changed once set */
+    private volatile HTTPTransportPolicy policy = new HTTPTransportPolicy();
+
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<ChangeListener>();
+
+    private final List<FailureListener> failureListeners = new CopyOnWriteArrayList<FailureListener>();
+
+    /**
+     * Receives the URLs of the PUT, POST and DELETE requests sent through the
+     * transport, once they are completed.
+     */
+    public interface ChangeListener {
+
+        /**
+         * @param url the URL of the request, which may have failed
+         */
+        void changed(String url);
+    }
+
+    /**
+     * Receives the requests which could not reach GeoServer: connection and
+     * I/O errors, after all the retries, and requests rejected by an open
+     * circuit. The response statuses, 404 included, are not failures.
+     */
+    public interface FailureListener {
+
+        /**
+         * @param node the <TT>host:port</TT> of the target node
+         * @param url the URL of the request
+         * @param cause the error
+         */
+        void failed(String node, String url, IOException cause);
+    }
+
+    /**
+     * Creates a pooled transport with default settings.
+     */
+    public HTTPTransport() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_TOTAL_CONNECTIONS,
+                DEFAULT_CONNECTION_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Creates a pooled transport with default settings, applying the given
+     * timeouts, retries and circuit breaker.
+     * 
+     * @param policy the transport policy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    public HTTPTransport(HTTPTransportPolicy policy) throws IllegalArgumentException {
+        this();
+        setPolicy(policy);
+    }
+
+    /**
+     * Creates a pooled transport.
+     * 
+     * @param maxConnectionsPerHost max number of pooled connections to a single host
+     * @param maxTotalConnections max number of pooled connections overall
+     * @param connectionTimeout connection timeout in milliseconds
+     * @param idleTimeout time in milliseconds after which an idle connection is closed
+     */
+    public HTTPTransport(int maxConnectionsPerHost, int maxTotalConnections,
+            int connectionTimeout, long idleTimeout) {
+        this(new MultiThreadedHttpConnectionManager(), idleTimeout);
+        HttpConnectionManagerParams params = connectionManager.getParams();
+        params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+        params.setMaxTotalConnections(maxTotalConnections);
+        params.setConnectionTimeout(connectionTimeout);
+        params.setStaleCheckingEnabled(true);
+        final HTTPTransportPolicy policy = new HTTPTransportPolicy();
+        policy.setConnectionTimeout(connectionTimeout);
+        this.policy = policy;
+    }
+
+    /**
+     * Creates a transport on top of the given connection manager.
+     * <P>
+     * Use this constructor to plug in a custom {@link HttpConnectionManager};
+     * it must be thread-safe if the transport is going to be shared.
+     * 
+     * @param connectionManager the connection manager to use
+     * @param idleTimeout time in milliseconds after which an idle connection is closed
+     * @throws IllegalArgumentException if the connection manager is null
+     */
+    public HTTPTransport(HttpConnectionManager connectionManager, long idleTimeout)
+            throws IllegalArgumentException {
+        if (connectionManager == null)
+            throw new IllegalArgumentException("Unable to create the transport using a null connection manager");
+        this.connectionManager = connectionManager;
+        this.client = new HttpClient(connectionManager);
+        // GS2 by default always requires authentication: send the credentials
+        // of the requests having some without waiting for the challenge
+        this.client.getParams().setAuthenticationPreemptive(true);
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * @return the transport shared by all the components that were not given a
+     *         transport of their own.
+     */
+    public static synchronized HTTPTransport getDefault() {
+        if (defaultTransport == null) {
+            defaultTransport = new HTTPTransport();
+        }
+        return defaultTransport;
+    }
+
+    /**
+     * @return the underlying connection manager
+     */
+    public HttpConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * @return the underlying http client
+     */
+    public HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return a copy of the timeouts, retries and circuit breaker applied by
+     *         this transport; changing it has no effect until it is set again
+     *         with {@link #setPolicy(HTTPTransportPolicy)}
+     */
+    public HTTPTransportPolicy getPolicy() {
+        return new HTTPTransportPolicy(policy);
+    }
+
+    /**
+     * Sets the timeouts, retries and circuit breaker applied by this
+     * transport; the connection timeout is applied to the connection pool.
+     * <P>
+     * The transport keeps a copy of the policy: later changes to the given
+     * instance are ignored.
+     * 
+     * @param policy the transport policy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    public void setPolicy(HTTPTransportPolicy policy) throws IllegalArgumentException {
+        if (policy == null)
+            throw new IllegalArgumentException("Unable to use a null transport policy");
+        final HTTPTransportPolicy copy = new HTTPTransportPolicy(policy);
+        connectionManager.getParams().setConnectionTimeout(copy.getConnectionTimeout());
+        this.policy = copy;
+    }
+
+    /**
+     * Plugs in a cache of the GET responses, shared by all the components
+     * using this transport; the PUT, POST and DELETE requests sent through
+     * this transport invalidate the matching entries.
+     * 
+     * @param cache the cache, or <TT>null</TT> to disable caching (the default)
+     * @see HTTPResponseCache
+     */
+    public void setCache(HTTPResponseCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return the cache of the GET responses, or <TT>null</TT> if disabled
+     */
+    public HTTPResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @param listener notified of the requests which may change a resource
+     */
+    public void addChangeListener(ChangeListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("Unable to add a null listener");
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param listener notified of the requests which could not reach GeoServer
+     */
+    public void addFailureListener(FailureListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("Unable to add a null listener");
+        failureListeners.add(listener);
+    }
+
+    public void removeFailureListener(FailureListener listener) {
+        failureListeners.remove(listener);
+    }
+
+    /**
+     * Closes all the pooled connections.
+     * <P>
+     * The transport should not be used anymore after this call.
+     */
+    public void shutdown() {
+        if (connectionManager instanceof MultiThreadedHttpConnectionManager) {
+            ((MultiThreadedHttpConnectionManager) connectionManager).shutdown();
+        } else {
+            connectionManager.closeIdleConnections(0);
+        }
+    }
+
+    /**
+     * Executes the method on the pooled client, applying the
+     * {@link HTTPTransportPolicy policy} of this transport.
+     * <BR>
+     * Basic auth is used if both username and pw are not null.
+     * <P>
+     * The caller is in charge of releasing the connection by calling
+     * {@link #release(HttpMethod)}.
+     * 
+     * @return the HTTP status code
+     * @throws HTTPCircuitBreaker.OpenException if the target node is unhealthy
+     */
+    protected int execute(HttpMethod httpMethod, String url, String username, String pw)
+            throws IOException {
+        return execute(httpMethod, url, username, pw,
+                isRetriable(httpMethod) ? policy.getMaxRetries() : 0);
+    }
+
+    /**
+     * Executes the method on the pooled client, retrying it at most the given
+     * number of times.
+     * 
+     * @see #execute(HttpMethod, String, String, String)
+     */
+    protected int execute(HttpMethod httpMethod, String url, String username, String pw,
+            int maxRetries) throws IOException {
+        final String node = node(url);
+        try {
+            return execute(httpMethod, url, node, username, pw, maxRetries);
+        } catch (IOException e) {
+            for (FailureListener listener : failureListeners) {
+                listener.failed(node, url, e);
+            }
+            throw e;
+        }
+    }
+
+    private int execute(HttpMethod httpMethod, String url, String node, String username,
+            String pw, int maxRetries) throws IOException {
+        final HTTPTransportPolicy policy = this.policy;
+        final HTTPCircuitBreaker breaker = policy.getCircuitBreaker();
+        if (breaker != null && !breaker.allowRequest(node))
+            throw new HTTPCircuitBreaker.OpenException(node);
+
+        if (policy.getReadTimeout() > 0
+                && !httpMethod.getParams().isParameterSetLocally(HttpMethodParams.SO_TIMEOUT))
+            httpMethod.getParams().setSoTimeout(policy.getReadTimeout());
+
+        final HttpState state = createState(url, username, pw);
+        for (int attempt = 0;; attempt++) {
+            int status;
+            try {
+                status = client.executeMethod(null, httpMethod, state);
+            } catch (IOException e) {
+                if (breaker != null)
+                    breaker.onFailure(node);
+                if (attempt >= maxRetries)
+                    throw e;
+                LOGGER.info("Error talking to [" + url + "], retrying: " + e.getLocalizedMessage());
+                backoff(policy, attempt);
+                // the failures of this request may have opened the circuit
+                if (breaker != null && !breaker.allowRequest(node))
+                    throw new HTTPCircuitBreaker.OpenException(node);
+                continue;
+            } catch (RuntimeException e) {
+                if (breaker != null)
+                    breaker.onFailure(node);
+                throw e;
+            }
+            final boolean transientError = status == HttpStatus.SC_BAD_GATEWAY
+                    || status == HttpStatus.SC_SERVICE_UNAVAILABLE
+                    || status == HttpStatus.SC_GATEWAY_TIMEOUT;
+            if (breaker != null) {
+                if (transientError)
+                    breaker.onFailure(node);
+                else
+                    breaker.onSuccess(node);
+            }
+            if (!transientError || attempt >= maxRetries)
+                return status;
+            LOGGER.info("(" + status + ") " + HttpStatus.getStatusText(status) + " -- " + url
+                    + ", retrying");
+            httpMethod.releaseConnection();
+            backoff(policy, attempt);
+            if (breaker != null && !breaker.allowRequest(node))
+                throw new HTTPCircuitBreaker.OpenException(node);
+        }
+    }
+
+    /**
+     * Only the idempotent methods whose body can be sent again are retried.
+     */
+    private static boolean isRetriable(HttpMethod httpMethod) {
+        final String name = httpMethod.getName();
+        if (!"GET".equals(name) && !"HEAD".equals(name) && !"PUT".equals(name)
+                && !"DELETE".equals(name))
+            return false;
+        if (httpMethod instanceof EntityEnclosingMethod) {
+            RequestEntity entity = ((EntityEnclosingMethod) httpMethod).getRequestEntity();
+            return entity == null || entity.isRepeatable();
+        }
+        return true;
+    }
+
+    private static void backoff(HTTPTransportPolicy policy, int attempt) throws IOException {
+        try {
+            Thread.sleep(policy.getRetryDelay(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    /**
+     * @return the <TT>host:port</TT> of the URL, used to track the node health
+     */
+    private static String node(String url) throws MalformedURLException {
+        URL u = new URL(url);
+        return u.getHost() + ":" + (u.getPort() < 0 ? u.getDefaultPort() : u.getPort());
+    }
+
+    /**
+     * Applies the probe timeout of the policy to an existence check or a ping.
+     */
+    private void setProbeTimeout(HttpMethod httpMethod) {
+        final int timeout = policy.getProbeTimeout();
+        if (timeout > 0)
+            httpMethod.getParams().setSoTimeout(timeout);
+    }
+
+    /**
+     * Gives the connection used by the method back to the pool, and evicts the
+     * connections that have been idle for too long.
+     */
+    protected void release(HttpMethod httpMethod) {
+        if (httpMethod != null)
+            httpMethod.releaseConnection();
+        connectionManager.closeIdleConnections(idleTimeout);
+    }
+
+    /**
+     * Performs an HTTP GET on the given URL.
+     * 
+     * @param url The URL where to connect to.
+     * @return The HTTP response as a String if the HTTP response code was 200
+     *         (OK).
+     */
+    public String get(String url) {
+        return get(url, null, null);
+    }
+
+    /**
+     * Performs an HTTP GET on the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return The HTTP response as a String if the HTTP response code was 200
+     *         (OK).
+     */
+    public String get(String url, String username, String pw) {
+        final HTTPResponseCache cache = this.cache;
+        if (cache != null) {
+            byte[] body = getCached(cache, url, username, pw);
+            return body == null ? null : new String(body);
+        }
+
+        GetMethod httpMethod = null;
+        try {
+            httpMethod = new GetMethod(url);
+            int status = execute(httpMethod, url, username, pw);
+            if (status == HttpStatus.SC_OK) {
+                InputStream is = httpMethod.getResponseBodyAsStream();
+                String response = IOUtils.toString(is);
+                IOUtils.closeQuietly(is);
+                if (response.trim().length() == 0) { // sometime gs rest fails
+                    LOGGER.warn("ResponseBody is empty");
+                    return null;
+                } else {
+                    return response;
+                }
+            } else {
+                LOGGER.info("(" + status + ") " + HttpStatus.getStatusText(status) + " -- " + url);
+            }
+        } catch (ConnectException e) {
+            LOGGER.info("Couldn't connect to [" + url + "]");
+        } catch (IOException e) {
+            LOGGER.info("Error talking to [" + url + "]", e);
+        } finally {
+            release(httpMethod);
+        }
+
+        return null;
+    }
+
+    /**
+     * Performs an HTTP GET on the given URL and hands out the response body as
+     * a stream, without buffering it in memory. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * <P>
+     * The connection is given back to the pool when the returned stream is
+     * closed, so the caller must always close it.
+     * 
+     * @param url The URL where to connect to.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return The HTTP response body if the HTTP response code was 200 (OK)
+     *         and the body is not empty, <TT>null</TT> otherwise.
+     */
+    public InputStream getStream(String url, String username, String pw) {
+        final HTTPResponseCache cache = this.cache;
+        if (cache != null) {
+            byte[] body = getCached(cache, url, username, pw);
+            return body == null ? null : new ByteArrayInputStream(body);
+        }
+
+        GetMethod httpMethod = null;
+        boolean handedOut = false;
+        try {
+            httpMethod = new GetMethod(url);
+            int status = execute(httpMethod, url, username, pw);
+            if (status == HttpStatus.SC_OK) {
+                InputStream is = httpMethod.getResponseBodyAsStream();
+                PushbackInputStream body = is == null ? null : new PushbackInputStream(is);
+                int first = body == null ? -1 : body.read();
+                while (isBlank(first)) {
+                    // a blank body is empty, as in get()
+                    first = body.read();
+                }
+                if (first == -1) { // sometime gs rest fails
+                    LOGGER.warn("ResponseBody is empty");
+                    return null;
+                }
+                body.unread(first);
+                handedOut = true;
+                return new ResponseStream(body, httpMethod);
+            } else {
+                LOGGER.info("(" + status + ") " + HttpStatus.getStatusText(status) + " -- " + url);
+            }
+        } catch (ConnectException e) {
+            LOGGER.info("Couldn't connect to [" + url + "]");
+        } catch (IOException e) {
+            LOGGER.info("Error talking to [" + url + "]", e);
+        } finally {
+            if (!handedOut)
+                release(httpMethod);
+        }
+
+        return null;
+    }
+
+    private static boolean isBlank(int b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isBlank(byte[] body) {
+        for (byte b : body) {
+            if (!isBlank(b))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Performs an HTTP GET through the cache: a fresh cached body is returned
+     * straight away, a stale one is revalidated with a conditional GET when
+     * possible.
+     * 
+     * @return the response body, or <TT>null</TT> on errors or empty responses.
+     */
+    private byte[] getCached(HTTPResponseCache cache, String url, String username, String pw) {
+        final String key = HTTPResponseCache.key(url, username);
+        final HTTPResponseCache.Entry entry = cache.get(key);
+        if (entry != null && cache.isFresh(entry)) {
+            cache.hit();
+            return entry.getBody();
+        }
+        cache.miss();
+        // read before sending: a change meanwhile makes the response stale
+        final long generation = cache.generation(url);
+
+        GetMethod httpMethod = null;
+        try {
+            httpMethod = new GetMethod(url);
+            if (entry != null) {
+                if (entry.getETag() != null)
+                    httpMethod.setRequestHeader("If-None-Match", entry.getETag());
+                if (entry.getLastModified() != null)
+                    httpMethod.setRequestHeader("If-Modified-Since", entry.getLastModified());
+            }
+            int status = execute(httpMethod, url, username, pw);
+            if (status == HttpStatus.SC_NOT_MODIFIED && entry != null) {
+                cache.revalidated(key, entry);
+                return entry.getBody();
+            } else if (status == HttpStatus.SC_OK) {
+                InputStream is = httpMethod.getResponseBodyAsStream();
+                byte[] body = is == null ? new byte[0] : IOUtils.toByteArray(is);
+                IOUtils.closeQuietly(is);
+                if (isBlank(body)) { // sometime gs rest fails
+                    LOGGER.warn("ResponseBody is empty");
+                    cache.remove(key);
+                    return null;
+                }
+                cache.put(key, url, body, header(httpMethod, "ETag"),
+                        header(httpMethod, "Last-Modified"), generation);
+                return body;
+            } else {
+                cache.remove(key);
+                LOGGER.info("(" + status + ") " + HttpStatus.getStatusText(status) + " -- " + url);
+            }
+        } catch (ConnectException e) {
+            LOGGER.info("Couldn't connect to [" + url + "]");
+        } catch (IOException e) {
+            LOGGER.info("Error talking to [" + url + "]", e);
+        } finally {
+            release(httpMethod);
+        }
+
+        return null;
+    }
+
+    private static String header(HttpMethod httpMethod, String name) {
+        Header header = httpMethod.getResponseHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    /**
+     * Executes a request using the GET method and parses the result as a json object.
+     * 
+     * @return The result parsed as json.
+     */
+    public JSON getAsJSON(String url, String username, String pw) throws Exception {
+        String response = get(url, username, pw);
+        return HTTPUtils.json(response);
+    }
+
+    /**
+     * PUTs a File to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param file The File to be sent.
+     * @param contentType The content-type to advert in the PUT.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String put(String url, File file, String contentType, String username, String pw) {
+        return put(url, new FileRequestEntity(file, contentType), username, pw);
+    }
+
+    /**
+     * PUTs a String to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param content The content to be sent as a String.
+     * @param contentType The content-type to advert in the PUT.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String put(String url, String content, String contentType, String username, String pw) {
+        try {
+            return put(url, new StringRequestEntity(content, contentType, null), username, pw);
+        } catch (UnsupportedEncodingException ex) {
+            LOGGER.error("Cannot PUT " + url, ex);
+            return null;
+        }
+    }
+
+    /**
+     * PUTs a String representing an XML document to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param content The XML content to be sent as a String.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String putXml(String url, String content, String username, String pw) {
+        return put(url, content, "text/xml", username, pw);
+    }
+
+    /**
+     * PUTs an XML document to the given URL, serializing it while it is sent. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param content The XML content to be sent.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     * @see XmlElementRequestEntity
+     */
+    public String putXml(String url, XmlElement content, String username, String pw) {
+        return put(url, new XmlElementRequestEntity(content), username, pw);
+    }
+
+    /**
+     * PUTs a String representing an JSON Object to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param content The JSON Object to be sent as a String.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String putJson(String url, String content, String username, String pw) {
+        return put(url, content, "application/json", username, pw);
+    }
+
+    /**
+     * Performs a PUT to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param requestEntity The request to be sent.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String put(String url, RequestEntity requestEntity, String username, String pw) {
+        return send(new PutMethod(url), url, requestEntity, username, pw);
+    }
+
+    /**
+     * POSTs a File to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param file The File to be sent.
+     * @param contentType The content-type to advert in the POST.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String post(String url, File file, String contentType, String username, String pw) {
+        return post(url, new FileRequestEntity(file, contentType), username, pw);
+    }
+
+    /**
+     * POSTs a String to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param content The content to be sent as a String.
+     * @param contentType The content-type to advert in the POST.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String post(String url, String content, String contentType, String username, String pw) {
+        try {
+            return post(url, new StringRequestEntity(content, contentType, null), username, pw);
+        } catch (UnsupportedEncodingException ex) {
+            LOGGER.error("Cannot POST " + url, ex);
+            return null;
+        }
+    }
+
+    /**
+     * POSTs a list of files as attachments to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * <P>
+     * The multipart body is streamed with chunked transfer encoding, reading
+     * each file while it is sent, so it is never held in memory.
+     * 
+     * @param url The URL where to connect to.
+     * @param dir The folder containing the attachments.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String postMultipartForm(String url, File dir, String username, String pw) {
+        try {
+            List<Part> parts = new ArrayList<Part>();
+            for (File f : dir.listFiles()) {
+                parts.add(new FilePart(f.getName(), f));
+            }
+            PostMethod httpMethod = new PostMethod(url);
+            MultipartRequestEntity multipart = new MultipartRequestEntity(
+                    parts.toArray(new Part[parts.size()]), httpMethod.getParams());
+
+            return send(httpMethod, url, new ChunkedRequestEntity(multipart), username, pw);
+        } catch (Exception ex) {
+            LOGGER.error("Cannot POST " + url, ex);
+            return null;
+        }
+    }
+
+    /**
+     * POSTs a String representing an XML document to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param content The XML content to be sent as a String.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String postXml(String url, String content, String username, String pw) {
+        return post(url, content, "text/xml", username, pw);
+    }
+
+    /**
+     * POSTs an XML document to the given URL, serializing it while it is sent. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param content The XML content to be sent.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     * @see XmlElementRequestEntity
+     */
+    public String postXml(String url, XmlElement content, String username, String pw) {
+        return post(url, new XmlElementRequestEntity(content), username, pw);
+    }
+
+    /**
+     * POSTs a String representing an JSON Object to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param content The JSON content to be sent as a String.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String postJson(String url, String content, String username, String pw) {
+        return post(url, content, "application/json", username, pw);
+    }
+
+    /**
+     * Performs a POST to the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param requestEntity The request to be sent.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String post(String url, RequestEntity requestEntity, String username, String pw) {
+        return send(new PostMethod(url), url, requestEntity, username, pw);
+    }
+
+    /**
+     * Send an HTTP request (PUT or POST) to a server. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * <P>
+     * Only
+     * <UL>
+     * <LI>200: OK</LI>
+     * <LI>201: ACCEPTED</LI>
+     * <LI>202: CREATED</LI>
+     * </UL>
+     * are accepted as successful codes; in these cases the response string will
+     * be returned.
+     * 
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    protected String send(final EntityEnclosingMethod httpMethod, String url,
+            RequestEntity requestEntity, String username, String pw) {
+        try {
+            if (requestEntity != null)
+                httpMethod.setRequestEntity(requestEntity);
+            int status = execute(httpMethod, url, username, pw);
+
+            InputStream responseBody;
+            switch (status) {
+            case HttpURLConnection.HTTP_OK:
+            case HttpURLConnection.HTTP_CREATED:
+            case HttpURLConnection.HTTP_ACCEPTED:
+                String response = IOUtils.toString(httpMethod.getResponseBodyAsStream());
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("HTTP " + httpMethod.getStatusText() + ": " + response);
+                return response;
+            default:
+                responseBody = httpMethod.getResponseBodyAsStream();
+                LOGGER.warn("Bad response: code[" + status + "]" + " msg[" + httpMethod.getStatusText() + "]"
+                            + " url[" + url + "]" + " method[" + httpMethod.getClass().getSimpleName()
+                            + "]: " + (responseBody != null ? IOUtils.toString(responseBody) : ""));
+                return null;
+            }
+        } catch (ConnectException e) {
+            LOGGER.info("Couldn't connect to [" + url + "]");
+            return null;
+        } catch (IOException e) {
+            LOGGER.error("Error talking to " + url + " : " + e.getLocalizedMessage());
+            return null;
+        } finally {
+            release(httpMethod);
+            invalidate(url);
+        }
+    }
+
+    /**
+     * Performs an HTTP DELETE on the given URL. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @return true if the server response was an HTTP_OK
+     */
+    public boolean delete(String url, final String user, final String pw) {
+
+        DeleteMethod httpMethod = null;
+        try {
+            httpMethod = new DeleteMethod(url);
+            int status = execute(httpMethod, url, user, pw);
+            String response = "";
+            if (status == HttpStatus.SC_OK) {
+                InputStream is = httpMethod.getResponseBodyAsStream();
+                response = IOUtils.toString(is);
+                IOUtils.closeQuietly(is);
+                if (response.trim().equals("")) {
+                    if (LOGGER.isTraceEnabled())
+                        LOGGER.trace("ResponseBody is empty (this may be not an error since we just performed a DELETE call)");
+                    return true;
+                }
+                if (LOGGER.isDebugEnabled())
+                    LOGGER.debug("(" + status + ") " + httpMethod.getStatusText() + " -- " + url);
+                return true;
+            } else {
+                LOGGER.info("(" + status + ") " + httpMethod.getStatusText() + " -- " + url);
+                LOGGER.info("Response: '" + response + "'");
+            }
+        } catch (ConnectException e) {
+            LOGGER.info("Couldn't connect to [" + url + "]");
+        } catch (IOException e) {
+            LOGGER.info("Error talking to [" + url + "]", e);
+        } finally {
+            release(httpMethod);
+            invalidate(url);
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if the server response was an HTTP_OK
+     */
+    public boolean httpPing(String url) {
+        return httpPing(url, null, null);
+    }
+
+    /**
+     * @return true if the server response was an HTTP_OK
+     */
+    public boolean httpPing(String url, String username, String pw) {
+
+        GetMethod httpMethod = null;
+        try {
+            httpMethod = new GetMethod(url);
+            setProbeTimeout(httpMethod);
+            int status = execute(httpMethod, url, username, pw);
+            if (status != HttpStatus.SC_OK) {
+                LOGGER.warn("PING failed at '" + url + "': (" + status + ") " + httpMethod.getStatusText());
+                return false;
+            } else {
+                return true;
+            }
+        } catch (ConnectException e) {
+            return false;
+        } catch (IOException e) {
+            LOGGER.error(e.getLocalizedMessage(), e);
+            return false;
+        } finally {
+            release(httpMethod);
+        }
+    }
+
+    /**
+     * Used to query for REST resources.
+     * <P>
+     * A HEAD request is sent, so that only the status code travels back; if
+     * GeoServer refuses HEAD requests (405 or 501) a GET is sent instead, and
+     * will be from then on by this transport to the same <TT>host:port</TT>.
+     * 
+     * @param url The URL of the REST resource to query about.
+     * @param username
+     * @param pw
+     * @return true on 200, false on 404.
+     * @throws RuntimeException on unhandled status or exceptions.
+     */
+    public boolean exists(String url, String username, String pw) {
+        String node;
+        try {
+            node = node(url);
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        }
+        if (!headUnsupported.contains(node)) {
+            Boolean exists = exists(new HeadMethod(url), url, username, pw);
+            if (exists != null)
+                return exists;
+            LOGGER.info("HEAD is not supported at '" + url + "', falling back to GET");
+            headUnsupported.add(node);
+        }
+        return exists(new GetMethod(url), url, username, pw);
+    }
+
+    /**
+     * @return the existence of the resource, or <TT>null</TT> if the server
+     *         does not support the method
+     */
+    private Boolean exists(HttpMethod httpMethod, String url, String username, String pw) {
+        // probes are idempotent: retry them also when the request was already sent
+        // on a pooled connection which the server closed meanwhile
+        httpMethod.getParams().setParameter(HttpMethodParams.RETRY_HANDLER,
+                new DefaultHttpMethodRetryHandler(3, true));
+        setProbeTimeout(httpMethod);
+        try {
+            int status = execute(httpMethod, url, username, pw);
+            switch (status) {
+            case HttpStatus.SC_OK:
+                return Boolean.TRUE;
+            case HttpStatus.SC_NOT_FOUND:
+                return Boolean.FALSE;
+            case HttpStatus.SC_METHOD_NOT_ALLOWED:
+            case HttpStatus.SC_NOT_IMPLEMENTED:
+                if (httpMethod instanceof HeadMethod)
+                    return null;
+                throw unhandledStatus(httpMethod, url, status);
+            default:
+                throw unhandledStatus(httpMethod, url, status);
+            }
+        } catch (ConnectException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            release(httpMethod);
+        }
+    }
+
+    private static RuntimeException unhandledStatus(HttpMethod httpMethod, String url, int status) {
+        return new RuntimeException("Unhandled response status at '" + url + "': (" + status + ") "
+                                    + httpMethod.getStatusText());
+    }
+
+    /**
+     * Drops the cached responses which may have been changed by a request on
+     * the given URL, and notifies the change listeners.
+     */
+    protected void invalidate(String url) {
+        final HTTPResponseCache cache = this.cache;
+        if (cache != null)
+            cache.invalidate(url);
+        for (ChangeListener listener : listeners) {
+            try {
+                listener.changed(url);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Change listener failed: " + e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Request entity sent with chunked transfer encoding: the wrapped entity
+     * is streamed as it is written, without announcing its length.
+     */
+    private static class ChunkedRequestEntity implements RequestEntity {
+
+        private final RequestEntity entity;
+
+        ChunkedRequestEntity(RequestEntity entity) {
+            this.entity = entity;
+        }
+
+        public boolean isRepeatable() {
+            return entity.isRepeatable();
+        }
+
+        public void writeRequest(OutputStream out) throws IOException {
+            entity.writeRequest(out);
+        }
+
+        public long getContentLength() {
+            return -1; // let the method use chunked encoding
+        }
+
+        public String getContentType() {
+            return entity.getContentType();
+        }
+    }
+
+    /**
+     * Response body which gives the connection back to the pool once closed.
+     */
+    private class ResponseStream extends FilterInputStream {
+
+        private final HttpMethod httpMethod;
+
+        private boolean released = false;
+
+        ResponseStream(InputStream in, HttpMethod httpMethod) {
+            super(in);
+            this.httpMethod = httpMethod;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!released) {
+                    released = true;
+                    release(httpMethod);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the per-request state, holding the credentials if both username
+     * and pw are not null.
+     */
+    private static HttpState createState(String url, String username, String pw)
+            throws MalformedURLException {
+        HttpState state = new HttpState();
+        if (username != null && pw != null) {
+            URL u = new URL(url);
+            Credentials defaultcreds = new UsernamePasswordCredentials(username, pw);
+            state.setCredentials(new AuthScope(u.getHost(), u.getPort()), defaultcreds);
+        } else {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Not setting credentials to access to " + url);
+            }
+        }
+        return state;
+    }
+}
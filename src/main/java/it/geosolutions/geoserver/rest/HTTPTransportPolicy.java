@@ -0,0 +1,249 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import java.util.Random;
+
+/**
+ * Timeouts, retries and circuit breaking applied by an {@link HTTPTransport}.
+ * <P>
+ * The defaults keep the behaviour of the plain transport: 5 seconds connection
+ * timeout, no read timeout, no retries and no circuit breaker.
+ * <P>
+ * Retries only apply to the idempotent verbs (GET, HEAD, PUT and DELETE) and
+ * to requests whose body can be sent again; they are triggered by I/O errors
+ * (i.e. a read timeout or a dropped connection) and by 502, 503 and 504
+ * responses. The delay before each retry grows exponentially and is randomly
+ * shortened by up to the jitter fraction, so that clients failing together
+ * don't retry together.
+ * <P>
+ * Instances are not thread-safe: a transport takes a copy of the policy it
+ * is given, so that its request threads never see a policy being changed.
+ * To change the settings of a transport, set a changed policy again.
+ * 
+ * @see HTTPTransport#setPolicy(HTTPTransportPolicy)
+ * @see GeoServerRESTManager#GeoServerRESTManager(java.net.URL, String, String, HTTPTransportPolicy)
+ */
+public class HTTPTransportPolicy {
+
+    /** Default max number of retries. */
+    public static final int DEFAULT_MAX_RETRIES = 0;
+
+    /** Default delay before the first retry, in milliseconds. */
+    public static final long DEFAULT_RETRY_DELAY = 200;
+
+    /** Default max delay between two retries, in milliseconds. */
+    public static final long DEFAULT_MAX_RETRY_DELAY = 10000;
+
+    /** Default jitter fraction. */
+    public static final double DEFAULT_JITTER = 0.5;
+
+    private static final Random RANDOM = new Random();
+
+    private int connectionTimeout = HTTPTransport.DEFAULT_CONNECTION_TIMEOUT;
+
+    private int readTimeout = 0;
+
+    private int probeTimeout = 0;
+
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+
+    private long retryDelay = DEFAULT_RETRY_DELAY;
+
+    private long maxRetryDelay = DEFAULT_MAX_RETRY_DELAY;
+
+    private double jitter = DEFAULT_JITTER;
+
+    private HTTPCircuitBreaker circuitBreaker;
+
+    /**
+     * Creates a policy with the default settings.
+     */
+    public HTTPTransportPolicy() {
+    }
+
+    /**
+     * Creates a copy of the given policy; the circuit breaker is shared.
+     * 
+     * @param policy the policy to copy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    public HTTPTransportPolicy(HTTPTransportPolicy policy) throws IllegalArgumentException {
+        if (policy == null)
+            throw new IllegalArgumentException("Unable to copy a null transport policy");
+        this.connectionTimeout = policy.connectionTimeout;
+        this.readTimeout = policy.readTimeout;
+        this.probeTimeout = policy.probeTimeout;
+        this.maxRetries = policy.maxRetries;
+        this.retryDelay = policy.retryDelay;
+        this.maxRetryDelay = policy.maxRetryDelay;
+        this.jitter = policy.jitter;
+        this.circuitBreaker = policy.circuitBreaker;
+    }
+
+    /**
+     * @return the connection timeout in milliseconds
+     */
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * @param connectionTimeout the connection timeout in milliseconds, 0 for
+     *        no timeout
+     */
+    public void setConnectionTimeout(int connectionTimeout) {
+        this.connectionTimeout = checkTimeout(connectionTimeout);
+    }
+
+    /**
+     * @return the socket read timeout in milliseconds, 0 for no timeout
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @param readTimeout the socket read timeout in milliseconds, 0 for no
+     *        timeout (the default). Note that GeoServer may take long to
+     *        answer to some requests, i.e. when configuring big mosaics.
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = checkTimeout(readTimeout);
+    }
+
+    /**
+     * @return the socket read timeout of the existence checks and pings, in
+     *         milliseconds; 0 to use the read timeout
+     */
+    public int getProbeTimeout() {
+        return probeTimeout;
+    }
+
+    /**
+     * @param probeTimeout the socket read timeout of the existence checks and
+     *        pings, in milliseconds; 0 to use the read timeout (the default)
+     */
+    public void setProbeTimeout(int probeTimeout) {
+        this.probeTimeout = checkTimeout(probeTimeout);
+    }
+
+    /**
+     * @return the max number of retries of a failed idempotent request
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param maxRetries the max number of retries of a failed idempotent
+     *        request, 0 to disable the retries (the default)
+     */
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0)
+            throw new IllegalArgumentException("The number of retries may not be negative");
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @return the delay before the first retry, in milliseconds
+     */
+    public long getRetryDelay() {
+        return retryDelay;
+    }
+
+    /**
+     * @param retryDelay the delay before the first retry, in milliseconds; it
+     *        is doubled at each further retry
+     */
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = Math.max(0, retryDelay);
+    }
+
+    /**
+     * @return the max delay between two retries, in milliseconds
+     */
+    public long getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+
+    /**
+     * @param maxRetryDelay the max delay between two retries, in milliseconds
+     */
+    public void setMaxRetryDelay(long maxRetryDelay) {
+        this.maxRetryDelay = Math.max(0, maxRetryDelay);
+    }
+
+    /**
+     * @return the fraction of the retry delay which is randomized
+     */
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @param jitter the fraction (between 0 and 1) of the retry delay which is
+     *        randomized
+     */
+    public void setJitter(double jitter) {
+        if (jitter < 0 || jitter > 1)
+            throw new IllegalArgumentException("The jitter should be between 0 and 1");
+        this.jitter = jitter;
+    }
+
+    /**
+     * @return the circuit breaker, or null if disabled
+     */
+    public HTTPCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @param circuitBreaker the circuit breaker, or null to disable it (the
+     *        default)
+     */
+    public void setCircuitBreaker(HTTPCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * @param attempt the number of the failed attempt, starting from 0
+     * @return the time to wait before the next attempt, in milliseconds
+     */
+    public long getRetryDelay(int attempt) {
+        long delay = retryDelay;
+        for (int i = 0; i < attempt && delay < maxRetryDelay; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxRetryDelay);
+        return delay - (long) (delay * jitter * RANDOM.nextDouble());
+    }
+
+    private static int checkTimeout(int timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("The timeout may not be negative");
+        return timeout;
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends (possibly large) files through an {@link HTTPTransport}.
+ * <P>
+ * Files are read through a {@link FileChannel} in chunks of the configured
+ * buffer size and written straight to the connection, reporting the progress
+ * and the throughput to an optional {@link ProgressListener}.
+ * <P>
+ * PUT requests are idempotent, so a PUT that fails because of a dropped
+ * connection or of a temporary server error (408, 502, 503, 504) is sent
+ * again, up to the configured number of retries, waiting an exponentially
+ * growing delay between the attempts. Unless set on the uploader, the number
+ * of retries and the delays are the ones of the transport
+ * {@link HTTPTransportPolicy}, which retries nothing by default. GeoServer
+ * cannot resume a partial upload, so each attempt sends the whole file. POST
+ * requests, and requests refused by an open circuit breaker, are never
+ * retried.
+ * <P>
+ * Instances are thread-safe; the cumulative counters cover all the uploads
+ * performed by the instance.
+ */
+public class HTTPUploader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HTTPUploader.class);
+
+    /** Default size of the chunks read from the file, in bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives the progress of the uploads.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called each time a chunk of the file has been sent. When an upload
+         * is retried the progress starts again from 0.
+         * 
+         * @param file the file being sent
+         * @param sent the bytes sent so far
+         * @param total the file size in bytes
+         * @param bytesPerSecond the average throughput of the current attempt
+         */
+        void progress(File file, long sent, long total, double bytesPerSecond);
+    }
+
+    private final HTTPTransport transport;
+
+    private volatile int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    /** negative to use the transport policy */
+    private volatile int maxRetries = -1;
+
+    /** negative to use the transport policy */
+    private volatile long retryDelay = -1;
+
+    /** negative to use the transport policy */
+    private volatile long maxRetryDelay = -1;
+
+    private volatile ProgressListener listener;
+
+    private final AtomicLong uploads = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong retries = new AtomicLong();
+
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private final AtomicLong sendTime = new AtomicLong();
+
+    /**
+     * @param transport the transport used to send the files
+     * @throws IllegalArgumentException if the transport is null
+     */
+    public HTTPUploader(HTTPTransport transport) throws IllegalArgumentException {
+        if (transport == null)
+            throw new IllegalArgumentException("Unable to create the uploader using a null transport");
+        this.transport = transport;
+    }
+
+    /**
+     * PUTs a File to the given URL, retrying on temporary failures. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param file The File to be sent.
+     * @param contentType The content-type to advert in the PUT.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String put(String url, File file, String contentType, String username, String pw) {
+        final int maxRetries = getMaxRetries();
+        final long maxRetryDelay = getMaxRetryDelay();
+        long delay = getRetryDelay();
+        for (int attempt = 0;; attempt++) {
+            Attempt result = send(new PutMethod(url), url, file, contentType, username, pw);
+            if (result.response != null || !result.retry || attempt >= maxRetries) {
+                return result.response;
+            }
+            retries.incrementAndGet();
+            LOGGER.warn("Upload of " + file + " to " + url + " failed, retrying in " + delay
+                    + "ms (" + (attempt + 1) + "/" + maxRetries + ")");
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            delay = Math.min(delay * 2, maxRetryDelay);
+        }
+    }
+
+    /**
+     * POSTs a File to the given URL; the request is not retried. <BR>
+     * Basic auth is used if both username and pw are not null.
+     * 
+     * @param url The URL where to connect to.
+     * @param file The File to be sent.
+     * @param contentType The content-type to advert in the POST.
+     * @param username Basic auth credential. No basic auth if null.
+     * @param pw Basic auth credential. No basic auth if null.
+     * @return the HTTP response or <TT>null</TT> on errors.
+     */
+    public String post(String url, File file, String contentType, String username, String pw) {
+        return send(new PostMethod(url), url, file, contentType, username, pw).response;
+    }
+
+    /**
+     * Outcome of a single attempt.
+     */
+    private static final class Attempt {
+        final String response;
+
+        final boolean retry;
+
+        Attempt(String response, boolean retry) {
+            this.response = response;
+            this.retry = retry;
+        }
+    }
+
+    private Attempt send(EntityEnclosingMethod httpMethod, String url, File file,
+            String contentType, String username, String pw) {
+        uploads.incrementAndGet();
+        // retries are handled here, with their own backoff
+        httpMethod.getParams().setParameter(HttpMethodParams.RETRY_HANDLER,
+                new DefaultHttpMethodRetryHandler(0, false));
+        try {
+            httpMethod.setRequestEntity(new FileEntity(file, contentType));
+            int status = transport.execute(httpMethod, url, username, pw, 0);
+            switch (status) {
+            case HttpURLConnection.HTTP_OK:
+            case HttpURLConnection.HTTP_CREATED:
+            case HttpURLConnection.HTTP_ACCEPTED:
+                String response = IOUtils.toString(httpMethod.getResponseBodyAsStream());
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("HTTP " + httpMethod.getStatusText() + ": " + response);
+                return new Attempt(response, false);
+            default:
+                failures.incrementAndGet();
+                LOGGER.warn("Bad response: code[" + status + "]" + " msg[" + httpMethod.getStatusText() + "]"
+                            + " url[" + url + "]" + " method[" + httpMethod.getName() + "]");
+                return new Attempt(null, status == HttpStatus.SC_REQUEST_TIMEOUT
+                        || status == HttpStatus.SC_BAD_GATEWAY
+                        || status == HttpStatus.SC_SERVICE_UNAVAILABLE
+                        || status == HttpStatus.SC_GATEWAY_TIMEOUT);
+            }
+        } catch (HTTPCircuitBreaker.OpenException e) {
+            // the node is known to be down: retrying would only wait for it
+            failures.incrementAndGet();
+            LOGGER.warn(e.getLocalizedMessage());
+            return new Attempt(null, false);
+        } catch (ConnectException e) {
+            failures.incrementAndGet();
+            LOGGER.info("Couldn't connect to [" + url + "]");
+            return new Attempt(null, true);
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            LOGGER.error("Error talking to " + url + " : " + e.getLocalizedMessage());
+            return new Attempt(null, true);
+        } finally {
+            transport.release(httpMethod);
+            transport.invalidate(url);
+        }
+    }
+
+    /**
+     * Repeatable request entity streaming a file through its channel.
+     */
+    private class FileEntity implements RequestEntity {
+
+        private final File file;
+
+        private final String contentType;
+
+        FileEntity(File file, String contentType) {
+            this.file = file;
+            this.contentType = contentType;
+        }
+
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        public long getContentLength() {
+            return file.length();
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public void writeRequest(OutputStream out) throws IOException {
+            final int chunk = bufferSize;
+            final ProgressListener listener = HTTPUploader.this.listener;
+            final FileInputStream in = new FileInputStream(file);
+            final long start = System.nanoTime();
+            long sent = 0;
+            try {
+                final FileChannel channel = in.getChannel();
+                final WritableByteChannel target = Channels.newChannel(out);
+                final long total = channel.size();
+                while (sent < total) {
+                    long n = channel.transferTo(sent, Math.min(chunk, total - sent), target);
+                    if (n <= 0)
+                        throw new EOFException("Unexpected end of file " + file + " at byte " + sent);
+                    sent += n;
+                    if (listener != null) {
+                        long elapsed = System.nanoTime() - start;
+                        listener.progress(file, sent, total,
+                                elapsed > 0 ? sent * 1e9 / elapsed : 0);
+                    }
+                }
+            } finally {
+                bytesSent.addAndGet(sent);
+                sendTime.addAndGet(System.nanoTime() - start);
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * @return the size of the chunks read from the file, in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @param bufferSize the size of the chunks read from the file, in bytes
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public void setBufferSize(int bufferSize) throws IllegalArgumentException {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("The buffer size should be a positive integer");
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return the max number of times a failed PUT is sent again; unless set,
+     *         the one of the transport policy
+     */
+    public int getMaxRetries() {
+        final int maxRetries = this.maxRetries;
+        return maxRetries < 0 ? transport.getPolicy().getMaxRetries() : maxRetries;
+    }
+
+    /**
+     * @param maxRetries the max number of times a failed PUT is sent again; 0
+     *        disables the retries
+     * @throws IllegalArgumentException if the number is negative
+     * @see HTTPTransportPolicy#setMaxRetries(int)
+     */
+    public void setMaxRetries(int maxRetries) throws IllegalArgumentException {
+        if (maxRetries < 0)
+            throw new IllegalArgumentException("The number of retries may not be negative");
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @return the delay before the first retry, in milliseconds; unless set,
+     *         the one of the transport policy
+     */
+    public long getRetryDelay() {
+        final long retryDelay = this.retryDelay;
+        return retryDelay < 0 ? transport.getPolicy().getRetryDelay() : retryDelay;
+    }
+
+    /**
+     * @param retryDelay the delay before the first retry, in milliseconds;
+     *        it is doubled at each further retry
+     */
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = Math.max(0, retryDelay);
+    }
+
+    /**
+     * @return the max delay between two retries, in milliseconds; unless set,
+     *         the one of the transport policy
+     */
+    public long getMaxRetryDelay() {
+        final long maxRetryDelay = this.maxRetryDelay;
+        return maxRetryDelay < 0 ? transport.getPolicy().getMaxRetryDelay() : maxRetryDelay;
+    }
+
+    /**
+     * @param maxRetryDelay the max delay between two retries, in milliseconds
+     */
+    public void setMaxRetryDelay(long maxRetryDelay) {
+        this.maxRetryDelay = Math.max(0, maxRetryDelay);
+    }
+
+    /**
+     * @return the listener receiving the progress of the uploads, or null
+     */
+    public ProgressListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param listener the listener receiving the progress of the uploads, or
+     *        null to disable the notifications
+     */
+    public void setListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the number of attempts, retries included
+     */
+    public long getUploads() {
+        return uploads.get();
+    }
+
+    /**
+     * @return the number of failed attempts
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return the number of retries
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return the bytes sent overall, partial attempts included
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * @return the average throughput of all the uploads, in bytes per second
+     */
+    public double getThroughput() {
+        final long time = sendTime.get();
+        return time > 0 ? bytesSent.get() * 1e9 / time : 0;
+    }
+}
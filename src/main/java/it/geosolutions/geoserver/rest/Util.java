@@ -26,11 +26,19 @@
 package it.geosolutions.geoserver.rest;
 
 import it.geosolutions.geoserver.rest.decoder.RESTStyle;
+import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  *
@@ -44,29 +52,183 @@ public static final String QUIET_ON_NOT_FOUND_PARAM = "quietOnNotFound=";
 
     /**
      * Search for a stylename in global and in all workspaces.
+     * <P>
+     * The workspaces are probed in parallel, on a dedicated pool of
+     * {@link GeoServerRESTAbstractAsync#DEFAULT_THREADS} threads at most.
+     * 
+     * @return the global style first, if any, then the workspace ones in
+     *         workspace order
      */
     public static List<RESTStyle> searchStyles(GeoServerRESTReader reader, String stylename) {
+        List<String> workspaces = safeList(reader.getWorkspaceNames());
+        ExecutorService executor = GeoServerRESTAbstractAsync.newExecutor(Math.min(
+                GeoServerRESTAbstractAsync.DEFAULT_THREADS, workspaces.size() + 1));
+        try {
+            return searchStyles(reader, stylename, workspaces, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
 
-        List<RESTStyle> styles = new ArrayList<RESTStyle>();
-
-        RESTStyle style = reader.getStyle(stylename);
+    /**
+     * Search for a stylename in global and in all workspaces, running one
+     * probe per workspace on the given executor.
+     * <P>
+     * Each workspace is checked with an existence probe (a HEAD request when
+     * the server supports it), and the style is fetched only where it exists.
+     * 
+     * @param executor runs the probes; it is not shut down
+     * @return the global style first, if any, then the workspace ones in
+     *         workspace order
+     * @throws IllegalArgumentException if the executor is null
+     */
+    public static List<RESTStyle> searchStyles(GeoServerRESTReader reader, String stylename,
+            ExecutorService executor) throws IllegalArgumentException {
+        if (executor == null)
+            throw new IllegalArgumentException("Unable to search the styles using a null executor");
+        return searchStyles(reader, stylename, safeList(reader.getWorkspaceNames()), executor);
+    }
 
-        // We don't want geoserver to be lenient here: take only the real global style if it exists
-        if(style != null) {
-            if(style.getWorkspace() == null || style.getWorkspace().isEmpty()) {
-                styles.add(style);
+    private static List<RESTStyle> searchStyles(final GeoServerRESTReader reader,
+            final String stylename, List<String> workspaces, ExecutorService executor) {
+        List<Callable<RESTStyle>> calls = new ArrayList<Callable<RESTStyle>>(workspaces.size() + 1);
+        calls.add(new Callable<RESTStyle>() {
+            public RESTStyle call() {
+                RESTStyle style = reader.getStyle(stylename);
+                // We don't want geoserver to be lenient here: take only the real global style if it exists
+                if (style != null && (style.getWorkspace() == null || style.getWorkspace().isEmpty()))
+                    return style;
+                return null;
             }
+        });
+        for (final String workspace : workspaces) {
+            calls.add(new Callable<RESTStyle>() {
+                public RESTStyle call() {
+                    if (!reader.existsStyle(workspace, stylename))
+                        return null;
+                    return reader.getStyle(workspace, stylename);
+                }
+            });
         }
 
-        for (String workspace : reader.getWorkspaceNames()) {
-            style = reader.getStyle(workspace, stylename);
-            if(style != null)
+        List<RESTStyle> styles = new ArrayList<RESTStyle>();
+        for (RESTStyle style : invokeAll(executor, calls)) {
+            if (style != null)
                 styles.add(style);
         }
+        return styles;
+    }
+
+    /**
+     * Search for many stylenames in global and in all workspaces.
+     * 
+     * @see #searchStyles(GeoServerRESTReader, Collection, ExecutorService)
+     */
+    public static Map<String, List<RESTStyle>> searchStyles(GeoServerRESTReader reader,
+            Collection<String> stylenames) {
+        List<String> workspaces = safeList(reader.getWorkspaceNames());
+        ExecutorService executor = GeoServerRESTAbstractAsync.newExecutor(Math.min(
+                GeoServerRESTAbstractAsync.DEFAULT_THREADS, workspaces.size() + 1));
+        try {
+            return searchStyles(reader, stylenames, workspaces, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Search for many stylenames in global and in all workspaces in one pass.
+     * <P>
+     * The style list of each workspace is loaded once, in parallel on the
+     * given executor, and matched locally; only the matching styles are
+     * fetched.
+     * 
+     * @param executor runs the workspace scans; it is not shut down
+     * @return for each stylename, in the given order, the global style
+     *         first, if any, then the workspace ones in workspace order; the
+     *         list is empty if the style was not found
+     * @throws IllegalArgumentException if the executor is null
+     */
+    public static Map<String, List<RESTStyle>> searchStyles(GeoServerRESTReader reader,
+            Collection<String> stylenames, ExecutorService executor) throws IllegalArgumentException {
+        if (executor == null)
+            throw new IllegalArgumentException("Unable to search the styles using a null executor");
+        return searchStyles(reader, stylenames, safeList(reader.getWorkspaceNames()), executor);
+    }
+
+    private static Map<String, List<RESTStyle>> searchStyles(final GeoServerRESTReader reader,
+            Collection<String> stylenames, List<String> workspaces, ExecutorService executor) {
+        final Set<String> names = new LinkedHashSet<String>(stylenames);
+        List<String> scopes = new ArrayList<String>(workspaces.size() + 1);
+        scopes.add(null);
+        scopes.addAll(workspaces);
+
+        List<Callable<Map<String, RESTStyle>>> calls = new ArrayList<Callable<Map<String, RESTStyle>>>(
+                scopes.size());
+        for (final String workspace : scopes) {
+            calls.add(new Callable<Map<String, RESTStyle>>() {
+                public Map<String, RESTStyle> call() {
+                    RESTStyleList list = workspace == null ? reader.getStyles() : reader
+                            .getStyles(workspace);
+                    Map<String, RESTStyle> found = new LinkedHashMap<String, RESTStyle>();
+                    if (list == null)
+                        return found;
+                    for (String name : names) {
+                        if (!list.contains(name))
+                            continue;
+                        RESTStyle style = workspace == null ? reader.getStyle(name) : reader
+                                .getStyle(workspace, name);
+                        if (style != null)
+                            found.put(name, style);
+                    }
+                    return found;
+                }
+            });
+        }
 
+        Map<String, List<RESTStyle>> styles = new LinkedHashMap<String, List<RESTStyle>>();
+        for (String name : names) {
+            styles.put(name, new ArrayList<RESTStyle>());
+        }
+        for (Map<String, RESTStyle> found : invokeAll(executor, calls)) {
+            for (Map.Entry<String, RESTStyle> entry : found.entrySet()) {
+                styles.get(entry.getKey()).add(entry.getValue());
+            }
+        }
         return styles;
     }
-    
+
+    /**
+     * Runs the calls and collects their results in order; the pending calls
+     * are cancelled if one of them fails.
+     * 
+     * @throws RuntimeException the failure of a call
+     */
+    private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> calls) {
+        List<Future<T>> futures = new ArrayList<Future<T>>(calls.size());
+        try {
+            for (Callable<T> call : calls) {
+                futures.add(executor.submit(call));
+            }
+            List<T> results = new ArrayList<T>(calls.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while searching the styles", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
     /**
      * Append the quietOnNotFound parameter to the input URL
      * @param quietOnNotFound parameter
@@ -25,13 +25,17 @@
 
 package it.geosolutions.geoserver.rest.decoder;
 
-import it.geosolutions.geoserver.rest.decoder.utils.JDOMListIterator;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.jdom.Element;
 
@@ -52,6 +56,9 @@ import org.jdom.Element;
       </ELEMENT>
 </ELEMENTs>
 }</PRE>
+ *
+ * <P>Names are read once, on the first name based access, and indexed so that
+ * {@link #contains(String)} and {@link #getByName(String)} do not scan the list.
  *
  * @author ETj (etj at geo-solutions.it)
  */
@@ -59,11 +66,19 @@ public class RESTAbstractList<ELEM extends NameLinkElem> implements Iterable<ELE
 
     protected final List<Element> elementList;
 
+    /** Wrappers already handed out, by position; built lazily. */
+    private final AtomicReferenceArray<ELEM> elems;
+
+    private volatile String[] names;
+
+    private volatile Map<String, Integer> index;
+
     protected RESTAbstractList(Element list) {
         List<Element> tempList = new ArrayList<Element>();
         String baseName = null;
 
-        for (Element listItem : (List<Element>) list.getChildren()) {
+        for (Object child : list.getChildren()) {
+            final Element listItem = (Element) child;
             if(baseName == null)
                 baseName = listItem.getName();
             else
@@ -75,6 +90,7 @@ public class RESTAbstractList<ELEM extends NameLinkElem> implements Iterable<ELE
         }
 
         elementList = Collections.unmodifiableList(tempList);
+        elems = new AtomicReferenceArray<ELEM>(tempList.size());
     }
 
     public int size() {
@@ -86,34 +102,90 @@ public class RESTAbstractList<ELEM extends NameLinkElem> implements Iterable<ELE
     }
 
     public ELEM get(int index) {
-        return createElement(elementList.get(index));
+        ELEM elem = elems.get(index);
+        if (elem == null) {
+            // wrappers are immutable: a race only creates a duplicate
+            elem = createElement(elementList.get(index));
+            elems.set(index, elem);
+        }
+        return elem;
     }
 
     public Iterator<ELEM> iterator() {
-        return new RESTAbstractListIterator(elementList);
+        return new RESTAbstractListIterator();
     }
 
+    /**
+     * @return a new list holding the names of the elements, in list order.
+     */
     public List<String> getNames() {
-        List<String> names = new ArrayList<String>(elementList.size());
-        for (ELEM elem: this) {
-            names.add(elem.getName());
+        return new ArrayList<String>(Arrays.asList(names()));
+    }
+
+    /**
+     * @param name the name of the element
+     * @return true if an element with the given name is in the list.
+     */
+    public boolean contains(String name) {
+        return index().containsKey(name);
+    }
+
+    /**
+     * @param name the name of the element
+     * @return the first element with the given name, or null if there is none.
+     */
+    public ELEM getByName(String name) {
+        Integer pos = index().get(name);
+        return pos == null ? null : get(pos);
+    }
+
+    private String[] names() {
+        String[] result = names;
+        if (result == null) {
+            result = new String[elementList.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = elementList.get(i).getChildText("name");
+            }
+            names = result;
+        }
+        return result;
+    }
+
+    private Map<String, Integer> index() {
+        Map<String, Integer> result = index;
+        if (result == null) {
+            String[] all = names();
+            result = new HashMap<String, Integer>(all.length * 4 / 3 + 1);
+            for (int i = all.length - 1; i >= 0; i--) {
+                // backwards, so that the first occurrence wins
+                result.put(all[i], i);
+            }
+            index = result;
         }
-        return names;
+        return result;
     }
 
+    private class RESTAbstractListIterator implements Iterator<ELEM> {
 
-    private class RESTAbstractListIterator extends JDOMListIterator<ELEM> {
+        private int next = 0;
+
+        public boolean hasNext() {
+            return next < elems.length();
+        }
 
-        public RESTAbstractListIterator(List<Element> orig) {
-            super(orig);
+        public ELEM next() {
+            if (next >= elems.length())
+                throw new NoSuchElementException();
+            return get(next++);
         }
 
-        @Override
-        public ELEM transform(Element listItem) {
-            return createElement(listItem);
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported.");
         }
     }
     
+    // safe as long as the subclasses using a NameLinkElem subclass override it
+    @SuppressWarnings("unchecked")
     protected ELEM createElement(Element el) {
         return (ELEM)new NameLinkElem(el);
     }
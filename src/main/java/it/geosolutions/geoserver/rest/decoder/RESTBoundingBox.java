@@ -20,10 +20,24 @@ import org.jdom.Element;
 public class RESTBoundingBox {
 
 	protected Element bboxElem;
+
+	private volatile RESTEnvelope envelope;
 	
 	public RESTBoundingBox(Element bboxElem) {
 		this.bboxElem = bboxElem;
 	}
+
+	/**
+	 * @return the coordinates, parsed on the first call only
+	 */
+	public RESTEnvelope getEnvelope() {
+		RESTEnvelope result = envelope;
+		if (result == null) {
+			result = RESTEnvelope.build(bboxElem);
+			envelope = result;
+		}
+		return result;
+	}
 	
 	public String getCRS() {
 		return this.bboxElem.getChildText("crs");
@@ -34,19 +48,19 @@ public class RESTBoundingBox {
 	}
 
 	public double getMinX() {
-		return this.getEdge("minx");
+		return getEnvelope().getMinX();
 	}
 	
 	public double getMaxX() {
-		return this.getEdge("maxx");
+		return getEnvelope().getMaxX();
 	}
 
 	public double getMinY() {
-		return this.getEdge("miny");
+		return getEnvelope().getMinY();
 	}
 
 	public double getMaxY() {
-		return this.getEdge("maxy");
+		return getEnvelope().getMaxY();
 	}
 
 }
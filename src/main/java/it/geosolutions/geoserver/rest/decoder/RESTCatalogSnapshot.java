@@ -0,0 +1,247 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable in-memory copy of (a part of) the GeoServer catalog: layers, with
+ * their resources and stores, and the styles they use.
+ * <P>
+ * Items are indexed by workspace and name; names are sorted. Styles not
+ * belonging to a workspace are looked up with a <code>null</code> workspace.
+ * 
+ * @see it.geosolutions.geoserver.rest.GeoServerRESTReader#getCatalogSnapshot(String)
+ */
+public class RESTCatalogSnapshot {
+
+    private final SortedMap<String, SortedMap<String, RESTLayer>> layers;
+
+    private final Map<String, RESTResource> resources;
+
+    private final Map<String, RESTDataStore> dataStores;
+
+    private final Map<String, RESTCoverageStore> coverageStores;
+
+    private final Map<String, RESTStyle> styles;
+
+    private final List<String> failures;
+
+    private final long creationTime;
+
+    private RESTCatalogSnapshot(Builder builder) {
+        SortedMap<String, SortedMap<String, RESTLayer>> tmpLayers = new TreeMap<String, SortedMap<String, RESTLayer>>();
+        for (Map.Entry<String, ConcurrentMap<String, RESTLayer>> entry : builder.layers.entrySet()) {
+            tmpLayers.put(entry.getKey(),
+                    Collections.unmodifiableSortedMap(new TreeMap<String, RESTLayer>(entry.getValue())));
+        }
+        this.layers = Collections.unmodifiableSortedMap(tmpLayers);
+        this.resources = Collections.unmodifiableMap(new TreeMap<String, RESTResource>(builder.resources));
+        this.dataStores = Collections.unmodifiableMap(new TreeMap<String, RESTDataStore>(builder.dataStores));
+        this.coverageStores = Collections.unmodifiableMap(new TreeMap<String, RESTCoverageStore>(
+                builder.coverageStores));
+        this.styles = Collections.unmodifiableMap(new TreeMap<String, RESTStyle>(builder.styles));
+        List<String> tmpFailures;
+        synchronized (builder.failures) {
+            tmpFailures = new ArrayList<String>(builder.failures);
+        }
+        Collections.sort(tmpFailures);
+        this.failures = Collections.unmodifiableList(tmpFailures);
+        this.creationTime = System.currentTimeMillis();
+    }
+
+    private static String key(String workspace, String name) {
+        return workspace == null ? name : workspace + ":" + name;
+    }
+
+    /**
+     * @return the names of the workspaces holding layers
+     */
+    public Set<String> getWorkspaces() {
+        return layers.keySet();
+    }
+
+    /**
+     * @param workspace the workspace name
+     * @return the names of the layers of the workspace, possibly empty
+     */
+    public Set<String> getLayerNames(String workspace) {
+        final SortedMap<String, RESTLayer> wsLayers = layers.get(workspace);
+        return wsLayers == null ? Collections.<String> emptySet() : wsLayers.keySet();
+    }
+
+    /**
+     * @return the number of layers in the snapshot
+     */
+    public int getLayerCount() {
+        int count = 0;
+        for (SortedMap<String, RESTLayer> wsLayers : layers.values()) {
+            count += wsLayers.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the layer, or null if not in the snapshot
+     */
+    public RESTLayer getLayer(String workspace, String name) {
+        final SortedMap<String, RESTLayer> wsLayers = layers.get(workspace);
+        return wsLayers == null ? null : wsLayers.get(name);
+    }
+
+    /**
+     * @return the resource published by the layer, a {@link RESTFeatureType},
+     *         {@link RESTCoverage} or {@link RESTWms}; null if not in the snapshot
+     */
+    public RESTResource getResource(String workspace, String layerName) {
+        return resources.get(key(workspace, layerName));
+    }
+
+    /**
+     * @return the datastore, or null if not in the snapshot
+     */
+    public RESTDataStore getDataStore(String workspace, String name) {
+        return dataStores.get(key(workspace, name));
+    }
+
+    /**
+     * @return the coverage store, or null if not in the snapshot
+     */
+    public RESTCoverageStore getCoverageStore(String workspace, String name) {
+        return coverageStores.get(key(workspace, name));
+    }
+
+    /**
+     * @param workspace the workspace of the style, null for global styles
+     * @return the style, or null if not in the snapshot
+     */
+    public RESTStyle getStyle(String workspace, String name) {
+        return styles.get(key(workspace, name));
+    }
+
+    /**
+     * @return the number of styles in the snapshot
+     */
+    public int getStyleCount() {
+        return styles.size();
+    }
+
+    /**
+     * @return the items that could not be loaded, e.g. <code>layer topp:states</code>
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return when the snapshot was completed, in milliseconds since the epoch
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "RESTCatalogSnapshot [workspaces=" + layers.size() + ", layers=" + getLayerCount()
+                + ", dataStores=" + dataStores.size() + ", coverageStores="
+                + coverageStores.size() + ", styles=" + styles.size() + ", failures="
+                + failures.size() + "]";
+    }
+
+    /**
+     * Collects the items of a snapshot; it can be filled concurrently.
+     */
+    public static class Builder {
+
+        private final ConcurrentMap<String, ConcurrentMap<String, RESTLayer>> layers = new ConcurrentHashMap<String, ConcurrentMap<String, RESTLayer>>();
+
+        private final ConcurrentMap<String, RESTResource> resources = new ConcurrentHashMap<String, RESTResource>();
+
+        private final ConcurrentMap<String, RESTDataStore> dataStores = new ConcurrentHashMap<String, RESTDataStore>();
+
+        private final ConcurrentMap<String, RESTCoverageStore> coverageStores = new ConcurrentHashMap<String, RESTCoverageStore>();
+
+        private final ConcurrentMap<String, RESTStyle> styles = new ConcurrentHashMap<String, RESTStyle>();
+
+        private final List<String> failures = new ArrayList<String>();
+
+        /**
+         * @param resource the resource published by the layer, may be null
+         */
+        public Builder addLayer(String workspace, String name, RESTLayer layer, RESTResource resource) {
+            ConcurrentMap<String, RESTLayer> wsLayers = layers.get(workspace);
+            if (wsLayers == null) {
+                final ConcurrentMap<String, RESTLayer> created = new ConcurrentHashMap<String, RESTLayer>();
+                wsLayers = layers.putIfAbsent(workspace, created);
+                if (wsLayers == null)
+                    wsLayers = created;
+            }
+            wsLayers.put(name, layer);
+            if (resource != null)
+                resources.put(key(workspace, name), resource);
+            return this;
+        }
+
+        public Builder addDataStore(String workspace, RESTDataStore store) {
+            dataStores.put(key(workspace, store.getName()), store);
+            return this;
+        }
+
+        public Builder addCoverageStore(String workspace, RESTCoverageStore store) {
+            coverageStores.put(key(workspace, store.getName()), store);
+            return this;
+        }
+
+        /**
+         * @param workspace the workspace of the style, null for global styles
+         */
+        public Builder addStyle(String workspace, String name, RESTStyle style) {
+            styles.put(key(workspace, name), style);
+            return this;
+        }
+
+        /**
+         * @param item a description of the item that could not be loaded
+         */
+        public Builder addFailure(String item) {
+            synchronized (failures) {
+                failures.add(item);
+            }
+            return this;
+        }
+
+        public RESTCatalogSnapshot build() {
+            return new RESTCatalogSnapshot(this);
+        }
+    }
+}
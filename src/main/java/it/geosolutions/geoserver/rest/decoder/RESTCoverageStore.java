@@ -27,6 +27,8 @@ package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 
+import java.io.InputStream;
+
 import org.jdom.Element;
 
 /**
@@ -79,6 +81,17 @@ public class RESTCoverageStore {
             return null;
     }
 
+    public static RESTCoverageStore build(InputStream response) {
+        if(response == null)
+            return null;
+        
+        Element pb = JDOMBuilder.buildElement(response);
+        if(pb != null)
+            return new RESTCoverageStore(pb);
+        else
+            return null;
+    }
+
     public String getName() {
         return cs.getChildText("name");
     }
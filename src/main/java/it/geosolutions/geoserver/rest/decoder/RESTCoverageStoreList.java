@@ -28,6 +28,8 @@ package it.geosolutions.geoserver.rest.decoder;
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 
+import java.io.InputStream;
+
 import org.jdom.Element;
 
 /**
@@ -55,6 +57,11 @@ public class RESTCoverageStoreList extends RESTAbstractList<NameLinkElem> {
         return elem == null? null : new RESTCoverageStoreList(elem);
 	}
 
+    public static RESTCoverageStoreList build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null? null : new RESTCoverageStoreList(elem);
+    }
+
     protected RESTCoverageStoreList(Element list) {
         super(list);
     }
@@ -0,0 +1,152 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.utils.StAXBuilder;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Immutable summary of a <TT>Coverage</TT>, decoded in a single pass with StAX.
+ * 
+ * @see RESTCoverage
+ */
+public class RESTCoverageSummary extends RESTResourceSummary {
+
+    private static final StAXBuilder.Handler<RESTCoverageSummary> HANDLER = new StAXBuilder.Handler<RESTCoverageSummary>() {
+        public RESTCoverageSummary parse(XMLStreamReader reader) throws XMLStreamException {
+            return new RESTCoverageSummary(reader);
+        }
+    };
+
+    private static class Children implements ChildParser {
+        private String nativeFormat;
+
+        private String nativeCoverageName;
+
+        private final List<String> dimensions = new ArrayList<String>();
+
+        private final Map<String, String> parameters = new LinkedHashMap<String, String>();
+
+        public boolean parse(XMLStreamReader reader) throws XMLStreamException {
+            final String elem = reader.getLocalName();
+            if ("nativeFormat".equals(elem)) {
+                nativeFormat = StAXBuilder.readText(reader);
+            } else if ("nativeCoverageName".equals(elem)) {
+                nativeCoverageName = StAXBuilder.readText(reader);
+            } else if ("dimensions".equals(elem)) {
+                while (StAXBuilder.nextChild(reader)) {
+                    dimensions.add(RESTSummaryList.RESTSummary.parse(reader).getName());
+                }
+            } else if ("parameters".equals(elem)) {
+                while (StAXBuilder.nextChild(reader)) {
+                    String key = null, value = null;
+                    while (StAXBuilder.nextChild(reader)) {
+                        if (key == null)
+                            key = StAXBuilder.readValue(reader);
+                        else if (value == null)
+                            value = StAXBuilder.readValue(reader);
+                        else
+                            StAXBuilder.skipElement(reader);
+                    }
+                    if (key != null)
+                        parameters.put(key, value);
+                }
+            } else {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private final String nativeFormat;
+
+    private final String nativeCoverageName;
+
+    private final List<String> dimensions;
+
+    private final Map<String, String> parameters;
+
+    public static RESTCoverageSummary build(String response) {
+        return StAXBuilder.build(response, HANDLER);
+    }
+
+    public static RESTCoverageSummary build(InputStream response) {
+        return StAXBuilder.build(response, HANDLER);
+    }
+
+    /**
+     * @param reader a reader positioned on the start tag of the coverage, left on its end tag
+     */
+    protected RESTCoverageSummary(XMLStreamReader reader) throws XMLStreamException {
+        this(reader, new Children());
+    }
+
+    private RESTCoverageSummary(XMLStreamReader reader, Children children)
+            throws XMLStreamException {
+        super(reader, "coverage", children);
+        this.nativeFormat = children.nativeFormat;
+        this.nativeCoverageName = children.nativeCoverageName;
+        this.dimensions = Collections.unmodifiableList(children.dimensions);
+        this.parameters = Collections.unmodifiableMap(children.parameters);
+    }
+
+    public String getNativeFormat() {
+        return nativeFormat;
+    }
+
+    public String getNativeCoverageName() {
+        return nativeCoverageName;
+    }
+
+    /**
+     * @return the unmodifiable list of the names of the coverage dimensions
+     */
+    public List<String> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return the unmodifiable map of the coverage parameters, in declaration order
+     * @see RESTCoverage#getParametersList()
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return "RESTCoverageSummary [name=" + getName() + ", nameSpace=" + getNameSpace()
+                + ", store=" + getStoreName() + ", nativeFormat=" + nativeFormat + "]";
+    }
+}
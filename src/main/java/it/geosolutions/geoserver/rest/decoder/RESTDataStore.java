@@ -27,6 +27,7 @@ package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -106,6 +107,19 @@ public class RESTDataStore {
         }
     }
 
+    public static RESTDataStore build(InputStream xml) {
+        if (xml == null) {
+            return null;
+        }
+
+        Element e = JDOMBuilder.buildElement(xml);
+        if (e != null) {
+            return new RESTDataStore(e);
+        } else {
+            return null;
+        }
+    }
+
     protected RESTDataStore(Element dsElem) {
         this.dsElem = dsElem;
     }
@@ -0,0 +1,135 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import org.jdom.Element;
+
+/**
+ * A bounding box decoded once into primitive coordinates.
+ * 
+ * <PRE>
+ * {@code
+ * <minx>472800.0</minx>
+ * <maxx>817362.0</maxx>
+ * <miny>35053.40625</miny>
+ * <maxy>301500.0</maxy>
+ * <crs class="projected">EPSG:21781</crs>
+ * }
+ * </PRE>
+ * 
+ * @see RESTBoundingBox#getEnvelope()
+ * @see RESTResource#getLatLonEnvelope()
+ * @see RESTLayerGroup#getEnvelope()
+ */
+public final class RESTEnvelope {
+
+    private final double minX;
+
+    private final double minY;
+
+    private final double maxX;
+
+    private final double maxY;
+
+    private final String crs;
+
+    public RESTEnvelope(double minX, double minY, double maxX, double maxY, String crs) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.crs = crs;
+    }
+
+    /**
+     * @param bboxElem the bounding box element, may be null
+     * @return the envelope, or null if the element is null
+     * @throws NullPointerException if an edge is missing
+     * @throws NumberFormatException if an edge is not a number
+     */
+    public static RESTEnvelope build(Element bboxElem) {
+        if (bboxElem == null)
+            return null;
+        return new RESTEnvelope(edge(bboxElem, "minx"), edge(bboxElem, "miny"), edge(bboxElem,
+                "maxx"), edge(bboxElem, "maxy"), bboxElem.getChildText("crs"));
+    }
+
+    private static double edge(Element bboxElem, String edge) {
+        return Double.parseDouble(bboxElem.getChildText(edge));
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    public String getCRS() {
+        return crs;
+    }
+
+    /**
+     * @return true if the two envelopes share at least a point; the CRS is not checked
+     */
+    public boolean intersects(RESTEnvelope other) {
+        return minX <= other.maxX && other.minX <= maxX && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof RESTEnvelope))
+            return false;
+        RESTEnvelope other = (RESTEnvelope) obj;
+        return Double.compare(minX, other.minX) == 0 && Double.compare(minY, other.minY) == 0
+                && Double.compare(maxX, other.maxX) == 0 && Double.compare(maxY, other.maxY) == 0
+                && (crs == null ? other.crs == null : crs.equals(other.crs));
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(minX);
+        bits = 31 * bits + Double.doubleToLongBits(minY);
+        bits = 31 * bits + Double.doubleToLongBits(maxX);
+        bits = 31 * bits + Double.doubleToLongBits(maxY);
+        return (int) (bits ^ (bits >>> 32)) * 31 + (crs == null ? 0 : crs.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return "RESTEnvelope[" + minX + "," + minY + " : " + maxX + "," + maxY + " " + crs + "]";
+    }
+}
@@ -30,6 +30,7 @@ import it.geosolutions.geoserver.rest.decoder.utils.JDOMListIterator;
 import it.geosolutions.geoserver.rest.encoder.feature.FeatureTypeAttribute;
 import it.geosolutions.geoserver.rest.encoder.feature.GSAttributeEncoder;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -164,6 +165,11 @@ public class RESTFeatureType extends RESTResource {
         return elem == null? null : new RESTFeatureType(elem);
 	}
 
+    public static RESTFeatureType build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null? null : new RESTFeatureType(elem);
+    }
+
 	public RESTFeatureType(Element resource) {
 		super(resource);
 	}
@@ -0,0 +1,108 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.utils.StAXBuilder;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Immutable summary of a <TT>FeatureType</TT>, decoded in a single pass with StAX.
+ * 
+ * @see RESTFeatureType
+ */
+public class RESTFeatureTypeSummary extends RESTResourceSummary {
+
+    private static final StAXBuilder.Handler<RESTFeatureTypeSummary> HANDLER = new StAXBuilder.Handler<RESTFeatureTypeSummary>() {
+        public RESTFeatureTypeSummary parse(XMLStreamReader reader) throws XMLStreamException {
+            return new RESTFeatureTypeSummary(reader);
+        }
+    };
+
+    private static class Attributes implements ChildParser {
+        private final Map<String, String> bindings = new LinkedHashMap<String, String>();
+
+        public boolean parse(XMLStreamReader reader) throws XMLStreamException {
+            if (!"attributes".equals(reader.getLocalName()))
+                return false;
+            while (StAXBuilder.nextChild(reader)) {
+                String name = null, binding = null;
+                while (StAXBuilder.nextChild(reader)) {
+                    if ("name".equals(reader.getLocalName()))
+                        name = StAXBuilder.readText(reader);
+                    else if ("binding".equals(reader.getLocalName()))
+                        binding = StAXBuilder.readText(reader);
+                    else
+                        StAXBuilder.skipElement(reader);
+                }
+                bindings.put(name, binding);
+            }
+            return true;
+        }
+    }
+
+    private final Map<String, String> attributes;
+
+    public static RESTFeatureTypeSummary build(String response) {
+        return StAXBuilder.build(response, HANDLER);
+    }
+
+    public static RESTFeatureTypeSummary build(InputStream response) {
+        return StAXBuilder.build(response, HANDLER);
+    }
+
+    /**
+     * @param reader a reader positioned on the start tag of the feature type, left on its end tag
+     */
+    protected RESTFeatureTypeSummary(XMLStreamReader reader) throws XMLStreamException {
+        this(reader, new Attributes());
+    }
+
+    private RESTFeatureTypeSummary(XMLStreamReader reader, Attributes attributes)
+            throws XMLStreamException {
+        super(reader, "featureType", attributes);
+        this.attributes = Collections.unmodifiableMap(attributes.bindings);
+    }
+
+    /**
+     * @return the unmodifiable map from the attribute names, in declaration
+     *         order, to their bindings, which are null if not given
+     */
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "RESTFeatureTypeSummary [name=" + getName() + ", nameSpace=" + getNameSpace()
+                + ", store=" + getStoreName() + ", attributes=" + attributes.keySet() + "]";
+    }
+}
@@ -25,6 +25,7 @@
 
 package it.geosolutions.geoserver.rest.decoder;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -123,6 +124,17 @@ public class RESTLayer {
             return null;
 	}
 
+    public static RESTLayer build(InputStream response) {
+        if(response == null)
+            return null;
+        
+        Element pb = JDOMBuilder.buildElement(response);
+        if(pb != null)
+            return new RESTLayer(pb);
+        else
+            return null;
+    }
+
 	public RESTLayer(Element layerElem) {
 		this.layerElem = layerElem;
 	}
@@ -3,6 +3,7 @@ package it.geosolutions.geoserver.rest.decoder;
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 import it.geosolutions.geoserver.rest.encoder.authorityurl.GSAuthorityURLInfoEncoder;
 import it.geosolutions.geoserver.rest.encoder.identifier.GSIdentifierInfoEncoder;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -68,6 +69,17 @@ public class RESTLayer21 extends RESTLayer{
         else
             return null;
 	}
+
+    public static RESTLayer21 build(InputStream response) {
+        if(response == null)
+            return null;
+        
+        Element pb = JDOMBuilder.buildElement(response);
+        if(pb != null)
+            return new RESTLayer21(pb);
+        else
+            return null;
+    }
 	
 	/**
 	 * Decodes the advertised property from the Geoserver Layer
@@ -0,0 +1,134 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import java.util.Arrays;
+
+/**
+ * The lat/lon extents of many layers, packed into a single <code>double</code>
+ * array for building in-process spatial indexes.
+ * <P>
+ * Layer <code>i</code> is stored at offset <code>4 * i</code> as
+ * <code>minx, miny, maxx, maxy</code>; layers are sorted by workspace and
+ * name. The accessors do not allocate.
+ * 
+ * @see it.geosolutions.geoserver.rest.GeoServerRESTReader#getLayerEnvelopes(String)
+ */
+public final class RESTLayerEnvelopes {
+
+    private final String[] workspaces;
+
+    private final String[] names;
+
+    private final double[] coords;
+
+    private RESTLayerEnvelopes(String[] workspaces, String[] names, double[] coords) {
+        this.workspaces = workspaces;
+        this.names = names;
+        this.coords = coords;
+    }
+
+    /**
+     * Extracts the extents of the layers in the snapshot; the layers without a
+     * lat/lon bounding box are left out.
+     * 
+     * @return the extents, or null if the snapshot is null
+     */
+    public static RESTLayerEnvelopes build(RESTCatalogSnapshot snapshot) {
+        if (snapshot == null)
+            return null;
+        final int count = snapshot.getLayerCount();
+        String[] workspaces = new String[count];
+        String[] names = new String[count];
+        double[] coords = new double[4 * count];
+        int size = 0;
+        for (String workspace : snapshot.getWorkspaces()) {
+            for (String name : snapshot.getLayerNames(workspace)) {
+                RESTResource resource = snapshot.getResource(workspace, name);
+                RESTEnvelope envelope = resource == null ? null : resource.getLatLonEnvelope();
+                if (envelope == null)
+                    continue;
+                workspaces[size] = workspace;
+                names[size] = name;
+                coords[4 * size] = envelope.getMinX();
+                coords[4 * size + 1] = envelope.getMinY();
+                coords[4 * size + 2] = envelope.getMaxX();
+                coords[4 * size + 3] = envelope.getMaxY();
+                size++;
+            }
+        }
+        if (size < count) {
+            workspaces = Arrays.copyOf(workspaces, size);
+            names = Arrays.copyOf(names, size);
+            coords = Arrays.copyOf(coords, 4 * size);
+        }
+        return new RESTLayerEnvelopes(workspaces, names, coords);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getWorkspace(int index) {
+        return workspaces[index];
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public double getMinX(int index) {
+        return coords[4 * index];
+    }
+
+    public double getMinY(int index) {
+        return coords[4 * index + 1];
+    }
+
+    public double getMaxX(int index) {
+        return coords[4 * index + 2];
+    }
+
+    public double getMaxY(int index) {
+        return coords[4 * index + 3];
+    }
+
+    /**
+     * @return a copy of the packed coordinates, 4 per layer
+     */
+    public double[] getCoordinates() {
+        return coords.clone();
+    }
+
+    /**
+     * Copies the packed coordinates into the given array.
+     * 
+     * @param dest the destination array, holding at least <code>4 * size()</code>
+     *        values from <code>offset</code>
+     */
+    public void getCoordinates(double[] dest, int offset) {
+        System.arraycopy(coords, 0, dest, offset, coords.length);
+    }
+}
@@ -27,6 +27,8 @@ package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 
+import java.io.InputStream;
+
 import org.jdom.Element;
 
 /**
@@ -79,11 +81,18 @@ import org.jdom.Element;
 public class RESTLayerGroup {
 	private final Element rootElem;
 
+	private volatile RESTEnvelope envelope;
+
     public static RESTLayerGroup build(String response) {
         Element elem = JDOMBuilder.buildElement(response);
         return elem == null? null : new RESTLayerGroup(elem);
 	}
 
+    public static RESTLayerGroup build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null? null : new RESTLayerGroup(elem);
+    }
+
 	public RESTLayerGroup(Element layerElem) {
 		this.rootElem = layerElem;
 	}
@@ -148,16 +157,28 @@ public class RESTLayerGroup {
 		return Double.parseDouble(bounds.getChildText(edge));
 	}
 
+	/**
+	 * @return the bounds, parsed on the first call only, or null if missing
+	 */
+	public RESTEnvelope getEnvelope() {
+		RESTEnvelope result = envelope;
+		if (result == null) {
+			result = RESTEnvelope.build(rootElem.getChild("bounds"));
+			envelope = result;
+		}
+		return result;
+	}
+
 	public double getMinX() {
-		return getBound("minx");
+		return getEnvelope().getMinX();
 	}
 	public double getMaxX() {
-		return getBound("maxx");
+		return getEnvelope().getMaxX();
 	}
 	public double getMinY() {
-		return getBound("miny");
+		return getEnvelope().getMinY();
 	}
 	public double getMaxY() {
-		return getBound("maxy");
+		return getEnvelope().getMaxY();
 	}
 }
@@ -28,6 +28,8 @@ package it.geosolutions.geoserver.rest.decoder;
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 
+import java.io.InputStream;
+
 import org.jdom.Element;
 
 /**
@@ -61,6 +63,11 @@ public class RESTLayerGroupList extends RESTAbstractList<NameLinkElem> {
         return elem == null? null : new RESTLayerGroupList(elem);
 	}
 
+    public static RESTLayerGroupList build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null? null : new RESTLayerGroupList(elem);
+    }
+
     protected RESTLayerGroupList(Element list) {
         super(list);
     }
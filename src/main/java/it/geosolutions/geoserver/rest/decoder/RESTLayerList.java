@@ -28,6 +28,8 @@ package it.geosolutions.geoserver.rest.decoder;
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 
+import java.io.InputStream;
+
 import org.jdom.Element;
 
 /**
@@ -58,6 +60,11 @@ public class RESTLayerList extends RESTAbstractList<NameLinkElem> {
         return elem == null? null : new RESTLayerList(elem);
 	}
 
+    public static RESTLayerList build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null? null : new RESTLayerList(elem);
+    }
+
     protected RESTLayerList(Element list) {
         super(list);
     }
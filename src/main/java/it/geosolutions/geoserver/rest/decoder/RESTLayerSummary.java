@@ -0,0 +1,194 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.RESTLayer.Type;
+import it.geosolutions.geoserver.rest.decoder.utils.StAXBuilder;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Immutable summary of a <TT>Layer</TT>, decoded in a single pass with StAX.
+ * <P>
+ * This is a lightweight alternative to {@link RESTLayer}, which keeps the
+ * whole JDOM tree alive and walks it on each call; it holds the properties
+ * most commonly needed to manage the catalog. It works with both the current
+ * and the GeoServer 2.1 representations, where <TT>advertised</TT> is stored
+ * in the metadata; a layer not stating it is advertised.
+ * 
+ * @see RESTLayer
+ */
+public class RESTLayerSummary {
+
+    private static final StAXBuilder.Handler<RESTLayerSummary> HANDLER = new StAXBuilder.Handler<RESTLayerSummary>() {
+        public RESTLayerSummary parse(XMLStreamReader reader) throws XMLStreamException {
+            return new RESTLayerSummary(reader);
+        }
+    };
+
+    private final String name;
+
+    private final String typeString;
+
+    private final String defaultStyle;
+
+    private final String defaultStyleWorkspace;
+
+    private final List<String> styles;
+
+    private final String resourceUrl;
+
+    private final boolean enabled;
+
+    private final boolean queryable;
+
+    private final boolean advertised;
+
+    public static RESTLayerSummary build(String response) {
+        return StAXBuilder.build(response, HANDLER);
+    }
+
+    public static RESTLayerSummary build(InputStream response) {
+        return StAXBuilder.build(response, HANDLER);
+    }
+
+    /**
+     * @param reader a reader positioned on the start tag of the layer, left on its end tag
+     */
+    protected RESTLayerSummary(XMLStreamReader reader) throws XMLStreamException {
+        if (!"layer".equals(reader.getLocalName()))
+            throw new XMLStreamException("Root element should be layer: " + reader.getLocalName());
+        String name = null, typeString = null, defaultStyle = null, defaultStyleWorkspace = null;
+        String resourceUrl = null;
+        boolean enabled = false, queryable = false, advertised = true;
+        List<String> tmpStyles = new ArrayList<String>();
+        Boolean advertisedElem = null;
+        while (StAXBuilder.nextChild(reader)) {
+            final String elem = reader.getLocalName();
+            if ("name".equals(elem)) {
+                name = StAXBuilder.readText(reader);
+            } else if ("type".equals(elem)) {
+                typeString = StAXBuilder.readText(reader);
+            } else if ("enabled".equals(elem)) {
+                enabled = Boolean.parseBoolean(StAXBuilder.readText(reader));
+            } else if ("queryable".equals(elem)) {
+                queryable = Boolean.parseBoolean(StAXBuilder.readText(reader));
+            } else if ("advertised".equals(elem)) {
+                advertisedElem = Boolean.valueOf(StAXBuilder.readText(reader));
+            } else if ("defaultStyle".equals(elem)) {
+                while (StAXBuilder.nextChild(reader)) {
+                    if ("name".equals(reader.getLocalName()))
+                        defaultStyle = StAXBuilder.readText(reader);
+                    else if ("workspace".equals(reader.getLocalName()))
+                        defaultStyleWorkspace = StAXBuilder.readText(reader);
+                    else
+                        StAXBuilder.skipElement(reader);
+                }
+            } else if ("styles".equals(elem)) {
+                while (StAXBuilder.nextChild(reader)) {
+                    tmpStyles.add(RESTSummaryList.RESTSummary.parse(reader).getName());
+                }
+            } else if ("resource".equals(elem)) {
+                resourceUrl = RESTSummaryList.RESTSummary.parse(reader).getHref();
+            } else if ("metadata".equals(elem)) {
+                while (StAXBuilder.nextChild(reader)) {
+                    if ("advertised".equals(reader.getAttributeValue(null, "key")))
+                        advertised = Boolean.parseBoolean(StAXBuilder.readText(reader));
+                    else
+                        StAXBuilder.skipElement(reader);
+                }
+            } else {
+                StAXBuilder.skipElement(reader);
+            }
+        }
+        this.name = name;
+        this.typeString = typeString;
+        this.defaultStyle = defaultStyle;
+        this.defaultStyleWorkspace = defaultStyleWorkspace;
+        this.styles = Collections.unmodifiableList(tmpStyles);
+        this.resourceUrl = resourceUrl;
+        this.enabled = enabled;
+        this.queryable = queryable;
+        this.advertised = advertisedElem != null ? advertisedElem.booleanValue() : advertised;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTypeString() {
+        return typeString;
+    }
+
+    public Type getType() {
+        return Type.get(typeString);
+    }
+
+    public String getDefaultStyle() {
+        return defaultStyle;
+    }
+
+    public String getDefaultStyleWorkspace() {
+        return defaultStyleWorkspace;
+    }
+
+    /**
+     * @return the unmodifiable list of the names of the additional styles
+     */
+    public List<String> getStyles() {
+        return styles;
+    }
+
+    /**
+     * @return the URL to retrieve the resource
+     */
+    public String getResourceUrl() {
+        return resourceUrl;
+    }
+
+    public boolean getEnabled() {
+        return enabled;
+    }
+
+    public boolean getQueryable() {
+        return queryable;
+    }
+
+    public boolean getAdvertised() {
+        return advertised;
+    }
+
+    @Override
+    public String toString() {
+        return "RESTLayerSummary [name=" + name + ", type=" + typeString + ", defaultStyle="
+                + defaultStyle + ", styles=" + styles + ", enabled=" + enabled + "]";
+    }
+}
@@ -26,6 +26,7 @@ package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 
+import java.io.InputStream;
 import java.net.URI;
 
 import org.jdom.Element;
@@ -70,6 +71,17 @@ public class RESTNamespace {
         else
             return null;
 	}
+
+    public static RESTNamespace build(InputStream response) {
+        if(response == null)
+            return null;
+        
+        Element pb = JDOMBuilder.buildElement(response);
+        if(pb != null)
+            return new RESTNamespace(pb);
+        else
+            return null;
+    }
     
     /**
      * Create a RESTNamespace from a XML element.
@@ -26,11 +26,9 @@
 package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
+import java.io.InputStream;
 
 import org.jdom.Element;
 
@@ -40,9 +38,7 @@ import org.jdom.Element;
  *
  * @author ETj (etj at geo-solutions.it)
  */
-public class RESTNamespaceList implements Iterable<RESTNamespaceList.RESTShortNamespace> {
-
-    private final List<Element> nsList;
+public class RESTNamespaceList extends RESTAbstractList<RESTNamespaceList.RESTShortNamespace> {
 
     public static RESTNamespaceList build(String response) {
         if(response == null)
@@ -55,51 +51,24 @@ public class RESTNamespaceList implements Iterable<RESTNamespaceList.RESTShortNa
             return null;
 	}
 
-    protected RESTNamespaceList(Element wslistroot) {
-        List<Element> tmpList = new ArrayList<Element>();
-        for (Element wselem : (List<Element>) wslistroot.getChildren("namespace")) {
-            tmpList.add(wselem);
-        }
-
-        nsList = Collections.unmodifiableList(tmpList);
-    }
-
-    public int size() {
-        return nsList.size();
-    }
-
-    public boolean isEmpty() {
-        return nsList.isEmpty();
-    }
+    public static RESTNamespaceList build(InputStream response) {
+        if(response == null)
+            return null;
 
-    public RESTShortNamespace get(int index) {
-        return new RESTShortNamespace(nsList.get(index));
+        Element elem = JDOMBuilder.buildElement(response);
+        if(elem != null)
+            return new RESTNamespaceList(elem);
+        else
+            return null;
     }
 
-    public Iterator<RESTShortNamespace> iterator() {
-        return new RESTNSListIterator(nsList);
+    protected RESTNamespaceList(Element wslistroot) {
+        super(wslistroot);
     }
 
-
-    private static class RESTNSListIterator implements Iterator<RESTShortNamespace> {
-
-        private final Iterator<Element> iter;
-
-        public RESTNSListIterator(List<Element> orig) {
-            iter = orig.iterator();
-        }        
-
-        public boolean hasNext() {
-            return iter.hasNext();
-        }
-
-        public RESTShortNamespace next() {
-            return new RESTShortNamespace(iter.next());
-        }
-
-        public void remove() {
-            throw new UnsupportedOperationException("Not supported.");
-        }
+    @Override
+    protected RESTShortNamespace createElement(Element el) {
+        return new RESTShortNamespace(el);
     }
 
     /**
@@ -119,15 +88,10 @@ public class RESTNamespaceList implements Iterable<RESTNamespaceList.RESTShortNa
      * </PRE>
      */
 
-    public static class RESTShortNamespace {
-        private final Element nsElem;
+    public static class RESTShortNamespace extends NameLinkElem {
 
         public RESTShortNamespace(Element elem) {
-            this.nsElem = elem;
-        }
-
-        public String getName() {
-            return nsElem.getChildText("name");
+            super(elem);
         }
     }
 
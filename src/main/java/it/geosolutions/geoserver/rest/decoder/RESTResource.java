@@ -32,6 +32,7 @@ import it.geosolutions.geoserver.rest.encoder.feature.GSAttributeEncoder;
 import it.geosolutions.geoserver.rest.encoder.metadatalink.GSMetadataLinkInfoEncoder;
 import it.geosolutions.geoserver.rest.encoder.metadatalink.ResourceMetadataLinkInfo;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -50,11 +51,20 @@ import org.jdom.Namespace;
 public class RESTResource {
     protected final Element rootElem;
 
+    private volatile RESTEnvelope nativeEnvelope;
+
+    private volatile RESTEnvelope latLonEnvelope;
+
     public static RESTResource build(String response) {
         Element elem = JDOMBuilder.buildElement(response);
         return elem == null ? null : new RESTCoverage(elem);
     }
 
+    public static RESTResource build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null ? null : new RESTCoverage(elem);
+    }
+
     public RESTResource(Element resource) {
         this.rootElem = resource;
     }
@@ -137,20 +147,44 @@ public class RESTResource {
     	return bbox.getCRS();
     }
 
+    /**
+     * @return the native bounding box, parsed on the first call only, or null if missing
+     */
+    public RESTEnvelope getNativeEnvelope() {
+        RESTEnvelope result = nativeEnvelope;
+        if (result == null) {
+            result = RESTEnvelope.build(rootElem.getChild("nativeBoundingBox"));
+            nativeEnvelope = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the lat/lon bounding box, parsed on the first call only, or null if missing
+     */
+    public RESTEnvelope getLatLonEnvelope() {
+        RESTEnvelope result = latLonEnvelope;
+        if (result == null) {
+            result = RESTEnvelope.build(rootElem.getChild("latLonBoundingBox"));
+            latLonEnvelope = result;
+        }
+        return result;
+    }
+
     public double getMinX() {
-        return this.getLatLonBoundingBox().getMinX();
+        return getLatLonEnvelope().getMinX();
     }
 
     public double getMaxX() {
-    	return this.getLatLonBoundingBox().getMaxX();
+    	return getLatLonEnvelope().getMaxX();
     }
 
     public double getMinY() {
-    	return this.getLatLonBoundingBox().getMinY();
+    	return getLatLonEnvelope().getMinY();
     }
 
     public double getMaxY() {
-    	return this.getLatLonBoundingBox().getMaxY();
+    	return getLatLonEnvelope().getMaxY();
     }
 
     /**
@@ -0,0 +1,248 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.utils.StAXBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Immutable summary of a resource (<TT>FeatureType</TT> or <TT>Coverage</TT>),
+ * decoded in a single pass with StAX.
+ * <P>
+ * This is the pull parsing counterpart of {@link RESTResource}: it holds the
+ * properties shared by all the resources, without keeping the JDOM tree.
+ * 
+ * @see RESTFeatureTypeSummary
+ * @see RESTCoverageSummary
+ */
+public abstract class RESTResourceSummary {
+
+    /**
+     * Decodes the children specific to a kind of resource.
+     */
+    protected interface ChildParser {
+
+        /**
+         * @param reader a reader positioned on the start tag of a child of the
+         *        resource, to be left on its end tag if parsed
+         * @return false if the child was not parsed, and has to be skipped
+         */
+        boolean parse(XMLStreamReader reader) throws XMLStreamException;
+    }
+
+    private final String name;
+
+    private final String nativeName;
+
+    private final String title;
+
+    private final String abstrct;
+
+    private final List<String> keywords;
+
+    private final String nameSpace;
+
+    private final String storeName;
+
+    private final String storeType;
+
+    private final String storeUrl;
+
+    private final String nativeCRS;
+
+    private final String srs;
+
+    private final RESTEnvelope nativeEnvelope;
+
+    private final RESTEnvelope latLonEnvelope;
+
+    private final boolean enabled;
+
+    /**
+     * @param reader a reader positioned on the start tag of the resource, left on its end tag
+     * @param root the expected name of the root element
+     * @param children the parser of the children specific to the resource
+     */
+    protected RESTResourceSummary(XMLStreamReader reader, String root, ChildParser children)
+            throws XMLStreamException {
+        if (!root.equals(reader.getLocalName()))
+            throw new XMLStreamException("Root element should be " + root + ": "
+                    + reader.getLocalName());
+        String name = null, nativeName = null, title = null, abstrct = null, nameSpace = null;
+        String storeName = null, storeType = null, storeUrl = null, nativeCRS = null, srs = null;
+        RESTEnvelope nativeEnvelope = null, latLonEnvelope = null;
+        boolean enabled = false;
+        List<String> tmpKeywords = null;
+        while (StAXBuilder.nextChild(reader)) {
+            final String elem = reader.getLocalName();
+            if ("name".equals(elem)) {
+                name = StAXBuilder.readText(reader);
+            } else if ("nativeName".equals(elem)) {
+                nativeName = StAXBuilder.readText(reader);
+            } else if ("title".equals(elem)) {
+                title = StAXBuilder.readText(reader);
+            } else if ("abstract".equals(elem)) {
+                abstrct = StAXBuilder.readText(reader);
+            } else if ("keywords".equals(elem)) {
+                tmpKeywords = new ArrayList<String>();
+                while (StAXBuilder.nextChild(reader)) {
+                    tmpKeywords.add(StAXBuilder.readText(reader));
+                }
+            } else if ("namespace".equals(elem)) {
+                nameSpace = RESTSummaryList.RESTSummary.parse(reader).getName();
+            } else if ("store".equals(elem)) {
+                storeType = reader.getAttributeValue(null, "class");
+                RESTSummaryList.RESTSummary store = RESTSummaryList.RESTSummary.parse(reader);
+                storeName = store.getName();
+                storeUrl = store.getHref();
+            } else if ("nativeCRS".equals(elem)) {
+                nativeCRS = StAXBuilder.readText(reader);
+            } else if ("srs".equals(elem)) {
+                srs = StAXBuilder.readText(reader);
+            } else if ("nativeBoundingBox".equals(elem)) {
+                nativeEnvelope = readEnvelope(reader);
+            } else if ("latLonBoundingBox".equals(elem)) {
+                latLonEnvelope = readEnvelope(reader);
+            } else if ("enabled".equals(elem)) {
+                enabled = Boolean.parseBoolean(StAXBuilder.readText(reader));
+            } else if (!children.parse(reader)) {
+                StAXBuilder.skipElement(reader);
+            }
+        }
+        this.name = name;
+        this.nativeName = nativeName;
+        this.title = title;
+        this.abstrct = abstrct;
+        this.keywords = tmpKeywords == null ? null : Collections.unmodifiableList(tmpKeywords);
+        this.nameSpace = nameSpace;
+        this.storeName = storeName;
+        this.storeType = storeType;
+        this.storeUrl = storeUrl;
+        this.nativeCRS = nativeCRS;
+        this.srs = srs;
+        this.nativeEnvelope = nativeEnvelope;
+        this.latLonEnvelope = latLonEnvelope;
+        this.enabled = enabled;
+    }
+
+    private static RESTEnvelope readEnvelope(XMLStreamReader reader) throws XMLStreamException {
+        String minX = null, minY = null, maxX = null, maxY = null, crs = null;
+        while (StAXBuilder.nextChild(reader)) {
+            final String elem = reader.getLocalName();
+            if ("minx".equals(elem))
+                minX = StAXBuilder.readText(reader);
+            else if ("miny".equals(elem))
+                minY = StAXBuilder.readText(reader);
+            else if ("maxx".equals(elem))
+                maxX = StAXBuilder.readText(reader);
+            else if ("maxy".equals(elem))
+                maxY = StAXBuilder.readText(reader);
+            else if ("crs".equals(elem))
+                crs = StAXBuilder.readText(reader);
+            else
+                StAXBuilder.skipElement(reader);
+        }
+        if (minX == null || minY == null || maxX == null || maxY == null)
+            throw new XMLStreamException("Incomplete bounding box", reader.getLocation());
+        try {
+            return new RESTEnvelope(Double.parseDouble(minX), Double.parseDouble(minY),
+                    Double.parseDouble(maxX), Double.parseDouble(maxY), crs);
+        } catch (NumberFormatException e) {
+            throw new XMLStreamException("Bad bounding box: " + e.getMessage(),
+                    reader.getLocation());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getNativeName() {
+        return nativeName;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAbstract() {
+        return abstrct;
+    }
+
+    /**
+     * @return the unmodifiable list of keywords, or null if missing
+     */
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public String getNameSpace() {
+        return nameSpace;
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public String getStoreType() {
+        return storeType;
+    }
+
+    public String getStoreUrl() {
+        return storeUrl;
+    }
+
+    public String getNativeCRS() {
+        return nativeCRS;
+    }
+
+    public String getSRS() {
+        return srs;
+    }
+
+    /**
+     * @return the native bounding box, or null if missing
+     */
+    public RESTEnvelope getNativeEnvelope() {
+        return nativeEnvelope;
+    }
+
+    /**
+     * @return the lat/lon bounding box, or null if missing
+     */
+    public RESTEnvelope getLatLonEnvelope() {
+        return latLonEnvelope;
+    }
+
+    public boolean getEnabled() {
+        return enabled;
+    }
+}
@@ -26,6 +26,7 @@ package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -133,6 +134,18 @@ public class RESTStructuredCoverageGranulesList implements Iterable<RESTStructur
             return null;
         }
     }
+
+    public static RESTStructuredCoverageGranulesList build(InputStream response) {
+        if(response == null)
+            return null;
+        
+        Element pb = JDOMBuilder.buildElement(response);
+        if(pb != null){
+            return new RESTStructuredCoverageGranulesList(pb);
+        } else {
+            return null;
+        }
+    }
     
     public int size() {
         return granulesList.size();
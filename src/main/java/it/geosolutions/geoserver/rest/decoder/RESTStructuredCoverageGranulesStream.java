@@ -0,0 +1,215 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
+import it.geosolutions.geoserver.rest.decoder.utils.StAXBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pull decoder for the granules of a StructuredGridCoverageReader index.
+ * <P>
+ * Unlike {@link RESTStructuredCoverageGranulesList}, which builds the whole
+ * document tree, the response is parsed with StAX and only the
+ * <code>gml:featureMember</code> being returned is materialized.
+ * The underlying stream is closed once the last granule has been read, or
+ * by {@link #close()}.
+ * 
+ * @see RESTStructuredCoverageGranulesList
+ */
+public class RESTStructuredCoverageGranulesStream implements Iterator<RESTStructuredCoverageGranule> {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(RESTStructuredCoverageGranulesStream.class);
+
+    private static final String GML_URI = "http://www.opengis.net/gml";
+
+    private final InputStream stream;
+
+    private final XMLStreamReader reader;
+
+    private RESTStructuredCoverageGranule next;
+
+    private int count;
+
+    private boolean closed;
+
+    private RESTStructuredCoverageGranulesStream(InputStream stream, XMLStreamReader reader) {
+        this.stream = stream;
+        this.reader = reader;
+    }
+
+    /**
+     * Opens a pull decoder on the given response.
+     * 
+     * @param response the granules XML representation
+     * @return the decoder, or null if the response is null or not well formed
+     */
+    public static RESTStructuredCoverageGranulesStream build(InputStream response) {
+        if (response == null)
+            return null;
+        try {
+            return new RESTStructuredCoverageGranulesStream(response,
+                    StAXBuilder.createReader(response));
+        } catch (XMLStreamException e) {
+            LOGGER.warn("Ex thrown parsing granules: " + e.getLocalizedMessage());
+            closeQuietly(response);
+            return null;
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the response is not well formed
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            try {
+                next = advance();
+            } catch (XMLStreamException e) {
+                close();
+                throw new IllegalStateException("Unable to parse granules: " + e.getLocalizedMessage(), e);
+            }
+            if (next == null)
+                close();
+        }
+        return next != null;
+    }
+
+    @Override
+    public RESTStructuredCoverageGranule next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        final RESTStructuredCoverageGranule granule = next;
+        next = null;
+        count++;
+        return granule;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return the number of granules returned so far
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Releases the underlying stream; further calls to {@link #hasNext()} return false.
+     */
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        next = null;
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            LOGGER.trace(e.getLocalizedMessage(), e);
+        }
+        closeQuietly(stream);
+    }
+
+    private RESTStructuredCoverageGranule advance() throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT
+                    && "featureMember".equals(reader.getLocalName())
+                    && GML_URI.equals(reader.getNamespaceURI())) {
+                return new RESTStructuredCoverageGranule(readElement());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the element the reader is positioned on, leaving the reader on its end tag.
+     */
+    private Element readElement() throws XMLStreamException {
+        Element current = newElement();
+        while (true) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                final Element child = newElement();
+                current.addContent(child);
+                current = child;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                current.addContent(reader.getText());
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                if (current.getParentElement() == null)
+                    return current;
+                current = current.getParentElement();
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                throw new XMLStreamException("Unexpected end of document");
+            default:
+                break;
+            }
+        }
+    }
+
+    private Element newElement() {
+        final Element element = new Element(reader.getLocalName(), namespace(reader.getPrefix(),
+                reader.getNamespaceURI()));
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i),
+                    namespace(reader.getAttributePrefix(i), reader.getAttributeNamespace(i)));
+        }
+        return element;
+    }
+
+    private static Namespace namespace(String prefix, String uri) {
+        if (uri == null || uri.length() == 0)
+            return Namespace.NO_NAMESPACE;
+        return Namespace.getNamespace(prefix == null ? "" : prefix, uri);
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            LOGGER.trace(e.getLocalizedMessage(), e);
+        }
+    }
+}
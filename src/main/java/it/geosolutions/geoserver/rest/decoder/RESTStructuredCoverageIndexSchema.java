@@ -26,6 +26,7 @@ package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -135,6 +136,18 @@ public class RESTStructuredCoverageIndexSchema implements Iterable<RESTStructure
             return null;
         }
     }
+
+    public static RESTStructuredCoverageIndexSchema build(InputStream response) {
+        if(response == null)
+            return null;
+        
+        Element pb = JDOMBuilder.buildElement(response);
+        if(pb != null){
+            return new RESTStructuredCoverageIndexSchema(pb);
+        } else {
+            return null;
+        }
+    }
     
     public int size() {
         return attributeList.size();
@@ -25,6 +25,7 @@
 package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import java.io.InputStream;
 import org.jdom.Element;
 
 /**
@@ -48,6 +49,19 @@ public class RESTStyle {
         }
     }
 
+    public static RESTStyle build(InputStream xml) {
+        if (xml == null) {
+            return null;
+        }
+
+        Element e = JDOMBuilder.buildElement(xml);
+        if (e != null) {
+            return new RESTStyle(e);
+        } else {
+            return null;
+        }
+    }
+
     protected RESTStyle(Element elem) {
         this.elem = elem;
     }
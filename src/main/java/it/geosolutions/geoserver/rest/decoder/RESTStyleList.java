@@ -28,6 +28,8 @@ package it.geosolutions.geoserver.rest.decoder;
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 
+import java.io.InputStream;
+
 import org.jdom.Element;
 
 /**
@@ -59,6 +61,11 @@ public class RESTStyleList extends RESTAbstractList<NameLinkElem> {
         return elem == null? null : new RESTStyleList(elem);
 	}
 
+    public static RESTStyleList build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null? null : new RESTStyleList(elem);
+    }
+
     protected RESTStyleList(Element list) {
         super(list);
     }
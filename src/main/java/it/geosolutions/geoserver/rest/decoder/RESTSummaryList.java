@@ -0,0 +1,180 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.utils.StAXBuilder;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Immutable list of summary data, decoded in a single pass with StAX.
+ * <P>
+ * This is a lightweight alternative to the {@link RESTAbstractList} subclasses
+ * (and to {@link RESTWorkspaceList} and {@link RESTNamespaceList}), which keep
+ * the whole JDOM tree alive: only names and links are retained, and
+ * {@link #get(int)} does not allocate.
+ *
+ * <P>This is the XML REST representation:
+ * <PRE>
+  {@code
+<ELEMENTs>
+      <ELEMENT>
+        <name>elem1</name>
+        <atom:link xmlns:atom="http://www.w3.org/2005/Atom" rel="alternate" href="url1" type="application/xml"/>
+      </ELEMENT>
+      <ELEMENT>
+        <name>elem2</name>
+        <atom:link xmlns:atom="http://www.w3.org/2005/Atom" rel="alternate" href="url2" type="application/xml"/>
+      </ELEMENT>
+</ELEMENTs>
+}</PRE>
+ */
+public class RESTSummaryList implements Iterable<RESTSummaryList.RESTSummary> {
+
+    private static final StAXBuilder.Handler<RESTSummaryList> HANDLER = new StAXBuilder.Handler<RESTSummaryList>() {
+        public RESTSummaryList parse(XMLStreamReader reader) throws XMLStreamException {
+            return new RESTSummaryList(reader);
+        }
+    };
+
+    private final RESTSummary[] items;
+
+    private final List<String> names;
+
+    public static RESTSummaryList build(String response) {
+        return StAXBuilder.build(response, HANDLER);
+    }
+
+    public static RESTSummaryList build(InputStream response) {
+        return StAXBuilder.build(response, HANDLER);
+    }
+
+    /**
+     * @param reader a reader positioned on the start tag of the list, left on its end tag
+     */
+    protected RESTSummaryList(XMLStreamReader reader) throws XMLStreamException {
+        List<RESTSummary> tmpList = new ArrayList<RESTSummary>();
+        String baseName = null;
+        while (StAXBuilder.nextChild(reader)) {
+            if (baseName == null)
+                baseName = reader.getLocalName();
+            else if (!baseName.equals(reader.getLocalName()))
+                throw new RuntimeException("List elements mismatching (" + baseName + ","
+                        + reader.getLocalName() + ")");
+            tmpList.add(RESTSummary.parse(reader));
+        }
+        items = tmpList.toArray(new RESTSummary[tmpList.size()]);
+        String[] tmpNames = new String[items.length];
+        for (int i = 0; i < items.length; i++) {
+            tmpNames[i] = items[i].getName();
+        }
+        names = Collections.unmodifiableList(Arrays.asList(tmpNames));
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public boolean isEmpty() {
+        return items.length == 0;
+    }
+
+    public RESTSummary get(int index) {
+        return items[index];
+    }
+
+    public Iterator<RESTSummary> iterator() {
+        return Collections.unmodifiableList(Arrays.asList(items)).iterator();
+    }
+
+    /**
+     * @return the unmodifiable list of the names
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        return "RESTSummaryList " + names;
+    }
+
+    /**
+     * Name and link of a list item.
+     */
+    public static final class RESTSummary {
+
+        private final String name;
+
+        private final String href;
+
+        public RESTSummary(String name, String href) {
+            this.name = name;
+            this.href = href;
+        }
+
+        /**
+         * @param reader a reader positioned on the start tag of the item, left on its end tag
+         */
+        static RESTSummary parse(XMLStreamReader reader) throws XMLStreamException {
+            String name = null;
+            String href = null;
+            while (StAXBuilder.nextChild(reader)) {
+                if ("name".equals(reader.getLocalName())) {
+                    name = StAXBuilder.readText(reader);
+                } else {
+                    if ("link".equals(reader.getLocalName()))
+                        href = reader.getAttributeValue(null, "href");
+                    StAXBuilder.skipElement(reader);
+                }
+            }
+            return new RESTSummary(name, href);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the URL of the full representation, may be null
+         */
+        public String getHref() {
+            return href;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
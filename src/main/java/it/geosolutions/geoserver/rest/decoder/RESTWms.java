@@ -26,6 +26,7 @@ package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -94,6 +95,11 @@ public class RESTWms extends RESTResource {
         return elem == null? null : new RESTWms(elem);
 	}
 
+    public static RESTWms build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null? null : new RESTWms(elem);
+    }
+
 	public RESTWms(Element resource) {
 		super(resource);
 	}
@@ -28,6 +28,8 @@ package it.geosolutions.geoserver.rest.decoder;
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 
+import java.io.InputStream;
+
 import org.jdom.Element;
 
 /**
@@ -52,6 +54,11 @@ public class RESTWmsList extends RESTAbstractList<NameLinkElem> {
         return elem == null? null : new RESTWmsList(elem);
 	}
 
+    public static RESTWmsList build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null? null : new RESTWmsList(elem);
+    }
+
     protected RESTWmsList(Element list) {
         super(list);
     }
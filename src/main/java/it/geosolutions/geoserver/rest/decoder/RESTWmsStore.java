@@ -26,7 +26,13 @@
 package it.geosolutions.geoserver.rest.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import it.geosolutions.geoserver.rest.decoder.utils.JSONBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+import org.apache.commons.io.IOUtils;
 import org.jdom.Element;
 
 /**
@@ -86,6 +92,30 @@ public class RESTWmsStore {
             return null;
     }
 
+    public static RESTWmsStore build(InputStream response) {
+        if(response == null)
+            return null;
+        final PushbackInputStream stream = new PushbackInputStream(response);
+        try {
+            final int first = stream.read();
+            if(first == -1) {
+                IOUtils.closeQuietly(stream);
+                return new RESTWmsStore(new Element("wmsStore")); // TODO check how to response
+            }
+            stream.unread(first);
+        } catch (IOException ex) {
+            IOUtils.closeQuietly(stream);
+            return null;
+        }
+
+        Element pb = JDOMBuilder.buildElement(JSONBuilder.isJSON(response) ? JSONBuilder.wrap(stream)
+                : stream);
+        if(pb != null)
+            return new RESTWmsStore(pb);
+        else
+            return null;
+    }
+
     public String getName() {
         return cs.getChildText("name");
     }
@@ -28,6 +28,8 @@ package it.geosolutions.geoserver.rest.decoder;
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 
+import java.io.InputStream;
+
 import org.jdom.Element;
 
 /**
@@ -53,6 +55,11 @@ public class RESTWmsStoreList extends RESTAbstractList<NameLinkElem> {
         return elem == null? null : new RESTWmsStoreList(elem);
 	}
 
+    public static RESTWmsStoreList build(InputStream response) {
+        Element elem = JDOMBuilder.buildElement(response);
+        return elem == null? null : new RESTWmsStoreList(elem);
+    }
+
     protected RESTWmsStoreList(Element list) {
         super(list);
     }
@@ -28,10 +28,7 @@ package it.geosolutions.geoserver.rest.decoder;
 import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
+import java.io.InputStream;
 
 import org.jdom.Element;
 
@@ -41,9 +38,7 @@ import org.jdom.Element;
 
  * @author ETj (etj at geo-solutions.it)
  */
-public class RESTWorkspaceList implements Iterable<RESTWorkspaceList.RESTShortWorkspace> {
-
-    private final List<Element> wsList;
+public class RESTWorkspaceList extends RESTAbstractList<RESTWorkspaceList.RESTShortWorkspace> {
 
     public static RESTWorkspaceList build(String response) {
         if(response == null)
@@ -56,51 +51,24 @@ public class RESTWorkspaceList implements Iterable<RESTWorkspaceList.RESTShortWo
             return null;
 	}
 
-    protected RESTWorkspaceList(Element wslistroot) {
-        List<Element> tmpList = new ArrayList<Element>();
-        for (Element wselem : (List<Element>) wslistroot.getChildren("workspace")) {
-            tmpList.add(wselem);
-        }
-
-        wsList = Collections.unmodifiableList(tmpList);
-    }
-
-    public int size() {
-        return wsList.size();
-    }
-
-    public boolean isEmpty() {
-        return wsList.isEmpty();
-    }
+    public static RESTWorkspaceList build(InputStream response) {
+        if(response == null)
+            return null;
 
-    public RESTShortWorkspace get(int index) {
-        return new RESTShortWorkspace(wsList.get(index));
+        Element elem = JDOMBuilder.buildElement(response);
+        if(elem != null)
+            return new RESTWorkspaceList(elem);
+        else
+            return null;
     }
 
-    public Iterator<RESTShortWorkspace> iterator() {
-        return new RESTWSListIterator(wsList);
+    protected RESTWorkspaceList(Element wslistroot) {
+        super(wslistroot);
     }
 
-
-    private static class RESTWSListIterator implements Iterator<RESTShortWorkspace> {
-
-        private final Iterator<Element> iter;
-
-        public RESTWSListIterator(List<Element> orig) {
-            iter = orig.iterator();
-        }        
-
-        public boolean hasNext() {
-            return iter.hasNext();
-        }
-
-        public RESTShortWorkspace next() {
-            return new RESTShortWorkspace(iter.next());
-        }
-
-        public void remove() {
-            throw new UnsupportedOperationException("Not supported.");
-        }
+    @Override
+    protected RESTShortWorkspace createElement(Element el) {
+        return new RESTShortWorkspace(el);
     }
 
     /**
@@ -29,6 +29,8 @@ import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
 import it.geosolutions.geoserver.rest.encoder.utils.ElementUtils;
 import it.geosolutions.geoserver.rest.encoder.utils.XmlElement;
 
+import java.io.InputStream;
+
 import org.jdom.Attribute;
 import org.jdom.Element;
 
@@ -104,7 +106,10 @@ public class GSVersionDecoder extends XmlElement {
      * @param document
      */
     public GSVersionDecoder(String document) {
-        Element root=JDOMBuilder.buildElement(document);
+        this(JDOMBuilder.buildElement(document));
+    }
+
+    private GSVersionDecoder(Element root) {
         if (root!=null){
             setRoot(root);
             geoserver = new GSAboutResource(ElementUtils.contains(this.getRoot(),
@@ -146,6 +151,10 @@ public class GSVersionDecoder extends XmlElement {
         return new GSVersionDecoder(response);
     }
 
+    public static GSVersionDecoder build(InputStream response) {
+        return new GSVersionDecoder(JDOMBuilder.buildElement(response));
+    }
+
     public enum VERSION {
         v22(22, "2\\.2([^0-9]|$).*"),
         v23(23, "2\\.3([^0-9]|$).*"),
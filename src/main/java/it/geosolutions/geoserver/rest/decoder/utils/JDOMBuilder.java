@@ -26,8 +26,11 @@
 package it.geosolutions.geoserver.rest.decoder.utils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 
+import org.apache.commons.io.IOUtils;
+
 import org.jdom.Document;
 import org.jdom.Element;
 import org.jdom.JDOMException;
@@ -36,6 +39,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Builds JDOM trees out of REST responses, reusing the parser of the current
+ * thread (see {@link XMLParsers}).
+ * <BR>
+ * Streams marked with {@link JSONBuilder#wrap(InputStream)} are turned into
+ * the tree of the equivalent XML representation by {@link JSONBuilder}.
  *
  * @author ETj (etj at geo-solutions.it)
  */
@@ -48,7 +56,7 @@ public class JDOMBuilder {
             return null;
 
         try{
-			SAXBuilder builder = new SAXBuilder();
+			SAXBuilder builder = XMLParsers.getSAXBuilder();
 			Document doc = builder.build(new StringReader(response));
 			return  doc.getRootElement();
 		} catch (JDOMException ex) {
@@ -60,4 +68,34 @@ public class JDOMBuilder {
 		return null;
     }
 
+    /**
+     * Parses the response straight from the stream, so that the document is
+     * never held in memory as a String.
+     * <BR>
+     * The stream is closed once parsed.
+     * 
+     * @param response the stream to read, may be null
+     * @return the root Element, or null if the response could not be parsed
+     */
+    public static Element buildElement(InputStream response) {
+        if(response == null)
+            return null;
+        if(JSONBuilder.isJSON(response))
+            return JSONBuilder.buildElement(response);
+
+        try{
+            SAXBuilder builder = XMLParsers.getSAXBuilder();
+            Document doc = builder.build(response);
+            return doc.getRootElement();
+        } catch (JDOMException ex) {
+            LOGGER.warn("Ex parsing response", ex);
+        } catch (IOException ex) {
+            LOGGER.warn("Ex loading response", ex);
+        } finally {
+            IOUtils.closeQuietly(response);
+        }
+
+        return null;
+    }
+
 }
@@ -0,0 +1,258 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import net.sf.json.JSONException;
+import net.sf.json.util.JSONTokener;
+
+import org.apache.commons.io.IOUtils;
+import org.jdom.Element;
+import org.jdom.IllegalNameException;
+import org.jdom.Namespace;
+import org.jdom.Verifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Turns the JSON representation of a REST resource into the JDOM tree of its
+ * XML representation, so that the same decoders can be used for both wire
+ * formats.
+ * <P>
+ * The JSON representations produced by GeoServer map to XML as follows:
+ * <UL>
+ * <LI>the single key of the outer object is the root element;</LI>
+ * <LI>a <code>"@name"</code> key is the <code>name</code> attribute of the enclosing element;</LI>
+ * <LI>a <code>"$"</code> key is the text of the enclosing element;</LI>
+ * <LI>an array is a sequence of elements with the same name;</LI>
+ * <LI><code>null</code> values are omitted;</LI>
+ * <LI>an <code>"href"</code> key is the <code>atom:link</code> of the enclosing element
+ * (it is kept as an <code>href</code> element as well).</LI>
+ * </UL>
+ * The document is lexed by the json-lib {@link JSONTokener} and read in a
+ * single pass, straight into the tree: building the json-lib objects first
+ * would make decoding several times slower than parsing the XML representation.
+ * <P>
+ * Streams are decoded as JSON by {@link JDOMBuilder#buildElement(InputStream)}
+ * only when marked with {@link #wrap(InputStream)}.
+ */
+public class JSONBuilder {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(JSONBuilder.class);
+
+    private static final Namespace ATOM = Namespace.getNamespace("atom", "http://www.w3.org/2005/Atom");
+
+    /**
+     * A stream holding a JSON representation.
+     */
+    private static final class JSONStream extends FilterInputStream {
+        private JSONStream(InputStream in) {
+            super(in);
+        }
+    }
+
+    /**
+     * Marks a stream as holding a JSON representation.
+     * 
+     * @param response the JSON representation, may be null
+     * @return the marked stream, or null if the response is null
+     */
+    public static InputStream wrap(InputStream response) {
+        return response == null ? null : new JSONStream(response);
+    }
+
+    /**
+     * @return true if the stream was marked by {@link #wrap(InputStream)}
+     */
+    public static boolean isJSON(InputStream response) {
+        return response instanceof JSONStream;
+    }
+
+    /**
+     * @param response the JSON representation, may be null
+     * @return the root Element of the equivalent XML representation, or null if
+     *         the response could not be parsed
+     */
+    public static Element buildElement(String response) {
+        if (response == null)
+            return null;
+
+        try {
+            final JSONTokener x = new JSONTokener(response);
+            if (x.nextClean() != '{')
+                throw x.syntaxError("A JSON object is expected");
+            final String name = nextKey(x);
+            final Element root = newElement(name);
+            if (root == null)
+                throw x.syntaxError("Invalid root element name: " + name);
+            fill(x, root);
+            if (x.nextClean() != '}')
+                throw x.syntaxError("A single root is expected");
+            return root;
+        } catch (JSONException ex) {
+            LOGGER.warn("Ex parsing response", ex);
+        }
+        return null;
+    }
+
+    /**
+     * The stream is closed once parsed.
+     * 
+     * @param response the JSON representation, encoded in UTF-8, may be null
+     * @return the root Element of the equivalent XML representation, or null if
+     *         the response could not be parsed
+     */
+    public static Element buildElement(InputStream response) {
+        if (response == null)
+            return null;
+
+        try {
+            return buildElement(IOUtils.toString(response, "UTF-8"));
+        } catch (IOException ex) {
+            LOGGER.warn("Ex loading response", ex);
+        } finally {
+            IOUtils.closeQuietly(response);
+        }
+        return null;
+    }
+
+    private static String nextKey(JSONTokener x) {
+        if (x.nextClean() != '"')
+            throw x.syntaxError("A quoted key is expected");
+        final String key = x.nextString('"');
+        if (x.nextClean() != ':')
+            throw x.syntaxError("Expected ':' after the key " + key);
+        return key;
+    }
+
+    /**
+     * Reads the value of an element: its members if it is an object, its text otherwise.
+     */
+    private static void fill(JSONTokener x, Element element) {
+        if (x.nextClean() == '{') {
+            parseMembers(x, element);
+        } else {
+            x.back();
+            final String text = parseScalar(x);
+            if (text != null)
+                element.setText(text);
+        }
+    }
+
+    /**
+     * @param x a tokener positioned after the opening brace, left after the closing one
+     */
+    private static void parseMembers(JSONTokener x, Element element) {
+        if (x.nextClean() == '}')
+            return;
+        x.back();
+        while (true) {
+            parseValue(x, element, nextKey(x));
+            final char c = x.nextClean();
+            if (c == '}')
+                return;
+            if (c != ',')
+                throw x.syntaxError("Expected ',' or '}'");
+        }
+    }
+
+    private static void parseValue(JSONTokener x, Element parent, String key) {
+        final char c = x.nextClean();
+        if (c == '[') {
+            if (x.nextClean() == ']')
+                return;
+            x.back();
+            while (true) {
+                parseValue(x, parent, key);
+                final char d = x.nextClean();
+                if (d == ']')
+                    return;
+                if (d != ',')
+                    throw x.syntaxError("Expected ',' or ']'");
+            }
+        } else if (c == '{') {
+            Element child = key.startsWith("@") || "$".equals(key) ? null : newElement(key);
+            if (child == null) {
+                // not representable in XML, parse and discard
+                parseMembers(x, new Element("skipped"));
+            } else {
+                parseMembers(x, child);
+                parent.addContent(child);
+            }
+        } else {
+            x.back();
+            final String text = parseScalar(x);
+            if (text != null)
+                add(parent, key, text);
+        }
+    }
+
+    /**
+     * @return the text of a string, number or boolean, null for <code>null</code>
+     */
+    private static String parseScalar(JSONTokener x) {
+        if (x.nextClean() == '"')
+            return x.nextString('"');
+        x.back();
+        final String literal = x.nextTo(",}]");
+        if (literal.length() == 0)
+            throw x.syntaxError("A value is expected");
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private static void add(Element parent, String key, String text) {
+        if (key.startsWith("@")) {
+            final String name = key.substring(1);
+            if (Verifier.checkAttributeName(name) == null)
+                parent.setAttribute(name, text);
+        } else if ("$".equals(key)) {
+            parent.addContent(text);
+        } else {
+            final Element child = newElement(key);
+            if (child == null)
+                return;
+            parent.addContent(child.setText(text));
+            if ("href".equals(key) && parent.getChild("link", ATOM) == null) {
+                final Element link = new Element("link", ATOM);
+                link.setAttribute("rel", "alternate");
+                link.setAttribute("href", text);
+                link.setAttribute("type", "application/xml");
+                parent.addContent(link);
+            }
+        }
+    }
+
+    private static Element newElement(String name) {
+        try {
+            return new Element(name);
+        } catch (IllegalNameException e) {
+            LOGGER.trace("Skipping JSON key " + name);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only R-tree, bulk loaded with the Sort-Tile-Recursive algorithm.
+ * <P>
+ * Items are boxes packed 4 by 4 into a <code>double</code> array as
+ * <code>minx, miny, maxx, maxy</code>, and are identified by their position in
+ * that array. The tree is immutable, so it can be queried by any number of
+ * threads.
+ * 
+ * @see it.geosolutions.geoserver.rest.decoder.RESTLayerEnvelopes
+ */
+public final class STRtree {
+
+    public static final int DEFAULT_NODE_CAPACITY = 16;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final int size;
+
+    /** The bounds of the entries of each level: the items first, the root last. */
+    private final double[][] bounds;
+
+    /**
+     * For the items, their ids; for the nodes, the range of their children in
+     * the level below, as <code>start, end</code> pairs.
+     */
+    private final int[][] children;
+
+    /**
+     * @see #STRtree(double[], int, int)
+     */
+    public STRtree(double[] coords, int size) {
+        this(coords, size, DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * @param coords the packed boxes; they are copied
+     * @param size the number of boxes
+     * @param nodeCapacity the max number of children of each node
+     * @throws IllegalArgumentException if the arguments are not consistent
+     */
+    public STRtree(double[] coords, int size, int nodeCapacity) throws IllegalArgumentException {
+        if (coords == null || size < 0 || coords.length < 4 * size)
+            throw new IllegalArgumentException("Unable to build the tree: " + size + " boxes expected");
+        if (nodeCapacity < 2)
+            throw new IllegalArgumentException("The node capacity should be at least 2");
+        this.size = size;
+
+        List<double[]> levelBounds = new ArrayList<double[]>();
+        List<int[]> levelChildren = new ArrayList<int[]>();
+
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+        int[] order = order(coords, size, nodeCapacity);
+        levelBounds.add(permute(coords, order, 4));
+        levelChildren.add(permute(ids, order, 1));
+
+        int count = size;
+        while (count > 1) {
+            final double[] below = levelBounds.get(levelBounds.size() - 1);
+            final int parents = (count + nodeCapacity - 1) / nodeCapacity;
+            double[] parentBounds = new double[4 * parents];
+            int[] parentChildren = new int[2 * parents];
+            for (int p = 0; p < parents; p++) {
+                final int start = p * nodeCapacity;
+                final int end = Math.min(start + nodeCapacity, count);
+                double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+                for (int c = start; c < end; c++) {
+                    minX = Math.min(minX, below[4 * c]);
+                    minY = Math.min(minY, below[4 * c + 1]);
+                    maxX = Math.max(maxX, below[4 * c + 2]);
+                    maxY = Math.max(maxY, below[4 * c + 3]);
+                }
+                parentBounds[4 * p] = minX;
+                parentBounds[4 * p + 1] = minY;
+                parentBounds[4 * p + 2] = maxX;
+                parentBounds[4 * p + 3] = maxY;
+                parentChildren[2 * p] = start;
+                parentChildren[2 * p + 1] = end;
+            }
+            order = order(parentBounds, parents, nodeCapacity);
+            levelBounds.add(permute(parentBounds, order, 4));
+            levelChildren.add(permute(parentChildren, order, 2));
+            count = parents;
+        }
+
+        this.bounds = levelBounds.toArray(new double[levelBounds.size()][]);
+        this.children = levelChildren.toArray(new int[levelChildren.size()][]);
+    }
+
+    /**
+     * @return the number of items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of levels, items included
+     */
+    public int getDepth() {
+        return size == 0 ? 0 : bounds.length;
+    }
+
+    /**
+     * @return the ids of the items intersecting the box, in no particular order
+     */
+    public int[] query(double minX, double minY, double maxX, double maxY) {
+        if (size == 0)
+            return new int[0];
+        int[] result = new int[16];
+        int found = 0;
+        // pairs of level, position
+        int[] stack = new int[2 * 64];
+        int top = 0;
+        stack[top++] = bounds.length - 1;
+        stack[top++] = 0;
+        while (top > 0) {
+            final int pos = stack[--top];
+            final int level = stack[--top];
+            final double[] b = bounds[level];
+            if (b[4 * pos] > maxX || b[4 * pos + 2] < minX || b[4 * pos + 1] > maxY
+                    || b[4 * pos + 3] < minY)
+                continue;
+            if (level == 0) {
+                if (found == result.length)
+                    result = Arrays.copyOf(result, 2 * found);
+                result[found++] = children[0][pos];
+                continue;
+            }
+            final int start = children[level][2 * pos];
+            final int end = children[level][2 * pos + 1];
+            if (top + 2 * (end - start) > stack.length)
+                stack = Arrays.copyOf(stack, 2 * stack.length + 2 * (end - start));
+            for (int c = start; c < end; c++) {
+                stack[top++] = level - 1;
+                stack[top++] = c;
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * @return the ids of the items containing the point, in no particular order
+     */
+    public int[] query(double x, double y) {
+        return query(x, y, x, y);
+    }
+
+    /**
+     * Sorts the boxes by x, cuts them into vertical slices and sorts each slice
+     * by y.
+     * 
+     * @return the positions of the boxes, in packing order
+     */
+    private static int[] order(double[] coords, int count, int nodeCapacity) {
+        int[] order = new int[count];
+        double[] centerX = new double[count];
+        double[] centerY = new double[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            centerX[i] = coords[4 * i] + coords[4 * i + 2];
+            centerY[i] = coords[4 * i + 1] + coords[4 * i + 3];
+        }
+        if (count <= nodeCapacity)
+            return order;
+        final int nodes = (count + nodeCapacity - 1) / nodeCapacity;
+        final int sliceSize = (int) Math.ceil(Math.sqrt(nodes)) * nodeCapacity;
+        sort(order, centerX, 0, count);
+        for (int start = 0; start < count; start += sliceSize) {
+            sort(order, centerY, start, Math.min(start + sliceSize, count));
+        }
+        return order;
+    }
+
+    private static double[] permute(double[] values, int[] order, int stride) {
+        double[] result = new double[order.length * stride];
+        for (int i = 0; i < order.length; i++) {
+            System.arraycopy(values, order[i] * stride, result, i * stride, stride);
+        }
+        return result;
+    }
+
+    private static int[] permute(int[] values, int[] order, int stride) {
+        int[] result = new int[order.length * stride];
+        for (int i = 0; i < order.length; i++) {
+            System.arraycopy(values, order[i] * stride, result, i * stride, stride);
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the range of indexes by their key: three-way quicksort, so that
+     * many equal keys do not degrade it.
+     */
+    private static void sort(int[] idx, double[] key, int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            final double pivot = median(key[idx[from]], key[idx[(from + to) >>> 1]], key[idx[to - 1]]);
+            int lt = from, i = from, gt = to;
+            while (i < gt) {
+                final double k = key[idx[i]];
+                if (k < pivot) {
+                    swap(idx, lt++, i++);
+                } else if (k > pivot) {
+                    swap(idx, i, --gt);
+                } else {
+                    i++;
+                }
+            }
+            // recurse on the smaller part
+            if (lt - from < to - gt) {
+                sort(idx, key, from, lt);
+                from = gt;
+            } else {
+                sort(idx, key, gt, to);
+                to = lt;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            final int v = idx[i];
+            int j = i - 1;
+            while (j >= from && key[idx[j]] > key[v]) {
+                idx[j + 1] = idx[j];
+                j--;
+            }
+            idx[j + 1] = v;
+        }
+    }
+
+    private static double median(double a, double b, double c) {
+        if (a < b)
+            return b < c ? b : (a < c ? c : a);
+        return a < c ? a : (b < c ? c : b);
+    }
+
+    private static void swap(int[] idx, int a, int b) {
+        final int t = idx[a];
+        idx[a] = idx[b];
+        idx[b] = t;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import java.io.InputStream;
+import java.io.StringReader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pull parsing counterpart of {@link JDOMBuilder}: responses are decoded in a
+ * single pass with StAX, without building a document tree.
+ */
+public class StAXBuilder {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(StAXBuilder.class);
+
+    private static final XMLInputFactory FACTORY;
+    static {
+        FACTORY = XMLInputFactory.newInstance();
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    /**
+     * Decodes a document, starting from its root element.
+     */
+    public interface Handler<T> {
+
+        /**
+         * @param reader the reader, positioned on the start tag of the root element
+         * @return the decoded object
+         */
+        T parse(XMLStreamReader reader) throws XMLStreamException;
+    }
+
+    /**
+     * @return a reader on the given stream, which is not closed by the reader itself
+     */
+    public static XMLStreamReader createReader(InputStream response) throws XMLStreamException {
+        return FACTORY.createXMLStreamReader(response);
+    }
+
+    public static <T> T build(String response, Handler<T> handler) {
+        if (response == null)
+            return null;
+
+        try {
+            return parse(FACTORY.createXMLStreamReader(new StringReader(response)), handler);
+        } catch (XMLStreamException ex) {
+            LOGGER.warn("Ex parsing response", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Parses the response straight from the stream.
+     * <BR>
+     * The stream is closed once parsed.
+     * 
+     * @param response the stream to read, may be null
+     * @return the decoded object, or null if the response could not be parsed
+     */
+    public static <T> T build(InputStream response, Handler<T> handler) {
+        if (response == null)
+            return null;
+
+        try {
+            return parse(FACTORY.createXMLStreamReader(response), handler);
+        } catch (XMLStreamException ex) {
+            LOGGER.warn("Ex parsing response", ex);
+        } finally {
+            IOUtils.closeQuietly(response);
+        }
+        return null;
+    }
+
+    private static <T> T parse(XMLStreamReader reader, Handler<T> handler) throws XMLStreamException {
+        try {
+            reader.nextTag();
+            return handler.parse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Moves to the start tag of the next child of the current element.
+     * 
+     * @param reader a reader positioned on the start tag of the parent, or on
+     *        the end tag of its previous child
+     * @return true if positioned on a child, false if the end tag of the parent was reached
+     */
+    public static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                return true;
+            case XMLStreamConstants.END_ELEMENT:
+                return false;
+            default:
+                break;
+            }
+        }
+        throw new XMLStreamException("Unexpected end of document");
+    }
+
+    /**
+     * Skips the current element and all of its content.
+     * 
+     * @param reader a reader positioned on a start tag, left on the matching end tag
+     */
+    public static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                throw new XMLStreamException("Unexpected end of document");
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return the trimmed text of a text-only element
+     */
+    public static String readText(XMLStreamReader reader) throws XMLStreamException {
+        return reader.getElementText().trim();
+    }
+
+    /**
+     * Collects the text of an element, including the one of its descendants,
+     * as {@link org.jdom.Element#getValue()} does.
+     * 
+     * @param reader a reader positioned on a start tag, left on the matching end tag
+     * @return the untrimmed text
+     */
+    public static String readValue(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder value = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+                value.append(reader.getText());
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                throw new XMLStreamException("Unexpected end of document");
+            default:
+                break;
+            }
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.jdom.input.SAXBuilder;
+
+/**
+ * Per-thread cache of XML parsers and compiled XPath expressions.
+ * <P>
+ * Looking up the parser factories and creating parsers is far more expensive
+ * than parsing the small documents returned by the REST API, while parsers
+ * and expressions are not thread-safe: each thread gets its own instances,
+ * which are reused across calls. The returned objects must not be shared with
+ * other threads, nor used re-entrantly.
+ */
+public class XMLParsers {
+
+    private static final ThreadLocal<SAXBuilder> SAX_BUILDER = new ThreadLocal<SAXBuilder>() {
+        @Override
+        protected SAXBuilder initialValue() {
+            SAXBuilder builder = new SAXBuilder();
+            builder.setReuseParser(true);
+            return builder;
+        }
+    };
+
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<DocumentBuilder>() {
+        @Override
+        protected DocumentBuilder initialValue() {
+            try {
+                return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("Unable to create a DOM parser", e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<Map<String, XPathExpression>> XPATH = new ThreadLocal<Map<String, XPathExpression>>() {
+        @Override
+        protected Map<String, XPathExpression> initialValue() {
+            return new HashMap<String, XPathExpression>();
+        }
+    };
+
+    private XMLParsers() {
+    }
+
+    /**
+     * @return the JDOM builder of the current thread
+     */
+    public static SAXBuilder getSAXBuilder() {
+        return SAX_BUILDER.get();
+    }
+
+    /**
+     * @return the (non namespace aware) DOM parser of the current thread, reset to its initial state
+     * @throws IllegalStateException if no DOM parser is available
+     */
+    public static DocumentBuilder getDocumentBuilder() {
+        DocumentBuilder builder = DOCUMENT_BUILDER.get();
+        builder.reset();
+        return builder;
+    }
+
+    /**
+     * @param expression the XPath expression
+     * @return the compiled expression, cached for the current thread
+     * @throws XPathExpressionException if the expression cannot be compiled
+     */
+    public static XPathExpression getXPath(String expression) throws XPathExpressionException {
+        Map<String, XPathExpression> cache = XPATH.get();
+        XPathExpression compiled = cache.get(expression);
+        if (compiled == null) {
+            compiled = XPathFactory.newInstance().newXPath().compile(expression);
+            cache.put(expression, compiled);
+        }
+        return compiled;
+    }
+}
@@ -27,6 +27,12 @@ package it.geosolutions.geoserver.rest.encoder;
 
 import it.geosolutions.geoserver.rest.encoder.utils.PropertyXMLEncoder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.jdom.Element;
 
 /**
@@ -81,6 +87,21 @@ public class GSLayerGroupEncoder extends PropertyXMLEncoder {
                 elem("crs", "class", "projected").setText(crs));
     }
     
+    /**
+     * @return the names of the layers and layer groups added so far, in order
+     */
+    public List<String> getPublishedNames() {
+        final List<String> names = new ArrayList<String>();
+        if (publishablesElem != null) {
+            for (Object child : publishablesElem.getChildren()) {
+                final String name = ((Element) child).getChildText("name");
+                if (name != null)
+                    names.add(name);
+            }
+        }
+        return names;
+    }
+
     protected void initPublishables(String publishablesTag) {
         if (publishablesElem == null) {
             publishablesElem = new Element(publishablesTag);
@@ -93,7 +114,7 @@ public class GSLayerGroupEncoder extends PropertyXMLEncoder {
     
     protected void addToRoot(Element ... elements) {
         for (Element e : elements) {
-            if (e != null) {
+            if (e != null && e.getParent() == null) {
                 getRoot().addContent(e);
             }
         }
@@ -115,9 +136,28 @@ public class GSLayerGroupEncoder extends PropertyXMLEncoder {
         return parent;
     }    
     
+    /**
+     * Adds the elements set so far to the root, before it is written.
+     */
+    protected void complete() {
+        addToRoot(nameElem, workspaceElem, boundsElem, publishablesElem, stylesElem);
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        complete();
+        super.writeTo(out);
+    }
+
+    @Override
+    public void writeTo(Writer out) throws IOException {
+        complete();
+        super.writeTo(out);
+    }
+
     @Override
     public String toString() {
-        addToRoot(nameElem, workspaceElem, boundsElem, publishablesElem, stylesElem);        
+        complete();
         return super.toString();
     }    
 }
\ No newline at end of file
@@ -103,8 +103,8 @@ public class GSLayerGroupEncoder23 extends GSLayerGroupEncoder {
     }
     
     @Override
-    public String toString() {
-        addToRoot(titleElem, abstractElem, modeElem, rootLayerElem, rootLayerStyleElem);                
-        return super.toString();
+    protected void complete() {
+        addToRoot(titleElem, abstractElem, modeElem, rootLayerElem, rootLayerStyleElem);
+        super.complete();
     } 
 }
\ No newline at end of file
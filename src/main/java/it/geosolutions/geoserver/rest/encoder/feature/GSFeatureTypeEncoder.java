@@ -29,6 +29,7 @@ import it.geosolutions.geoserver.rest.encoder.GSResourceEncoder;
 import it.geosolutions.geoserver.rest.encoder.metadata.GSDimensionInfoEncoder;
 import it.geosolutions.geoserver.rest.encoder.metadata.GSFeatureDimensionInfoEncoder;
 import it.geosolutions.geoserver.rest.encoder.metadata.virtualtable.GSVirtualTableEncoder;
+import it.geosolutions.geoserver.rest.encoder.utils.ElementIndex;
 
 import org.jdom.Element;
 
@@ -45,6 +46,18 @@ public class GSFeatureTypeEncoder extends GSResourceEncoder {
 
     final private Element attributes = new Element(ATTRIBUTES);
 
+    /**
+     * The attributes by name, so that setting an attribute does not scan the
+     * list; an attribute may be named or renamed after it is added.
+     */
+    final private ElementIndex attributesByName = new ElementIndex(attributes,
+            new ElementIndex.Key() {
+                public String keyOf(Element child) {
+                    final Element name = child.getChild(FeatureTypeAttribute.name.toString());
+                    return name != null ? name.getTextTrim() : null;
+                }
+            }, true);
+
     public GSFeatureTypeEncoder() {
         this(true);
     }
@@ -123,10 +136,14 @@ public class GSFeatureTypeEncoder extends GSResourceEncoder {
      * @return true if something is removed, false otherwise
      */
     public boolean delAttribute(final String keyword) {
-        final Element el = new Element("string");
-        el.setText(keyword);
-        return (attributes.removeContent(GSAttributeEncoder.getFilterByName(keyword))).size() == 0 ? false
-                : true;
+        boolean removed = false;
+        Element el;
+        while ((el = attributesByName.get(keyword)) != null) {
+            attributes.removeContent(el);
+            attributesByName.removed(el);
+            removed = true;
+        }
+        return removed;
     }
 
     /**
@@ -134,6 +151,7 @@ public class GSFeatureTypeEncoder extends GSResourceEncoder {
      */
     protected void addAttribute(GSAttributeEncoder attribute) {
         attributes.addContent(attribute.getRoot());
+        attributesByName.added(attribute.getRoot());
     }
 
     /**
@@ -0,0 +1,232 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.encoder.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jdom.Attribute;
+import org.jdom.Element;
+
+/**
+ * Compares the element built by an encoder (the desired state) with the
+ * representation of the same item returned by GeoServer (the current state).
+ * <P>
+ * The desired element is a partial description: the current one matches when
+ * it contains everything the desired one specifies, whatever else it
+ * contains. In particular:
+ * <UL>
+ * <LI>an empty desired element (no text, children nor attributes) leaves the
+ * value unspecified, as the encoders create empty lists in advance;</LI>
+ * <LI>texts are compared trimmed, numbers by value and booleans ignoring the
+ * case;</LI>
+ * <LI>a desired text matches a current reference whose <TT>name</TT> (possibly
+ * qualified by its <TT>workspace</TT>) is that text, such as the default style
+ * of a layer;</LI>
+ * <LI>repeated children carrying a <TT>key</TT> attribute, such as metadata
+ * entries and connection parameters, are matched by key, the others by
+ * position, and their number must be the same;</LI>
+ * <LI>the children and the keyed entries given as ignored are skipped, i.e.
+ * write-only values such as passwords, which GeoServer returns encrypted.</LI>
+ * </UL>
+ */
+public abstract class ElementDiff {
+
+    private static final String KEY = "key";
+
+    /**
+     * @param desired the element built by the encoder
+     * @param current the element returned by GeoServer
+     * @return the paths of the desired elements not matched by the current
+     *         ones, empty if the current element already matches
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static List<String> diff(final Element desired, final Element current)
+            throws IllegalArgumentException {
+        return diff(desired, current, Collections.<String> emptySet());
+    }
+
+    /**
+     * @param desired the element built by the encoder
+     * @param current the element returned by GeoServer
+     * @param ignored the names of the children and the keys of the entries
+     *        which are not compared
+     * @return the paths of the desired elements not matched by the current
+     *         ones, empty if the current element already matches
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static List<String> diff(final Element desired, final Element current,
+            final Set<String> ignored) throws IllegalArgumentException {
+        if (desired == null || current == null || ignored == null) {
+            throw new IllegalArgumentException("Null argument");
+        }
+        final List<String> differences = new ArrayList<String>();
+        diff(desired, current, desired.getName(), ignored, differences);
+        return differences;
+    }
+
+    /**
+     * @return true if the current element matches the desired one
+     */
+    public static boolean matches(final Element desired, final Element current) {
+        return diff(desired, current).isEmpty();
+    }
+
+    private static void diff(final Element desired, final Element current, final String path,
+            final Set<String> ignored, final List<String> differences) {
+        for (Object a : desired.getAttributes()) {
+            final Attribute attribute = (Attribute) a;
+            if (!equalValues(attribute.getValue(), current.getAttributeValue(attribute.getName(),
+                    attribute.getNamespace()))) {
+                differences.add(path + "@" + attribute.getName());
+                return;
+            }
+        }
+
+        final List<?> children = desired.getChildren();
+        if (children.isEmpty()) {
+            final String text = desired.getTextTrim();
+            if (text.length() > 0 && !matchesText(text, current))
+                differences.add(path);
+            return;
+        }
+
+        // children by name, in order
+        final Map<String, List<Element>> byName = new LinkedHashMap<String, List<Element>>();
+        for (Object c : children) {
+            final Element child = (Element) c;
+            if (ignored.contains(child.getName()))
+                continue;
+            List<Element> named = byName.get(child.getName());
+            if (named == null) {
+                named = new ArrayList<Element>(1);
+                byName.put(child.getName(), named);
+            }
+            named.add(child);
+        }
+
+        for (Map.Entry<String, List<Element>> entry : byName.entrySet()) {
+            final String name = entry.getKey();
+            final List<Element> wanted = entry.getValue();
+            final List<?> found = current.getChildren(name, wanted.get(0).getNamespace());
+            final String childPath = path + "/" + name;
+            if (wanted.size() == 1 && found.size() <= 1) {
+                final Element child = wanted.get(0);
+                if (found.isEmpty()) {
+                    if (!isUnspecified(child))
+                        differences.add(childPath);
+                } else {
+                    diff(child, (Element) found.get(0), childPath, ignored, differences);
+                }
+            } else if (wanted.get(0).getAttribute(KEY) != null) {
+                diffByKey(wanted, found, childPath, ignored, differences);
+            } else if (wanted.size() != found.size()) {
+                differences.add(childPath);
+            } else {
+                for (int i = 0; i < wanted.size(); i++) {
+                    diff(wanted.get(i), (Element) found.get(i), childPath + "[" + (i + 1) + "]",
+                            ignored, differences);
+                }
+            }
+        }
+    }
+
+    private static void diffByKey(final List<Element> wanted, final List<?> found,
+            final String path, final Set<String> ignored, final List<String> differences) {
+        final Map<String, Element> byKey = new LinkedHashMap<String, Element>();
+        for (Object f : found) {
+            final Element child = (Element) f;
+            final String key = child.getAttributeValue(KEY);
+            if (key != null && !byKey.containsKey(key))
+                byKey.put(key, child);
+        }
+        for (Element child : wanted) {
+            final String key = child.getAttributeValue(KEY);
+            if (key != null && ignored.contains(key))
+                continue;
+            final String keyPath = path + "[@" + KEY + "='" + key + "']";
+            final Element match = key == null ? null : byKey.get(key);
+            if (match == null) {
+                if (!isUnspecified(child) || key == null)
+                    differences.add(keyPath);
+            } else {
+                diff(child, match, keyPath, ignored, differences);
+            }
+        }
+    }
+
+    /**
+     * @return true if the element has no text, children nor attributes
+     */
+    private static boolean isUnspecified(final Element element) {
+        return element.getChildren().isEmpty() && element.getAttributes().isEmpty()
+                && element.getTextTrim().length() == 0;
+    }
+
+    private static boolean matchesText(final String text, final Element current) {
+        if (current.getChildren().isEmpty())
+            return equalValues(text, current.getTextTrim());
+        // a reference to a named item
+        final String name = current.getChildTextTrim("name");
+        if (name == null)
+            return false;
+        final String workspace = current.getChildTextTrim("workspace");
+        return text.equals(name) || (workspace != null && text.equals(workspace + ":" + name));
+    }
+
+    private static boolean equalValues(final String desired, final String current) {
+        if (current == null)
+            return desired == null;
+        if (desired == null)
+            return false;
+        final String d = desired.trim();
+        final String c = current.trim();
+        if (d.equals(c) || (isBoolean(d) && d.equalsIgnoreCase(c)))
+            return true;
+        return isNumber(d) && isNumber(c) && Double.parseDouble(d) == Double.parseDouble(c);
+    }
+
+    private static boolean isBoolean(final String value) {
+        return "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value);
+    }
+
+    private static boolean isNumber(final String value) {
+        if (value.length() == 0)
+            return false;
+        final char first = value.charAt(0);
+        if (first != '-' && first != '+' && first != '.' && (first < '0' || first > '9'))
+            return false;
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
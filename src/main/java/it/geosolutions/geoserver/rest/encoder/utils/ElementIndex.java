@@ -0,0 +1,197 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.encoder.utils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jdom.Element;
+
+/**
+ * Finds the first child of an element by key in constant time, instead of
+ * scanning the children on each lookup.
+ * <P>
+ * The owner reports the children it adds and removes; changes made to the
+ * element by other means are detected through its content size and last
+ * child, which change with any append or removal, and cause the index to be
+ * rebuilt on the next lookup.
+ * <P>
+ * A child whose key changes is found under its new key only after the index
+ * is rebuilt; if the keys may change after the children are added, as the
+ * text of a child element may, the index has to be built with
+ * <TT>mutableKeys</TT>, so that a missing key rebuilds it.
+ */
+public class ElementIndex {
+
+    /**
+     * Extracts the key of a child.
+     */
+    public interface Key {
+        /**
+         * @return the key of the child, or null if it should not be indexed
+         */
+        String keyOf(Element child);
+    }
+
+    /** Indexes the children by name. */
+    public static final Key NAME = new Key() {
+        public String keyOf(Element child) {
+            return child.getName();
+        }
+    };
+
+    private final Element parent;
+
+    private final Key key;
+
+    private final Map<String, Element> children = new HashMap<String, Element>();
+
+    /** Content size of the parent when the index was last updated */
+    private int size = -1;
+
+    /** Last content of the parent when the index was last updated */
+    private Object last;
+
+    /** Whether some key is shared by more children */
+    private boolean duplicates;
+
+    /** Whether the key of a child may change once it is indexed */
+    private final boolean mutableKeys;
+
+    public ElementIndex(final Element parent, final Key key) {
+        this(parent, key, false);
+    }
+
+    /**
+     * @param mutableKeys true if the key of a child may change after it is
+     *        added, in which case a lookup of a missing key rebuilds the index
+     */
+    public ElementIndex(final Element parent, final Key key, final boolean mutableKeys) {
+        if (parent == null || key == null) {
+            throw new IllegalArgumentException("Null argument");
+        }
+        this.parent = parent;
+        this.key = key;
+        this.mutableKeys = mutableKeys;
+    }
+
+    public Element getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the first child with the key, or null
+     */
+    public Element get(final String childKey) {
+        boolean rebuilt = false;
+        if (!isCurrent()) {
+            rebuild();
+            rebuilt = true;
+        }
+        Element child = children.get(childKey);
+        if (child != null ? child.getParent() != parent || !childKey.equals(key.keyOf(child))
+                : mutableKeys && !rebuilt) {
+            // changed by other means
+            rebuild();
+            child = children.get(childKey);
+        }
+        return child;
+    }
+
+    /**
+     * Records a child just appended to the parent.
+     */
+    public void added(final Element child) {
+        final int newSize = parent.getContentSize();
+        if (!isCurrent(newSize - 1) || parent.getContent(newSize - 1) != child) {
+            size = -1;
+            return;
+        }
+        final String childKey = key.keyOf(child);
+        if (childKey != null) {
+            if (children.containsKey(childKey))
+                duplicates = true;
+            else
+                children.put(childKey, child);
+        }
+        update();
+    }
+
+    /**
+     * Records a child just removed from the parent.
+     */
+    public void removed(final Element child) {
+        final int newSize = parent.getContentSize();
+        if (duplicates || size != newSize + 1
+                || (last != child && (newSize == 0 || parent.getContent(newSize - 1) != last))) {
+            // the next child with the same key is not known
+            size = -1;
+            return;
+        }
+        final String childKey = key.keyOf(child);
+        if (childKey != null && children.get(childKey) == child)
+            children.remove(childKey);
+        update();
+    }
+
+    private boolean isCurrent() {
+        return isCurrent(parent.getContentSize());
+    }
+
+    /**
+     * @return true if the index was updated when the parent had the given
+     *         number of children, the same last one included
+     */
+    private boolean isCurrent(final int contentSize) {
+        return size >= 0 && size == contentSize
+                && (size == 0 || parent.getContent(size - 1) == last);
+    }
+
+    private void update() {
+        size = parent.getContentSize();
+        last = size > 0 ? parent.getContent(size - 1) : null;
+    }
+
+    private void rebuild() {
+        children.clear();
+        duplicates = false;
+        final List<?> content = parent.getContent();
+        for (int i = 0, n = content.size(); i < n; i++) {
+            final Object obj = content.get(i);
+            if (obj instanceof Element) {
+                final Element child = (Element) obj;
+                final String childKey = key.keyOf(child);
+                if (childKey == null)
+                    continue;
+                if (children.containsKey(childKey))
+                    duplicates = true;
+                else
+                    children.put(childKey, child);
+            }
+        }
+        update();
+    }
+}
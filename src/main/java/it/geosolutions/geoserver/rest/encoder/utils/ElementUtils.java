@@ -97,6 +97,12 @@ public abstract class ElementUtils {
 					+ " filter=" + filter + " depth=" + depth);
 		}
 		final List<Element> ret = new ArrayList<Element>();
+		search(root, filter, depth, ret);
+		return ret;
+	}
+
+	private static void search(final Element root, final Filter filter, final int depth,
+			final List<Element> ret) {
 		// if match add myself
 		if (filter.matches(root)) {
 			if (LOGGER.isTraceEnabled())
@@ -107,16 +113,58 @@ public abstract class ElementUtils {
 		// check my children
 		if (depth != 0) {
 			final List<?> childrenList = root.getContent();
-			final Iterator<?> it = childrenList.iterator();
-			while (it.hasNext()) {
-				final Object obj = it.next();
+			for (int i = 0, size = childrenList.size(); i < size; i++) {
+				final Object obj = childrenList.get(i);
 				if (obj instanceof Element) {
-					final Element childEl = (Element) obj;
-					ret.addAll(search(childEl, filter, depth - 1));
+					search((Element) obj, filter, depth - 1, ret);
 				}
 			}
 		}
-		return ret;
+	}
+
+	/**
+	 * Depth first search stopping at the first match, in the same order as
+	 * {@link #search(Element, Filter, int)}.
+	 * 
+	 * @param depth the max depth to search, negative for no limit
+	 * @return the first match or null
+	 */
+	private static Element first(final Element root, final Filter filter, final int depth) {
+		if (filter.matches(root))
+			return root;
+		if (depth != 0) {
+			final List<?> childrenList = root.getContent();
+			for (int i = 0, size = childrenList.size(); i < size; i++) {
+				final Object obj = childrenList.get(i);
+				if (obj instanceof Element) {
+					final Element found = first((Element) obj, filter, depth - 1);
+					if (found != null)
+						return found;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Same as {@link #first(Element, Filter, int)} matching the name only,
+	 * without a {@link Filter}.
+	 */
+	private static Element first(final Element root, final String name, final int depth) {
+		if (root.getName().equals(name))
+			return root;
+		if (depth != 0) {
+			final List<?> childrenList = root.getContent();
+			for (int i = 0, size = childrenList.size(); i < size; i++) {
+				final Object obj = childrenList.get(i);
+				if (obj instanceof Element) {
+					final Element found = first((Element) obj, name, depth - 1);
+					if (found != null)
+						return found;
+				}
+			}
+		}
+		return null;
 	}
 
 	public static List<Element> search(final Element root, final Filter filter) {
@@ -159,11 +207,7 @@ public abstract class ElementUtils {
 			throw new IllegalArgumentException("Bad arguments: root=" + root
 					+ " name=" + filter);
 		}
-		final Iterator<Element> it = search(root, filter).iterator();
-		if (it.hasNext())
-			return it.next();
-		else
-			return null;
+		return first(root, filter, -1);
 	}
 	
 	/**
@@ -192,11 +236,7 @@ public abstract class ElementUtils {
 				return false;
 			}
 		};
-		final Iterator<Element> it = search(root, filter).iterator();
-		if (it.hasNext())
-			return it.next();
-		else
-			return null;
+		return first(root, filter, -1);
 	}
 
 	
@@ -225,24 +265,7 @@ public abstract class ElementUtils {
 					+ " name=" + name);
 		}
 
-		final Filter filter = new Filter() {
-			private static final long serialVersionUID = 1L;
-
-			public boolean matches(Object obj) {
-				if (obj instanceof Element) {
-					final Element el = ((Element) obj);
-					if (el.getName().equals(name)) {
-						return true;
-					}
-				}
-				return false;
-			}
-		};
-		final Iterator<Element> it = search(root, filter, deep).iterator();
-		if (it.hasNext())
-			return it.next();
-		else
-			return null;
+		return first(root, name, deep);
 	}
 
 	/**
@@ -259,26 +282,9 @@ public abstract class ElementUtils {
 			throw new IllegalArgumentException("Bad arguments: root=" + root
 					+ " element=" + el);
 		}
-		final Filter filter = new Filter() {
-			/**
-			 * 
-			 */
-			private static final long serialVersionUID = 1L;
-
-			public boolean matches(Object obj) {
-				if (obj instanceof Element) {
-					final Element element = ((Element) obj);
-					if (element.equals(el)) {
-						return true;
-					}
-				}
-				return false;
-			}
-		};
-		final Iterator<Element> it = search(root, filter).iterator();
-		if (it.hasNext())
-			return it.next();
-		else
-			return null;
+		// walks up from el instead of searching the whole tree
+		if (root.equals(el) || root.isAncestor(el))
+			return el;
+		return null;
 	}
 }
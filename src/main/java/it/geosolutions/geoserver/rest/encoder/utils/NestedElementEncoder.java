@@ -28,6 +28,7 @@ package it.geosolutions.geoserver.rest.encoder.utils;
 import java.util.Iterator;
 import java.util.List;
 
+import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.filter.Filter;
 
@@ -149,17 +150,60 @@ public class NestedElementEncoder extends XmlElement {
 		}
 	};
 
+	/**
+	 * Extracts the key of the entries
+	 */
+	private final static ElementIndex.Key ENTRY_KEY = new ElementIndex.Key() {
+		public String keyOf(Element child) {
+			return child.getName().equals(ENTRY) ? child.getAttributeValue(KEY) : null;
+		}
+	};
+
+	/**
+	 * The entries by key, so that setting an entry does not scan the list
+	 */
+	private ElementIndex entries;
+
 	public NestedElementEncoder(String listName) {
 		super(listName);
 	}
 
+	private ElementIndex entries() {
+		if (entries == null || entries.getParent() != getRoot())
+			entries = new ElementIndex(getRoot(), ENTRY_KEY);
+		return entries;
+	}
+
+	/**
+	 * @return the first entry with the key and, if the name is not null, with
+	 *         a child with the name
+	 */
+	private Element find(final String key, final String name) {
+		if (key != null) {
+			final Element entry = entries().get(key);
+			if (entry == null)
+				return null;
+			if (name == null || entry.getChild(name) != null)
+				return entry;
+		}
+		return ElementUtils.contains(getRoot(), new NestedElementFilter(getRoot(), key, name));
+	}
+
+	@Override
+	protected Element addContent(Content child) {
+		final Element result = super.addContent(child);
+		if (child instanceof Element)
+			entries().added((Element) child);
+		return result;
+	}
+
 	public void set(final String key, final String value) {
 		// if some previous similar object is found
 		final Element search;
-		if ((search = ElementUtils.contains(getRoot(), new NestedElementFilter(
-				getRoot(), key, null))) != null) {
+		if ((search = find(key, null)) != null) {
 			// remove it
 			ElementUtils.remove(getRoot(), search);
+			entries().removed(search);
 		}
 		// add the new entry
 		add(key, value);
@@ -168,10 +212,10 @@ public class NestedElementEncoder extends XmlElement {
 	public void set(final String key, final Element value) {
 		// if some previous similar object is found
 		final Element search;
-		if ((search = ElementUtils.contains(getRoot(), new NestedElementFilter(
-				getRoot(), key, value.getName()))) != null) {
+		if ((search = find(key, value.getName())) != null) {
 			// remove it
 			ElementUtils.remove(getRoot(), search);
+			entries().removed(search);
 		}
 		// add the new entry
 		add(key, value);
@@ -227,9 +271,10 @@ public class NestedElementEncoder extends XmlElement {
 	public boolean remove(final String key) {
 		// if some previous similar object is found
 		final Element search;
-		if ((search = ElementUtils.contains(getRoot(), new NestedElementFilter(
-				getRoot(), key, null))) != null) {
-			return ElementUtils.remove(search, search);
+		if ((search = find(key, null)) != null) {
+			final boolean removed = ElementUtils.remove(search, search);
+			entries().removed(search);
+			return removed;
 		} else
 			return false;
 	}
@@ -25,6 +25,9 @@
 
 package it.geosolutions.geoserver.rest.encoder.utils;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import org.jdom.Element;
 
 /**
@@ -46,11 +49,21 @@ import org.jdom.Element;
  * {@code        <k1><k2><k3>value</k3></k2></k1> }
  * </pre>
  * 
+ * Each part of a key names a direct child of the previous one; parts are
+ * resolved through an index of the children by name, so that setting a
+ * property does not search the whole document.
+ * 
  * @author ETj (etj at geo-solutions.it)
  * @author Carlo Cancellieri - carlo.cancellieri@geo-solutions.it
  */
 public class PropertyXMLEncoder extends XmlElement {
 
+	/**
+	 * Children by name of the elements reached so far, so that a key is
+	 * resolved without searching the tree
+	 */
+	private final Map<Element, ElementIndex> indexes = new IdentityHashMap<Element, ElementIndex>();
+
 	public PropertyXMLEncoder(final String rootName) {
 		super(rootName);
 	}
@@ -63,17 +76,42 @@ public class PropertyXMLEncoder extends XmlElement {
 		return get(getRoot(), key);
 	}
 	
-	private Element get(final Element el, final String key) {
-		if (el==null)
+	private Element get(Element el, final String key) {
+		int start = 0;
+		int i;
+		while (el != null && (i = key.indexOf('/', start)) >= 0) {
+			el = index(el).get(key.substring(start, i));
+			start = i + 1;
+		}
+		if (el == null)
 			return null;
-		if (key.contains("/")) {
-			final int i = key.indexOf("/");
-			final String parentName = key.substring(0, i);
-			final String newkey = key.substring(i + 1);
-			return get(ElementUtils.contains(el, parentName),newkey);
-		} else {
-			return ElementUtils.contains(el, key);
+		return index(el).get(start == 0 ? key : key.substring(start));
+	}
+
+	/**
+	 * @return the index of the children of the element
+	 */
+	private ElementIndex index(final Element el) {
+		ElementIndex index = indexes.get(el);
+		if (index == null) {
+			index = new ElementIndex(el, ElementIndex.NAME);
+			indexes.put(el, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the child with the name, added if missing
+	 */
+	private Element child(final Element e, final String childName) {
+		final ElementIndex index = index(e);
+		Element child = index.get(childName);
+		if (child == null) {
+			child = new Element(childName);
+			e.addContent(child);
+			index.added(child);
 		}
+		return child;
 	}
 
 	protected void set(final String key, final String value) {
@@ -82,28 +120,22 @@ public class PropertyXMLEncoder extends XmlElement {
 		}
 	}
 
-	private void set(final Element e, final String key, final String value) {
-		if (key.contains("/")) {
-			final int i = key.indexOf("/");
-			final String childName = key.substring(0, i);
-			final String newkey = key.substring(i + 1);
-
-			Element child = e.getChild(childName);
-			if (child == null) {
-				child = new Element(childName);
-				e.addContent(child);
-				add(child, newkey, value);
-			}
-			set(child, newkey, value);
-		} else {
-			Element pp = null;
-			if ((pp = ElementUtils.contains(e, key)) == null)
-				add(e, key, value);
-			else {
-				ElementUtils.remove(pp, pp);
-				add(e, key, value);
-			}
+	private void set(Element e, final String key, final String value) {
+		int start = 0;
+		int i;
+		while ((i = key.indexOf('/', start)) >= 0) {
+			e = child(e, key.substring(start, i));
+			start = i + 1;
 		}
+		final String name = start == 0 ? key : key.substring(start);
+		final ElementIndex index = index(e);
+		final Element pp = index.get(name);
+		if (pp != null) {
+			ElementUtils.remove(pp, pp);
+			index.removed(pp);
+			indexes.remove(pp);
+		}
+		append(e, name, value);
 	}
 
 	protected void add(final String key, final String value) {
@@ -113,23 +145,19 @@ public class PropertyXMLEncoder extends XmlElement {
 	}
 
 	private void add(Element e, String key, String value) {
-		if (key.contains("/")) {
-			final int i = key.indexOf("/");
-			final String childName = key.substring(0, i);
-			final String newkey = key.substring(i + 1);
-
-			Element child = e.getChild(childName);
-			if (child == null) {
-				child = new Element(childName);
-				e.addContent(child);
-			}
-
-			add(child, newkey, value);
-
-		} else {
-			e.addContent(new Element(key).setText(value));
+		int start = 0;
+		int i;
+		while ((i = key.indexOf('/', start)) >= 0) {
+			e = child(e, key.substring(start, i));
+			start = i + 1;
 		}
+		append(e, start == 0 ? key : key.substring(start), value);
+	}
 
+	private void append(final Element e, final String name, final String value) {
+		final Element child = new Element(name).setText(value);
+		e.addContent(child);
+		index(e).added(child);
 	}
 
 	// public void set(final String key, final String value) {
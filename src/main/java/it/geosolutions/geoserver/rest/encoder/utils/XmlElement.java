@@ -26,6 +26,10 @@
 package it.geosolutions.geoserver.rest.encoder.utils;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Text;
@@ -122,6 +126,28 @@ public class XmlElement{
 			return false;
 	}
 	
+	/**
+     * Writes the same xml as {@link #toString()}, encoded in UTF-8, without
+     * building it in memory first. The stream is flushed but not closed.
+     * 
+     * @param out the destination
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        OUTPUTTER.output(root, out);
+    }
+
+    /**
+     * Writes the same xml as {@link #toString()} without building it in
+     * memory first. The writer is flushed but not closed.
+     * 
+     * @param out the destination
+     * @throws IOException if the writer cannot be written
+     */
+    public void writeTo(final Writer out) throws IOException {
+        OUTPUTTER.output(root, out);
+    }
+
 	/**
      * @return an xml String 
      */
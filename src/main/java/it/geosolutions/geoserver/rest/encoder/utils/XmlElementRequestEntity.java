@@ -0,0 +1,80 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.encoder.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+/**
+ * Request body serializing an {@link XmlElement} straight into the connection,
+ * instead of rendering it to a String first.
+ * <P>
+ * The element is serialized each time the request is sent, so it should not
+ * be changed until the request completes; being repeatable, the request can
+ * be retried. The length is not known in advance, so the body is sent with
+ * chunked transfer encoding.
+ */
+public class XmlElementRequestEntity implements RequestEntity {
+
+    public static final String CONTENT_TYPE = "text/xml; charset=UTF-8";
+
+    private final XmlElement element;
+
+    /**
+     * @param element the body of the request
+     * @throws IllegalArgumentException if the element is null
+     */
+    public XmlElementRequestEntity(final XmlElement element) throws IllegalArgumentException {
+        if (element == null) {
+            throw new IllegalArgumentException("Null argument");
+        }
+        this.element = element;
+    }
+
+    public XmlElement getElement() {
+        return element;
+    }
+
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    public void writeRequest(OutputStream out) throws IOException {
+        element.writeTo(out);
+    }
+
+    /**
+     * @return -1, the length being known only once written
+     */
+    public long getContentLength() {
+        return -1;
+    }
+
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+}
@@ -24,6 +24,7 @@
  */
 package it.geosolutions.geoserver.rest.manager;
 
+import it.geosolutions.geoserver.rest.HTTPTransport;
 import it.geosolutions.geoserver.rest.HTTPUtils;
 
 import java.net.MalformedURLException;
@@ -41,6 +42,7 @@ public abstract class GeoServerRESTAbstractManager {
     protected final URL gsBaseUrl;
     protected final String gsuser;
     protected final String gspass;
+    protected final HTTPTransport transport;
 
     /**
      * Default constructor.
@@ -53,8 +55,22 @@ public abstract class GeoServerRESTAbstractManager {
      */
     public GeoServerRESTAbstractManager(URL restURL, String username, String password)
         throws IllegalArgumentException {
+        this(restURL, username, password, HTTPTransport.getDefault());
+    }
+
+    /**
+     * Indicates connection parameters to remote GeoServer instance and the
+     * transport to be used to talk to it.
+     * 
+     * @param restURL GeoServer REST API endpoint
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @param transport the (possibly shared) HTTP transport
+     */
+    public GeoServerRESTAbstractManager(URL restURL, String username, String password,
+            HTTPTransport transport) throws IllegalArgumentException {
         try {
-            if (restURL == null || username == null || password == null)
+            if (restURL == null || username == null || password == null || transport == null)
                 throw new IllegalArgumentException("Unable to create the manager using a null argument");
 
             this.gsBaseUrl = new URL(restURL.getProtocol(), restURL.getHost(), restURL.getPort(),
@@ -62,9 +78,17 @@ public abstract class GeoServerRESTAbstractManager {
 
             this.gsuser = username;
             this.gspass = password;
+            this.transport = transport;
 
         } catch (MalformedURLException ex) {
             throw new IllegalArgumentException("URL can't be parsed properly", ex);
         }
     }
+
+    /**
+     * @return the HTTP transport used by this manager
+     */
+    public HTTPTransport getTransport() {
+        return transport;
+    }
 }
@@ -24,6 +24,7 @@
  */
 package it.geosolutions.geoserver.rest.manager;
 
+import it.geosolutions.geoserver.rest.HTTPTransport;
 import it.geosolutions.geoserver.rest.HTTPUtils;
 
 import java.io.File;
@@ -61,13 +62,26 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
         super(restURL, username, password);
     }
 
+    /**
+     * Creates a manager that talks to GeoServer through the given transport.
+     *
+     * @param restURL GeoServer REST API endpoint
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @param transport the (possibly shared) HTTP transport
+     */
+    public GeoServerRESTImporterManager(URL restURL, String username, String password,
+            HTTPTransport transport) throws IllegalArgumentException {
+        super(restURL, username, password, transport);
+    }
+
     /**
      * Retrieves the Import JSON Object given its identifier
      * 
      * @param imp int: Import context number ID
      */
     public JSONObject getImport(int imp) throws Exception {
-        JSON json = HTTPUtils.getAsJSON(String.format(buildUrl()+"/%d", imp), gsuser , gspass);
+        JSON json = transport.getAsJSON(String.format(buildUrl()+"/%d", imp), gsuser , gspass);
         return ((JSONObject)json).getJSONObject("import");
     }
 
@@ -78,7 +92,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
      * @param task int: Task number
      */
     public JSONObject getTask(int imp, int task) throws Exception {
-        JSON json = HTTPUtils.getAsJSON(String.format(buildUrl()+"/%d/tasks/%d?expand=all", imp, task), gsuser , gspass);
+        JSON json = transport.getAsJSON(String.format(buildUrl()+"/%d/tasks/%d?expand=all", imp, task), gsuser , gspass);
         return ((JSONObject)json).getJSONObject("task");
     }
 
@@ -143,8 +157,8 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
      * @throws Exception
      */
     public void putTask(int imp, int task, final String json) throws Exception {
-        //HTTPUtils.putJson(String.format(buildUrl()+"/%d/tasks/%d", imp, task), json, gsuser, gspass);
-        HTTPUtils.put(String.format(buildUrl()+"/%d/tasks/%d", imp, task), json, "application/json", gsuser, gspass);
+        //transport.putJson(String.format(buildUrl()+"/%d/tasks/%d", imp, task), json, gsuser, gspass);
+        transport.put(String.format(buildUrl()+"/%d/tasks/%d", imp, task), json, "application/json", gsuser, gspass);
     }
 
     /**
@@ -161,7 +175,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
      * @throws Exception
      */
     public void putTaskLayer(int imp, int task, final String json) throws Exception {
-        HTTPUtils.putJson(String.format(buildUrl()+"/%d/tasks/%d/layer", imp, task), json, gsuser, gspass);
+        transport.putJson(String.format(buildUrl()+"/%d/tasks/%d/layer", imp, task), json, gsuser, gspass);
     }
     
     /**
@@ -178,7 +192,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
      * @throws Exception
      */
     public void postTaskTransform(int imp, int task, final String json) throws Exception {
-        HTTPUtils.postJson(String.format(buildUrl()+"/%d/tasks/%d/transforms", imp, task), json, gsuser, gspass);
+        transport.postJson(String.format(buildUrl()+"/%d/tasks/%d/transforms", imp, task), json, gsuser, gspass);
     }
 
     /**
@@ -212,8 +226,8 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
      * @throws Exception
      */
     public int postNewImport(String body) throws Exception {
-        String resp = body == null ? HTTPUtils.post(buildUrl(), "", "application/json", gsuser, gspass)
-            : HTTPUtils.postJson(buildUrl(), body, gsuser, gspass);
+        String resp = body == null ? transport.post(buildUrl(), "", "application/json", gsuser, gspass)
+            : transport.postJson(buildUrl(), body, gsuser, gspass);
         
         JSONObject json = (JSONObject) HTTPUtils.json(resp);
         JSONObject imprt = json.getJSONObject("import");
@@ -227,7 +241,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
      * @throws Exception
      */
     public void postImport(int imp) throws Exception {
-        HTTPUtils.post(buildUrl()+"/" + imp + "?exec=true", "", "application/json", gsuser, gspass);
+        transport.post(buildUrl()+"/" + imp + "?exec=true", "", "application/json", gsuser, gspass);
     }
 
     /**
@@ -238,7 +252,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
      * @throws Exception
      */
     public int postNewTaskAsMultiPartForm(int imp, String data) throws Exception {
-        String resp = HTTPUtils.postMultipartForm(buildUrl()+"/" + imp + "/tasks", unpack(data), gsuser, gspass);
+        String resp = transport.postMultipartForm(buildUrl()+"/" + imp + "/tasks", unpack(data), gsuser, gspass);
         
         JSONObject json = (JSONObject) HTTPUtils.json(resp);
 
@@ -257,7 +271,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
     public int putNewTask(int imp, String path) throws Exception {
         File zip = new File(path);
 
-        String resp = HTTPUtils.put(buildUrl()+"/" + imp + "/tasks/" + zip.getName(), zip, 
+        String resp = transport.put(buildUrl()+"/" + imp + "/tasks/" + zip.getName(), zip, 
                 MEDIA_TYPE_APPLICATION_ZIP, gsuser, gspass);
 
         JSONObject json = (JSONObject) HTTPUtils.json(resp);
@@ -25,6 +25,7 @@
 package it.geosolutions.geoserver.rest.manager;
 
 import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.Format;
+import it.geosolutions.geoserver.rest.HTTPTransport;
 import it.geosolutions.geoserver.rest.HTTPUtils;
 import it.geosolutions.geoserver.rest.encoder.GSAbstractStoreEncoder;
 import it.geosolutions.geoserver.rest.encoder.datastore.GSAbstractDatastoreEncoder;
@@ -55,6 +56,19 @@ public class GeoServerRESTStoreManager extends GeoServerRESTAbstractManager {
         super(restURL, username, password);
     }
 
+    /**
+     * Creates a manager that talks to GeoServer through the given transport.
+     *
+     * @param restURL GeoServer REST API endpoint
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @param transport the (possibly shared) HTTP transport
+     */
+    public GeoServerRESTStoreManager(URL restURL, String username, String password,
+            HTTPTransport transport) throws IllegalArgumentException {
+        super(restURL, username, password, transport);
+    }
+
     /**
      * Create a store.
      * 
@@ -67,8 +81,7 @@ public class GeoServerRESTStoreManager extends GeoServerRESTAbstractManager {
      */
     public boolean create(String workspace, GSAbstractStoreEncoder store) {
         String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/", store.getStoreType().toString(),".",Format.XML.toString()).toString();
-        String xml = store.toString();
-        String result = HTTPUtils.postXml(sUrl, xml, gsuser, gspass);
+        String result = transport.postXml(sUrl, store, gsuser, gspass);
         return result != null;
     }
     
@@ -97,8 +110,7 @@ public class GeoServerRESTStoreManager extends GeoServerRESTAbstractManager {
         String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace,"/", 
                 store.getStoreType().toString(),"/",
                 storeName,".",Format.XML.toString()).toString();
-        String xml = store.toString();
-        String result = HTTPUtils.putXml(sUrl, xml, gsuser, gspass);
+        String result = transport.putXml(sUrl, store, gsuser, gspass);
         return result != null;
     }
     
@@ -127,7 +139,7 @@ public class GeoServerRESTStoreManager extends GeoServerRESTAbstractManager {
                 throw new IllegalStateException(e);
             }
 
-            boolean deleted = HTTPUtils.delete(deleteStore.toExternalForm(), gsuser, gspass);
+            boolean deleted = transport.delete(deleteStore.toExternalForm(), gsuser, gspass);
 //            if (!deleted) {
 //                LOGGER.warn("Could not delete CoverageStore " + workspace + ":" + storename);
 //            } else {
@@ -24,17 +24,23 @@
  */
 package it.geosolutions.geoserver.rest.manager;
 
+import it.geosolutions.geoserver.rest.GeoServerRESTAbstractAsync;
 import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.UploadMethod;
+import it.geosolutions.geoserver.rest.HTTPTransport;
 import it.geosolutions.geoserver.rest.HTTPUtils;
 import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
 import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageIndexSchema;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.ZipFile;
 
 import org.slf4j.Logger;
@@ -63,12 +69,31 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
         }
     }
 
+    /**
+     * Default number of granules requested at a time by {@link #iterateGranules(String, String, String, String)}.
+     */
+    public static final int DEFAULT_GRANULES_PAGE_SIZE = 1000;
+
     /**
      * Default logger
      */
     private final static Logger LOGGER = LoggerFactory
             .getLogger(GeoServerRESTStructuredGridCoverageReaderManager.class);
 
+    /**
+     * Downloads the next pages of the granule iterators not given an executor; shared and
+     * bounded, created on first use.
+     */
+    private static ExecutorService prefetchExecutor;
+
+    private static synchronized ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            prefetchExecutor = GeoServerRESTAbstractAsync
+                    .newExecutor(GeoServerRESTAbstractAsync.DEFAULT_THREADS);
+        }
+        return prefetchExecutor;
+    }
+
     /**
      * Default constructor.
      * 
@@ -81,6 +106,19 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
             String password) throws IllegalArgumentException {
         super(restURL, username, password);
     }
+
+    /**
+     * Creates a manager that talks to GeoServer through the given transport.
+     *
+     * @param restURL GeoServer REST API endpoint
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @param transport the (possibly shared) HTTP transport
+     */
+    public GeoServerRESTStructuredGridCoverageReaderManager(URL restURL, String username, String password,
+            HTTPTransport transport) throws IllegalArgumentException {
+        super(restURL, username, password, transport);
+    }
     
     /**
      * Create a new ImageMosaic with the provided configuration provided as a zip file.
@@ -156,7 +194,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
         String sUrl = ss.toString();
 
         // POST request
-        String result = HTTPUtils.put(sUrl, zipFile, "application/zip", gsuser, gspass);
+        String result = transport.put(sUrl, zipFile, "application/zip", gsuser, gspass);
         return result != null;
     }
     
@@ -184,7 +222,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
                 coverageStore, "/", UploadMethod.EXTERNAL.toString(), ".", format).toString();
 
         // POST request
-        String result = HTTPUtils.post(sUrl, "file://" + path, "text/plain", gsuser, gspass);
+        String result = transport.post(sUrl, "file://" + path, "text/plain", gsuser, gspass);
         return result != null;
     }
 
@@ -249,7 +287,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
         String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores",
                 "/", coverageStore, "/coverages/", coverage, "/index/granules?filter=",
                 URLEncoder.encode(filter, "UTF-8")).toString();
-        if (!HTTPUtils.delete(sUrl, gsuser, gspass)) {
+        if (!transport.delete(sUrl, gsuser, gspass)) {
             return false;
         }
 
@@ -303,7 +341,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
         String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores",
                 "/", coverageStore, "/coverages/", coverage, "/index/granules/", granuleId)
                 .toString();
-        if (!HTTPUtils.delete(sUrl, gsuser, gspass)) {
+        if (!transport.delete(sUrl, gsuser, gspass)) {
             return false;
         }
 
@@ -338,7 +376,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
         // create URL and then call it
         String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores/",
                 coverageStore, "/coverages/", coverage, "/index.xml").toString();
-        String result = HTTPUtils.get(sUrl, gsuser, gspass);
+        InputStream result = transport.getStream(sUrl, gsuser, gspass);
         if (result != null) {
             return RESTStructuredCoverageIndexSchema.build(result);
         }
@@ -388,6 +426,103 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
         checkString(coverage);
         checkString(coverageStore);
 
+        InputStream result = getGranulesStream(workspace, coverageStore, coverage, filter, offset, limit);
+        if (result != null) {
+            return RESTStructuredCoverageGranulesList.build(result);
+        }
+        return null;
+    }
+
+    /**
+     * Iterates over all the granules for a coverage with optional filter, using pages of
+     * {@link #DEFAULT_GRANULES_PAGE_SIZE} granules.
+     * 
+     * @see #iterateGranules(String, String, String, String, int)
+     */
+    public Iterable<RESTStructuredCoverageGranule> iterateGranules(final String workspace,
+            String coverageStore, String coverage, String filter) {
+        return iterateGranules(workspace, coverageStore, coverage, filter, DEFAULT_GRANULES_PAGE_SIZE);
+    }
+
+    /**
+     * Iterates over all the granules for a coverage with optional filter, prefetching the pages
+     * on a bounded pool of daemon threads shared by all the iterators.
+     * 
+     * @see #iterateGranules(String, String, String, String, int, ExecutorService)
+     */
+    public Iterable<RESTStructuredCoverageGranule> iterateGranules(final String workspace,
+            final String coverageStore, final String coverage, final String filter,
+            final int pageSize) {
+        return iterateGranules(workspace, coverageStore, coverage, filter, pageSize,
+                getPrefetchExecutor());
+    }
+
+    /**
+     * Iterates over all the granules for a coverage with optional filter.
+     * <P>
+     * Pages are requested lazily, prefetching the next one on the given executor while the
+     * current one is being consumed, and are parsed one granule at a time so that huge indexes
+     * can be scanned in constant memory. The iterators throw an {@link IllegalStateException}
+     * if a page cannot be retrieved.
+     * 
+     * @param workspace the GeoServer workspace
+     * @param coverageStore the GeoServer coverageStore
+     * @param coverage the name of the target coverage
+     * @param filter a CQL filter, can be <code>null</code> to include all the granules
+     * @param pageSize the number of granules requested at a time
+     * @param executor the executor downloading the next pages, which is not shut down; can be
+     *        <code>null</code> to download each page when it is needed
+     * 
+     * @return an {@link Iterable} whose iterators are instances of {@link RESTStructuredCoverageGranulesIterator}
+     */
+    public Iterable<RESTStructuredCoverageGranule> iterateGranules(final String workspace,
+            final String coverageStore, final String coverage, final String filter,
+            final int pageSize, final ExecutorService executor) {
+        // checks
+        checkString(workspace);
+        checkString(coverage);
+        checkString(coverageStore);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size should be positive: " + pageSize);
+        }
+
+        return new Iterable<RESTStructuredCoverageGranule>() {
+            @Override
+            public Iterator<RESTStructuredCoverageGranule> iterator() {
+                return new RESTStructuredCoverageGranulesIterator(
+                        GeoServerRESTStructuredGridCoverageReaderManager.this, workspace,
+                        coverageStore, coverage, filter, pageSize, executor);
+            }
+        };
+    }
+
+    /**
+     * Creates a local mirror of the granule index of a coverage, loaded by its first
+     * {@link RESTStructuredCoverageGranulesMirror#sync() sync}.
+     * 
+     * @param workspace the GeoServer workspace
+     * @param coverageStore the GeoServer coverageStore
+     * @param coverage the name of the target coverage
+     * 
+     * @return the mirror, which should be {@link RESTStructuredCoverageGranulesMirror#close()
+     *         closed} when no longer needed
+     */
+    public RESTStructuredCoverageGranulesMirror getGranulesMirror(final String workspace,
+            String coverageStore, String coverage) {
+        // checks
+        checkString(workspace);
+        checkString(coverage);
+        checkString(coverageStore);
+
+        return new RESTStructuredCoverageGranulesMirror(this, workspace, coverageStore, coverage,
+                DEFAULT_GRANULES_PAGE_SIZE);
+    }
+
+    /**
+     * @return the granules XML representation, or <code>null</code> in case the call does not succeed
+     */
+    InputStream getGranulesStream(final String workspace, String coverageStore, String coverage,
+            String filter, Integer offset, Integer limit) throws UnsupportedEncodingException {
         // method
         boolean append = false;
         String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores/",
@@ -412,11 +547,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
                     .toString();
             append = true;
         }
-        String result = HTTPUtils.get(sUrl, gsuser, gspass);
-        if (result != null) {
-            return RESTStructuredCoverageGranulesList.build(result);
-        }
-        return null;
+        return transport.getStream(sUrl, gsuser, gspass);
     }
 
     /**
@@ -447,7 +578,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
         // method
         String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores/",
                 coverageStore, "/coverages/", coverage, "/index/granules/", id, ".xml").toString();
-        String result = HTTPUtils.get(sUrl, gsuser, gspass);
+        InputStream result = transport.getStream(sUrl, gsuser, gspass);
         if (result != null) {
             return RESTStructuredCoverageGranulesList.build(result);
         }
@@ -25,10 +25,11 @@
 package it.geosolutions.geoserver.rest.manager;
 
 import it.geosolutions.geoserver.rest.GeoServerRESTPublisher;
-import it.geosolutions.geoserver.rest.HTTPUtils;
+import it.geosolutions.geoserver.rest.HTTPTransport;
 import it.geosolutions.geoserver.rest.Util;
 import it.geosolutions.geoserver.rest.decoder.RESTStyle;
 import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
+import it.geosolutions.geoserver.rest.decoder.utils.XMLParsers;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
@@ -37,13 +38,9 @@ import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -69,6 +66,19 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
         super(restURL, username, password);
     }
 
+    /**
+     * Creates a manager that talks to GeoServer through the given transport.
+     *
+     * @param restURL GeoServer REST API endpoint
+     * @param username GeoServer REST API authorized username
+     * @param password GeoServer REST API password for the former username
+     * @param transport the (possibly shared) HTTP transport
+     */
+    public GeoServerRESTStyleManager(URL restURL, String username, String password,
+            HTTPTransport transport) throws IllegalArgumentException {
+        super(restURL, username, password, transport);
+    }
+
     /**
      * Check if a Style exists in the configured GeoServer instance.
      * @param name the name of the style to check for.
@@ -89,7 +99,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
    public boolean existsStyle(String name, boolean quietOnNotFound) {
        String url = buildXmlUrl(null, name);
        String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-       return HTTPUtils.exists(composed , gsuser, gspass);
+       return transport.exists(composed , gsuser, gspass);
    }
 
     /**
@@ -103,7 +113,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             LOGGER.debug("### Retrieving Styles list from " + url);
         }
 
-        String response = HTTPUtils.get(gsBaseUrl + url, gsuser, gspass);
+        InputStream response = transport.getStream(gsBaseUrl + url, gsuser, gspass);
         return RESTStyleList.build(response);
     }
 
@@ -113,7 +123,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             LOGGER.debug("### Retrieving Style " + name + " from " + url);
         }
 
-        String response = HTTPUtils.get(url, gsuser, gspass);
+        InputStream response = transport.getStream(url, gsuser, gspass);
         return RESTStyle.build(response);
     }
 
@@ -125,7 +135,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("### Retrieving SLD body from " + url);
         }
-        return HTTPUtils.get( url, gsuser, gspass);
+        return transport.get( url, gsuser, gspass);
     }
 
 
@@ -148,7 +158,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
    public boolean existsStyle(String workspace, String name, boolean quietOnNotFound) {
        String url = buildXmlUrl(workspace, name);
        String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-       return HTTPUtils.exists(composed , gsuser, gspass);
+       return transport.exists(composed , gsuser, gspass);
    }
 
     /**
@@ -163,7 +173,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             LOGGER.debug("### Retrieving Styles list from " + url);
         }
 
-        String response = HTTPUtils.get(gsBaseUrl + url, gsuser, gspass);
+        InputStream response = transport.getStream(gsBaseUrl + url, gsuser, gspass);
         return RESTStyleList.build(response);
     }
 
@@ -177,7 +187,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             LOGGER.debug("### Retrieving Style " + name + " from " + url);
         }
 
-        String response = HTTPUtils.get(url, gsuser, gspass);
+        InputStream response = transport.getStream(url, gsuser, gspass);
         return RESTStyle.build(response);
     }
 
@@ -190,7 +200,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("### Retrieving SLD body from " + url);
         }
-        return HTTPUtils.get(url, gsuser, gspass);
+        return transport.get(url, gsuser, gspass);
     }
 
     //=========================================================================
@@ -244,7 +254,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
 
         String sUrl = buildPostUrl(null, name);
 
-        final String result = HTTPUtils.post(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
+        final String result = transport.post(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
         return result != null;
     }
 
@@ -270,7 +280,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     public boolean publishStyle(File sldFile, String name) {
         String sUrl = buildPostUrl(null, name);
         LOGGER.debug("POSTing new style " + name + " to " + sUrl);
-        String result = HTTPUtils.post(sUrl, sldFile, GeoServerRESTPublisher.Format.SLD.getContentType(), gsuser, gspass);
+        String result = transport.post(sUrl, sldFile, GeoServerRESTPublisher.Format.SLD.getContentType(), gsuser, gspass);
         return result != null;
     }
     
@@ -302,7 +312,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             contentType = GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType();
         }
         LOGGER.debug("POSTing new style " + name + " to " + sUrl + " using version: " + contentType);
-        String result = HTTPUtils.post(sUrl.toString(), sldBody, contentType, gsuser, gspass);
+        String result = transport.post(sUrl.toString(), sldBody, contentType, gsuser, gspass);
         return result != null;
     }
     
@@ -330,7 +340,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             contentType = GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType();
         }
         LOGGER.debug("POSTing new style " + name + " to " + sUrl + " using version: " + contentType);
-        String result = HTTPUtils.post(sUrl.toString(), sldFile, contentType, gsuser, gspass);
+        String result = transport.post(sUrl.toString(), sldFile, contentType, gsuser, gspass);
         return result != null;
     }
     
@@ -365,7 +375,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             contentType = GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType();
         }
         LOGGER.debug("PUTting style " + name + " to " + sUrl + " using version: " + contentType);
-        String result = HTTPUtils.put(sUrl.toString(), sldFile, contentType, gsuser, gspass);
+        String result = transport.put(sUrl.toString(), sldFile, contentType, gsuser, gspass);
         return result != null;
     }
     
@@ -400,7 +410,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             contentType = GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType();
         }
         LOGGER.debug("PUTting style " + name + " to " + sUrl + " using version: " + contentType);
-        String result = HTTPUtils.put(sUrl.toString(), sldBody, contentType, gsuser, gspass);
+        String result = transport.put(sUrl.toString(), sldBody, contentType, gsuser, gspass);
         return result != null;
     }
 
@@ -429,7 +439,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
 
         final String sUrl = buildUrl(null, name, null);
 
-        final String result = HTTPUtils.put(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
+        final String result = transport.put(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
         return result != null;
     }
 
@@ -453,7 +463,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
 
         final String sUrl = buildUrl(null, name, null);
 
-        final String result = HTTPUtils.put(sUrl, sldFile,
+        final String result = transport.put(sUrl, sldFile,
                 "application/vnd.ogc.sld+xml", gsuser, gspass);
         return result != null;
 
@@ -491,7 +501,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             sUrl += "?purge=true";
         }
 
-        return HTTPUtils.delete(sUrl, gsuser, gspass);
+        return transport.delete(sUrl, gsuser, gspass);
     }
 
     /**
@@ -554,7 +564,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             throw new IllegalArgumentException("The style body may not be null or empty");
         }
         String sUrl = buildPostUrl(workspace, name);
-        final String result = HTTPUtils.post(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
+        final String result = transport.post(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
         return result != null;
     }
 
@@ -582,7 +592,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     public boolean publishStyleInWorkspace(final String workspace, File sldFile, String name) {
         String sUrl = buildPostUrl(workspace, name);
         LOGGER.debug("POSTing new style " + name + " to " + sUrl);
-        String result = HTTPUtils.post(sUrl, sldFile, GeoServerRESTPublisher.Format.SLD.getContentType(), gsuser, gspass);
+        String result = transport.post(sUrl, sldFile, GeoServerRESTPublisher.Format.SLD.getContentType(), gsuser, gspass);
         return result != null;
     }
     
@@ -598,7 +608,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     public boolean publishStyleZippedInWorkspace(final String workspace, File zipFile, String name) {
         String sUrl = buildPostUrl(workspace, name);
         LOGGER.debug("POSTing new style " + name + " to " + sUrl);
-        String result = HTTPUtils.post(sUrl, zipFile, GeoServerRESTPublisher.Format.ZIP.getContentType(), gsuser, gspass);
+        String result = transport.post(sUrl, zipFile, GeoServerRESTPublisher.Format.ZIP.getContentType(), gsuser, gspass);
         return result != null;
     }
 
@@ -622,7 +632,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
 
         final String sUrl = buildUrl(workspace, name, null);
 
-        final String result = HTTPUtils.put(sUrl, sldBody,
+        final String result = transport.put(sUrl, sldBody,
                 "application/vnd.ogc.sld+xml", gsuser, gspass);
         return result != null;
     }
@@ -648,7 +658,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
 
         final String sUrl = buildUrl(workspace, name, null);
 
-        final String result = HTTPUtils.put(sUrl, sldFile,
+        final String result = transport.put(sUrl, sldFile,
                 "application/vnd.ogc.sld+xml", gsuser, gspass);
         return result != null;
     }
@@ -674,7 +684,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
 
         final String sUrl = buildUrl(workspace, name, null);
 
-        final String result = HTTPUtils.put(sUrl, zipFile,
+        final String result = transport.put(sUrl, zipFile,
                 GeoServerRESTPublisher.Format.ZIP.getContentType(), gsuser, gspass);
         return result != null;
     }
@@ -710,7 +720,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             sUrl += "?purge=true";
         }
 
-        return HTTPUtils.delete(sUrl, gsuser, gspass);
+        return transport.delete(sUrl, gsuser, gspass);
     }
 
     /**
@@ -784,9 +794,8 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
 
     private boolean checkSLD10Version(String sldBody) {
         boolean result = false;
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            DocumentBuilder builder = XMLParsers.getDocumentBuilder();
             InputStream stream = new ByteArrayInputStream(sldBody.getBytes(Charset.forName("UTF-8")));
             Document doc = builder.parse(stream);
             result = this.checkSLD10Version(doc);
@@ -794,7 +803,8 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
             LOGGER.error("Error parsing SLD file: " + ex);
         } catch (IOException ex) {
             LOGGER.error("Error parsing SLD file: " + ex);
-        } catch (ParserConfigurationException ex) {
+        } catch (IllegalStateException ex) {
+            // no DOM parser available
             LOGGER.error("Error parsing SLD file: " + ex);
         }
         return result;
@@ -802,16 +812,16 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
 
     private boolean checkSLD10Version(File fileSLD) {
         boolean result = false;
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            DocumentBuilder builder = XMLParsers.getDocumentBuilder();
             Document doc = builder.parse(fileSLD);
             result = this.checkSLD10Version(doc);
         } catch (SAXException ex) {
             LOGGER.error("Error parsing SLD file: " + ex);
         } catch (IOException ex) {
             LOGGER.error("Error parsing SLD file: " + ex);
-        } catch (ParserConfigurationException ex) {
+        } catch (IllegalStateException ex) {
+            // no DOM parser available
             LOGGER.error("Error parsing SLD file: " + ex);
         }
         return result;
@@ -820,9 +830,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     private boolean checkSLD10Version(Document doc) {
         boolean result = false;
         try {
-            XPathFactory xPathfactory = XPathFactory.newInstance();
-            XPath xpath = xPathfactory.newXPath();
-            XPathExpression expr = xpath.compile("//@version='1.0.0'");
+            XPathExpression expr = XMLParsers.getXPath("//@version='1.0.0'");
             result = (Boolean)expr.evaluate(doc, XPathConstants.BOOLEAN);
         } catch (XPathExpressionException ex) {
             LOGGER.error("Error parsing SLD file: " + ex);
@@ -0,0 +1,228 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.manager;
+
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterates over all the granules of a structured coverage, requesting them
+ * page by page.
+ * <P>
+ * While a page is being consumed the next one is downloaded on the given
+ * executor, if any; pages are kept as raw XML and decoded with
+ * {@link RESTStructuredCoverageGranulesStream}, so that a single granule is
+ * materialized at a time. Iteration stops at the first page holding less than
+ * the page size granules.
+ * <P>
+ * Instances are not thread-safe. Call {@link #close()} when abandoning the
+ * iteration early.
+ * 
+ * @see GeoServerRESTStructuredGridCoverageReaderManager#iterateGranules(String, String, String, String, int)
+ */
+public class RESTStructuredCoverageGranulesIterator implements Iterator<RESTStructuredCoverageGranule> {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(RESTStructuredCoverageGranulesIterator.class);
+
+    private final GeoServerRESTStructuredGridCoverageReaderManager manager;
+
+    private final String workspace;
+
+    private final String coverageStore;
+
+    private final String coverage;
+
+    private final String filter;
+
+    private final int pageSize;
+
+    private final ExecutorService executor;
+
+    private int offset;
+
+    private int pages;
+
+    private RESTStructuredCoverageGranulesStream page;
+
+    private Future<byte[]> nextPage;
+
+    private boolean closed;
+
+    RESTStructuredCoverageGranulesIterator(GeoServerRESTStructuredGridCoverageReaderManager manager,
+            String workspace, String coverageStore, String coverage, String filter, int pageSize,
+            ExecutorService executor) {
+        this.manager = manager;
+        this.workspace = workspace;
+        this.coverageStore = coverageStore;
+        this.coverage = coverage;
+        this.filter = filter;
+        this.pageSize = pageSize;
+        this.executor = executor;
+    }
+
+    /**
+     * @throws IllegalStateException if a page cannot be retrieved or parsed
+     */
+    @Override
+    public boolean hasNext() {
+        while (!closed) {
+            if (page != null) {
+                if (page.hasNext())
+                    return true;
+                final boolean full = page.getCount() >= pageSize;
+                page = null;
+                if (!full)
+                    break;
+            }
+            openPage();
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public RESTStructuredCoverageGranule next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return page.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return the number of pages retrieved so far
+     */
+    public int getPages() {
+        return pages;
+    }
+
+    /**
+     * Stops the iteration, discarding the page being prefetched.
+     */
+    public void close() {
+        closed = true;
+        if (page != null) {
+            page.close();
+            page = null;
+        }
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+    }
+
+    private void openPage() {
+        final int pageOffset = offset;
+        byte[] bytes;
+        if (nextPage != null) {
+            try {
+                bytes = nextPage.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while retrieving granules at offset "
+                        + pageOffset, e);
+            } catch (ExecutionException e) {
+                close();
+                throw new IllegalStateException("Unable to retrieve granules at offset " + pageOffset,
+                        e.getCause());
+            } finally {
+                nextPage = null;
+            }
+        } else {
+            bytes = fetch(pageOffset);
+        }
+        if (bytes == null) {
+            close();
+            throw new IllegalStateException("Unable to retrieve granules at offset " + pageOffset);
+        }
+        page = RESTStructuredCoverageGranulesStream.build(new ByteArrayInputStream(bytes));
+        if (page == null) {
+            close();
+            throw new IllegalStateException("Unable to parse granules at offset " + pageOffset);
+        }
+        pages++;
+        offset += pageSize;
+        if (executor != null)
+            nextPage = prefetch(offset);
+    }
+
+    /**
+     * @return the pending page, or null if the executor rejects the download
+     */
+    private Future<byte[]> prefetch(final int pageOffset) {
+        try {
+            return executor.submit(new Callable<byte[]>() {
+                public byte[] call() {
+                    return fetch(pageOffset);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // downloaded when needed
+            return null;
+        }
+    }
+
+    /**
+     * @return the page, or null if it cannot be retrieved
+     */
+    private byte[] fetch(int pageOffset) {
+        InputStream stream = null;
+        try {
+            stream = manager.getGranulesStream(workspace, coverageStore, coverage, filter,
+                    pageOffset, pageSize);
+            if (stream == null)
+                return null;
+            return IOUtils.toByteArray(stream);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalArgumentException(e);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read granules at offset " + pageOffset + ": "
+                    + e.getLocalizedMessage());
+            return null;
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+}
@@ -0,0 +1,929 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.manager;
+
+import it.geosolutions.geoserver.rest.HTTPTransport;
+import it.geosolutions.geoserver.rest.decoder.RESTEnvelope;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.jdom.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local copy of the granule index of a structured coverage, answering time,
+ * elevation and footprint queries and looking for duplicated granules
+ * without contacting GeoServer.
+ * <P>
+ * The granules are stored by column: fids as a shared prefix plus a number
+ * where possible, <code>time</code> and <code>updated</code> as epoch
+ * milliseconds, <code>elevation</code> as double, <code>location</code>
+ * dictionary encoded, and the footprint as its envelope. Missing values are
+ * {@link #NO_TIME}, <code>NaN</code>, <code>null</code> and
+ * {@link #NO_IMAGE_INDEX}.
+ * <P>
+ * The first {@link #sync()} loads the whole index; the next ones only request
+ * the granules whose <code>updated</code> attribute is not older than the
+ * latest one already mirrored. Removals are not seen by such a filter: the
+ * removals sent through the transport of the manager are tracked, the other
+ * ones require a {@link #markStale() full reload}. Indexes without the
+ * <code>updated</code> attribute are reloaded entirely on each sync.
+ * <P>
+ * Queries return row numbers, which stay valid until the next sync.
+ * Instances are thread-safe; queries run concurrently and wait for the sync
+ * only while its results are applied.
+ * 
+ * @see GeoServerRESTStructuredGridCoverageReaderManager#getGranulesMirror(String, String, String)
+ */
+public class RESTStructuredCoverageGranulesMirror {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(RESTStructuredCoverageGranulesMirror.class);
+
+    /** Missing time. */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /** Missing image index. */
+    public static final int NO_IMAGE_INDEX = -1;
+
+    public static final String TIME = "time";
+
+    public static final String ELEVATION = "elevation";
+
+    public static final String LOCATION = "location";
+
+    public static final String IMAGE_INDEX = "imageindex";
+
+    public static final String UPDATED = "updated";
+
+    /** Max number of fids checked by a single request. */
+    private static final int CHECK_BATCH = 100;
+
+    private final GeoServerRESTStructuredGridCoverageReaderManager manager;
+
+    private final String workspace;
+
+    private final String coverageStore;
+
+    private final String coverage;
+
+    private final int pageSize;
+
+    private final HTTPTransport.ChangeListener listener;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object syncLock = new Object();
+
+    /** Guarded by lock */
+    private Columns columns = new Columns(16);
+
+    /** The following fields are guarded by pendingLock */
+    private final Object pendingLock = new Object();
+
+    private boolean stale = true;
+
+    private final Set<String> removed = new HashSet<String>();
+
+    RESTStructuredCoverageGranulesMirror(GeoServerRESTStructuredGridCoverageReaderManager manager,
+            String workspace, String coverageStore, String coverage, int pageSize) {
+        this.manager = manager;
+        this.workspace = workspace;
+        this.coverageStore = coverageStore;
+        this.coverage = coverage;
+        this.pageSize = pageSize;
+        this.listener = new HTTPTransport.ChangeListener() {
+            public void changed(String url) {
+                RESTStructuredCoverageGranulesMirror.this.changed(url);
+            }
+        };
+        manager.getTransport().addChangeListener(listener);
+    }
+
+    /**
+     * Brings the mirror up to date.
+     * 
+     * @return the number of granules added, changed or removed
+     * @throws IllegalStateException if the granules cannot be retrieved; the
+     *         mirror is not changed
+     */
+    public int sync() throws IllegalStateException {
+        synchronized (syncLock) {
+            final boolean full;
+            final Set<String> check;
+            synchronized (pendingLock) {
+                full = stale || getLastUpdated() == NO_TIME;
+                check = new HashSet<String>(removed);
+                stale = false;
+                removed.clear();
+            }
+            boolean done = false;
+            try {
+                final int changes = full ? reload() : update(check);
+                done = true;
+                return changes;
+            } finally {
+                if (!done) {
+                    synchronized (pendingLock) {
+                        stale |= full;
+                        removed.addAll(check);
+                    }
+                }
+            }
+        }
+    }
+
+    private int reload() {
+        final Columns loaded = new Columns(pageSize);
+        for (RESTStructuredCoverageGranule granule : manager.iterateGranules(workspace,
+                coverageStore, coverage, null, pageSize)) {
+            loaded.put(granule);
+        }
+        lock.writeLock().lock();
+        try {
+            columns = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Mirrored " + loaded.size + " granules of " + coverage);
+        return loaded.size;
+    }
+
+    private int update(Set<String> check) {
+        // granules updated in the same millisecond as the latest one may not have been seen
+        final String filter = UPDATED + " AFTER " + formatTime(getLastUpdated() - 1);
+        final Columns changed = new Columns(16);
+        for (RESTStructuredCoverageGranule granule : manager.iterateGranules(workspace,
+                coverageStore, coverage, filter, pageSize)) {
+            changed.put(granule);
+        }
+
+        // the removals may have failed: look for the granules still there
+        final Set<String> gone = new HashSet<String>(check);
+        final List<String> fids = new ArrayList<String>(check);
+        for (int start = 0; start < fids.size(); start += CHECK_BATCH) {
+            final StringBuilder ids = new StringBuilder("IN (");
+            for (int i = start; i < Math.min(start + CHECK_BATCH, fids.size()); i++) {
+                ids.append(i > start ? ",'" : "'").append(fids.get(i).replace("'", "''")).append('\'');
+            }
+            for (RESTStructuredCoverageGranule granule : manager.iterateGranules(workspace,
+                    coverageStore, coverage, ids.append(')').toString(), pageSize)) {
+                gone.remove(granule.getFid());
+            }
+        }
+
+        int changes = 0;
+        lock.writeLock().lock();
+        try {
+            for (int row = 0; row < changed.size; row++) {
+                columns.put(changed, row);
+                changes++;
+            }
+            for (String fid : gone) {
+                final int row = columns.find(fid);
+                if (row >= 0) {
+                    columns.remove(row);
+                    changes++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Synchronized " + changes + " granules of " + coverage);
+        return changes;
+    }
+
+    /**
+     * Forces the next {@link #sync()} to reload the whole index.
+     */
+    public void markStale() {
+        synchronized (pendingLock) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Tracks the removals of granules sent through the transport.
+     */
+    void changed(String url) {
+        final String ws = "/rest/workspaces/" + workspace;
+        final int wsStart = url.indexOf(ws);
+        if (url.contains("/rest/reload")) {
+            markStale();
+            return;
+        } else if (wsStart >= 0 && wsStart + ws.length() < url.length()) {
+            final char next = url.charAt(wsStart + ws.length());
+            if (next == '?' || next == '.') {
+                // the whole workspace was removed
+                markStale();
+                return;
+            }
+        } else if (wsStart >= 0) {
+            markStale();
+            return;
+        }
+        final String store = ws + "/coveragestores/" + coverageStore;
+        final int start = url.indexOf(store);
+        if (start < 0)
+            return;
+        String path = url.substring(start + store.length());
+        final String granules = "/coverages/" + coverage + "/index/granules";
+        if (path.startsWith(granules + "/")) {
+            String fid = path.substring(granules.length() + 1);
+            final int end = fid.indexOf('?');
+            if (end >= 0)
+                fid = fid.substring(0, end);
+            if (fid.endsWith(".xml"))
+                fid = fid.substring(0, fid.length() - 4);
+            synchronized (pendingLock) {
+                removed.add(fid);
+            }
+        } else if (path.startsWith(granules) || path.length() == 0 || path.startsWith("?")
+                || path.startsWith(".") || path.equals("/coverages/" + coverage)
+                || path.startsWith("/coverages/" + coverage + "?")
+                || path.startsWith("/coverages/" + coverage + ".")) {
+            // removals by filter, or the whole store or coverage changed
+            markStale();
+        }
+        // harvested granules are found by the next update
+    }
+
+    /**
+     * Stops tracking the removals sent through the transport of the manager.
+     */
+    public void close() {
+        manager.getTransport().removeChangeListener(listener);
+    }
+
+    // ========================================================================
+    // Queries
+
+    /**
+     * @return the number of granules
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the latest <code>updated</code> value, or {@link #NO_TIME}
+     */
+    public long getLastUpdated() {
+        lock.readLock().lock();
+        try {
+            return columns.lastUpdated;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param from the lower bound, in epoch milliseconds, included
+     * @param to the upper bound, in epoch milliseconds, included
+     * @return the rows whose time is in the range
+     */
+    public int[] findByTime(long from, long to) {
+        return find(from, to, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true, false);
+    }
+
+    /**
+     * @return the rows whose elevation is in the range, bounds included
+     */
+    public int[] findByElevation(double min, double max) {
+        return find(Long.MIN_VALUE, Long.MAX_VALUE, min, max, false, true);
+    }
+
+    /**
+     * @return the rows whose time and elevation are both in the ranges,
+     *         bounds included
+     */
+    public int[] find(long from, long to, double min, double max) {
+        return find(from, to, min, max, true, true);
+    }
+
+    private int[] find(long from, long to, double min, double max, boolean byTime,
+            boolean byElevation) {
+        lock.readLock().lock();
+        try {
+            final Columns c = columns;
+            int[] rows = new int[16];
+            int found = 0;
+            for (int row = 0; row < c.size; row++) {
+                if (byTime) {
+                    final long time = c.times[row];
+                    if (time == NO_TIME || time < from || time > to)
+                        continue;
+                }
+                if (byElevation) {
+                    final double elevation = c.elevations[row];
+                    // false for NaN
+                    if (!(elevation >= min && elevation <= max))
+                        continue;
+                }
+                if (found == rows.length)
+                    rows = Arrays.copyOf(rows, 2 * found);
+                rows[found++] = row;
+            }
+            return Arrays.copyOf(rows, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the rows whose footprint envelope intersects the box
+     */
+    public int[] findByFootprint(double minX, double minY, double maxX, double maxY) {
+        lock.readLock().lock();
+        try {
+            final Columns c = columns;
+            final double[] f = c.footprints;
+            int[] rows = new int[16];
+            int found = 0;
+            for (int row = 0; row < c.size; row++) {
+                if (f[4 * row] <= maxX && f[4 * row + 2] >= minX && f[4 * row + 1] <= maxY
+                        && f[4 * row + 3] >= minY) {
+                    if (found == rows.length)
+                        rows = Arrays.copyOf(rows, 2 * found);
+                    rows[found++] = row;
+                }
+            }
+            return Arrays.copyOf(rows, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Looks for the granules sharing both location and image index.
+     * 
+     * @return the fids of the duplicated granules, by location, sorted by
+     *         location
+     */
+    public SortedMap<String, List<String>> findDuplicateLocations() {
+        lock.readLock().lock();
+        try {
+            final Columns c = columns;
+            // counting sort of the rows by location
+            final int locations = c.locationNames.size();
+            final int[] starts = new int[locations + 1];
+            for (int row = 0; row < c.size; row++) {
+                if (c.locations[row] >= 0)
+                    starts[c.locations[row] + 1]++;
+            }
+            for (int l = 0; l < locations; l++) {
+                starts[l + 1] += starts[l];
+            }
+            final int[] next = Arrays.copyOf(starts, locations);
+            final int[] sorted = new int[starts[locations]];
+            for (int row = 0; row < c.size; row++) {
+                if (c.locations[row] >= 0)
+                    sorted[next[c.locations[row]]++] = row;
+            }
+
+            final SortedMap<String, List<String>> duplicates = new TreeMap<String, List<String>>();
+            final Map<Integer, Integer> firsts = new HashMap<Integer, Integer>();
+            for (int l = 0; l < locations; l++) {
+                if (starts[l + 1] - starts[l] < 2)
+                    continue;
+                firsts.clear();
+                List<String> fids = null;
+                for (int i = starts[l]; i < starts[l + 1]; i++) {
+                    final int row = sorted[i];
+                    final Integer first = firsts.get(c.imageIndexes[row]);
+                    if (first == null) {
+                        firsts.put(c.imageIndexes[row], row);
+                        continue;
+                    }
+                    if (fids == null) {
+                        fids = new ArrayList<String>();
+                        duplicates.put(c.locationNames.get(l), fids);
+                    }
+                    if (first.intValue() >= 0) {
+                        fids.add(c.fid(first));
+                        // the first one is listed once
+                        firsts.put(c.imageIndexes[row], -1);
+                    }
+                    fids.add(c.fid(row));
+                }
+            }
+            return duplicates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the row of the granule, or -1 if not mirrored
+     */
+    public int getRow(String fid) {
+        lock.readLock().lock();
+        try {
+            return columns.find(fid);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getFid(int row) {
+        lock.readLock().lock();
+        try {
+            return columns.fid(check(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getTime(int row) {
+        lock.readLock().lock();
+        try {
+            return columns.times[check(row)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getElevation(int row) {
+        lock.readLock().lock();
+        try {
+            return columns.elevations[check(row)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getLocation(int row) {
+        lock.readLock().lock();
+        try {
+            final int location = columns.locations[check(row)];
+            return location < 0 ? null : columns.locationNames.get(location);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getImageIndex(int row) {
+        lock.readLock().lock();
+        try {
+            return columns.imageIndexes[check(row)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getUpdated(int row) {
+        lock.readLock().lock();
+        try {
+            return columns.updated[check(row)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the envelope of the footprint, or null if the granule has none
+     */
+    public RESTEnvelope getFootprint(int row) {
+        lock.readLock().lock();
+        try {
+            final double[] f = columns.footprints;
+            final int i = 4 * check(row);
+            if (Double.isNaN(f[i]))
+                return null;
+            return new RESTEnvelope(f[i], f[i + 1], f[i + 2], f[i + 3], null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= columns.size)
+            throw new IndexOutOfBoundsException("Row " + row + ", size " + columns.size);
+        return row;
+    }
+
+    // ========================================================================
+    // Storage
+
+    /**
+     * The granules, by column; not thread-safe.
+     */
+    private static final class Columns {
+
+        int size;
+
+        /** Prefix shared by the fids stored as numbers, such as "V." */
+        String fidPrefix;
+
+        /** Number following the prefix, or -1 if the fid is in fidStrings */
+        long[] fidNumbers;
+
+        /** The fids not made of prefix and number; allocated on demand */
+        String[] fidStrings;
+
+        int[] fidHashes;
+
+        /** Open addressing table of row + 1, by fid hash */
+        int[] slots;
+
+        long[] times;
+
+        double[] elevations;
+
+        int[] locations;
+
+        int[] imageIndexes;
+
+        /** minx, miny, maxx, maxy; NaN if missing */
+        double[] footprints;
+
+        long[] updated;
+
+        long lastUpdated = NO_TIME;
+
+        final List<String> locationNames = new ArrayList<String>();
+
+        final Map<String, Integer> locationIds = new HashMap<String, Integer>();
+
+        Columns(int capacity) {
+            capacity = Math.max(capacity, 16);
+            fidNumbers = new long[capacity];
+            fidHashes = new int[capacity];
+            slots = new int[2 * Integer.highestOneBit(capacity - 1) << 1];
+            times = new long[capacity];
+            elevations = new double[capacity];
+            locations = new int[capacity];
+            imageIndexes = new int[capacity];
+            footprints = new double[4 * capacity];
+            updated = new long[capacity];
+        }
+
+        String fid(int row) {
+            final long number = fidNumbers[row];
+            return number < 0 ? fidStrings[row] : fidPrefix + number;
+        }
+
+        int find(String fid) {
+            final int mask = slots.length - 1;
+            final int hash = fid.hashCode();
+            for (int i = mix(hash) & mask;; i = (i + 1) & mask) {
+                final int slot = slots[i];
+                if (slot == 0)
+                    return -1;
+                if (fidHashes[slot - 1] == hash && fid.equals(fid(slot - 1)))
+                    return slot - 1;
+            }
+        }
+
+        /**
+         * Decodes a granule, replacing the one with the same fid.
+         */
+        void put(RESTStructuredCoverageGranule granule) {
+            final int row = row(granule.getFid());
+            times[row] = parseTime(granule.getAttributeByName(TIME));
+            elevations[row] = parseDouble(granule.getAttributeByName(ELEVATION));
+            locations[row] = location(granule.getAttributeByName(LOCATION));
+            imageIndexes[row] = parseInt(granule.getAttributeByName(IMAGE_INDEX));
+            setUpdated(row, parseTime(granule.getAttributeByName(UPDATED)));
+            parseFootprint(granule, footprints, 4 * row);
+        }
+
+        /**
+         * Copies a row of another instance, replacing the one with the same fid.
+         */
+        void put(Columns other, int otherRow) {
+            final int row = row(other.fid(otherRow));
+            times[row] = other.times[otherRow];
+            elevations[row] = other.elevations[otherRow];
+            final int location = other.locations[otherRow];
+            locations[row] = location(location < 0 ? null : other.locationNames.get(location));
+            imageIndexes[row] = other.imageIndexes[otherRow];
+            setUpdated(row, other.updated[otherRow]);
+            System.arraycopy(other.footprints, 4 * otherRow, footprints, 4 * row, 4);
+        }
+
+        private void setUpdated(int row, long time) {
+            updated[row] = time;
+            if (time != NO_TIME && (lastUpdated == NO_TIME || time > lastUpdated))
+                lastUpdated = time;
+        }
+
+        /**
+         * @return the row of the fid, added if missing
+         */
+        private int row(String fid) {
+            final int existing = find(fid);
+            if (existing >= 0)
+                return existing;
+            if (size == times.length)
+                grow();
+            final int row = size++;
+            setFid(row, fid);
+            if (2 * size > slots.length)
+                rehash(2 * slots.length);
+            else
+                insert(row);
+            return row;
+        }
+
+        private void setFid(int row, String fid) {
+            fidHashes[row] = fid.hashCode();
+            final int dot = fid.lastIndexOf('.') + 1;
+            long number = -1;
+            if (dot > 0 && dot < fid.length() && dot > fid.length() - 19
+                    && (fid.charAt(dot) != '0' || dot == fid.length() - 1)) {
+                number = 0;
+                for (int i = dot; i < fid.length() && number >= 0; i++) {
+                    final char ch = fid.charAt(i);
+                    number = ch >= '0' && ch <= '9' ? number * 10 + (ch - '0') : -1;
+                }
+            }
+            if (number >= 0) {
+                if (fidPrefix == null)
+                    fidPrefix = fid.substring(0, dot);
+                else if (!fid.regionMatches(0, fidPrefix, 0, dot) || fidPrefix.length() != dot)
+                    number = -1;
+            }
+            fidNumbers[row] = number;
+            if (number < 0) {
+                if (fidStrings == null)
+                    fidStrings = new String[fidNumbers.length];
+                fidStrings[row] = fid;
+            } else if (fidStrings != null) {
+                fidStrings[row] = null;
+            }
+        }
+
+        private int location(String location) {
+            if (location == null)
+                return -1;
+            Integer id = locationIds.get(location);
+            if (id == null) {
+                id = locationNames.size();
+                locationNames.add(location);
+                locationIds.put(location, id);
+            }
+            return id;
+        }
+
+        /**
+         * Removes a row, moving the last one in its place; unused locations
+         * stay in the dictionary.
+         */
+        void remove(int row) {
+            final int last = --size;
+            if (row != last) {
+                fidHashes[row] = fidHashes[last];
+                fidNumbers[row] = fidNumbers[last];
+                if (fidStrings != null)
+                    fidStrings[row] = fidStrings[last];
+                times[row] = times[last];
+                elevations[row] = elevations[last];
+                locations[row] = locations[last];
+                imageIndexes[row] = imageIndexes[last];
+                updated[row] = updated[last];
+                System.arraycopy(footprints, 4 * last, footprints, 4 * row, 4);
+            }
+            if (fidStrings != null)
+                fidStrings[last] = null;
+            rehash(slots.length);
+        }
+
+        private void grow() {
+            final int capacity = times.length * 2;
+            fidNumbers = Arrays.copyOf(fidNumbers, capacity);
+            if (fidStrings != null)
+                fidStrings = Arrays.copyOf(fidStrings, capacity);
+            fidHashes = Arrays.copyOf(fidHashes, capacity);
+            times = Arrays.copyOf(times, capacity);
+            elevations = Arrays.copyOf(elevations, capacity);
+            locations = Arrays.copyOf(locations, capacity);
+            imageIndexes = Arrays.copyOf(imageIndexes, capacity);
+            footprints = Arrays.copyOf(footprints, 4 * capacity);
+            updated = Arrays.copyOf(updated, capacity);
+        }
+
+        private void rehash(int length) {
+            slots = new int[length];
+            for (int row = 0; row < size; row++) {
+                insert(row);
+            }
+        }
+
+        private void insert(int row) {
+            final int mask = slots.length - 1;
+            int i = mix(fidHashes[row]) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = row + 1;
+        }
+
+        private static int mix(int hash) {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    // ========================================================================
+    // Parsing
+
+    private static double parseDouble(String value) {
+        if (value == null || value.length() == 0)
+            return Double.NaN;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static int parseInt(String value) {
+        if (value == null || value.length() == 0)
+            return NO_IMAGE_INDEX;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return NO_IMAGE_INDEX;
+        }
+    }
+
+    /**
+     * Parses an ISO 8601 date time, such as <code>2013-03-01T23:00:00Z</code>
+     * or <code>2013-04-08T05:40:29.061+02:00</code>; a missing offset is UTC.
+     * 
+     * @return the epoch milliseconds, or {@link #NO_TIME} if the value cannot be parsed
+     */
+    static long parseTime(String value) {
+        if (value == null || value.length() < 10)
+            return NO_TIME;
+        try {
+            final int year = digits(value, 0, 4);
+            final int month = digits(value, 5, 7);
+            final int day = digits(value, 8, 10);
+            if (value.charAt(4) != '-' || value.charAt(7) != '-')
+                return NO_TIME;
+            int hour = 0, minute = 0, second = 0, millis = 0, offset = 0;
+            int pos = 10;
+            final int length = value.length();
+            if (pos < length && (value.charAt(pos) == 'T' || value.charAt(pos) == ' ')) {
+                hour = digits(value, 11, 13);
+                minute = digits(value, 14, 16);
+                pos = 16;
+                if (pos < length && value.charAt(pos) == ':') {
+                    second = digits(value, 17, 19);
+                    pos = 19;
+                    if (pos < length && value.charAt(pos) == '.') {
+                        int scale = 100;
+                        pos++;
+                        while (pos < length && Character.isDigit(value.charAt(pos))) {
+                            millis += (value.charAt(pos++) - '0') * scale;
+                            scale /= 10;
+                        }
+                    }
+                }
+            }
+            if (pos < length) {
+                final char sign = value.charAt(pos);
+                if (sign == '+' || sign == '-') {
+                    final int hours = digits(value, pos + 1, pos + 3);
+                    int colon = pos + 3 < length && value.charAt(pos + 3) == ':' ? 1 : 0;
+                    final int minutes = pos + 3 + colon < length ? digits(value, pos + 3 + colon,
+                            pos + 5 + colon) : 0;
+                    offset = (sign == '+' ? 1 : -1) * (hours * 60 + minutes);
+                } else if (sign != 'Z') {
+                    return NO_TIME;
+                }
+            }
+            final long days = daysFromCivil(year, month, day);
+            return (((days * 24 + hour) * 60 + minute - offset) * 60 + second) * 1000 + millis;
+        } catch (RuntimeException e) {
+            return NO_TIME;
+        }
+    }
+
+    private static int digits(String value, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            final char ch = value.charAt(i);
+            if (ch < '0' || ch > '9')
+                throw new NumberFormatException(value);
+            result = result * 10 + (ch - '0');
+        }
+        return result;
+    }
+
+    /**
+     * @return the days since 1970-01-01 of a proleptic Gregorian date
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        final long y = month <= 2 ? year - 1 : year;
+        final long era = (y >= 0 ? y : y - 399) / 400;
+        final long yoe = y - era * 400;
+        final long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    static String formatTime(long time) {
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(time));
+    }
+
+    /**
+     * Stores the envelope of the first geometry of the granule, or NaNs.
+     */
+    @SuppressWarnings("unchecked")
+    private static void parseFootprint(RESTStructuredCoverageGranule granule, double[] dest,
+            int offset) {
+        double minX = Double.NaN, minY = Double.NaN, maxX = Double.NaN, maxY = Double.NaN;
+        for (Iterator<Element> it = granule.getAttributesIterator(); it.hasNext();) {
+            final Element attribute = it.next();
+            if (attribute.getChildren().isEmpty())
+                continue;
+            final String text = coordinates(attribute);
+            if (text == null)
+                break;
+            // x,y x,y for gml:coordinates, x y x y for gml:posList
+            final String[] tokens = text.trim().split("[\\s,]+");
+            for (int i = 0; i + 1 < tokens.length; i += 2) {
+                final double x = Double.parseDouble(tokens[i]);
+                final double y = Double.parseDouble(tokens[i + 1]);
+                if (Double.isNaN(minX) || x < minX)
+                    minX = x;
+                if (Double.isNaN(maxX) || x > maxX)
+                    maxX = x;
+                if (Double.isNaN(minY) || y < minY)
+                    minY = y;
+                if (Double.isNaN(maxY) || y > maxY)
+                    maxY = y;
+            }
+            break;
+        }
+        dest[offset] = minX;
+        dest[offset + 1] = minY;
+        dest[offset + 2] = maxX;
+        dest[offset + 3] = maxY;
+    }
+
+    /**
+     * @return the text of the first coordinates, posList or pos element, or null
+     */
+    @SuppressWarnings("unchecked")
+    private static String coordinates(Element element) {
+        final String name = element.getName();
+        if (name.equals("coordinates") || name.equals("posList") || name.equals("pos"))
+            return element.getText();
+        for (Element child : (List<Element>) element.getChildren()) {
+            final String text = coordinates(child);
+            if (text != null)
+                return text;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,107 @@
+package it.geosolutions.geoserver.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.RESTCoverage;
+import it.geosolutions.geoserver.rest.decoder.RESTDimensionInfo;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureTypeList;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import it.geosolutions.geoserver.rest.decoder.utils.JSONBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Checks that the JSON representations are decoded as the XML ones.
+ */
+public class JSONDecoderTest {
+
+    private static String read(String resource) throws IOException {
+        return FileUtils.readFileToString(new ClassPathResource(resource).getFile(), "UTF-8");
+    }
+
+    /**
+     * @return a stream on the given JSON text, marked as such
+     */
+    private static InputStream json(String text) throws IOException {
+        return JSONBuilder.wrap(new ByteArrayInputStream(text.getBytes("UTF-8")));
+    }
+
+    private static String xml(String url) {
+        return url.replace(".json", ".xml");
+    }
+
+    @Test
+    public void testLayer() throws IOException {
+        RESTLayer expected = RESTLayer.build(read("testdata/layerExample.xml"));
+        RESTLayer layer = new RESTLayer(JSONBuilder.buildElement(read("testdata/layerExample.json")));
+
+        Assert.assertEquals(expected.getName(), layer.getName());
+        Assert.assertEquals(expected.getType(), layer.getType());
+        Assert.assertEquals(expected.getDefaultStyle(), layer.getDefaultStyle());
+        Assert.assertEquals(expected.getStyles().getNames(), layer.getStyles().getNames());
+        Assert.assertEquals(expected.getEnabled(), layer.getEnabled());
+        Assert.assertEquals(expected.getQueryable(), layer.getQueryable());
+        Assert.assertEquals(expected.getAdvertised(), layer.getAdvertised());
+        Assert.assertEquals(expected.getResourceUrl(), xml(layer.getResourceUrl()));
+        Assert.assertEquals(expected.getEncodedAuthorityURLInfoList().get(1).getHref(), layer
+                .getEncodedAuthorityURLInfoList().get(1).getHref());
+        Assert.assertEquals(expected.getEncodedIdentifierInfoList().get(1).getIdentifier(), layer
+                .getEncodedIdentifierInfoList().get(1).getIdentifier());
+    }
+
+    @Test
+    public void testCoverage() throws IOException {
+        RESTCoverage expected = RESTCoverage.build(read("testdata/coverageExample.xml"));
+        RESTCoverage coverage = RESTCoverage.build(JSONBuilder.wrap(new FileInputStream(
+                new ClassPathResource("testdata/coverageExample.json").getFile())));
+
+        Assert.assertEquals(expected.getName(), coverage.getName());
+        Assert.assertEquals(expected.getAbstract(), coverage.getAbstract());
+        Assert.assertEquals(expected.getKeywords(), coverage.getKeywords());
+        Assert.assertEquals(expected.getNameSpace(), coverage.getNameSpace());
+        Assert.assertEquals(expected.getStoreName(), coverage.getStoreName());
+        Assert.assertEquals(expected.getStoreType(), coverage.getStoreType());
+        Assert.assertEquals(expected.getStoreUrl(), xml(coverage.getStoreUrl()));
+        Assert.assertEquals(expected.getSRS(), coverage.getSRS());
+        Assert.assertEquals(expected.getNativeBoundingBox().getMinX(), coverage
+                .getNativeBoundingBox().getMinX(), 0d);
+        Assert.assertEquals(expected.getLatLonBoundingBox().getCRS(), coverage
+                .getLatLonBoundingBox().getCRS());
+        Assert.assertEquals(expected.getEncodedMetadataLinkInfoList().get(1).getContent(),
+                coverage.getEncodedMetadataLinkInfoList().get(1).getContent());
+        Assert.assertEquals(expected.getEncodedDimensionsInfoList().size(), coverage
+                .getEncodedDimensionsInfoList().size());
+
+        List<RESTDimensionInfo> dimensions = coverage.getDimensionInfo();
+        Assert.assertEquals(2, dimensions.size());
+        Assert.assertEquals("elevation", dimensions.get(1).getKey());
+        Assert.assertEquals("2", dimensions.get(1).getResolution());
+        Assert.assertEquals("DISCRETE_INTERVAL", dimensions.get(1).getPresentation());
+    }
+
+    @Test
+    public void testList() throws IOException {
+        Assert.assertEquals(RESTFeatureTypeList.build(read("testdata/featureTypeListExample.xml"))
+                .getNames(), RESTFeatureTypeList.build(
+                json(read("testdata/featureTypeListExample.json"))).getNames());
+        Assert.assertTrue(RESTFeatureTypeList.build(json("{\"featureTypes\":\"\"}")).isEmpty());
+        Assert.assertNull(RESTFeatureTypeList.build(json("{\"featureTypes\":")));
+        Assert.assertNull(JSONBuilder.buildElement("[]"));
+    }
+
+    @Test
+    public void testOnlyMarkedStreams() throws IOException {
+        String json = read("testdata/featureTypeListExample.json");
+        Assert.assertNull(JDOMBuilder.buildElement(json));
+        Assert.assertNull(JDOMBuilder.buildElement(new ByteArrayInputStream(json.getBytes("UTF-8"))));
+        Assert.assertEquals("featureTypes", JDOMBuilder.buildElement(json(json)).getName());
+    }
+}
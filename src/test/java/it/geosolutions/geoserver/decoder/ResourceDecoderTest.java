@@ -2,6 +2,7 @@ package it.geosolutions.geoserver.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.RESTBoundingBox;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverage;
+import it.geosolutions.geoserver.rest.decoder.RESTEnvelope;
 import it.geosolutions.geoserver.rest.encoder.dimensions.GSCoverageDimensionEncoder;
 import it.geosolutions.geoserver.rest.encoder.metadatalink.GSMetadataLinkInfoEncoder;
 
@@ -128,6 +129,17 @@ public class ResourceDecoderTest {
         Assert.assertEquals(90, bbox.getMaxY(), 0); 	
     }
     
+    @Test
+    public void testEnvelope() {
+        RESTEnvelope envelope = coverage.getLatLonEnvelope();
+        Assert.assertEquals(new RESTEnvelope(-180, -90, 180, 90, "EPSG:4326"), envelope);
+        Assert.assertSame(envelope, coverage.getLatLonEnvelope());
+        Assert.assertEquals(envelope, coverage.getNativeEnvelope());
+        Assert.assertEquals(envelope, coverage.getLatLonBoundingBox().getEnvelope());
+        Assert.assertTrue(envelope.intersects(new RESTEnvelope(170, 80, 190, 100, null)));
+        Assert.assertFalse(envelope.intersects(new RESTEnvelope(181, 0, 190, 10, null)));
+    }
+
     @Test
     public void testMetadataLinkInfo() throws IOException {
 
@@ -2,7 +2,9 @@ package it.geosolutions.geoserver.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.RESTWmsStore;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 
 import org.apache.commons.io.FileUtils;
@@ -82,4 +84,21 @@ public class WmsStoreDecoderTest {
     public void testConnectTimeout() {
         Assert.assertEquals(wmsstore.getConnectTimeout(), "30");
     }    
+
+    @Test
+    public void testEmptyResponse() {
+        // the stream is decoded as the String
+        Assert.assertNull(RESTWmsStore.build("").getName());
+        RESTWmsStore empty = RESTWmsStore.build(new ByteArrayInputStream(new byte[0]));
+        Assert.assertNotNull(empty);
+        Assert.assertNull(empty.getName());
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        File wmsstoreFile = new ClassPathResource("testdata/wmsstoreExample.xml").getFile();
+        RESTWmsStore streamed = RESTWmsStore.build(new FileInputStream(wmsstoreFile));
+        Assert.assertEquals(wmsstore.getName(), streamed.getName());
+        Assert.assertEquals(wmsstore.getCapabilitiesURL(), streamed.getCapabilitiesURL());
+    }
 }
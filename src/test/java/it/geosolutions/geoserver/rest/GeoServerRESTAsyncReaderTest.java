@@ -0,0 +1,92 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Checks the asynchronous facade without a running GeoServer.
+ */
+public class GeoServerRESTAsyncReaderTest {
+
+    @Test
+    public void testCallsCompleteWithoutServer() throws Exception {
+        GeoServerRESTAsyncReader async = new GeoServerRESTAsyncReader(
+                StubTransport.unreachableReader(), 2);
+        try {
+            Future<Boolean> exists = async.existGeoserver();
+            Future<RESTLayerList> layers = async.getLayers();
+            assertFalse(exists.get(30, TimeUnit.SECONDS));
+            assertNull(layers.get(30, TimeUnit.SECONDS));
+        } finally {
+            async.shutdown();
+        }
+        assertTrue(async.getExecutor().isShutdown());
+    }
+
+    @Test
+    public void testFailureIsReportedByTheFuture() throws Exception {
+        GeoServerRESTAsyncReader async = new GeoServerRESTAsyncReader(
+                StubTransport.unreachableReader(), 1);
+        try {
+            async.existsWorkspace("topp").get(30, TimeUnit.SECONDS);
+            fail("The connection failure should be reported");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RuntimeException);
+        } finally {
+            async.shutdown();
+        }
+    }
+
+    @Test
+    public void testSharedExecutorIsNotShutdown() throws Exception {
+        ExecutorService executor = GeoServerRESTAbstractAsync.newExecutor(1);
+        try {
+            GeoServerRESTAsyncReader async = new GeoServerRESTAsyncReader(
+                    StubTransport.unreachableReader(), executor);
+            async.shutdown();
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullReader() {
+        new GeoServerRESTAsyncReader(null, 1);
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import it.geosolutions.geoserver.rest.GeoServerRESTBatchPublisher.Item;
+import it.geosolutions.geoserver.rest.GeoServerRESTBatchPublisher.Plan;
+import it.geosolutions.geoserver.rest.GeoServerRESTBatchPublisher.Report;
+import it.geosolutions.geoserver.rest.GeoServerRESTBatchPublisher.Status;
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.StoreType;
+import it.geosolutions.geoserver.rest.encoder.GSAbstractStoreEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSResourceEncoder;
+import it.geosolutions.geoserver.rest.encoder.datastore.GSPostGISDatastoreEncoder;
+import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+import it.geosolutions.geoserver.rest.manager.GeoServerRESTStoreManager;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Checks the batch publisher against a fake publisher, without a running
+ * GeoServer.
+ */
+public class GeoServerRESTBatchPublisherTest {
+
+    /**
+     * Records the calls, failing the ones on the given names.
+     */
+    private static class Recorder {
+
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+
+        final Set<String> failing = new HashSet<String>();
+
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        volatile long delay;
+
+        boolean call(String name) {
+            final int now = inFlight.incrementAndGet();
+            synchronized (maxInFlight) {
+                if (now > maxInFlight.get())
+                    maxInFlight.set(now);
+            }
+            try {
+                if (delay > 0)
+                    Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            calls.add(name);
+            if ("boom".equals(name))
+                throw new RuntimeException("boom");
+            return !failing.contains(name);
+        }
+
+        int indexOf(String name) {
+            return calls.indexOf(name);
+        }
+    }
+
+    private static GeoServerRESTBatchPublisher batch(final Recorder recorder, int threads)
+            throws Exception {
+        final GeoServerRESTPublisher publisher = new GeoServerRESTPublisher(
+                "http://localhost:1/geoserver", "admin", "geoserver") {
+            @Override
+            public boolean createWorkspace(String workspace) {
+                return recorder.call(workspace);
+            }
+
+            @Override
+            public boolean publishStyle(String sldBody, String name) {
+                return recorder.call(name);
+            }
+
+            @Override
+            public boolean publishStyleInWorkspace(String workspace, String sldBody, String name) {
+                return recorder.call(workspace + ":" + name);
+            }
+
+            @Override
+            public boolean createResource(String workspace, StoreType dsType, String storeName,
+                    GSResourceEncoder re) {
+                return recorder.call(workspace + ":" + re.getName());
+            }
+
+            @Override
+            public boolean configureLayer(String workspace, String resourceName,
+                    GSLayerEncoder layer) {
+                return recorder.call("layer " + workspace + ":" + resourceName);
+            }
+
+            @Override
+            public boolean createLayerGroup(String workspace, String name,
+                    GSLayerGroupEncoder group) {
+                return recorder.call("group " + name);
+            }
+        };
+        final GeoServerRESTStoreManager storeManager = new GeoServerRESTStoreManager(new URL(
+                "http://localhost:1/geoserver"), "admin", "geoserver") {
+            @Override
+            public boolean create(String workspace, GSAbstractStoreEncoder store) {
+                return recorder.call("store " + workspace + ":" + store.getName());
+            }
+        };
+        return new GeoServerRESTBatchPublisher(publisher, storeManager, threads);
+    }
+
+    private static GSFeatureTypeEncoder featureType(String name) {
+        GSFeatureTypeEncoder fte = new GSFeatureTypeEncoder();
+        fte.setName(name);
+        return fte;
+    }
+
+    /**
+     * Adds a store with the given number of layers, styled with "ws:style".
+     */
+    private static void addLayers(Plan plan, String ws, String store, int layers) {
+        plan.createStore(ws, new GSPostGISDatastoreEncoder(store));
+        for (int i = 0; i < layers; i++) {
+            plan.createResource(ws, StoreType.DATASTORES, store, featureType(store + i));
+            GSLayerEncoder layer = new GSLayerEncoder();
+            layer.setDefaultStyle(ws, "style");
+            plan.configureLayer(ws, store + i, layer);
+        }
+    }
+
+    @Test
+    public void testDependenciesAreRespected() throws Exception {
+        Recorder recorder = new Recorder();
+        GeoServerRESTBatchPublisher batch = batch(recorder, 4);
+        try {
+            Plan plan = batch.newPlan();
+            // added in reverse order on purpose
+            GSLayerGroupEncoder group = new GSLayerGroupEncoder();
+            group.addLayer("ws:roads0");
+            group.addLayer("rivers0");
+            plan.createLayerGroup(null, "all", group);
+            addLayers(plan, "ws", "roads", 2);
+            addLayers(plan, "ws", "rivers", 1);
+            plan.publishStyle("ws", "style", "<sld/>");
+            plan.createWorkspace("ws");
+
+            Report report = batch.execute(plan);
+            assertTrue(report.toString(), report.isSuccessful());
+            assertEquals(plan.getItems().size(), report.getCount(Status.SUCCEEDED));
+            assertEquals(plan.getItems().size(), recorder.calls.size());
+
+            assertEquals("ws", recorder.calls.get(0));
+            assertTrue(recorder.indexOf("store ws:roads") < recorder.indexOf("ws:roads1"));
+            assertTrue(recorder.indexOf("ws:roads1") < recorder.indexOf("layer ws:roads1"));
+            assertTrue(recorder.indexOf("ws:style") < recorder.indexOf("layer ws:roads0"));
+            assertTrue(recorder.indexOf("layer ws:roads0") < recorder.indexOf("group all"));
+            assertTrue(recorder.indexOf("layer ws:rivers0") < recorder.indexOf("group all"));
+            assertTrue(report.getThroughput() > 0);
+        } finally {
+            batch.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailureSkipsDependents() throws Exception {
+        Recorder recorder = new Recorder();
+        recorder.failing.add("store ws:roads");
+        GeoServerRESTBatchPublisher batch = batch(recorder, 2);
+        try {
+            Plan plan = batch.newPlan();
+            plan.createWorkspace("ws");
+            plan.publishStyle("ws", "style", "<sld/>");
+            addLayers(plan, "ws", "roads", 2);
+            addLayers(plan, "ws", "rivers", 1);
+            Item boom = plan.publishStyle(null, "boom", "<sld/>");
+            Item after = plan.publishStyle(null, "after", "<sld/>").dependsOn(boom);
+
+            Report report = batch.execute(plan);
+            assertFalse(report.isSuccessful());
+            // the store and the boom style
+            assertEquals(2, report.getCount(Status.FAILED));
+            // 2 resources, 2 layers and the style after boom
+            assertEquals(5, report.getCount(Status.SKIPPED));
+            assertEquals(5, report.getCount(Status.SUCCEEDED));
+            assertEquals("boom", report.getResult(boom).getError().getMessage());
+            assertSame(Status.SKIPPED, report.getResult(after).getStatus());
+            assertFalse(recorder.calls.contains("ws:roads0"));
+            assertTrue(recorder.calls.contains("layer ws:rivers0"));
+        } finally {
+            batch.shutdown();
+        }
+    }
+
+    @Test
+    public void testCyclesAreRejected() throws Exception {
+        Recorder recorder = new Recorder();
+        GeoServerRESTBatchPublisher batch = batch(recorder, 2);
+        try {
+            Plan plan = batch.newPlan();
+            Item a = plan.createWorkspace("a");
+            Item b = plan.createWorkspace("b").dependsOn(a);
+            a.dependsOn(b);
+            plan.createWorkspace("c");
+            try {
+                batch.execute(plan);
+                fail("The cycle should be detected");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("Cyclic"));
+            }
+            assertTrue("Nothing should run", recorder.calls.isEmpty());
+        } finally {
+            batch.shutdown();
+        }
+    }
+
+    @Test
+    public void testDuplicatesAreRejected() throws Exception {
+        GeoServerRESTBatchPublisher batch = batch(new Recorder(), 1);
+        try {
+            Plan plan = batch.newPlan();
+            plan.createWorkspace("ws");
+            plan.createWorkspace("ws");
+            batch.execute(plan);
+            fail("The duplicate should be detected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        } finally {
+            batch.shutdown();
+        }
+    }
+
+    @Test
+    public void testIndependentItemsRunConcurrently() throws Exception {
+        Recorder recorder = new Recorder();
+        recorder.delay = 50;
+        GeoServerRESTBatchPublisher batch = batch(recorder, 4);
+        try {
+            Plan plan = batch.newPlan();
+            for (int i = 0; i < 12; i++) {
+                plan.createWorkspace("ws" + i);
+            }
+            Report report = batch.execute(plan);
+            assertTrue(report.isSuccessful());
+            assertTrue("Concurrent calls: " + recorder.maxInFlight, recorder.maxInFlight.get() > 1);
+            assertTrue("Bounded calls: " + recorder.maxInFlight, recorder.maxInFlight.get() <= 4);
+        } finally {
+            batch.shutdown();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.geoserver.rest.decoder.RESTCatalogSnapshot;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerEnvelopes;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+/**
+ * Checks the catalog snapshot crawl against a stub catalog.
+ */
+public class GeoServerRESTCatalogSnapshotTest {
+
+    /** the layer loads */
+    private static final String LAYERS = "/rest/layers/.*";
+
+    /** the store loads */
+    private static final String STORES = ".*/datastores/[^/]+\\.xml";
+
+    /** the style loads */
+    private static final String STYLES = ".*/styles/[^/]+\\.xml";
+
+    /**
+     * A catalog where all the layers of a workspace share one store and the
+     * default styles; "topp:missing" cannot be loaded.
+     */
+    private static StubTransport newCatalog() {
+        StubTransport transport = new StubTransport();
+        for (String name : Arrays.asList("a", "b", "c", "missing")) {
+            transport.addFeatureType("topp", "store", name, new double[] { 4, -1, 10, 1 }, "point",
+                    "point");
+        }
+        for (String name : Arrays.asList("a", "d")) {
+            transport.addFeatureType("sf", "store", name, new double[] { 2, -1, 10, 1 }, "sf:local",
+                    "point");
+        }
+        // listed, but not loadable
+        transport.remove("/rest/layers/topp:missing.xml");
+        return transport.addStyle(null, "point").addStyle("sf", "local");
+    }
+
+    @Test
+    public void testWholeCatalog() throws Exception {
+        StubTransport transport = newCatalog();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        RESTCatalogSnapshot snapshot;
+        try {
+            snapshot = transport.newReader().getCatalogSnapshot(null, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(6, transport.requestsMatching(LAYERS));
+        assertEquals(2, transport.requestsMatching(STORES));
+        // point, sf:local
+        assertEquals(2, transport.requestsMatching(STYLES));
+
+        assertEquals(Arrays.asList("sf", "topp"), Arrays.asList(snapshot.getWorkspaces().toArray()));
+        assertEquals(Arrays.asList("a", "b", "c"),
+                Arrays.asList(snapshot.getLayerNames("topp").toArray()));
+        assertEquals(5, snapshot.getLayerCount());
+        assertEquals("b", snapshot.getLayer("topp", "b").getName());
+        assertTrue(snapshot.getResource("sf", "d") instanceof RESTFeatureType);
+        assertNotNull(snapshot.getDataStore("sf", "store"));
+        assertNotNull(snapshot.getStyle(null, "point"));
+        assertNotNull(snapshot.getStyle("sf", "local"));
+        assertNull(snapshot.getLayer("topp", "missing"));
+        assertEquals(Arrays.asList("layer topp:missing"), snapshot.getFailures());
+    }
+
+    @Test
+    public void testWorkspace() throws Exception {
+        StubTransport transport = newCatalog();
+        RESTCatalogSnapshot snapshot = transport.newReader().getCatalogSnapshot("sf");
+        assertEquals(2, transport.requestsMatching(LAYERS));
+        assertEquals(Arrays.asList("sf"), Arrays.asList(snapshot.getWorkspaces().toArray()));
+        assertEquals(0, snapshot.getLayerNames("topp").size());
+        assertTrue(snapshot.getFailures().isEmpty());
+    }
+
+    @Test
+    public void testLayerEnvelopes() throws Exception {
+        StubTransport transport = newCatalog();
+        RESTLayerEnvelopes envelopes = transport.newReader().getLayerEnvelopes(null);
+        assertEquals(0, transport.requestsMatching(STORES));
+        assertEquals(0, transport.requestsMatching(STYLES));
+
+        assertEquals(5, envelopes.size());
+        assertEquals("sf", envelopes.getWorkspace(0));
+        assertEquals("d", envelopes.getName(1));
+        assertEquals("topp", envelopes.getWorkspace(2));
+        assertEquals(4, envelopes.getMinX(2), 0);
+        assertEquals(10, envelopes.getMaxX(4), 0);
+        double[] coords = new double[22];
+        envelopes.getCoordinates(coords, 2);
+        assertEquals(Arrays.toString(envelopes.getCoordinates()),
+                Arrays.toString(Arrays.copyOfRange(coords, 2, 22)));
+        assertEquals(2, coords[2], 0);
+        assertEquals(-1, coords[3], 0);
+        assertEquals(10, coords[4], 0);
+        assertEquals(1, coords[5], 0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() throws Exception {
+        new RESTCatalogSnapshot.Builder().addFailure("x").build().getFailures().clear();
+    }
+}
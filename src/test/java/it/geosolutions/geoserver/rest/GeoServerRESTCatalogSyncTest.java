@@ -0,0 +1,304 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import it.geosolutions.geoserver.rest.GeoServerRESTCatalogSync.Action;
+import it.geosolutions.geoserver.rest.GeoServerRESTCatalogSync.Change;
+import it.geosolutions.geoserver.rest.GeoServerRESTCatalogSync.DesiredState;
+import it.geosolutions.geoserver.rest.GeoServerRESTCatalogSync.Report;
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.Purge;
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.StoreType;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import it.geosolutions.geoserver.rest.encoder.GSAbstractStoreEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder;
+import it.geosolutions.geoserver.rest.encoder.GSResourceEncoder;
+import it.geosolutions.geoserver.rest.encoder.datastore.GSPostGISDatastoreEncoder;
+import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+import it.geosolutions.geoserver.rest.manager.GeoServerRESTStoreManager;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jdom.Element;
+import org.junit.Test;
+
+/**
+ * Checks the catalog sync against a fake catalog, without a running GeoServer.
+ */
+public class GeoServerRESTCatalogSyncTest {
+
+    /** The current catalog, by REST path */
+    private final Map<String, String> catalog = new ConcurrentHashMap<String, String>();
+
+    /** The write requests, in order */
+    private final List<String> writes = Collections.synchronizedList(new ArrayList<String>());
+
+    private GeoServerRESTCatalogSync sync(int threads) throws Exception {
+        final URL url = new URL("http://localhost:1/geoserver");
+        final GeoServerRESTReader reader = new GeoServerRESTReader(url, "admin", "geoserver") {
+            @Override
+            Element loadElement(String path) {
+                if (path.contains("broken"))
+                    throw new RuntimeException("Unable to load " + path);
+                final String xml = catalog.get(path);
+                return xml == null ? null : JDOMBuilder.buildElement(xml);
+            }
+        };
+        final GeoServerRESTPublisher publisher = new GeoServerRESTPublisher(url.toString(),
+                "admin", "geoserver") {
+            @Override
+            public boolean createResource(String workspace, StoreType dsType, String storeName,
+                    GSResourceEncoder re) {
+                return writes.add("POST resource " + re.getName());
+            }
+
+            @Override
+            public boolean configureResource(String workspace, StoreType dsType,
+                    String storeName, GSResourceEncoder re) {
+                return writes.add("PUT resource " + re.getName());
+            }
+
+            @Override
+            public boolean unpublishFeatureType(String workspace, String storename,
+                    String layerName) {
+                return writes.add("DELETE resource " + layerName);
+            }
+
+            @Override
+            public boolean configureLayer(String workspace, String resourceName,
+                    GSLayerEncoder layer) {
+                return writes.add("PUT layer " + resourceName);
+            }
+
+            @Override
+            public boolean createLayerGroup(String workspace, String name,
+                    GSLayerGroupEncoder group) {
+                return writes.add("POST group " + name);
+            }
+
+            @Override
+            public boolean configureLayerGroup(String workspace, String name,
+                    GSLayerGroupEncoder group) {
+                return writes.add("PUT group " + name);
+            }
+
+            @Override
+            public boolean removeLayerGroup(String workspace, String name) {
+                return writes.add("DELETE group " + name);
+            }
+
+            @Override
+            public boolean removeStore(String workspace, String storename, StoreType type,
+                    boolean recurse, Purge purge) {
+                return writes.add("DELETE store " + storename);
+            }
+        };
+        final GeoServerRESTStoreManager storeManager = new GeoServerRESTStoreManager(url,
+                "admin", "geoserver") {
+            @Override
+            public boolean create(String workspace, GSAbstractStoreEncoder store) {
+                return writes.add("POST store " + store.getName());
+            }
+
+            @Override
+            public boolean update(String workspace, GSAbstractStoreEncoder store) {
+                // fails
+                writes.add("PUT store " + store.getName());
+                return false;
+            }
+        };
+        return new GeoServerRESTCatalogSync(reader, publisher, storeManager, threads);
+    }
+
+    private static GSFeatureTypeEncoder featureType(String name, String title) {
+        GSFeatureTypeEncoder fte = new GSFeatureTypeEncoder();
+        fte.setName(name);
+        fte.setTitle(title);
+        return fte;
+    }
+
+    private static String featureTypeXml(String name, String title) {
+        return "<featureType><name>" + name + "</name><nativeName>" + name + "</nativeName>"
+                + "<title>" + title + "</title><enabled>true</enabled>"
+                + "<metadata><entry key=\"cachingEnabled\">false</entry></metadata></featureType>";
+    }
+
+    private static String list(String root, String child, String... names) {
+        StringBuilder xml = new StringBuilder("<").append(root).append(">");
+        for (String name : names) {
+            xml.append("<").append(child).append("><name>").append(name).append("</name></")
+                    .append(child).append(">");
+        }
+        return xml.append("</").append(root).append(">").toString();
+    }
+
+    /**
+     * The current catalog: a workspace with an up to date store, layer and
+     * resource, an outdated resource and group, and items to prune.
+     */
+    private void fillCatalog() {
+        final String ws = "/rest/workspaces/ws";
+        catalog.put(ws + "/datastores.xml", list("dataStores", "dataStore", "pg", "old"));
+        catalog.put(ws + "/coveragestores.xml", list("coverageStores", "coverageStore"));
+        catalog.put(ws + "/datastores/pg.xml", store("db").toString());
+        catalog.put(ws + "/datastores/pg/featuretypes.xml",
+                list("featureTypes", "featureType", "roads", "rivers", "obsolete"));
+        catalog.put(ws + "/datastores/pg/featuretypes/roads.xml", featureTypeXml("roads", "Roads"));
+        catalog.put(ws + "/datastores/pg/featuretypes/rivers.xml", featureTypeXml("rivers", "Old"));
+        catalog.put("/rest/layers/ws:roads.xml", "<layer><name>roads</name><defaultStyle>"
+                + "<name>line</name></defaultStyle><enabled>true</enabled></layer>");
+        catalog.put(ws + "/layergroups.xml", list("layerGroups", "layerGroup", "all", "previous"));
+        catalog.put(ws + "/layergroups/all.xml", "<layerGroup><name>all</name><layers>"
+                + "<layer><name>ws:roads</name></layer></layers></layerGroup>");
+    }
+
+    private static GSPostGISDatastoreEncoder store(String host) {
+        GSPostGISDatastoreEncoder store = new GSPostGISDatastoreEncoder("pg");
+        store.setHost(host);
+        store.setPort(5432);
+        return store;
+    }
+
+    private static DesiredState desired(GeoServerRESTCatalogSync sync, String host) {
+
+        GSLayerEncoder roads = new GSLayerEncoder();
+        roads.setDefaultStyle("line");
+        GSLayerEncoder lakes = new GSLayerEncoder();
+        lakes.setDefaultStyle("polygon");
+        GSLayerGroupEncoder all = new GSLayerGroupEncoder();
+        all.addLayer("ws:roads");
+        all.addLayer("ws:lakes");
+
+        return sync.newDesiredState().addStore("ws", store(host))
+                .addResource("ws", StoreType.DATASTORES, "pg", featureType("roads", "Roads"))
+                .addResource("ws", StoreType.DATASTORES, "pg", featureType("rivers", "Rivers"))
+                .addResource("ws", StoreType.DATASTORES, "pg", featureType("lakes", "Lakes"))
+                .addLayer("ws", "roads", roads).addLayer("ws", "lakes", lakes)
+                .addLayerGroup("ws", "all", all).prune("ws");
+    }
+
+    @Test
+    public void testDiffIsMinimal() throws Exception {
+        fillCatalog();
+        GeoServerRESTCatalogSync sync = sync(4);
+        try {
+            List<String> changes = new ArrayList<String>();
+            for (Change change : sync.diff(desired(sync, "db"))) {
+                changes.add(change.getAction() + " " + change.getKind() + " " + change.getName());
+            }
+            assertEquals("[UPDATE RESOURCE rivers, CREATE RESOURCE lakes, UPDATE LAYER lakes, "
+                    + "UPDATE LAYER_GROUP all, DELETE LAYER_GROUP previous, "
+                    + "DELETE RESOURCE obsolete, DELETE STORE old]", changes.toString());
+            assertTrue("Nothing should be written: " + writes, writes.isEmpty());
+        } finally {
+            sync.shutdown();
+        }
+    }
+
+    @Test
+    public void testSyncAppliesTheChangesInOrder() throws Exception {
+        fillCatalog();
+        GeoServerRESTCatalogSync sync = sync(4);
+        try {
+            Report report = sync.sync(desired(sync, "otherdb"));
+            assertEquals(8, report.getOutcomes().size());
+            assertEquals(2, report.getUnchanged());
+            assertEquals(1, report.getFailures().size());
+            assertEquals(Action.UPDATE, report.getFailures().get(0).getAction());
+
+            assertEquals("PUT store pg", writes.get(0));
+            assertTrue(writes.indexOf("POST resource lakes") < writes.indexOf("PUT layer lakes"));
+            assertTrue(writes.indexOf("PUT resource rivers") < writes.indexOf("PUT layer lakes"));
+            assertTrue(writes.indexOf("PUT layer lakes") < writes.indexOf("PUT group all"));
+            assertTrue(writes.indexOf("PUT group all") < writes.indexOf("DELETE group previous"));
+            assertTrue(writes.indexOf("DELETE group previous") < writes
+                    .indexOf("DELETE resource obsolete"));
+            assertEquals("DELETE store old", writes.get(writes.size() - 1));
+        } finally {
+            sync.shutdown();
+        }
+    }
+
+    @Test
+    public void testNothingToDo() throws Exception {
+        fillCatalog();
+        GeoServerRESTCatalogSync sync = sync(2);
+        try {
+            DesiredState state = sync.newDesiredState().addResource("ws",
+                    StoreType.DATASTORES, "pg", featureType("roads", "Roads"));
+            Report report = sync.sync(state);
+            assertTrue(report.isSuccessful());
+            assertEquals(0, report.getOutcomes().size());
+            assertEquals(1, report.getUnchanged());
+            assertTrue(writes.isEmpty());
+        } finally {
+            sync.shutdown();
+        }
+    }
+
+    @Test
+    public void testEncryptedPasswordIsNotCompared() throws Exception {
+        fillCatalog();
+        GSPostGISDatastoreEncoder current = store("db");
+        current.setPassword("crypt1:KWhO7jrTz/Gi0oTQRKsVeCmWIZY5VsaD");
+        catalog.put("/rest/workspaces/ws/datastores/pg.xml", current.toString());
+        GeoServerRESTCatalogSync sync = sync(2);
+        try {
+            GSPostGISDatastoreEncoder desired = store("db");
+            desired.setPassword("secret");
+            Report report = sync.sync(sync.newDesiredState().addStore("ws", desired));
+            assertTrue(report.isSuccessful());
+            assertEquals(1, report.getUnchanged());
+            assertTrue(writes.isEmpty());
+        } finally {
+            sync.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoadFailureAppliesNothing() throws Exception {
+        fillCatalog();
+        GeoServerRESTCatalogSync sync = sync(2);
+        try {
+            sync.sync(desired(sync, "otherdb").addResource("ws", StoreType.DATASTORES, "broken",
+                    featureType("roads", "Roads")));
+            fail("The load failure should be reported");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("broken"));
+        } finally {
+            sync.shutdown();
+        }
+        assertTrue(writes.isEmpty());
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks the node selection of the cluster manager without a running
+ * GeoServer.
+ */
+public class GeoServerRESTClusterManagerTest {
+
+    private URL primary;
+
+    private URL secondary;
+
+    private GeoServerRESTClusterManager cluster;
+
+    @Before
+    public void setUp() throws Exception {
+        primary = new URL("http://localhost:1/geoserver");
+        secondary = new URL("http://localhost:2/geoserver");
+        cluster = new GeoServerRESTClusterManager(Arrays.asList(primary, secondary), "admin",
+                "geoserver");
+        cluster.setHealthCheckInterval(Long.MAX_VALUE);
+    }
+
+    @After
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoNodes() {
+        new GeoServerRESTClusterManager(Arrays.<URL> asList(), "admin", "geoserver");
+    }
+
+    @Test
+    public void testPrimary() {
+        assertEquals(Arrays.asList(primary, secondary), cluster.getNodes());
+        assertSame(cluster.getManager(primary), cluster.getPrimary());
+        assertSame(cluster.getPrimary().getPublisher(), cluster.getPublisher());
+        assertNotSame(cluster.getManager(primary), cluster.getManager(secondary));
+    }
+
+    @Test
+    public void testLeastOutstanding() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final GeoServerRESTReader[] busy = new GeoServerRESTReader[1];
+        Thread thread = new Thread() {
+            public void run() {
+                cluster.read(new GeoServerRESTClusterManager.ReadOperation<Object>() {
+                    public Object read(GeoServerRESTReader reader) {
+                        busy[0] = reader;
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                        }
+                        return null;
+                    }
+                });
+            }
+        };
+        thread.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        try {
+            URL busyNode = busy[0] == cluster.getManager(primary).getReader() ? primary
+                    : secondary;
+            assertEquals(1, cluster.getOutstanding(busyNode));
+            for (int i = 0; i < 4; i++) {
+                GeoServerRESTReader reader = cluster
+                        .read(new GeoServerRESTClusterManager.ReadOperation<GeoServerRESTReader>() {
+                            public GeoServerRESTReader read(GeoServerRESTReader reader) {
+                                return reader;
+                            }
+                        });
+                assertNotSame(busy[0], reader);
+            }
+        } finally {
+            release.countDown();
+            thread.join();
+        }
+        assertEquals(0, cluster.getOutstanding(primary));
+        assertEquals(0, cluster.getOutstanding(secondary));
+    }
+
+    @Test
+    public void testFailover() {
+        final List<URL> nodes = cluster.getNodes();
+        final GeoServerRESTReader failing = cluster.getManager(nodes.get(0)).getReader();
+        // whichever node is selected first, a failure on the primary moves the read
+        for (int i = 0; i < 2; i++) {
+            String result = cluster.read(new GeoServerRESTClusterManager.ReadOperation<String>() {
+                public String read(GeoServerRESTReader reader) {
+                    if (reader == failing)
+                        throw new RuntimeException("connection refused");
+                    return "ok";
+                }
+            });
+            assertEquals("ok", result);
+        }
+        assertFalse(cluster.isHealthy(primary));
+        assertTrue(cluster.isHealthy(secondary));
+    }
+
+    @Test
+    public void testFailoverOnRefusedConnection() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/geoserver/rest/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                if (path.equals("/geoserver/rest/layers/topp:roads.xml")) {
+                    byte[] body = "<layer><name>roads</name><type>VECTOR</type></layer>"
+                            .getBytes("UTF-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        URL live = new URL("http://localhost:" + server.getAddress().getPort() + "/geoserver");
+        // the primary refuses the connections
+        GeoServerRESTClusterManager cluster = new GeoServerRESTClusterManager(Arrays.asList(
+                primary, live), "admin", "geoserver");
+        cluster.setHealthCheckInterval(Long.MAX_VALUE);
+        try {
+            GeoServerRESTClusterManager.ReadOperation<RESTLayer> getLayer =
+                    new GeoServerRESTClusterManager.ReadOperation<RESTLayer>() {
+                        public RESTLayer read(GeoServerRESTReader reader) {
+                            return reader.getLayer("topp", "roads");
+                        }
+                    };
+            // whichever node is selected first, the layer is found
+            for (int i = 0; i < 2; i++) {
+                RESTLayer layer = cluster.read(getLayer);
+                assertNotNull(layer);
+                assertEquals("roads", layer.getName());
+            }
+            assertFalse(cluster.isHealthy(primary));
+            assertTrue(cluster.isHealthy(live));
+
+            // a missing resource is not a failure
+            assertNull(cluster.read(new GeoServerRESTClusterManager.ReadOperation<RESTLayer>() {
+                public RESTLayer read(GeoServerRESTReader reader) {
+                    return reader.getLayer("topp", "missing");
+                }
+            }));
+            assertTrue(cluster.isHealthy(live));
+        } finally {
+            cluster.shutdown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testNodesOnTheSameHostPort() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/broken/rest/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                // drops the connection without answering
+                exchange.close();
+            }
+        });
+        server.createContext("/live/rest/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = "<layer><name>roads</name><type>VECTOR</type></layer>"
+                        .getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+                exchange.close();
+            }
+        });
+        server.start();
+        final URL broken = new URL("http://localhost:" + server.getAddress().getPort() + "/broken");
+        final URL live = new URL("http://localhost:" + server.getAddress().getPort() + "/live/");
+        final GeoServerRESTClusterManager cluster = new GeoServerRESTClusterManager(
+                Arrays.asList(broken, live), "admin", "geoserver");
+        cluster.setHealthCheckInterval(Long.MAX_VALUE);
+        try {
+            for (int i = 0; i < 2; i++) {
+                RESTLayer layer = cluster.read(new GeoServerRESTClusterManager.ReadOperation<RESTLayer>() {
+                    public RESTLayer read(GeoServerRESTReader reader) {
+                        if (reader != cluster.getManager(broken).getReader()) {
+                            // a failure of the other node during the read
+                            assertNull(cluster.getManager(broken).getReader().getLayer("topp", "roads"));
+                        }
+                        return reader.getLayer("topp", "roads");
+                    }
+                });
+                assertNotNull(layer);
+            }
+            assertFalse(cluster.isHealthy(broken));
+            assertTrue(cluster.isHealthy(live));
+        } finally {
+            cluster.shutdown();
+            server.stop(0);
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testNoReachableNode() {
+        cluster.read(new GeoServerRESTClusterManager.ReadOperation<RESTLayer>() {
+            public RESTLayer read(GeoServerRESTReader reader) {
+                return reader.getLayer("topp", "roads");
+            }
+        });
+    }
+
+    @Test
+    public void testCheckHealth() {
+        Map<URL, Boolean> health = cluster.checkHealth();
+        assertEquals(2, health.size());
+        assertFalse(health.get(primary));
+        assertFalse(health.get(secondary));
+        assertFalse(cluster.isHealthy(primary));
+        // reads still go somewhere when no node is healthy
+        assertTrue(cluster.getReader() != null);
+    }
+
+    @Test
+    public void testReloadAll() {
+        Map<URL, Boolean> result = cluster.reloadAll();
+        assertEquals(Arrays.asList(primary, secondary), Arrays.asList(result.keySet().toArray()));
+        assertFalse(result.get(primary));
+        assertFalse(result.get(secondary));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.geoserver.rest.decoder.RESTEnvelope;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks the layer index against a stub catalog.
+ */
+public class GeoServerRESTLayerIndexTest {
+
+    private static final String REST = StubTransport.URL + "/rest";
+
+    /** the layer loads */
+    private static final String LAYERS = "/rest/layers/.*";
+
+    private static List<String> sorted(List<String> names) {
+        List<String> result = new ArrayList<String>(names);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static StubTransport newCatalog() {
+        StubTransport transport = new StubTransport();
+        for (int i = 0; i < 100; i++) {
+            transport.addFeatureType("topp", "store", "l" + i, new double[] { i, 0, i + 0.5, 1 });
+        }
+        transport.addFeatureType("sf", "store", "a", new double[] { -10, -10, 10, 10 });
+        return transport;
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        StubTransport transport = newCatalog();
+        GeoServerRESTLayerIndex index = new GeoServerRESTLayerIndex(transport.newReader());
+        try {
+            assertTrue(index.isDirty());
+            assertEquals(0, index.size());
+            assertTrue(index.refresh());
+            assertFalse(index.isDirty());
+            assertEquals(101, index.size());
+
+            assertEquals(sorted(Arrays.asList("sf:a", "topp:l0", "topp:l1")),
+                    sorted(index.query(0, 0.5, 1.2, 0.5)));
+            assertEquals(Arrays.asList("topp:l50"), index.query(50.2, 0.2));
+            assertTrue(index.query(200, 0).isEmpty());
+            assertEquals(new RESTEnvelope(3, 0, 3.5, 1, "EPSG:4326"), index.getEnvelope("topp", "l3"));
+
+            // nothing changed
+            assertTrue(index.refresh());
+            assertEquals(101, transport.requestsMatching(LAYERS));
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        StubTransport transport = newCatalog();
+        GeoServerRESTLayerIndex index = new GeoServerRESTLayerIndex(transport.newReader());
+        try {
+            index.refresh();
+            transport.resetCounts();
+
+            // a feature type is updated
+            transport.addFeatureType("topp", "store", "l3", new double[] { 500, 500, 501, 501 });
+            transport.invalidate(REST + "/workspaces/topp/datastores/store/featuretypes/l3.xml");
+            assertTrue(index.isDirty());
+            assertTrue(index.refresh());
+            assertEquals(1, transport.requestsMatching(LAYERS));
+            assertEquals(Arrays.asList("topp:l3"), index.query(500.5, 500.5));
+            assertEquals(Arrays.asList("sf:a"), index.query(3.2, 0.5));
+
+            // a shapefile is uploaded into a store: the workspace is reloaded
+            transport.resetCounts();
+            transport.addFeatureType("sf", "store", "b", new double[] { 600, 600, 601, 601 });
+            transport.invalidate(REST + "/workspaces/sf/datastores/store/file.shp?configure=all");
+            index.refresh();
+            assertEquals(2, transport.requestsMatching(LAYERS));
+            assertEquals(Arrays.asList("sf:b"), index.query(600.5, 600.5));
+
+            // a layer is removed
+            transport.removeLayer("topp", "l3");
+            transport.invalidate(REST + "/layers/topp:l3.xml");
+            index.refresh();
+            assertNull(index.getEnvelope("topp", "l3"));
+            assertEquals(101, index.size());
+
+            // styles do not change the extents
+            transport.invalidate(REST + "/styles/point.xml");
+            assertFalse(index.isDirty());
+
+            index.close();
+            transport.invalidate(REST + "/reload");
+            assertFalse(index.isDirty());
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testWorkspaceScope() throws Exception {
+        StubTransport transport = newCatalog();
+        GeoServerRESTLayerIndex index = new GeoServerRESTLayerIndex(transport.newReader(), "sf");
+        try {
+            index.refresh();
+            assertEquals(1, index.size());
+            transport.invalidate(REST + "/workspaces/topp");
+            assertFalse(index.isDirty());
+        } finally {
+            index.close();
+        }
+    }
+}
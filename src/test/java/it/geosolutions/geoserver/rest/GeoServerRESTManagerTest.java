@@ -0,0 +1,83 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+
+import org.apache.commons.httpclient.HostConfiguration;
+import org.junit.Test;
+
+/**
+ * Checks the transport used by the components of a manager.
+ */
+public class GeoServerRESTManagerTest {
+
+    /**
+     * @return true if the pool of the transport was shut down
+     */
+    private static boolean isShutdown(HTTPTransport transport) throws Exception {
+        HostConfiguration host = new HostConfiguration();
+        host.setHost("localhost", 1);
+        try {
+            transport.getConnectionManager().getConnectionWithTimeout(host, 1).releaseConnection();
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
+    @Test
+    public void testOwnTransport() throws Exception {
+        URL url = new URL(StubTransport.URL);
+        GeoServerRESTManager manager = new GeoServerRESTManager(url, "admin", "geoserver");
+        GeoServerRESTManager other = new GeoServerRESTManager(url, "admin", "geoserver");
+        HTTPTransport transport = manager.getTransport();
+        assertNotSame(HTTPTransport.getDefault(), transport);
+        assertNotSame(other.getTransport(), transport);
+        assertSame(transport, manager.getReader().getTransport());
+        assertSame(transport, manager.getStyleManager().getTransport());
+
+        manager.close();
+        assertTrue(isShutdown(transport));
+        assertFalse(isShutdown(other.getTransport()));
+        other.close();
+    }
+
+    @Test
+    public void testCallerTransportIsLeftOpen() throws Exception {
+        HTTPTransport transport = new HTTPTransport();
+        GeoServerRESTManager manager = new GeoServerRESTManager(new URL(StubTransport.URL),
+                "admin", "geoserver", transport);
+        assertSame(transport, manager.getTransport());
+        manager.close();
+        assertFalse(isShutdown(transport));
+        transport.shutdown();
+    }
+}
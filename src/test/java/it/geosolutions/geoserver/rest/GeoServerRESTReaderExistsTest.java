@@ -0,0 +1,184 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks the existence probes against a stub HTTP server.
+ */
+public class GeoServerRESTReaderExistsTest {
+
+    private static final Set<String> LAYERS = new HashSet<String>(Arrays.asList("topp:a", "sf:c"));
+
+    private HttpServer server;
+
+    private HTTPTransport transport;
+
+    /** the status answered to HEAD requests, 0 to answer as to GET */
+    private volatile int headStatus;
+
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/geoserver/rest/layers/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                String method = exchange.getRequestMethod();
+                String path = exchange.getRequestURI().getPath();
+                String name = path.substring(path.lastIndexOf('/') + 1, path.length() - 4);
+                requests.add(method + " " + name);
+                int status = LAYERS.contains(name) ? 200 : 404;
+                if (method.equals("HEAD")) {
+                    exchange.sendResponseHeaders(headStatus == 0 ? status : headStatus, -1);
+                } else {
+                    byte[] body = ("<layer><name>" + name + "</name></layer>").getBytes("UTF-8");
+                    exchange.sendResponseHeaders(status, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        transport = new HTTPTransport();
+    }
+
+    @After
+    public void tearDown() {
+        transport.shutdown();
+        server.stop(0);
+    }
+
+    private GeoServerRESTReader newReader() throws Exception {
+        return newReader("localhost");
+    }
+
+    private GeoServerRESTReader newReader(String host) throws Exception {
+        return new GeoServerRESTReader(new URL("http://" + host + ":"
+                + server.getAddress().getPort() + "/geoserver"), "admin", "geoserver", transport);
+    }
+
+    private static Map<String, Boolean> expected(Object... entries) {
+        Map<String, Boolean> result = new LinkedHashMap<String, Boolean>();
+        for (int i = 0; i < entries.length; i += 2) {
+            result.put((String) entries[i], (Boolean) entries[i + 1]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testHead() throws Exception {
+        GeoServerRESTReader reader = newReader();
+        assertTrue(reader.existsLayer("topp", "a"));
+        assertFalse(reader.existsLayer("topp", "b"));
+        assertEquals(Arrays.asList("HEAD topp:a", "HEAD topp:b"), requests);
+    }
+
+    @Test
+    public void testMixedBatch() throws Exception {
+        assertEquals(expected("topp:a", true, "topp:b", false, "sf:c", true, "sf:d", false),
+                newReader().existsLayers(Arrays.asList("topp:a", "topp:b", "sf:c", "sf:d")));
+        assertEquals(4, requests.size());
+        for (String request : requests) {
+            assertTrue(request, request.startsWith("HEAD "));
+        }
+    }
+
+    @Test
+    public void testGetFallbackOnMethodNotAllowed() throws Exception {
+        checkGetFallback(405);
+    }
+
+    @Test
+    public void testGetFallbackOnNotImplemented() throws Exception {
+        checkGetFallback(501);
+    }
+
+    private void checkGetFallback(int status) throws Exception {
+        headStatus = status;
+        GeoServerRESTReader reader = newReader();
+        assertTrue(reader.existsLayer("topp", "a"));
+        assertEquals(Arrays.asList("HEAD topp:a", "GET topp:a"), requests);
+
+        // HEAD is not tried again, by any reader sharing the transport
+        requests.clear();
+        assertFalse(reader.existsLayer("topp", "b"));
+        assertEquals(expected("sf:c", true, "sf:d", false),
+                newReader().existsLayers(Arrays.asList("sf:c", "sf:d")));
+        assertEquals(3, requests.size());
+        for (String request : requests) {
+            assertTrue(request, request.startsWith("GET "));
+        }
+
+        // but is still tried on another host:port
+        requests.clear();
+        headStatus = 0;
+        assertTrue(newReader("127.0.0.1").existsLayer("topp", "a"));
+        assertEquals(Arrays.asList("HEAD topp:a"), requests);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnhandledStatus() throws Exception {
+        headStatus = 500;
+        newReader().existsLayers(Arrays.asList("topp:a", "sf:c"));
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        assertTrue(StubTransport.unreachableReader().existsLayers(Collections.<String> emptyList())
+                .isEmpty());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testBatchFailure() throws Exception {
+        StubTransport.unreachableReader().existsLayers(Arrays.asList("topp:states", "sf:roads"));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import it.geosolutions.geoserver.rest.decoder.about.GSVersionDecoder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder21;
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder23;
+
+import org.junit.Test;
+
+/**
+ * Checks the GeoServer version cache without a running GeoServer.
+ */
+public class GeoServerRESTReaderVersionTest {
+
+    @Test
+    public void testFailureIsNotCached() throws Exception {
+        GeoServerRESTReader reader = StubTransport.unreachableReader();
+        GSVersionDecoder version = reader.getGeoserverVersion();
+        assertEquals(GSVersionDecoder.VERSION.UNRECOGNIZED, version.getVersion());
+        assertNotSame(version, reader.getGeoserverVersion());
+    }
+
+    @Test
+    public void testVersionIsCached() throws Exception {
+        StubTransport transport = new StubTransport();
+        transport.serve("/rest/layers/topp:roads.xml", "<layer><name>roads</name><type>VECTOR</type></layer>");
+        GeoServerRESTReader reader = transport.newReader();
+        GSVersionDecoder version = reader.getGeoserverVersion();
+        assertEquals(GSVersionDecoder.VERSION.v28, version.getVersion());
+        assertSame(version, reader.getGeoserverVersion());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("roads", reader.getLayer("topp", "roads").getName());
+        }
+        assertEquals(1, transport.requests(StubTransport.VERSION_PATH));
+        assertEquals(0, transport.probes(StubTransport.VERSION_PATH));
+
+        GSVersionDecoder refreshed = reader.refreshGeoserverVersion();
+        assertNotSame(version, refreshed);
+        assertSame(refreshed, reader.getGeoserverVersion());
+        assertEquals(2, transport.requests(StubTransport.VERSION_PATH));
+    }
+
+    @Test
+    public void testMissingVersionIsCached() throws Exception {
+        // GeoServer 2.1 does not publish its version
+        StubTransport transport = new StubTransport();
+        transport.remove(StubTransport.VERSION_PATH);
+        GeoServerRESTReader reader = transport.newReader();
+        GSVersionDecoder version = reader.getGeoserverVersion();
+        assertEquals(GSVersionDecoder.VERSION.UNRECOGNIZED, version.getVersion());
+        assertSame(version, reader.getGeoserverVersion());
+        assertEquals(1, transport.probes(StubTransport.VERSION_PATH));
+    }
+
+    @Test
+    public void testVersionCacheTimeout() throws Exception {
+        GeoServerRESTReader reader = new StubTransport().newReader();
+        assertEquals(-1, reader.getVersionCacheTimeout());
+        reader.setVersionCacheTimeout(0);
+        GSVersionDecoder version = reader.getGeoserverVersion();
+        assertNotSame(version, reader.getGeoserverVersion());
+    }
+
+    @Test
+    public void testVersionDependentEncoders() throws Exception {
+        StubTransport transport = new StubTransport();
+        GeoServerRESTReader reader = transport.newReader();
+        assertTrue(!(reader.createLayerEncoder() instanceof GSLayerEncoder21));
+        assertTrue(reader.createLayerGroupEncoder() instanceof GSLayerGroupEncoder23);
+
+        transport.remove(StubTransport.VERSION_PATH);
+        reader = transport.newReader();
+        assertTrue(reader.createLayerEncoder() instanceof GSLayerEncoder21);
+        assertTrue(!(reader.createLayerGroupEncoder() instanceof GSLayerGroupEncoder23));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import it.geosolutions.geoserver.rest.GeoServerRESTReader.WireFormat;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+
+import org.junit.Test;
+
+/**
+ * Checks that JSON responses are decoded as such only when the reader requested them.
+ */
+public class GeoServerRESTReaderWireFormatTest {
+
+    private static final String LAYER = "/rest/layers/topp:roads";
+
+    private static final String RESOURCE = "/rest/workspaces/topp/datastores/taz/featuretypes/roads";
+
+    @Test
+    public void testJSON() throws Exception {
+        StubTransport transport = new StubTransport();
+        transport.serve(LAYER + ".xml", "<layer><name>roads</name><type>VECTOR</type></layer>");
+        transport.serve(LAYER + ".json", "{\"layer\":{\"name\":\"roads_json\",\"type\":\"VECTOR\","
+                + "\"resource\":{\"@class\":\"featureType\",\"name\":\"roads\",\"href\":\""
+                + StubTransport.URL + RESOURCE + ".json\"}}}");
+        transport.serve(RESOURCE + ".json", "{\"featureType\":{\"name\":\"roads\","
+                + "\"latLonBoundingBox\":{\"minx\":-10,\"maxx\":10,\"miny\":-5.5,\"maxy\":5.5}}}");
+        GeoServerRESTReader reader = transport.newReader();
+
+        assertEquals("roads", reader.getLayer("topp", "roads").getName());
+        assertEquals(0, transport.requests(LAYER + ".json"));
+
+        reader.setWireFormat(WireFormat.JSON);
+        RESTLayer layer = reader.getLayer("topp", "roads");
+        assertEquals("roads_json", layer.getName());
+        assertEquals(RESTLayer.Type.VECTOR, layer.getType());
+        assertEquals(1, transport.requests(LAYER + ".json"));
+
+        // the link of a JSON representation already has the JSON extension
+        RESTFeatureType featureType = reader.getFeatureType(layer);
+        assertEquals("roads", featureType.getName());
+        assertEquals(5.5, featureType.getMaxY(), 0d);
+    }
+
+    @Test
+    public void testXMLIsNotSniffed() throws Exception {
+        StubTransport transport = new StubTransport();
+        transport.serve(LAYER + ".xml", "{\"layer\":{\"name\":\"roads\"}}");
+
+        assertNull(transport.newReader().getLayer("topp", "roads"));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.Purge;
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.StoreType;
+import it.geosolutions.geoserver.rest.GeoServerRESTWorkspaceTeardown.Deletion;
+import it.geosolutions.geoserver.rest.GeoServerRESTWorkspaceTeardown.Kind;
+import it.geosolutions.geoserver.rest.GeoServerRESTWorkspaceTeardown.Plan;
+import it.geosolutions.geoserver.rest.GeoServerRESTWorkspaceTeardown.ProgressListener;
+import it.geosolutions.geoserver.rest.GeoServerRESTWorkspaceTeardown.Report;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jdom.Element;
+import org.junit.Test;
+
+/**
+ * Checks the workspace teardown against a fake catalog, without a running
+ * GeoServer.
+ */
+public class GeoServerRESTWorkspaceTeardownTest {
+
+    private static final int STYLES = 40;
+
+    /** The current catalog, by REST path */
+    private final Map<String, String> catalog = new ConcurrentHashMap<String, String>();
+
+    /** The deletions, in order */
+    private final List<String> deleted = Collections.synchronizedList(new ArrayList<String>());
+
+    private final Set<String> groups = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private boolean delete(String item) {
+        final int now = inFlight.incrementAndGet();
+        synchronized (maxInFlight) {
+            if (now > maxInFlight.get())
+                maxInFlight.set(now);
+        }
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (item.endsWith("locked"))
+            return false;
+        deleted.add(item);
+        return true;
+    }
+
+    private GeoServerRESTWorkspaceTeardown teardown(int threads) throws Exception {
+        final URL url = new URL("http://localhost:1/geoserver");
+        final GeoServerRESTReader reader = new GeoServerRESTReader(url, "admin", "geoserver") {
+            @Override
+            Element loadElement(String path) {
+                final String xml = catalog.get(path);
+                return xml == null ? null : JDOMBuilder.buildElement(xml);
+            }
+        };
+        final GeoServerRESTPublisher publisher = new GeoServerRESTPublisher(url.toString(),
+                "admin", "geoserver") {
+            @Override
+            public boolean removeLayerGroup(String workspace, String name) {
+                // the outer group contains the inner one
+                if (name.equals("inner") && groups.contains("outer"))
+                    return false;
+                groups.remove(name);
+                return delete("group " + name);
+            }
+
+            @Override
+            public boolean unpublishFeatureType(String workspace, String storename,
+                    String layerName) {
+                return delete("resource " + layerName);
+            }
+
+            @Override
+            public boolean unpublishCoverage(String workspace, String storename, String layerName) {
+                return delete("resource " + layerName);
+            }
+
+            @Override
+            public boolean removeStore(String workspace, String storename, StoreType type,
+                    boolean recurse, Purge purge) {
+                return delete("store " + storename);
+            }
+
+            @Override
+            public boolean removeStyleInWorkspace(String workspace, String styleName,
+                    boolean purge) {
+                return delete("style " + styleName);
+            }
+
+            @Override
+            boolean deleteWorkspace(String workspace, boolean recurse) {
+                return delete("workspace " + workspace);
+            }
+        };
+        return new GeoServerRESTWorkspaceTeardown(reader, publisher, threads);
+    }
+
+    private static String list(String root, String child, String... names) {
+        StringBuilder xml = new StringBuilder("<").append(root).append(">");
+        for (String name : names) {
+            xml.append("<").append(child).append("><name>").append(name).append("</name></")
+                    .append(child).append(">");
+        }
+        return xml.append("</").append(root).append(">").toString();
+    }
+
+    private void fillCatalog() {
+        final String ws = "/rest/workspaces/ws";
+        groups.add("inner");
+        groups.add("outer");
+        catalog.put(ws + "/layergroups.xml", list("layerGroups", "layerGroup", "inner", "outer"));
+        String[] styles = new String[STYLES];
+        for (int i = 0; i < STYLES; i++) {
+            styles[i] = "s" + i;
+        }
+        styles[7] = "locked";
+        catalog.put(ws + "/styles.xml", list("styles", "style", styles));
+        catalog.put(ws + "/datastores.xml", list("dataStores", "dataStore", "pg"));
+        catalog.put(ws + "/coveragestores.xml", list("coverageStores", "coverageStore", "dem"));
+        catalog.put(ws + "/datastores/pg/featuretypes.xml",
+                list("featureTypes", "featureType", "roads", "rivers"));
+        catalog.put(ws + "/coveragestores/dem/coverages.xml",
+                list("coverages", "coverage", "dem"));
+    }
+
+    @Test
+    public void testPlanDeletesNothing() throws Exception {
+        fillCatalog();
+        GeoServerRESTWorkspaceTeardown teardown = teardown(4);
+        try {
+            Plan plan = teardown.plan("ws");
+            assertEquals(2, plan.getDeletions(Kind.LAYER_GROUP).size());
+            assertEquals(3, plan.getDeletions(Kind.RESOURCE).size());
+            assertEquals(2, plan.getDeletions(Kind.STORE).size());
+            assertEquals(STYLES, plan.getDeletions(Kind.STYLE).size());
+            assertEquals(1, plan.getDeletions(Kind.WORKSPACE).size());
+            assertEquals(StoreType.COVERAGESTORES, plan.getDeletions(Kind.RESOURCE).get(0)
+                    .getStoreType());
+            assertTrue(deleted.isEmpty());
+
+            // a missing workspace is removed anyway, in case it exists
+            assertEquals(1, teardown.plan("missing").getDeletions().size());
+        } finally {
+            teardown.shutdown();
+        }
+    }
+
+    @Test
+    public void testTeardown() throws Exception {
+        fillCatalog();
+        GeoServerRESTWorkspaceTeardown teardown = teardown(4);
+        final AtomicInteger progress = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        teardown.setListener(new ProgressListener() {
+            public void progress(Deletion deletion, boolean ok, int done, int total) {
+                progress.incrementAndGet();
+                if (!ok)
+                    failures.incrementAndGet();
+            }
+        });
+        try {
+            Report report = teardown.teardown("ws");
+            assertEquals(2 + 3 + 2 + STYLES + 1, report.getOutcomes().size());
+            assertEquals(report.getOutcomes().size(), progress.get());
+            assertEquals(1, failures.get());
+            assertFalse(report.isSuccessful());
+            assertEquals("locked", report.getFailures().get(0).getName());
+
+            // dependency order
+            assertTrue(deleted.indexOf("group outer") < deleted.indexOf("group inner"));
+            assertTrue(deleted.indexOf("group inner") < deleted.indexOf("resource roads"));
+            assertTrue(deleted.indexOf("resource dem") < deleted.indexOf("store pg"));
+            assertTrue(deleted.indexOf("store dem") < deleted.indexOf("style s0"));
+            assertEquals("workspace ws", deleted.get(deleted.size() - 1));
+
+            assertTrue("Concurrent deletions: " + maxInFlight, maxInFlight.get() > 1);
+            assertTrue("Bounded deletions: " + maxInFlight, maxInFlight.get() <= 4);
+        } finally {
+            teardown.shutdown();
+        }
+    }
+
+    @Test
+    public void testRemoveWorkspaceRecursively() throws Exception {
+        StubTransport stub = new StubTransport();
+        for (int i = 0; i < 10; i++) {
+            stub.addStyle("ws", "s" + i);
+        }
+        GeoServerRESTPublisher publisher = new GeoServerRESTPublisher(StubTransport.URL, "admin",
+                "geoserver", stub);
+        assertTrue(publisher.removeWorkspace("ws", true));
+        assertEquals(10, stub.deletesMatching("/rest/workspaces/ws/styles/.*"));
+        assertEquals(1, stub.deletes("/rest/workspaces/ws"));
+        assertFalse("Deleted by the pool: " + stub.getThreads(),
+                stub.getThreads().contains(Thread.currentThread().getName()));
+    }
+}
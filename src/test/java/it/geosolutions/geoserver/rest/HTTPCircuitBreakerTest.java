@@ -0,0 +1,165 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import it.geosolutions.geoserver.rest.HTTPCircuitBreaker.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks the circuit breaker state machine and its use by the transport.
+ */
+public class HTTPCircuitBreakerTest {
+
+    private static final String NODE = "localhost:8080";
+
+    @Test
+    public void testStateChanges() throws Exception {
+        final List<String> changes = new ArrayList<String>();
+        HTTPCircuitBreaker breaker = new HTTPCircuitBreaker(2, 50);
+        breaker.setListener(new HTTPCircuitBreaker.Listener() {
+            public void stateChanged(String node, State from, State to) {
+                changes.add(from + "->" + to);
+            }
+        });
+
+        breaker.onFailure(NODE);
+        assertEquals(State.CLOSED, breaker.getState(NODE));
+        breaker.onFailure(NODE);
+        assertEquals(State.OPEN, breaker.getState(NODE));
+        assertFalse(breaker.allowRequest(NODE));
+        assertTrue(breaker.allowRequest("otherhost:8080"));
+
+        Thread.sleep(60);
+        assertTrue(breaker.allowRequest(NODE)); // the trial request
+        assertFalse(breaker.allowRequest(NODE));
+        breaker.onFailure(NODE);
+        assertEquals(State.OPEN, breaker.getState(NODE));
+
+        Thread.sleep(60);
+        assertTrue(breaker.allowRequest(NODE));
+        breaker.onSuccess(NODE);
+        assertEquals(State.CLOSED, breaker.getState(NODE));
+
+        assertEquals(2, breaker.getOpenedCount());
+        assertEquals(2, breaker.getHalfOpenedCount());
+        assertEquals(1, breaker.getClosedCount());
+        assertEquals(2, breaker.getRejectedCount());
+        assertEquals(5, changes.size());
+        assertEquals("HALF_OPEN->CLOSED", changes.get(4));
+    }
+
+    @Test
+    public void testTransportFailsFast() throws Exception {
+        HTTPTransportPolicy policy = new HTTPTransportPolicy();
+        HTTPCircuitBreaker breaker = new HTTPCircuitBreaker(1, 60000);
+        policy.setCircuitBreaker(breaker);
+        HTTPTransport transport = new HTTPTransport(policy);
+        try {
+            transport.exists("http://localhost:1/geoserver/rest/layers/a.xml", null, null);
+            fail("Connection refused expected");
+        } catch (RuntimeException e) {
+            assertFalse(e.getCause() instanceof HTTPCircuitBreaker.OpenException);
+        }
+        assertEquals(State.OPEN, breaker.getState("localhost:1"));
+        try {
+            transport.exists("http://localhost:1/geoserver/rest/layers/a.xml", null, null);
+            fail("Open circuit expected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof HTTPCircuitBreaker.OpenException);
+        }
+        assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void testRetriesTripTheBreaker() throws Exception {
+        HTTPTransportPolicy policy = new HTTPTransportPolicy();
+        policy.setMaxRetries(10);
+        policy.setRetryDelay(1);
+        HTTPCircuitBreaker breaker = new HTTPCircuitBreaker(2, 60000);
+        policy.setCircuitBreaker(breaker);
+        HTTPTransport transport = new HTTPTransport(policy);
+        try {
+            transport.exists("http://localhost:1/geoserver/rest/layers/a.xml", null, null);
+            fail("Open circuit expected");
+        } catch (RuntimeException e) {
+            // the retries stop as soon as the circuit opens
+            assertTrue(e.getCause() instanceof HTTPCircuitBreaker.OpenException);
+        } finally {
+            transport.shutdown();
+        }
+        assertEquals(State.OPEN, breaker.getState("localhost:1"));
+        assertEquals(1, breaker.getOpenedCount());
+        assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void testPolicyIsCopied() {
+        HTTPCircuitBreaker breaker = new HTTPCircuitBreaker();
+        HTTPTransportPolicy policy = new HTTPTransportPolicy();
+        policy.setMaxRetries(2);
+        policy.setConnectionTimeout(1000);
+        policy.setCircuitBreaker(breaker);
+        HTTPTransport transport = new HTTPTransport(policy);
+        assertEquals(1000, transport.getConnectionManager().getParams().getConnectionTimeout());
+
+        // changes after the policy is set are ignored
+        policy.setMaxRetries(5);
+        policy.setConnectionTimeout(2000);
+        transport.getPolicy().setMaxRetries(7);
+        assertEquals(2, transport.getPolicy().getMaxRetries());
+        assertSame(breaker, transport.getPolicy().getCircuitBreaker());
+        assertEquals(1000, transport.getConnectionManager().getParams().getConnectionTimeout());
+
+        // until it is set again
+        transport.setPolicy(policy);
+        assertEquals(5, transport.getPolicy().getMaxRetries());
+        assertEquals(2000, transport.getConnectionManager().getParams().getConnectionTimeout());
+    }
+
+    @Test
+    public void testRetryDelay() {
+        HTTPTransportPolicy policy = new HTTPTransportPolicy();
+        policy.setRetryDelay(100);
+        policy.setMaxRetryDelay(1000);
+        policy.setJitter(0.5);
+        for (int i = 0; i < 100; i++) {
+            long first = policy.getRetryDelay(0);
+            assertTrue(first >= 50 && first <= 100);
+            long third = policy.getRetryDelay(2);
+            assertTrue(third >= 200 && third <= 400);
+            long last = policy.getRetryDelay(30);
+            assertTrue(last >= 500 && last <= 1000);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks eviction and invalidation of the response cache.
+ */
+public class HTTPResponseCacheTest {
+
+    private static final String BASE = "http://localhost:8080/geoserver/rest";
+
+    private static void put(HTTPResponseCache cache, String path) {
+        String url = BASE + path;
+        cache.put(HTTPResponseCache.key(url, "admin"), url, new byte[10], null, null,
+                cache.generation(url));
+    }
+
+    private static boolean cached(HTTPResponseCache cache, String path) {
+        return cache.get(HTTPResponseCache.key(BASE + path, "admin")) != null;
+    }
+
+    @Test
+    public void testLRUEviction() {
+        HTTPResponseCache cache = new HTTPResponseCache(2, 1000, 60000);
+        put(cache, "/layers/a.xml");
+        put(cache, "/layers/b.xml");
+        assertTrue(cached(cache, "/layers/a.xml")); // a is now the most recently used
+        put(cache, "/layers/c.xml");
+        assertEquals(2, cache.size());
+        assertTrue(cached(cache, "/layers/a.xml"));
+        assertFalse(cached(cache, "/layers/b.xml"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testSizeEviction() {
+        HTTPResponseCache cache = new HTTPResponseCache(100, 25, 60000);
+        put(cache, "/layers/a.xml");
+        put(cache, "/layers/b.xml");
+        put(cache, "/layers/c.xml");
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.getBytes());
+    }
+
+    @Test
+    public void testFreshness() {
+        HTTPResponseCache cache = new HTTPResponseCache(100, 1000, 0);
+        put(cache, "/layers/a.xml");
+        HTTPResponseCache.Entry entry = cache.get(HTTPResponseCache.key(BASE + "/layers/a.xml",
+                "admin"));
+        assertNotNull(entry);
+        assertFalse(cache.isFresh(entry));
+        assertFalse(entry.isRevalidable());
+    }
+
+    @Test
+    public void testWorkspaceInvalidation() {
+        HTTPResponseCache cache = new HTTPResponseCache();
+        put(cache, "/workspaces.xml");
+        put(cache, "/workspaces/ws1.xml");
+        put(cache, "/workspaces/ws1/datastores/ds.xml");
+        put(cache, "/workspaces/ws1/datastores/ds/featuretypes/ft.xml");
+        put(cache, "/workspaces/ws2/datastores/ds.xml");
+        put(cache, "/layers/ws1:ft.xml");
+        put(cache, "/styles/line.xml");
+
+        cache.invalidate(BASE + "/workspaces/ws1/datastores/ds/file.shp?configure=all");
+
+        assertFalse(cached(cache, "/workspaces.xml"));
+        assertFalse(cached(cache, "/workspaces/ws1.xml"));
+        assertFalse(cached(cache, "/workspaces/ws1/datastores/ds.xml"));
+        assertFalse(cached(cache, "/workspaces/ws1/datastores/ds/featuretypes/ft.xml"));
+        assertFalse(cached(cache, "/layers/ws1:ft.xml"));
+        assertTrue(cached(cache, "/workspaces/ws2/datastores/ds.xml"));
+        assertTrue(cached(cache, "/styles/line.xml"));
+    }
+
+    @Test
+    public void testGlobalInvalidation() {
+        HTTPResponseCache cache = new HTTPResponseCache();
+        put(cache, "/workspaces/ws1/datastores/ds.xml");
+        put(cache, "/styles/line.xml");
+        String other = "http://otherhost/geoserver/rest/styles/line.xml";
+        cache.put(HTTPResponseCache.key(other, null), other, new byte[10], null, null,
+                cache.generation(other));
+
+        cache.invalidate(BASE + "/reload");
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get(HTTPResponseCache.key(BASE + "/styles/line.xml", "admin")));
+    }
+
+    @Test
+    public void testInvalidationDuringGet() {
+        HTTPResponseCache cache = new HTTPResponseCache();
+        String ds = BASE + "/workspaces/ws1/datastores/ds.xml";
+        String other = BASE + "/workspaces/ws2/datastores/ds.xml";
+        String layers = BASE + "/layers.xml";
+        String style = BASE + "/styles/line.xml";
+        long dsGeneration = cache.generation(ds);
+        long otherGeneration = cache.generation(other);
+        long layersGeneration = cache.generation(layers);
+        long styleGeneration = cache.generation(style);
+
+        // the GETs are answered after a change to ws1
+        cache.invalidate(BASE + "/workspaces/ws1/datastores/ds.xml");
+        cache.put(HTTPResponseCache.key(ds, "admin"), ds, new byte[10], null, null, dsGeneration);
+        cache.put(HTTPResponseCache.key(other, "admin"), other, new byte[10], null, null,
+                otherGeneration);
+        cache.put(HTTPResponseCache.key(layers, "admin"), layers, new byte[10], null, null,
+                layersGeneration);
+        cache.put(HTTPResponseCache.key(style, "admin"), style, new byte[10], null, null,
+                styleGeneration);
+        assertFalse(cached(cache, "/workspaces/ws1/datastores/ds.xml"));
+        assertFalse(cached(cache, "/layers.xml"));
+        assertTrue(cached(cache, "/workspaces/ws2/datastores/ds.xml"));
+        assertTrue(cached(cache, "/styles/line.xml"));
+
+        // a change outside the workspaces makes every response stale
+        styleGeneration = cache.generation(style);
+        otherGeneration = cache.generation(other);
+        cache.invalidate(BASE + "/styles/point.xml");
+        cache.put(HTTPResponseCache.key(style, "admin"), style, new byte[10], null, null,
+                styleGeneration);
+        cache.put(HTTPResponseCache.key(other, "admin"), other, new byte[10], null, null,
+                otherGeneration);
+        assertEquals(0, cache.size());
+
+        dsGeneration = cache.generation(ds);
+        cache.clear();
+        cache.put(HTTPResponseCache.key(ds, "admin"), ds, new byte[10], null, null, dsGeneration);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testTransportInvalidationDuringGet() throws Exception {
+        final CountDownLatch received = new CountDownLatch(1);
+        final CountDownLatch changed = new CountDownLatch(1);
+        final AtomicInteger version = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/geoserver/rest/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                // the body is read before the change, and sent after it
+                byte[] body = ("<style><name>v" + version.get() + "</name></style>").getBytes("UTF-8");
+                received.countDown();
+                try {
+                    changed.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        final HTTPTransport transport = new HTTPTransport();
+        transport.setCache(new HTTPResponseCache());
+        final String url = "http://localhost:" + server.getAddress().getPort()
+                + "/geoserver/rest/styles/line.xml";
+        try {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<String> stale = executor.submit(new Callable<String>() {
+                public String call() {
+                    return transport.get(url, "admin", "geoserver");
+                }
+            });
+            executor.shutdown();
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+            version.incrementAndGet();
+            transport.invalidate(url);
+            changed.countDown();
+
+            assertEquals("<style><name>v0</name></style>", stale.get(10, TimeUnit.SECONDS));
+            assertEquals(0, transport.getCache().size());
+            assertEquals("<style><name>v1</name></style>", transport.get(url, "admin", "geoserver"));
+            assertEquals(1, transport.getCache().size());
+        } finally {
+            transport.shutdown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testBlankBodyIsEmpty() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/geoserver/rest/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = " \r\n\t ".getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        HTTPTransport transport = new HTTPTransport();
+        String url = "http://localhost:" + server.getAddress().getPort()
+                + "/geoserver/rest/styles/line.xml";
+        try {
+            assertNull(transport.get(url, "admin", "geoserver"));
+            assertNull(transport.getStream(url, "admin", "geoserver"));
+
+            transport.setCache(new HTTPResponseCache());
+            assertNull(transport.get(url, "admin", "geoserver"));
+            assertNull(transport.getStream(url, "admin", "geoserver"));
+            assertEquals(0, transport.getCache().size());
+        } finally {
+            transport.shutdown();
+            server.stop(0);
+        }
+    }
+}
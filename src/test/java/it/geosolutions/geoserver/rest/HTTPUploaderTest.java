@@ -0,0 +1,130 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+/**
+ * Checks the uploader settings and retry policy without a running GeoServer.
+ */
+public class HTTPUploaderTest {
+
+    @Test
+    public void testRetriesOnConnectionFailure() throws Exception {
+        File file = File.createTempFile("upload", ".bin");
+        try {
+            FileUtils.writeStringToFile(file, "some data");
+            HTTPUploader uploader = new HTTPUploader(new HTTPTransport());
+            uploader.setMaxRetries(2);
+            uploader.setRetryDelay(1);
+            assertNull(uploader.put("http://localhost:1/geoserver/rest/workspaces/ws/coveragestores/cs/file.geotiff",
+                    file, "image/tiff", "admin", "geoserver"));
+            assertEquals(3, uploader.getUploads());
+            assertEquals(2, uploader.getRetries());
+            assertEquals(3, uploader.getFailures());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRetriesFollowTheTransportPolicy() throws Exception {
+        File file = File.createTempFile("upload", ".bin");
+        try {
+            HTTPTransport transport = new HTTPTransport();
+            HTTPUploader uploader = new HTTPUploader(transport);
+            assertEquals(HTTPTransportPolicy.DEFAULT_MAX_RETRIES, uploader.getMaxRetries());
+            assertNull(uploader.put("http://localhost:1/geoserver/rest/workspaces/ws/coveragestores/cs/file.geotiff",
+                    file, "image/tiff", "admin", "geoserver"));
+            assertEquals(1, uploader.getUploads());
+            assertEquals(0, uploader.getRetries());
+
+            HTTPTransportPolicy policy = new HTTPTransportPolicy();
+            policy.setMaxRetries(1);
+            policy.setRetryDelay(1);
+            transport.setPolicy(policy);
+            assertEquals(1, uploader.getMaxRetries());
+            assertEquals(1, uploader.getRetryDelay());
+            assertNull(uploader.put("http://localhost:1/geoserver/rest/workspaces/ws/coveragestores/cs/file.geotiff",
+                    file, "image/tiff", "admin", "geoserver"));
+            assertEquals(3, uploader.getUploads());
+            assertEquals(1, uploader.getRetries());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testOpenCircuitIsNotRetried() throws Exception {
+        File file = File.createTempFile("upload", ".bin");
+        try {
+            HTTPCircuitBreaker breaker = new HTTPCircuitBreaker(1, 60000);
+            breaker.onFailure("localhost:1");
+            HTTPTransportPolicy policy = new HTTPTransportPolicy();
+            policy.setCircuitBreaker(breaker);
+            HTTPUploader uploader = new HTTPUploader(new HTTPTransport(policy));
+            uploader.setMaxRetries(3);
+            uploader.setRetryDelay(1);
+            assertNull(uploader.put("http://localhost:1/geoserver/rest/workspaces/ws/coveragestores/cs/file.geotiff",
+                    file, "image/tiff", "admin", "geoserver"));
+            assertEquals(1, uploader.getUploads());
+            assertEquals(0, uploader.getRetries());
+            assertEquals(1, uploader.getFailures());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testPostIsNotRetried() throws Exception {
+        File file = File.createTempFile("upload", ".bin");
+        try {
+            HTTPUploader uploader = new HTTPUploader(new HTTPTransport());
+            uploader.setRetryDelay(1);
+            assertNull(uploader.post("http://localhost:1/geoserver/rest/styles", file,
+                    "application/zip", "admin", "geoserver"));
+            assertEquals(1, uploader.getUploads());
+            assertEquals(0, uploader.getRetries());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBufferSize() {
+        new HTTPUploader(new HTTPTransport()).setBufferSize(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullTransport() {
+        new HTTPUploader(null);
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A transport serving canned REST resources without a running GeoServer, for
+ * the tests which need a reader over a known catalog.
+ * <P>
+ * Resources are registered by REST path (e.g.
+ * <TT>/rest/layers/topp:roads.xml</TT>), or as a catalog of workspaces,
+ * feature types and styles which also serves the matching lists; any other
+ * path is missing. The
+ * transport counts the requests and the existence probes per path, and
+ * records the requesting threads.
+ * The version of the served GeoServer is 2.8 unless {@link #VERSION_PATH}
+ * is replaced or removed.
+ */
+public class StubTransport extends HTTPTransport {
+
+    /** The URL of the fake GeoServer. */
+    public static final String URL = "http://localhost:1/geoserver";
+
+    /** The REST path of the GeoServer version. */
+    public static final String VERSION_PATH = "/rest/about/version.xml";
+
+    private final Map<String, String> resources = new ConcurrentHashMap<String, String>();
+
+    private final ConcurrentMap<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private final ConcurrentMap<String, AtomicInteger> probes = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private final ConcurrentMap<String, AtomicInteger> deletes = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private final Set<String> threads = new CopyOnWriteArraySet<String>();
+
+    /** the names in each served list, by list path */
+    private final Map<String, Set<String>> lists = new HashMap<String, Set<String>>();
+
+    public StubTransport() {
+        serve(VERSION_PATH, "<about><resource name=\"GeoServer\"><Version>2.8.0</Version></resource></about>");
+    }
+
+    /**
+     * @return a reader on an address where nothing is listening
+     */
+    public static GeoServerRESTReader unreachableReader() throws Exception {
+        return new GeoServerRESTReader(new URL(URL), "admin", "geoserver");
+    }
+
+    /**
+     * @return a new reader served by this transport
+     */
+    public GeoServerRESTReader newReader() throws Exception {
+        return new GeoServerRESTReader(new URL(URL), "admin", "geoserver", this);
+    }
+
+    /**
+     * Serves the body at the given REST path, replacing any previous one.
+     * 
+     * @return this transport
+     */
+    public StubTransport serve(String path, String body) {
+        resources.put(path, body);
+        return this;
+    }
+
+    /**
+     * Makes the resource at the given REST path missing.
+     * 
+     * @return this transport
+     */
+    public StubTransport remove(String path) {
+        resources.remove(path);
+        return this;
+    }
+
+    /**
+     * @return the number of GET requests for the given REST path
+     */
+    public int requests(String path) {
+        return count(requests, path, false);
+    }
+
+    /**
+     * @return the number of GET requests for the REST paths matching the
+     *         given regular expression
+     */
+    public int requestsMatching(String regex) {
+        return count(requests, regex, true);
+    }
+
+    /**
+     * @return the number of existence probes for the given REST path
+     */
+    public int probes(String path) {
+        return count(probes, path, false);
+    }
+
+    /**
+     * @return the number of existence probes for the REST paths matching the
+     *         given regular expression
+     */
+    public int probesMatching(String regex) {
+        return count(probes, regex, true);
+    }
+
+    /**
+     * @return the number of DELETE requests for the given REST path
+     */
+    public int deletes(String path) {
+        return count(deletes, path, false);
+    }
+
+    /**
+     * @return the number of DELETE requests for the REST paths matching the
+     *         given regular expression
+     */
+    public int deletesMatching(String regex) {
+        return count(deletes, regex, true);
+    }
+
+    /**
+     * Forgets the requests, the probes and the deletions counted so far.
+     */
+    public void resetCounts() {
+        requests.clear();
+        probes.clear();
+        deletes.clear();
+        threads.clear();
+    }
+
+    private static int count(Map<String, AtomicInteger> counts, String path, boolean regex) {
+        int total = 0;
+        for (Map.Entry<String, AtomicInteger> e : counts.entrySet()) {
+            if (regex ? e.getKey().matches(path) : e.getKey().equals(path))
+                total += e.getValue().get();
+        }
+        return total;
+    }
+
+    /**
+     * Adds a workspace, without styles, to the catalog.
+     * 
+     * @return this transport
+     */
+    public StubTransport addWorkspace(String ws) {
+        list("/rest/workspaces.xml", "workspace", ws, true);
+        list("/rest/workspaces/" + ws + "/styles.xml", "style", null, true);
+        return this;
+    }
+
+    /**
+     * Adds a feature type and its layer to the catalog, together with its
+     * workspace and store.
+     * 
+     * @param bbox the lat/lon extent: minx, miny, maxx, maxy
+     * @param styles the default style of the layer followed by the other
+     *        ones, qualified with their workspace (<TT>workspace:name</TT>)
+     *        or not
+     * @return this transport
+     */
+    public StubTransport addFeatureType(String ws, String store, String name, double[] bbox,
+            String... styles) {
+        addWorkspace(ws);
+        final String storePath = "/rest/workspaces/" + ws + "/datastores/" + store;
+        final String resourcePath = storePath + "/featuretypes/" + name + ".xml";
+        serve(storePath + ".xml", "<dataStore><name>" + store + "</name><workspace><name>" + ws
+                + "</name></workspace></dataStore>");
+        serve(resourcePath, "<featureType><name>" + name + "</name><namespace><name>" + ws
+                + "</name></namespace><latLonBoundingBox><minx>" + bbox[0] + "</minx><maxx>"
+                + bbox[2] + "</maxx><miny>" + bbox[1] + "</miny><maxy>" + bbox[3]
+                + "</maxy><crs>EPSG:4326</crs></latLonBoundingBox><store class=\"dataStore\"><name>"
+                + store + "</name>" + link(storePath + ".xml") + "</store></featureType>");
+
+        final StringBuilder layer = new StringBuilder("<layer><name>").append(name).append(
+                "</name><type>VECTOR</type>");
+        if (styles.length > 0) {
+            layer.append("<defaultStyle><name>").append(styles[0]).append("</name></defaultStyle>");
+            layer.append("<styles>");
+            for (int i = 1; i < styles.length; i++) {
+                layer.append("<style><name>").append(styles[i]).append("</name></style>");
+            }
+            layer.append("</styles>");
+        }
+        layer.append("<resource class=\"featureType\"><name>").append(name).append("</name>")
+                .append(link(resourcePath)).append("</resource></layer>");
+        serve("/rest/layers/" + ws + ":" + name + ".xml", layer.toString());
+        list("/rest/layers.xml", "layer", ws + ":" + name, true);
+        return this;
+    }
+
+    /**
+     * Removes a layer from the catalog, leaving its resource.
+     * 
+     * @return this transport
+     */
+    public StubTransport removeLayer(String ws, String name) {
+        remove("/rest/layers/" + ws + ":" + name + ".xml");
+        list("/rest/layers.xml", "layer", ws + ":" + name, false);
+        return this;
+    }
+
+    /**
+     * Adds a style to the catalog.
+     * 
+     * @param ws the workspace of the style, or <TT>null</TT> for a global one
+     * @return this transport
+     */
+    public StubTransport addStyle(String ws, String name) {
+        if (ws == null) {
+            serve("/rest/styles/" + name + ".xml", style(null, name));
+            list("/rest/styles.xml", "style", name, true);
+        } else {
+            addWorkspace(ws);
+            serve("/rest/workspaces/" + ws + "/styles/" + name + ".xml", style(ws, name));
+            list("/rest/workspaces/" + ws + "/styles.xml", "style", name, true);
+        }
+        return this;
+    }
+
+    /**
+     * @param ws the workspace of the style, or <TT>null</TT> for a global one
+     * @return the XML of a style
+     */
+    public static String style(String ws, String name) {
+        return "<style><name>" + name + "</name>"
+                + (ws == null ? "" : "<workspace><name>" + ws + "</name></workspace>") + "</style>";
+    }
+
+    private static String link(String path) {
+        return "<atom:link xmlns:atom=\"http://www.w3.org/2005/Atom\" rel=\"alternate\" href=\""
+                + URL + path + "\" type=\"application/xml\"/>";
+    }
+
+    /**
+     * Adds or removes a name in the list served at the given path.
+     */
+    private synchronized void list(String path, String element, String name, boolean add) {
+        Set<String> names = lists.get(path);
+        if (names == null) {
+            names = new LinkedHashSet<String>();
+            lists.put(path, names);
+        }
+        if (name != null) {
+            if (add)
+                names.add(name);
+            else
+                names.remove(name);
+        }
+        final StringBuilder sb = new StringBuilder("<").append(element).append("s>");
+        for (String n : names) {
+            sb.append('<').append(element).append("><name>").append(n).append("</name></")
+                    .append(element).append('>');
+        }
+        serve(path, sb.append("</").append(element).append("s>").toString());
+    }
+
+    /**
+     * @return the names of the threads which sent a request
+     */
+    public Set<String> getThreads() {
+        return threads;
+    }
+
+    private String lookup(String url, ConcurrentMap<String, AtomicInteger> counts) {
+        if (!url.startsWith(URL))
+            throw new IllegalArgumentException("Unexpected URL: " + url);
+        String path = url.substring(URL.length());
+        int query = path.indexOf('?');
+        if (query >= 0)
+            path = path.substring(0, query);
+        counts.putIfAbsent(path, new AtomicInteger());
+        counts.get(path).incrementAndGet();
+        threads.add(Thread.currentThread().getName());
+        return resources.get(path);
+    }
+
+    @Override
+    public String get(String url, String username, String pw) {
+        return lookup(url, requests);
+    }
+
+    @Override
+    public InputStream getStream(String url, String username, String pw) {
+        String body = lookup(url, requests);
+        if (body == null)
+            return null;
+        try {
+            return new ByteArrayInputStream(body.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean exists(String url, String username, String pw) {
+        return lookup(url, probes) != null;
+    }
+
+    @Override
+    public boolean delete(String url, String user, String pw) {
+        lookup(url, deletes);
+        return true;
+    }
+
+    @Override
+    public boolean httpPing(String url, String username, String pw) {
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.geoserver.rest.decoder.RESTStyle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Checks the style searches against a stub catalog.
+ */
+public class UtilSearchStylesTest {
+
+    /** the existence probes */
+    private static final String PROBES = ".*";
+
+    /** the style loads */
+    private static final String GETS = ".*/styles/[^/]+\\.xml";
+
+    /** the style list loads */
+    private static final String LISTS = ".*/styles\\.xml";
+
+    /**
+     * 50 workspaces; "line" is global and in ws7, "poly" in ws3 and ws40.
+     */
+    private static StubTransport newCatalog() {
+        StubTransport transport = new StubTransport();
+        for (int i = 0; i < 50; i++) {
+            transport.addWorkspace("ws" + i);
+        }
+        transport.addStyle(null, "point").addStyle(null, "line").addStyle("ws7", "line");
+        transport.addStyle("ws3", "poly").addStyle("ws40", "poly");
+        // lenient, like GeoServer: the global lookup falls back to a workspace style
+        return transport.serve("/rest/styles/poly.xml", StubTransport.style("ws3", "poly"));
+    }
+
+    private static List<String> workspaces(List<RESTStyle> styles) {
+        List<String> result = new ArrayList<String>();
+        for (RESTStyle style : styles) {
+            result.add(style.getWorkspace());
+        }
+        return result;
+    }
+
+    @Test
+    public void testSearchStyle() throws Exception {
+        StubTransport transport = newCatalog();
+        GeoServerRESTReader reader = transport.newReader();
+        assertEquals(Arrays.asList(null, "ws7"), workspaces(Util.searchStyles(reader, "line")));
+        assertEquals(50, transport.probesMatching(PROBES));
+        // the global one and the only existing workspace one
+        assertEquals(2, transport.requestsMatching(GETS));
+        assertTrue(transport.getThreads().size() > 1);
+
+        // the lenient global lookup is discarded
+        assertEquals(Arrays.asList("ws3", "ws40"), workspaces(Util.searchStyles(reader, "poly")));
+    }
+
+    @Test
+    public void testSearchManyStyles() throws Exception {
+        StubTransport transport = newCatalog();
+        Map<String, List<RESTStyle>> styles = Util.searchStyles(transport.newReader(),
+                Arrays.asList("poly", "line", "missing", "line"));
+
+        assertEquals(Arrays.asList("poly", "line", "missing"), new ArrayList<String>(styles.keySet()));
+        assertEquals(Arrays.asList("ws3", "ws40"), workspaces(styles.get("poly")));
+        assertEquals(Arrays.asList(null, "ws7"), workspaces(styles.get("line")));
+        assertTrue(styles.get("missing").isEmpty());
+        assertEquals(51, transport.requestsMatching(LISTS));
+        assertEquals(4, transport.requestsMatching(GETS));
+        assertEquals(0, transport.probesMatching(PROBES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullExecutor() throws Exception {
+        Util.searchStyles(newCatalog().newReader(), "line", null);
+    }
+}
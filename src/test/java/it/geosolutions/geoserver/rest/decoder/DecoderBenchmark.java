@@ -0,0 +1,196 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Compares the JDOM decoders with the StAX pull decoders on catalog payloads.
+ * <P>
+ * This is not a unit test; run it with
+ * <code>java it.geosolutions.geoserver.rest.decoder.DecoderBenchmark [iterations]</code>
+ * with the test classpath.
+ */
+public class DecoderBenchmark {
+
+    private static final int LAYERS = 5000;
+
+    /** Keeps results reachable, so that the work is not optimized away. */
+    static volatile Object sink;
+
+    private interface Decode {
+        /** Builds the decoder. */
+        Object build(InputStream in);
+
+        /** Reads the commonly used properties. */
+        Object read(Object decoded);
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        StringBuilder sb = new StringBuilder("<layers>\n");
+        for (int i = 0; i < LAYERS; i++) {
+            sb.append("  <layer>\n    <name>topp:layer_").append(i).append("</name>\n");
+            sb.append("    <atom:link xmlns:atom=\"http://www.w3.org/2005/Atom\" rel=\"alternate\"");
+            sb.append(" href=\"http://localhost:8080/geoserver/rest/layers/topp%3Alayer_").append(i);
+            sb.append(".xml\" type=\"application/xml\"/>\n  </layer>\n");
+        }
+        final byte[] list = sb.append("</layers>\n").toString().getBytes("UTF-8");
+        InputStream is = DecoderBenchmark.class.getResourceAsStream("/testdata/layerExample.xml");
+        final byte[] layer = IOUtils.toByteArray(is);
+        is.close();
+        is = DecoderBenchmark.class.getResourceAsStream("/testdata/featureTypeExample.xml");
+        final byte[] featureType = IOUtils.toByteArray(is);
+        is.close();
+        is = DecoderBenchmark.class.getResourceAsStream("/testdata/coverageExample.xml");
+        final byte[] coverage = IOUtils.toByteArray(is);
+        is.close();
+
+        run("layer list, JDOM", list, iterations, new Decode() {
+            public Object build(InputStream in) {
+                return RESTLayerList.build(in);
+            }
+
+            public Object read(Object decoded) {
+                return ((RESTLayerList) decoded).getNames();
+            }
+        });
+        run("layer list, StAX", list, iterations, new Decode() {
+            public Object build(InputStream in) {
+                return RESTSummaryList.build(in);
+            }
+
+            public Object read(Object decoded) {
+                return ((RESTSummaryList) decoded).getNames();
+            }
+        });
+        run("layer, JDOM", layer, iterations * 100, new Decode() {
+            public Object build(InputStream in) {
+                return RESTLayer.build(in);
+            }
+
+            public Object read(Object decoded) {
+                RESTLayer l = (RESTLayer) decoded;
+                return l.getName() + l.getDefaultStyle() + l.getStyles().getNames() + l.getResourceUrl();
+            }
+        });
+        run("layer, StAX", layer, iterations * 100, new Decode() {
+            public Object build(InputStream in) {
+                return RESTLayerSummary.build(in);
+            }
+
+            public Object read(Object decoded) {
+                RESTLayerSummary l = (RESTLayerSummary) decoded;
+                return l.getName() + l.getDefaultStyle() + l.getStyles() + l.getResourceUrl();
+            }
+        });
+        run("featureType, JDOM", featureType, iterations * 100, new Decode() {
+            public Object build(InputStream in) {
+                return RESTFeatureType.build(in);
+            }
+
+            public Object read(Object decoded) {
+                RESTFeatureType r = (RESTFeatureType) decoded;
+                return r.getName() + r.getNameSpace() + r.getStoreName() + r.getLatLonEnvelope()
+                        + r.getAttributeList();
+            }
+        });
+        run("featureType, StAX", featureType, iterations * 100, new Decode() {
+            public Object build(InputStream in) {
+                return RESTFeatureTypeSummary.build(in);
+            }
+
+            public Object read(Object decoded) {
+                RESTFeatureTypeSummary r = (RESTFeatureTypeSummary) decoded;
+                return r.getName() + r.getNameSpace() + r.getStoreName() + r.getLatLonEnvelope()
+                        + r.getAttributes();
+            }
+        });
+        run("coverage, JDOM", coverage, iterations * 100, new Decode() {
+            public Object build(InputStream in) {
+                return RESTCoverage.build(in);
+            }
+
+            public Object read(Object decoded) {
+                RESTCoverage r = (RESTCoverage) decoded;
+                return r.getName() + r.getNameSpace() + r.getStoreName() + r.getLatLonEnvelope()
+                        + r.getParametersList();
+            }
+        });
+        run("coverage, StAX", coverage, iterations * 100, new Decode() {
+            public Object build(InputStream in) {
+                return RESTCoverageSummary.build(in);
+            }
+
+            public Object read(Object decoded) {
+                RESTCoverageSummary r = (RESTCoverageSummary) decoded;
+                return r.getName() + r.getNameSpace() + r.getStoreName() + r.getLatLonEnvelope()
+                        + r.getParameters();
+            }
+        });
+    }
+
+    private static void run(String name, byte[] payload, int iterations, Decode decode) {
+        // warm up
+        for (int i = 0; i < iterations; i++) {
+            decode.read(decode.build(new ByteArrayInputStream(payload)));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = decode.read(decode.build(new ByteArrayInputStream(payload)));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // memory retained by a decoded instance, on enough instances to rise above the noise
+        Runtime rt = Runtime.getRuntime();
+        Object[] retained = new Object[Math.max(20, 2000000 / payload.length)];
+        gc();
+        long before = rt.totalMemory() - rt.freeMemory();
+        for (int i = 0; i < retained.length; i++) {
+            retained[i] = decode.build(new ByteArrayInputStream(payload));
+        }
+        gc();
+        long after = rt.totalMemory() - rt.freeMemory();
+        sink = retained;
+
+        System.out.println(String.format("%-18s %10.1f us/op %10d bytes retained", name,
+                elapsed / 1000.0 / iterations, (after - before) / retained.length));
+    }
+
+    private static void gc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
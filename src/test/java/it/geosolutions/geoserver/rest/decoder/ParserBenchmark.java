@@ -0,0 +1,128 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import it.geosolutions.geoserver.rest.decoder.utils.XMLParsers;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.jdom.input.SAXBuilder;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Compares creating parsers on each call with the per-thread parsers of
+ * {@link XMLParsers}, on small REST responses and SLD version checks.
+ * <P>
+ * This is not a unit test; run it with
+ * <code>java it.geosolutions.geoserver.rest.decoder.ParserBenchmark [iterations]</code>
+ * with the test classpath. Allocation is reported on HotSpot JVMs only.
+ */
+public class ParserBenchmark {
+
+    private static final String RESPONSE = "<workspace><name>topp</name><dataStores>"
+            + "http://localhost:8080/geoserver/rest/workspaces/topp/datastores.xml</dataStores></workspace>";
+
+    private static final String SLD = "<StyledLayerDescriptor version=\"1.0.0\"><NamedLayer>"
+            + "<Name>default_point</Name></NamedLayer></StyledLayerDescriptor>";
+
+    /** Keeps results reachable, so that the work is not optimized away. */
+    static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+        run("JDOM, new builder", iterations, new Runnable() {
+            public void run() {
+                try {
+                    sink = new SAXBuilder().build(new StringReader(RESPONSE)).getRootElement();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        run("JDOM, pooled", iterations, new Runnable() {
+            public void run() {
+                sink = JDOMBuilder.buildElement(RESPONSE);
+            }
+        });
+        run("SLD check, new", iterations, new Runnable() {
+            public void run() {
+                try {
+                    Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                            .parse(new InputSource(new StringReader(SLD)));
+                    sink = XPathFactory.newInstance().newXPath().compile("//@version='1.0.0'")
+                            .evaluate(doc, XPathConstants.BOOLEAN);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        run("SLD check, pooled", iterations, new Runnable() {
+            public void run() {
+                try {
+                    Document doc = XMLParsers.getDocumentBuilder().parse(
+                            new InputSource(new StringReader(SLD)));
+                    sink = XMLParsers.getXPath("//@version='1.0.0'").evaluate(doc,
+                            XPathConstants.BOOLEAN);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    private static void run(String name, int iterations, Runnable call) {
+        // warm up
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = allocatedBytes() - allocated;
+        System.out.println(String.format("%-18s %8.2f us/call %10d bytes/call", name,
+                elapsed / 1000.0 / iterations, allocated / iterations));
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread
+                    .currentThread().getId());
+        }
+        return 0;
+    }
+}
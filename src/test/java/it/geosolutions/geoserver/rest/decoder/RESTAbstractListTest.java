@@ -0,0 +1,71 @@
+package it.geosolutions.geoserver.rest.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Checks the name index of the list decoders.
+ */
+public class RESTAbstractListTest {
+
+    @Test
+    public void testNameLookup() throws IOException {
+        InputStream is = RESTAbstractListTest.class.getResourceAsStream("/testdata/featureTypeListExample.xml");
+        RESTFeatureTypeList list = RESTFeatureTypeList.build(IOUtils.toString(is));
+        is.close();
+
+        assertTrue(list.contains("tasmania_roads"));
+        assertFalse(list.contains("tasmania"));
+        assertFalse(list.contains(null));
+        assertEquals("tasmania_roads", list.getByName("tasmania_roads").getName());
+        assertSame(list.get(2), list.getByName("tasmania_roads"));
+        assertNull(list.getByName("missing"));
+
+        // callers get their own copy of the names
+        List<String> names = list.getNames();
+        names.clear();
+        assertEquals(5, list.getNames().size());
+    }
+
+    @Test
+    public void testFirstDuplicateWins() {
+        RESTPublishedList list = RESTPublishedList.build("<publishables>"
+                + "<published type=\"layer\"><name>a</name></published>"
+                + "<published type=\"layerGroup\"><name>a</name></published>"
+                + "</publishables>");
+        assertEquals("layer", list.getByName("a").getType());
+        assertEquals(Arrays.asList("a", "a"), list.getNames());
+    }
+
+    @Test
+    public void testWorkspaceList() {
+        RESTWorkspaceList list = RESTWorkspaceList.build("<workspaces>"
+                + "<workspace><name>topp</name></workspace>"
+                + "<workspace><name>sf</name></workspace>"
+                + "</workspaces>");
+        assertEquals(2, list.size());
+        assertTrue(list.contains("sf"));
+        assertEquals("topp", list.get(0).getName());
+        int count = 0;
+        for (NameLinkElem ws : list) {
+            assertSame(list.get(count++), ws);
+        }
+        assertEquals(2, count);
+
+        RESTNamespaceList empty = RESTNamespaceList.build("<namespaces/>");
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.contains("topp"));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Checks that the pull decoders match the JDOM based ones.
+ */
+public class RESTSummaryListTest {
+
+    private static String load(String resource) throws IOException {
+        InputStream is = RESTSummaryListTest.class.getResourceAsStream(resource);
+        try {
+            return IOUtils.toString(is);
+        } finally {
+            is.close();
+        }
+    }
+
+    @Test
+    public void testList() throws IOException {
+        String response = load("/testdata/featureTypeListExample.xml");
+        RESTSummaryList result = RESTSummaryList.build(response);
+        assertEquals(RESTFeatureTypeList.build(response).getNames(), result.getNames());
+        assertEquals(5, result.size());
+        assertSame(result.get(1), result.get(1));
+        assertEquals("http://localhost:8080/geoserver/rest/workspaces/topp/featuretypes/tasmania_cities.xml",
+                result.get(1).getHref());
+
+        assertTrue(RESTSummaryList.build("<workspaces/>").isEmpty());
+        assertNull(RESTSummaryList.build("<workspaces>"));
+    }
+
+    @Test
+    public void testLayer() throws IOException {
+        for (String resource : new String[] { "/testdata/layerExample.xml",
+                "/testdata/layerExample21.xml" }) {
+            String response = load(resource);
+            RESTLayer layer = RESTLayer.build(response);
+            RESTLayerSummary summary = RESTLayerSummary.build(response);
+            assertEquals(layer.getName(), summary.getName());
+            assertEquals(layer.getType(), summary.getType());
+            assertEquals(layer.getDefaultStyle(), summary.getDefaultStyle());
+            assertEquals(layer.getDefaultStyleWorkspace(), summary.getDefaultStyleWorkspace());
+            assertEquals(layer.getResourceUrl(), summary.getResourceUrl());
+            assertEquals(layer.getEnabled(), summary.getEnabled());
+            assertEquals(layer.getQueryable(), summary.getQueryable());
+            assertEquals(layer.getAdvertised(), summary.getAdvertised());
+            RESTStyleList styles = layer.getStyles();
+            assertEquals(styles == null ? 0 : styles.size(), summary.getStyles().size());
+            if (styles != null)
+                assertEquals(styles.getNames(), summary.getStyles());
+        }
+        assertNull(RESTLayerSummary.build("<featureType/>"));
+    }
+
+    private static void assertResource(RESTResource resource, RESTResourceSummary summary) {
+        assertEquals(resource.getName(), summary.getName());
+        assertEquals(resource.getNativeName(), summary.getNativeName());
+        assertEquals(resource.getTitle(), summary.getTitle());
+        assertEquals(resource.getAbstract(), summary.getAbstract());
+        assertEquals(resource.getKeywords(), summary.getKeywords());
+        assertEquals(resource.getNameSpace(), summary.getNameSpace());
+        assertEquals(resource.getStoreName(), summary.getStoreName());
+        assertEquals(resource.getStoreType(), summary.getStoreType());
+        assertEquals(resource.getStoreUrl(), summary.getStoreUrl());
+        assertEquals(resource.getNativeCRS().trim(), summary.getNativeCRS());
+        assertEquals(resource.getNativeEnvelope(), summary.getNativeEnvelope());
+        assertEquals(resource.getLatLonEnvelope(), summary.getLatLonEnvelope());
+    }
+
+    @Test
+    public void testFeatureType() throws IOException {
+        String response = load("/testdata/featureTypeExample.xml");
+        RESTFeatureType featureType = RESTFeatureType.build(response);
+        RESTFeatureTypeSummary summary = RESTFeatureTypeSummary.build(response);
+        assertResource(featureType, summary);
+        assertEquals("EPSG:4326", summary.getSRS());
+        assertTrue(summary.getEnabled());
+
+        List<String> names = new ArrayList<String>();
+        for (RESTFeatureType.Attribute attribute : featureType.getAttributes()) {
+            names.add(attribute.getName());
+            assertEquals(attribute.getBinding(), summary.getAttributes().get(attribute.getName()));
+        }
+        assertEquals(names, new ArrayList<String>(summary.getAttributes().keySet()));
+        assertNull(summary.getAttributes().get("POP_CLASS"));
+
+        assertNull(RESTFeatureTypeSummary.build("<coverage/>"));
+        assertNull(RESTFeatureTypeSummary.build(
+                "<featureType><latLonBoundingBox><minx>0</minx></latLonBoundingBox></featureType>"));
+    }
+
+    @Test
+    public void testCoverage() throws IOException {
+        String response = load("/testdata/coverageExample.xml");
+        RESTCoverage coverage = RESTCoverage.build(response);
+        RESTCoverageSummary summary = RESTCoverageSummary.build(response);
+        assertResource(coverage, summary);
+        assertEquals(coverage.getSRS(), summary.getSRS());
+        assertEquals(coverage.getNativeFormat(), summary.getNativeFormat());
+        assertEquals(coverage.getNativeCoverageName(), summary.getNativeCoverageName());
+        assertEquals(coverage.getParametersList(), summary.getParameters());
+        assertEquals("", summary.getParameters().get("InputTransparentColor"));
+        assertEquals(coverage.getEncodedDimensionsInfoList().size(), summary.getDimensions().size());
+        assertTrue(summary.getEnabled());
+
+        assertNull(RESTCoverageSummary.build("<featureType/>"));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.utils.JSONBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import net.sf.json.JSONSerializer;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Compares the XML and JSON wire formats: size of the representations and
+ * time to decode them into the same decoders. The time needed by json-lib to
+ * just build its own objects is measured as well, see {@link JSONBuilder}.
+ * <P>
+ * This is not a unit test; run it with
+ * <code>java it.geosolutions.geoserver.rest.decoder.WireFormatBenchmark [iterations]</code>
+ * with the test classpath.
+ */
+public class WireFormatBenchmark {
+
+    private static final int LAYERS = 5000;
+
+    /** Keeps results reachable, so that the work is not optimized away. */
+    static volatile Object sink;
+
+    private interface Decode {
+        Object decode(InputStream in);
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+
+        StringBuilder xml = new StringBuilder("<layers>\n");
+        StringBuilder json = new StringBuilder("{\"layers\":{\"layer\":[");
+        for (int i = 0; i < LAYERS; i++) {
+            xml.append("  <layer>\n    <name>topp:layer_").append(i).append("</name>\n");
+            xml.append("    <atom:link xmlns:atom=\"http://www.w3.org/2005/Atom\" rel=\"alternate\"");
+            xml.append(" href=\"http://localhost:8080/geoserver/rest/layers/topp%3Alayer_").append(i);
+            xml.append(".xml\" type=\"application/xml\"/>\n  </layer>\n");
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"topp:layer_").append(i);
+            json.append("\",\"href\":\"http:\\/\\/localhost:8080\\/geoserver\\/rest\\/layers\\/topp%3Alayer_");
+            json.append(i).append(".json\"}");
+        }
+        xml.append("</layers>\n");
+        json.append("]}}");
+
+        Decode list = new Decode() {
+            public Object decode(InputStream in) {
+                return RESTLayerList.build(in).getNames();
+            }
+        };
+        Decode coverage = new Decode() {
+            public Object decode(InputStream in) {
+                RESTCoverage c = RESTCoverage.build(in);
+                return c.getName() + c.getKeywords() + c.getDimensionInfo() + c.getStoreUrl();
+            }
+        };
+        run("layer list, XML", xml.toString().getBytes("UTF-8"), false, iterations, list);
+        run("layer list, JSON", json.toString().getBytes("UTF-8"), true, iterations, list);
+        run("coverage, XML", resource("/testdata/coverageExample.xml"), false, iterations * 100,
+                coverage);
+        run("coverage, JSON", resource("/testdata/coverageExample.json"), true, iterations * 100,
+                coverage);
+
+        // lower bound of decoding through the json-lib objects: the parsing alone
+        Decode jsonLib = new Decode() {
+            public Object decode(InputStream in) {
+                try {
+                    return JSONSerializer.toJSON(IOUtils.toString(in, "UTF-8"));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        run("layer list, json-lib", json.toString().getBytes("UTF-8"), false, iterations, jsonLib);
+        run("coverage, json-lib", resource("/testdata/coverageExample.json"), false,
+                iterations * 100, jsonLib);
+    }
+
+    private static InputStream stream(byte[] payload, boolean json) {
+        InputStream in = new ByteArrayInputStream(payload);
+        return json ? JSONBuilder.wrap(in) : in;
+    }
+
+    private static byte[] resource(String name) throws Exception {
+        InputStream is = WireFormatBenchmark.class.getResourceAsStream(name);
+        try {
+            return IOUtils.toByteArray(is);
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * @param json true to mark the payload as JSON, as the reader does
+     */
+    private static void run(String name, byte[] payload, boolean json, int iterations,
+            Decode decode) {
+        // warm up
+        for (int i = 0; i < iterations; i++) {
+            sink = decode.decode(stream(payload, json));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = decode.decode(stream(payload, json));
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("%-20s %10d bytes %10.1f us/op", name, payload.length,
+                elapsed / 1000.0 / iterations));
+    }
+}
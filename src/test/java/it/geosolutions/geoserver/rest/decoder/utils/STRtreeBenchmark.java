@@ -0,0 +1,104 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import it.geosolutions.geoserver.rest.decoder.RESTEnvelope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the bounding box queries on an {@link STRtree} with a scan of the
+ * envelopes, on layer-like extents spread over the world.
+ * <P>
+ * Arguments: number of extents (default 20000), number of queries (default 100000).
+ */
+public class STRtreeBenchmark {
+
+    /** Keeps results reachable, so that the work is not optimized away. */
+    static volatile Object sink;
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+        Random random = new Random(1);
+        final double[] coords = new double[4 * size];
+        final List<RESTEnvelope> envelopes = new ArrayList<RESTEnvelope>(size);
+        for (int i = 0; i < size; i++) {
+            double x = random.nextDouble() * 350 - 175, y = random.nextDouble() * 170 - 85;
+            double w = random.nextDouble() * 2, h = random.nextDouble() * 2;
+            coords[4 * i] = x - w;
+            coords[4 * i + 1] = y - h;
+            coords[4 * i + 2] = x + w;
+            coords[4 * i + 3] = y + h;
+            envelopes.add(new RESTEnvelope(x - w, y - h, x + w, y + h, "EPSG:4326"));
+        }
+        final double[] boxes = new double[4 * queries];
+        for (int i = 0; i < queries; i++) {
+            double x = random.nextDouble() * 350 - 175, y = random.nextDouble() * 170 - 85;
+            boxes[4 * i] = x;
+            boxes[4 * i + 1] = y;
+            boxes[4 * i + 2] = x + 5;
+            boxes[4 * i + 3] = y + 5;
+        }
+
+        long start = System.nanoTime();
+        final STRtree tree = new STRtree(coords, size);
+        System.out.printf("build %d extents: %.1f ms%n", size, (System.nanoTime() - start) / 1e6);
+
+        for (int round = 0; round < 3; round++) {
+            start = System.nanoTime();
+            long found = 0;
+            for (int q = 0; q < queries; q++) {
+                int[] ids = tree.query(boxes[4 * q], boxes[4 * q + 1], boxes[4 * q + 2], boxes[4 * q + 3]);
+                found += ids.length;
+                sink = ids;
+            }
+            long treeTime = System.nanoTime() - start;
+
+            // the scan is much slower: run a tenth of the queries
+            final int scans = Math.max(1, queries / 10);
+            start = System.nanoTime();
+            long scanned = 0;
+            for (int q = 0; q < scans; q++) {
+                RESTEnvelope box = new RESTEnvelope(boxes[4 * q], boxes[4 * q + 1], boxes[4 * q + 2],
+                        boxes[4 * q + 3], null);
+                List<RESTEnvelope> hits = new ArrayList<RESTEnvelope>();
+                for (RESTEnvelope envelope : envelopes) {
+                    if (envelope.intersects(box))
+                        hits.add(envelope);
+                }
+                scanned += hits.size();
+                sink = hits;
+            }
+            long scanTime = System.nanoTime() - start;
+            System.out.printf("round %d: tree %.2f us/query (%.1f hits), scan %.2f us/query (%.1f hits)%n",
+                    round, treeTime / 1e3 / queries, (double) found / queries, scanTime / 1e3 / scans,
+                    (double) scanned / scans);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class STRtreeTest {
+
+    private static int[] scan(double[] coords, int size, double minX, double minY, double maxX,
+            double maxY) {
+        int[] found = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (coords[4 * i] <= maxX && coords[4 * i + 2] >= minX && coords[4 * i + 1] <= maxY
+                    && coords[4 * i + 3] >= minY)
+                found[count++] = i;
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private static int[] sorted(int[] ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @Test
+    public void testAgainstScan() {
+        Random random = new Random(42);
+        for (int size : new int[] { 1, 2, 15, 16, 17, 300, 5000 }) {
+            double[] coords = new double[4 * size];
+            for (int i = 0; i < size; i++) {
+                // some boxes share the same center
+                double x = i % 7 == 0 ? 10 : random.nextDouble() * 360 - 180;
+                double y = i % 7 == 0 ? 10 : random.nextDouble() * 180 - 90;
+                double w = random.nextDouble() * 5, h = random.nextDouble() * 5;
+                coords[4 * i] = x - w;
+                coords[4 * i + 1] = y - h;
+                coords[4 * i + 2] = x + w;
+                coords[4 * i + 3] = y + h;
+            }
+            STRtree tree = new STRtree(coords, size, 4);
+            assertEquals(size, tree.size());
+            for (int q = 0; q < 200; q++) {
+                double x = random.nextDouble() * 360 - 180, y = random.nextDouble() * 180 - 90;
+                double w = random.nextDouble() * 40;
+                assertArrayEquals(scan(coords, size, x, y, x + w, y + w),
+                        sorted(tree.query(x, y, x + w, y + w)));
+                assertArrayEquals(scan(coords, size, x, y, x, y), sorted(tree.query(x, y)));
+            }
+            assertArrayEquals(scan(coords, size, 10, 10, 10, 10), sorted(tree.query(10, 10)));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        STRtree tree = new STRtree(new double[0], 0);
+        assertEquals(0, tree.getDepth());
+        assertEquals(0, tree.query(-180, -90, 180, 90).length);
+    }
+
+    @Test
+    public void testDepth() {
+        double[] coords = new double[4 * 100];
+        STRtree tree = new STRtree(coords, 100, 10);
+        // items, leaves, root
+        assertEquals(3, tree.getDepth());
+        assertEquals(100, tree.query(0, 0).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortArray() {
+        new STRtree(new double[7], 2);
+    }
+}
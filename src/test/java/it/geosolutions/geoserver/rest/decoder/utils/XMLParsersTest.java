@@ -0,0 +1,78 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+
+import javax.xml.xpath.XPathConstants;
+
+import org.jdom.input.SAXBuilder;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks the per-thread reuse of parsers.
+ */
+public class XMLParsersTest {
+
+    @Test
+    public void testPerThread() throws Exception {
+        assertSame(XMLParsers.getSAXBuilder(), XMLParsers.getSAXBuilder());
+        assertSame(XMLParsers.getDocumentBuilder(), XMLParsers.getDocumentBuilder());
+        assertSame(XMLParsers.getXPath("//name"), XMLParsers.getXPath("//name"));
+
+        final SAXBuilder[] other = new SAXBuilder[1];
+        Thread thread = new Thread() {
+            public void run() {
+                other[0] = XMLParsers.getSAXBuilder();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertNotSame(XMLParsers.getSAXBuilder(), other[0]);
+    }
+
+    @Test
+    public void testReuseAfterError() throws Exception {
+        assertNull(JDOMBuilder.buildElement("<layer><name>"));
+        assertEquals("a", JDOMBuilder.buildElement("<layer><name>a</name></layer>").getChildText("name"));
+
+        try {
+            XMLParsers.getDocumentBuilder().parse(new ByteArrayInputStream("<sld".getBytes()));
+        } catch (SAXException e) {
+            // expected
+        }
+        Document doc = XMLParsers.getDocumentBuilder().parse(
+                new ByteArrayInputStream("<sld version=\"1.0.0\"/>".getBytes()));
+        assertEquals(Boolean.TRUE,
+                XMLParsers.getXPath("//@version='1.0.0'").evaluate(doc, XPathConstants.BOOLEAN));
+    }
+}
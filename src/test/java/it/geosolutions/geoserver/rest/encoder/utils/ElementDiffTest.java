@@ -0,0 +1,143 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.encoder.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder;
+import it.geosolutions.geoserver.rest.encoder.datastore.GSPostGISDatastoreEncoder;
+import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.jdom.Element;
+import org.junit.Test;
+
+/**
+ * Checks the comparison of encoders with the representations returned by
+ * GeoServer.
+ */
+public class ElementDiffTest {
+
+    private static Element xml(String xml) {
+        return JDOMBuilder.buildElement(xml);
+    }
+
+    private static GSFeatureTypeEncoder roads() {
+        GSFeatureTypeEncoder fte = new GSFeatureTypeEncoder();
+        fte.setName("roads");
+        fte.setTitle("Roads");
+        fte.addKeyword("streets");
+        fte.setNativeBoundingBox(-180, -90, 180, 90, "EPSG:4326");
+        return fte;
+    }
+
+    @Test
+    public void testCurrentMayContainMore() {
+        Element current = xml("<featureType><name>roads</name><nativeName>roads</nativeName>"
+                + "<title>Roads</title><keywords><string>streets</string></keywords>"
+                + "<nativeBoundingBox><minx>-180</minx><maxx>180</maxx><miny>-90</miny>"
+                + "<maxy>90</maxy><crs class=\"projected\">EPSG:4326</crs></nativeBoundingBox>"
+                + "<enabled>TRUE</enabled><store class=\"dataStore\"><name>ws:pg</name></store>"
+                + "<metadata><entry key=\"cachingEnabled\">false</entry></metadata></featureType>");
+        assertTrue(ElementDiff.diff(roads().getRoot(), current).isEmpty());
+    }
+
+    @Test
+    public void testDifferencesAreReported() {
+        Element current = xml("<featureType><name>roads</name><title>Streets</title>"
+                + "<keywords><string>streets</string><string>ways</string></keywords>"
+                + "<nativeBoundingBox><minx>-180</minx><maxx>180</maxx><miny>-90</miny>"
+                + "<maxy>90</maxy><crs>EPSG:4326</crs></nativeBoundingBox>"
+                + "<enabled>true</enabled></featureType>");
+        assertEquals(Arrays.asList("featureType/keywords/string", "featureType/title"),
+                ElementDiff.diff(roads().getRoot(), current));
+    }
+
+    @Test
+    public void testReferencesMatchByName() {
+        GSLayerEncoder layer = new GSLayerEncoder();
+        layer.setDefaultStyle("ws", "line");
+        layer.addStyle("point");
+        layer.addStyle("ws:polygon");
+        Element current = xml("<layer><name>roads</name><defaultStyle><name>line</name>"
+                + "<workspace>ws</workspace></defaultStyle><styles class=\"linked-hash-set\">"
+                + "<style><name>point</name></style><style><name>polygon</name>"
+                + "<workspace>ws</workspace></style></styles><enabled>true</enabled></layer>");
+        assertTrue(ElementDiff.matches(layer.getRoot(), current));
+
+        layer.setDefaultStyle("ws", "point");
+        assertEquals(Arrays.asList("layer/defaultStyle/name"),
+                ElementDiff.diff(layer.getRoot(), current));
+    }
+
+    @Test
+    public void testEntriesMatchByKey() {
+        GSPostGISDatastoreEncoder store = new GSPostGISDatastoreEncoder("pg");
+        store.setHost("db");
+        store.setPort(5432);
+        StringBuilder current = new StringBuilder(
+                "<dataStore><name>pg</name><type>PostGIS</type><enabled>true</enabled>"
+                        + "<connectionParameters><entry key=\"namespace\">http://ws</entry>");
+        // in another order
+        for (Object entry : store.getRoot().getChild("connectionParameters").getChildren()) {
+            Element e = (Element) entry;
+            current.insert(current.indexOf("<entry"), "<entry key=\"" + e.getAttributeValue("key")
+                    + "\">" + e.getText() + "</entry>");
+        }
+        current.append("</connectionParameters></dataStore>");
+        assertTrue(ElementDiff.matches(store.getRoot(), xml(current.toString())));
+
+        store.setPort(5433);
+        assertEquals(Arrays.asList("dataStore/connectionParameters/entry[@key='port']"),
+                ElementDiff.diff(store.getRoot(), xml(current.toString())));
+    }
+
+    @Test
+    public void testIgnored() {
+        // GeoServer returns the passwords encrypted
+        Element desired = xml("<dataStore><name>pg</name><connectionParameters>"
+                + "<entry key=\"host\">db</entry><entry key=\"passwd\">secret</entry>"
+                + "</connectionParameters><password>secret</password></dataStore>");
+        Element current = xml("<dataStore><name>pg</name><connectionParameters>"
+                + "<entry key=\"host\">db</entry><entry key=\"passwd\">crypt1:Zm9vYmFy</entry>"
+                + "</connectionParameters><password>crypt1:Zm9vYmFy</password></dataStore>");
+        assertEquals(Arrays.asList("dataStore/connectionParameters/entry[@key='passwd']",
+                "dataStore/password"), ElementDiff.diff(desired, current));
+        assertTrue(ElementDiff.diff(desired, current,
+                new HashSet<String>(Arrays.asList("passwd", "password"))).isEmpty());
+    }
+
+    @Test
+    public void testMissingElements() {
+        Element current = xml("<featureType><name>roads</name></featureType>");
+        assertFalse(ElementDiff.matches(roads().getRoot(), current));
+        assertTrue(ElementDiff.matches(xml("<featureType><name>roads</name><metadata/>"
+                + "<keywords/></featureType>"), current));
+    }
+}
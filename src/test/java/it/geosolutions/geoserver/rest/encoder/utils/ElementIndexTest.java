@@ -0,0 +1,218 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.encoder.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.geoserver.rest.encoder.feature.FeatureTypeAttribute;
+import it.geosolutions.geoserver.rest.encoder.feature.GSAttributeEncoder;
+import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+
+import org.jdom.Element;
+import org.junit.Test;
+
+/**
+ * Checks that {@link ElementIndex} follows the changes of the indexed element,
+ * and the encoders using it.
+ */
+public class ElementIndexTest {
+
+    private static class Encoder extends PropertyXMLEncoder {
+        Encoder() {
+            super("root");
+        }
+    }
+
+    @Test
+    public void testReportedChanges() {
+        Element parent = new Element("p");
+        ElementIndex index = new ElementIndex(parent, ElementIndex.NAME);
+        assertNull(index.get("a"));
+
+        Element a = new Element("a");
+        parent.addContent(a);
+        index.added(a);
+        Element b = new Element("b");
+        parent.addContent(b);
+        index.added(b);
+        assertSame(a, index.get("a"));
+        assertSame(b, index.get("b"));
+
+        parent.removeContent(a);
+        index.removed(a);
+        assertNull(index.get("a"));
+        assertSame(b, index.get("b"));
+    }
+
+    @Test
+    public void testOtherChanges() {
+        Element parent = new Element("p");
+        ElementIndex index = new ElementIndex(parent, ElementIndex.NAME);
+        Element a = new Element("a");
+        parent.addContent(a);
+        assertSame(a, index.get("a"));
+
+        // same size, different children
+        parent.removeContent(a);
+        Element b = new Element("b");
+        parent.addContent(b);
+        assertNull(index.get("a"));
+        assertSame(b, index.get("b"));
+
+        // renamed child
+        b.setName("c");
+        assertNull(index.get("b"));
+        assertSame(b, index.get("c"));
+
+        // not reported as appended
+        Element d = new Element("d");
+        parent.addContent(0, d);
+        index.added(d);
+        assertSame(d, index.get("d"));
+        assertSame(b, index.get("c"));
+    }
+
+    @Test
+    public void testDuplicates() {
+        Element parent = new Element("p");
+        ElementIndex index = new ElementIndex(parent, ElementIndex.NAME);
+        Element first = new Element("a");
+        Element second = new Element("a");
+        parent.addContent(first);
+        index.added(first);
+        parent.addContent(second);
+        index.added(second);
+        assertSame(first, index.get("a"));
+
+        parent.removeContent(first);
+        index.removed(first);
+        assertSame(second, index.get("a"));
+    }
+
+    @Test
+    public void testPropertyEncoder() {
+        Encoder encoder = new Encoder();
+        encoder.set("a", "1");
+        encoder.set("b/c", "2");
+        encoder.add("b/d", "3");
+        encoder.set("a", "4");
+        encoder.set("b/c", "5");
+        assertEquals("<root><b><d>3</d><c>5</c></b><a>4</a></root>", encoder.toString());
+        assertEquals("5", encoder.get("b/c").getText());
+        assertNull(encoder.get("c"));
+        assertNull(encoder.get("x/c"));
+
+        // changed through XmlElement
+        assertTrue(encoder.remove("b"));
+        assertNull(encoder.get("b/c"));
+        encoder.set("b/c", "6");
+        assertEquals("<root><a>4</a><b><c>6</c></b></root>", encoder.toString());
+    }
+
+    @Test
+    public void testNestedEncoder() {
+        NestedElementEncoder encoder = new NestedElementEncoder("metadata");
+        for (int i = 0; i < 100; i++) {
+            encoder.set("k" + i, "v" + i);
+        }
+        encoder.set("k5", "new");
+        // replaces only the entries with the same child
+        encoder.set("k7", new Element("dimensionInfo"));
+        encoder.set("k7", new Element("dimensionInfo"));
+        assertTrue(encoder.remove("k9"));
+        assertFalse(encoder.remove("k9"));
+        assertEquals(100, encoder.getRoot().getChildren().size());
+        String xml = encoder.toString();
+        assertTrue(xml.endsWith("<entry key=\"k5\">new</entry><entry key=\"k7\">"
+                + "<dimensionInfo /></entry></metadata>"));
+        assertFalse(xml.contains(">v5<"));
+    }
+
+    @Test
+    public void testAttributes() {
+        GSFeatureTypeEncoder fte = new GSFeatureTypeEncoder();
+        for (int i = 0; i < 10; i++) {
+            GSAttributeEncoder attribute = new GSAttributeEncoder();
+            attribute.setAttribute(FeatureTypeAttribute.name, "a" + i);
+            attribute.setAttribute(FeatureTypeAttribute.binding, "java.lang.String");
+            fte.setAttribute(attribute);
+        }
+        GSAttributeEncoder attribute = new GSAttributeEncoder();
+        attribute.setAttribute(FeatureTypeAttribute.name, "a3");
+        attribute.setAttribute(FeatureTypeAttribute.binding, "java.lang.Integer");
+        fte.setAttribute(attribute);
+        assertTrue(fte.delAttribute("a4"));
+        assertFalse(fte.delAttribute("a4"));
+
+        Element attributes = fte.getRoot().getChild(GSFeatureTypeEncoder.ATTRIBUTES);
+        assertEquals(9, attributes.getChildren().size());
+        assertTrue(fte.toString().contains("<name>a3</name><binding>java.lang.Integer</binding>"));
+        assertFalse(fte.toString().contains("<name>a3</name><binding>java.lang.String</binding>"));
+    }
+
+    @Test
+    public void testMutableKeys() {
+        Element parent = new Element("p");
+        ElementIndex index = new ElementIndex(parent, ElementIndex.NAME, true);
+        Element a = new Element("a");
+        parent.addContent(a);
+        index.added(a);
+        assertSame(a, index.get("a"));
+
+        // renamed child, looked up by the new key first
+        a.setName("b");
+        assertSame(a, index.get("b"));
+        assertNull(index.get("a"));
+    }
+
+    @Test
+    public void testRenamedAttributes() {
+        GSFeatureTypeEncoder fte = new GSFeatureTypeEncoder();
+        GSAttributeEncoder renamed = new GSAttributeEncoder();
+        renamed.setAttribute(FeatureTypeAttribute.name, "a");
+        fte.setAttribute(renamed);
+        renamed.setAttribute(FeatureTypeAttribute.name, "b");
+        // named after it is added
+        GSAttributeEncoder unnamed = new GSAttributeEncoder();
+        fte.setAttribute(unnamed);
+        unnamed.setAttribute(FeatureTypeAttribute.name, "c");
+
+        GSAttributeEncoder attribute = new GSAttributeEncoder();
+        attribute.setAttribute(FeatureTypeAttribute.name, "c");
+        attribute.setAttribute(FeatureTypeAttribute.binding, "java.lang.Integer");
+        fte.setAttribute(attribute);
+        Element attributes = fte.getRoot().getChild(GSFeatureTypeEncoder.ATTRIBUTES);
+        assertEquals(2, attributes.getChildren().size());
+
+        assertFalse(fte.delAttribute("a"));
+        assertTrue(fte.delAttribute("b"));
+        assertEquals(1, attributes.getChildren().size());
+        assertFalse(fte.toString().contains("<name>b</name>"));
+        assertTrue(fte.toString().contains("<name>c</name><binding>java.lang.Integer</binding>"));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.encoder.utils;
+
+import it.geosolutions.geoserver.rest.encoder.feature.FeatureTypeAttribute;
+import it.geosolutions.geoserver.rest.encoder.feature.GSAttributeEncoder;
+import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+
+/**
+ * Measures building feature types with growing numbers of attributes and
+ * metadata entries: the time per entry should not grow with their number.
+ * <P>
+ * This is not a unit test; run it with
+ * <code>java it.geosolutions.geoserver.rest.encoder.utils.EncoderBuildBenchmark [max entries]</code>
+ * with the test classpath.
+ */
+public class EncoderBuildBenchmark {
+
+    /** Keeps results reachable, so that the work is not optimized away. */
+    static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        final int max = args.length > 0 ? Integer.parseInt(args[0]) : 8000;
+
+        // warm up
+        build(max / 4, max / 4);
+        build(max / 4, max / 4);
+
+        for (int entries = 500; entries <= max; entries *= 2) {
+            long start = System.nanoTime();
+            build(entries, 0);
+            long attributes = System.nanoTime() - start;
+            start = System.nanoTime();
+            build(0, entries);
+            long metadata = System.nanoTime() - start;
+            System.out.println(String.format(
+                    "%6d entries: attributes %7.2f us/entry, metadata %7.2f us/entry", entries,
+                    attributes / 1000.0 / entries, metadata / 1000.0 / entries));
+        }
+    }
+
+    private static void build(int attributes, int metadata) {
+        final GSFeatureTypeEncoder fte = new GSFeatureTypeEncoder();
+        fte.setName("roads");
+        fte.setTitle("Roads");
+        fte.setNativeCRS("EPSG:4326");
+        for (int i = 0; i < attributes; i++) {
+            GSAttributeEncoder attribute = new GSAttributeEncoder();
+            attribute.setAttribute(FeatureTypeAttribute.name, "attribute_" + i);
+            attribute.setAttribute(FeatureTypeAttribute.binding, "java.lang.String");
+            attribute.setAttribute(FeatureTypeAttribute.nillable, "true");
+            fte.setAttribute(attribute);
+        }
+        for (int i = 0; i < metadata; i++) {
+            fte.setMetadataString("key_" + i, "value_" + i);
+            // properties set after the lists have grown
+            fte.setTitle("Roads " + i);
+        }
+        sink = fte;
+    }
+}
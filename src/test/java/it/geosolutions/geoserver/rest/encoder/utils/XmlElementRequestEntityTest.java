@@ -0,0 +1,84 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.encoder.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder23;
+import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Checks that the streamed encoders match their String form.
+ */
+public class XmlElementRequestEntityTest {
+
+    @Test
+    public void testSameAsString() throws Exception {
+        GSFeatureTypeEncoder fte = new GSFeatureTypeEncoder();
+        fte.setName("citt\u00e0");
+        fte.setTitle("F\u00fc\u00dfe & <tags>");
+        fte.setNativeCRS("EPSG:4326");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        fte.writeTo(out);
+        assertEquals(fte.toString(), out.toString("UTF-8"));
+
+        StringWriter writer = new StringWriter();
+        fte.writeTo(writer);
+        assertEquals(fte.toString(), writer.toString());
+    }
+
+    @Test
+    public void testRepeatable() throws Exception {
+        GSLayerGroupEncoder23 group = new GSLayerGroupEncoder23();
+        group.setName("group");
+        group.setTitle("title");
+        group.addLayer("sf:roads", "line");
+        group.addLayerGroup("base");
+
+        XmlElementRequestEntity entity = new XmlElementRequestEntity(group);
+        assertTrue(entity.isRepeatable());
+        assertEquals(-1, entity.getContentLength());
+        assertEquals("text/xml; charset=UTF-8", entity.getContentType());
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        entity.writeRequest(first);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        entity.writeRequest(second);
+        assertEquals(first.toString("UTF-8"), second.toString("UTF-8"));
+        assertEquals(group.toString(), first.toString("UTF-8"));
+        assertTrue(group.toString().startsWith("<layerGroup><title>title</title><name>group</name>"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNull() {
+        new XmlElementRequestEntity(null);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.encoder.utils;
+
+import it.geosolutions.geoserver.rest.encoder.GSLayerGroupEncoder23;
+import it.geosolutions.geoserver.rest.encoder.feature.FeatureTypeAttribute;
+import it.geosolutions.geoserver.rest.encoder.feature.GSAttributeEncoder;
+import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+
+/**
+ * Compares sending an encoder as a String through a
+ * {@link StringRequestEntity} with streaming it through a
+ * {@link XmlElementRequestEntity}, for a feature type with many attributes
+ * and a large layer group.
+ * <P>
+ * This is not a unit test; run it with
+ * <code>java it.geosolutions.geoserver.rest.encoder.utils.XmlElementWriteBenchmark [iterations]</code>
+ * with the test classpath. Allocation is reported on HotSpot JVMs only.
+ */
+public class XmlElementWriteBenchmark {
+
+    /** Keeps results reachable, so that the work is not optimized away. */
+    static volatile Object sink;
+
+    /**
+     * Counts and discards the body, as the connection would send it.
+     */
+    private static class NullOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        final GSFeatureTypeEncoder fte = new GSFeatureTypeEncoder();
+        fte.setName("roads");
+        fte.setTitle("Roads");
+        fte.setNativeCRS("EPSG:4326");
+        for (int i = 0; i < 500; i++) {
+            GSAttributeEncoder attribute = new GSAttributeEncoder();
+            attribute.setAttribute(FeatureTypeAttribute.name, "attribute_" + i);
+            attribute.setAttribute(FeatureTypeAttribute.binding, "java.lang.String");
+            attribute.setAttribute(FeatureTypeAttribute.nillable, "true");
+            attribute.setAttribute(FeatureTypeAttribute.minOccurs, "0");
+            attribute.setAttribute(FeatureTypeAttribute.maxOccurs, "1");
+            fte.setAttribute(attribute);
+        }
+
+        final GSLayerGroupEncoder23 group = new GSLayerGroupEncoder23();
+        group.setName("all");
+        group.setTitle("All the layers");
+        for (int i = 0; i < 2000; i++) {
+            group.addLayer("ws:layer_" + i, "style_" + i);
+        }
+        // adds the pending elements once, outside the measures
+        group.toString();
+
+        for (final XmlElement element : new XmlElement[] { fte, group }) {
+            final String name = element.getRoot().getName();
+            run(name + ", String", iterations, new Runnable() {
+                public void run() {
+                    try {
+                        send(new StringRequestEntity(element.toString(), "text/xml", null));
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            run(name + ", streamed", iterations, new Runnable() {
+                public void run() {
+                    send(new XmlElementRequestEntity(element));
+                }
+            });
+        }
+    }
+
+    private static void send(RequestEntity entity) {
+        NullOutputStream out = new NullOutputStream();
+        try {
+            entity.writeRequest(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        sink = out;
+    }
+
+    private static void run(String name, int iterations, Runnable call) {
+        // warm up
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = allocatedBytes() - allocated;
+        System.out.println(String.format("%-24s %8.2f us/call %10d bytes/call", name,
+                elapsed / 1000.0 / iterations, allocated / iterations));
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread
+                    .currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import it.geosolutions.geoserver.rest.GeoServerRESTAbstractAsync;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+
+/**
+ * Checks the paging of {@link RESTStructuredCoverageGranulesIterator} against
+ * a fake index, without a running GeoServer.
+ */
+public class RESTStructuredCoverageGranulesIteratorTest {
+
+    /**
+     * Serves the granules of an index of the given size.
+     */
+    private static class FakeManager extends GeoServerRESTStructuredGridCoverageReaderManager {
+
+        private final int granules;
+
+        private final int failAt;
+
+        int requests;
+
+        FakeManager(int granules, int failAt) throws Exception {
+            super(new URL("http://localhost:1/geoserver"), "admin", "geoserver");
+            this.granules = granules;
+            this.failAt = failAt;
+        }
+
+        @Override
+        synchronized InputStream getGranulesStream(String workspace, String coverageStore,
+                String coverage, String filter, Integer offset, Integer limit)
+                throws UnsupportedEncodingException {
+            requests++;
+            if (offset.intValue() == failAt)
+                return null;
+            return new ByteArrayInputStream(page(offset, Math.min(limit, granules - offset))
+                    .getBytes("UTF-8"));
+        }
+    }
+
+    private static String page(int offset, int count) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<wfs:FeatureCollection xmlns:gf=\"http://www.geoserver.org/rest/granules\"");
+        sb.append(" xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\">\n");
+        sb.append("  <gml:boundedBy><gml:Box srsName=\"EPSG:4326\"><gml:coord><gml:X>5.0</gml:X>");
+        sb.append("<gml:Y>45.0</gml:Y></gml:coord></gml:Box></gml:boundedBy>\n");
+        for (int i = offset; i < offset + count; i++) {
+            sb.append("  <gml:featureMember>\n    <gf:V fid=\"V.").append(i).append("\">\n");
+            sb.append("      <gf:the_geom><gml:Polygon><gml:outerBoundaryIs><gml:LinearRing>");
+            sb.append("<gml:coordinates>5.0,45.0 5.0,50.9 14.8,50.9 5.0,45.0</gml:coordinates>");
+            sb.append("</gml:LinearRing></gml:outerBoundaryIs></gml:Polygon></gf:the_geom>\n");
+            sb.append("      <gf:location>granule_").append(i).append(".nc</gf:location>\n");
+            sb.append("      <gf:imageindex>").append(i).append("</gf:imageindex>\n");
+            sb.append("    </gf:V>\n  </gml:featureMember>\n");
+        }
+        sb.append("</wfs:FeatureCollection>\n");
+        return sb.toString();
+    }
+
+    @Test
+    public void testSameAsList() throws Exception {
+        RESTStructuredCoverageGranulesList list = RESTStructuredCoverageGranulesList.build(page(0, 3));
+        Iterator<RESTStructuredCoverageGranule> it = new FakeManager(3, -1).iterateGranules("ws",
+                "store", "cov", null, 10).iterator();
+        for (RESTStructuredCoverageGranule expected : list) {
+            RESTStructuredCoverageGranule actual = it.next();
+            assertEquals(expected.getFid(), actual.getFid());
+            assertEquals(expected.getAttributeByName("location"), actual.getAttributeByName("location"));
+            assertEquals(expected.getAttributeByIndex(2), actual.getAttributeByIndex(2));
+            assertEquals(expected.toString(), actual.toString());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testPaging() throws Exception {
+        FakeManager manager = new FakeManager(2500, -1);
+        RESTStructuredCoverageGranulesIterator it = (RESTStructuredCoverageGranulesIterator) manager
+                .iterateGranules("ws", "store", "cov", null, 1000).iterator();
+        int count = 0;
+        while (it.hasNext()) {
+            assertEquals("V." + count, it.next().getFid());
+            count++;
+        }
+        assertEquals(2500, count);
+        assertEquals(3, it.getPages());
+        // the page after the last one may have been prefetched speculatively
+        assertTrue(manager.requests == 3 || manager.requests == 4);
+    }
+
+    @Test
+    public void testCallerExecutor() throws Exception {
+        FakeManager manager = new FakeManager(2500, -1);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) GeoServerRESTAbstractAsync.newExecutor(1);
+        try {
+            int count = 0;
+            for (RESTStructuredCoverageGranule granule : manager.iterateGranules("ws", "store",
+                    "cov", null, 1000, executor)) {
+                assertEquals("V." + count, granule.getFid());
+                count++;
+            }
+            assertEquals(2500, count);
+            // one prefetch after each page
+            assertEquals(3, executor.getTaskCount());
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testWithoutPrefetch() throws Exception {
+        FakeManager manager = new FakeManager(2500, -1);
+        int count = 0;
+        for (Iterator<RESTStructuredCoverageGranule> it = manager.iterateGranules("ws", "store",
+                "cov", null, 1000, null).iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        assertEquals(2500, count);
+        assertEquals(3, manager.requests);
+    }
+
+    @Test
+    public void testExactMultiple() throws Exception {
+        FakeManager manager = new FakeManager(200, -1);
+        int count = 0;
+        for (RESTStructuredCoverageGranule granule : manager.iterateGranules("ws", "store", "cov",
+                null, 100)) {
+            assertEquals("granule_" + count + ".nc", granule.getAttributeByName("location"));
+            count++;
+        }
+        assertEquals(200, count);
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        Iterator<RESTStructuredCoverageGranule> it = new FakeManager(500, 200).iterateGranules(
+                "ws", "store", "cov", null, 100).iterator();
+        int count = 0;
+        try {
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+            fail("Missing page not reported");
+        } catch (IllegalStateException e) {
+            assertEquals(200, count);
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageSize() throws Exception {
+        new FakeManager(1, -1).iterateGranules("ws", "store", "cov", null, 0);
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007 - 2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.manager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import it.geosolutions.geoserver.rest.decoder.RESTEnvelope;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link RESTStructuredCoverageGranulesMirror} against a fake index,
+ * without a running GeoServer.
+ */
+public class RESTStructuredCoverageGranulesMirrorTest {
+
+    private static final String BASE = "http://localhost:1/geoserver/rest/workspaces/ws/coveragestores/store";
+
+    private static final class Granule {
+        final int id;
+
+        String time;
+
+        double elevation;
+
+        String location;
+
+        int imageIndex;
+
+        String updated;
+
+        Granule(int id, String time, double elevation, String location, int imageIndex,
+                String updated) {
+            this.id = id;
+            this.time = time;
+            this.elevation = elevation;
+            this.location = location;
+            this.imageIndex = imageIndex;
+            this.updated = updated;
+        }
+    }
+
+    /**
+     * Serves the granules of a map, understanding the filters sent by the mirror.
+     */
+    private static class FakeManager extends GeoServerRESTStructuredGridCoverageReaderManager {
+
+        final Map<Integer, Granule> granules = new TreeMap<Integer, Granule>();
+
+        final List<String> filters = new ArrayList<String>();
+
+        boolean fail;
+
+        FakeManager() throws Exception {
+            super(new URL("http://localhost:1/geoserver"), "admin", "geoserver");
+        }
+
+        void add(Granule granule) {
+            granules.put(granule.id, granule);
+        }
+
+        @Override
+        synchronized InputStream getGranulesStream(String workspace, String coverageStore,
+                String coverage, String filter, Integer offset, Integer limit)
+                throws UnsupportedEncodingException {
+            if (fail)
+                return null;
+            if (offset.intValue() == 0)
+                filters.add(filter);
+            List<Granule> selected = new ArrayList<Granule>();
+            for (Granule granule : granules.values()) {
+                if (filter == null) {
+                    selected.add(granule);
+                } else if (filter.startsWith("updated AFTER ")) {
+                    long after = RESTStructuredCoverageGranulesMirror.parseTime(filter
+                            .substring(14));
+                    if (RESTStructuredCoverageGranulesMirror.parseTime(granule.updated) > after)
+                        selected.add(granule);
+                } else if (filter.startsWith("IN (")) {
+                    if (filter.contains("'V." + granule.id + "'"))
+                        selected.add(granule);
+                } else {
+                    throw new IllegalArgumentException(filter);
+                }
+            }
+            int end = Math.min(selected.size(), offset + limit);
+            return new ByteArrayInputStream(page(selected.subList(Math.min(offset, end), end))
+                    .getBytes("UTF-8"));
+        }
+    }
+
+    private static String page(List<Granule> granules) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<wfs:FeatureCollection xmlns:gf=\"http://www.geoserver.org/rest/granules\"");
+        sb.append(" xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\">\n");
+        for (Granule g : granules) {
+            sb.append("  <gml:featureMember>\n    <gf:V fid=\"V.").append(g.id).append("\">\n");
+            sb.append("      <gf:the_geom><gml:Polygon><gml:outerBoundaryIs><gml:LinearRing>");
+            sb.append("<gml:coordinates>").append(g.id).append(",45.0 ").append(g.id)
+                    .append(",50.0 ").append(g.id + 1).append(",50.0 ").append(g.id)
+                    .append(",45.0</gml:coordinates>");
+            sb.append("</gml:LinearRing></gml:outerBoundaryIs></gml:Polygon></gf:the_geom>\n");
+            sb.append("      <gf:location>").append(g.location).append("</gf:location>\n");
+            sb.append("      <gf:imageindex>").append(g.imageIndex).append("</gf:imageindex>\n");
+            if (g.time != null)
+                sb.append("      <gf:time>").append(g.time).append("</gf:time>\n");
+            if (!Double.isNaN(g.elevation))
+                sb.append("      <gf:elevation>").append(g.elevation).append("</gf:elevation>\n");
+            if (g.updated != null)
+                sb.append("      <gf:updated>").append(g.updated).append("</gf:updated>\n");
+            sb.append("    </gf:V>\n  </gml:featureMember>\n");
+        }
+        sb.append("</wfs:FeatureCollection>\n");
+        return sb.toString();
+    }
+
+    private static FakeManager manager() throws Exception {
+        FakeManager manager = new FakeManager();
+        manager.add(new Granule(0, "2013-03-01T00:00:00Z", 0, "a.nc", 0, "2014-01-01T00:00:00.000Z"));
+        manager.add(new Granule(1, "2013-03-01T00:00:00Z", 10, "a.nc", 1, "2014-01-01T00:00:00.000Z"));
+        manager.add(new Granule(2, "2013-03-02T00:00:00Z", 0, "b.nc", 0, "2014-01-01T00:00:00.000Z"));
+        manager.add(new Granule(3, "2013-03-02T12:00:00.5+02:00", 10, "b.nc", 1,
+                "2014-01-02T00:00:00.000Z"));
+        manager.add(new Granule(4, null, Double.NaN, "c.nc", 0, "2014-01-02T00:00:00.000Z"));
+        return manager;
+    }
+
+    private static long time(String iso) {
+        return RESTStructuredCoverageGranulesMirror.parseTime(iso);
+    }
+
+    private static List<String> fids(RESTStructuredCoverageGranulesMirror mirror, int[] rows) {
+        List<String> fids = new ArrayList<String>();
+        for (int row : rows) {
+            fids.add(mirror.getFid(row));
+        }
+        Collections.sort(fids);
+        return fids;
+    }
+
+    @Test
+    public void testParseTime() {
+        assertEquals(0, time("1970-01-01T00:00:00Z"));
+        assertEquals(0, time("1970-01-01"));
+        assertEquals(1362178800000L, time("2013-03-01T23:00:00Z"));
+        assertEquals(1365392429061L, time("2013-04-08T05:40:29.061+02:00"));
+        assertEquals(1365392429061L, time("2013-04-08T03:40:29.061"));
+        assertEquals(-86400000L, time("1969-12-31T00:00:00Z"));
+        assertEquals(951782400000L, time("2000-02-29T00:00:00Z"));
+        assertEquals(RESTStructuredCoverageGranulesMirror.NO_TIME, time("yesterday"));
+        assertEquals(RESTStructuredCoverageGranulesMirror.NO_TIME, time(null));
+        long t = time("2014-05-06T07:08:09.010Z");
+        assertEquals(t, time(RESTStructuredCoverageGranulesMirror.formatTime(t)));
+    }
+
+    @Test
+    public void testFullSync() throws Exception {
+        FakeManager manager = manager();
+        RESTStructuredCoverageGranulesMirror mirror = manager.getGranulesMirror("ws", "store", "V");
+        assertEquals(0, mirror.size());
+        assertEquals(5, mirror.sync());
+        assertEquals(5, mirror.size());
+        assertEquals(Arrays.asList((String) null), manager.filters);
+        assertEquals(time("2014-01-02T00:00:00Z"), mirror.getLastUpdated());
+
+        int row = mirror.getRow("V.3");
+        assertEquals("V.3", mirror.getFid(row));
+        assertEquals(time("2013-03-02T10:00:00.500Z"), mirror.getTime(row));
+        assertEquals(10, mirror.getElevation(row), 0);
+        assertEquals("b.nc", mirror.getLocation(row));
+        assertEquals(1, mirror.getImageIndex(row));
+        assertEquals(new RESTEnvelope(3, 45, 4, 50, null), mirror.getFootprint(row));
+
+        row = mirror.getRow("V.4");
+        assertEquals(RESTStructuredCoverageGranulesMirror.NO_TIME, mirror.getTime(row));
+        assertTrue(Double.isNaN(mirror.getElevation(row)));
+        assertEquals(-1, mirror.getRow("V.5"));
+        mirror.close();
+    }
+
+    @Test
+    public void testQueries() throws Exception {
+        RESTStructuredCoverageGranulesMirror mirror = manager().getGranulesMirror("ws", "store", "V");
+        mirror.sync();
+        assertEquals(Arrays.asList("V.0", "V.1"), fids(mirror, mirror.findByTime(
+                time("2013-03-01T00:00:00Z"), time("2013-03-01T23:59:59Z"))));
+        assertEquals(Arrays.asList("V.0", "V.1", "V.2", "V.3"), fids(mirror,
+                mirror.findByTime(Long.MIN_VALUE + 1, Long.MAX_VALUE)));
+        assertEquals(Arrays.asList("V.1", "V.3"), fids(mirror, mirror.findByElevation(5, 10)));
+        assertEquals(Arrays.asList("V.3"), fids(mirror, mirror.find(time("2013-03-02T00:00:00Z"),
+                Long.MAX_VALUE, 5, 20)));
+        assertEquals(Arrays.asList("V.1", "V.2"), fids(mirror,
+                mirror.findByFootprint(1.5, 40, 2.5, 46)));
+        assertEquals(0, mirror.findByFootprint(-10, 0, -5, 1).length);
+        mirror.close();
+    }
+
+    @Test
+    public void testIncrementalSync() throws Exception {
+        FakeManager manager = manager();
+        RESTStructuredCoverageGranulesMirror mirror = manager.getGranulesMirror("ws", "store", "V");
+        mirror.sync();
+
+        manager.add(new Granule(5, "2013-03-03T00:00:00Z", 0, "d.nc", 0, "2014-01-03T00:00:00.000Z"));
+        manager.granules.get(1).elevation = 20;
+        manager.granules.get(1).updated = "2014-01-03T00:00:00.000Z";
+        // the latest granules are sent again
+        assertEquals(4, mirror.sync());
+        assertEquals("updated AFTER 2014-01-01T23:59:59.999Z", manager.filters.get(1));
+        assertEquals(6, mirror.size());
+        assertEquals(20, mirror.getElevation(mirror.getRow("V.1")), 0);
+        assertEquals("d.nc", mirror.getLocation(mirror.getRow("V.5")));
+        assertEquals(time("2014-01-03T00:00:00Z"), mirror.getLastUpdated());
+
+        assertEquals(2, mirror.sync());
+        assertEquals("updated AFTER 2014-01-02T23:59:59.999Z", manager.filters.get(2));
+
+        // a whole reload after a failure
+        manager.fail = true;
+        try {
+            mirror.sync();
+            fail("Failure not reported");
+        } catch (IllegalStateException e) {
+            assertEquals(6, mirror.size());
+        }
+        manager.fail = false;
+        mirror.markStale();
+        assertEquals(6, mirror.sync());
+        mirror.close();
+    }
+
+    @Test
+    public void testRemovals() throws Exception {
+        FakeManager manager = manager();
+        RESTStructuredCoverageGranulesMirror mirror = manager.getGranulesMirror("ws", "store", "V");
+        mirror.sync();
+
+        manager.granules.remove(0);
+        manager.granules.remove(3);
+        mirror.changed(BASE + "/coverages/V/index/granules/V.0");
+        mirror.changed(BASE + "/coverages/V/index/granules/V.3.xml");
+        // failed removal
+        mirror.changed(BASE + "/coverages/V/index/granules/V.4");
+        // other coverages
+        mirror.changed(BASE + "/coverages/W/index/granules/V.1");
+        mirror.changed(BASE + "X/coverages/V/index/granules/V.1");
+
+        // V.3 and V.4 are sent again, being the latest ones
+        assertEquals(2 + 1, mirror.sync());
+        assertEquals(3, mirror.size());
+        assertEquals(-1, mirror.getRow("V.0"));
+        assertEquals(-1, mirror.getRow("V.3"));
+        assertEquals("IN ('V.3','V.4','V.0')".length(), manager.filters.get(2).length());
+        assertEquals(Arrays.asList("V.1", "V.2"), fids(mirror,
+                mirror.findByTime(Long.MIN_VALUE, Long.MAX_VALUE)));
+        assertEquals("c.nc", mirror.getLocation(mirror.getRow("V.4")));
+
+        // removal by filter
+        manager.granules.remove(1);
+        mirror.changed(BASE + "/coverages/V/index/granules?filter=location='a.nc'");
+        assertEquals(2, mirror.sync());
+        assertNull(manager.filters.get(manager.filters.size() - 1));
+
+        manager.granules.clear();
+        mirror.changed(BASE + "?recurse=true");
+        assertEquals(0, mirror.sync());
+        assertEquals(0, mirror.size());
+        mirror.close();
+    }
+
+    @Test
+    public void testDuplicates() throws Exception {
+        FakeManager manager = manager();
+        manager.add(new Granule(6, null, Double.NaN, "a.nc", 1, null));
+        manager.add(new Granule(7, null, Double.NaN, "a.nc", 1, null));
+        manager.add(new Granule(8, null, Double.NaN, "b.nc", 0, null));
+        manager.add(new Granule(9, null, Double.NaN, "c.nc", 1, null));
+        RESTStructuredCoverageGranulesMirror mirror = manager.getGranulesMirror("ws", "store", "V");
+        mirror.sync();
+
+        Map<String, List<String>> duplicates = mirror.findDuplicateLocations();
+        assertEquals(2, duplicates.size());
+        assertEquals(Arrays.asList("V.1", "V.6", "V.7"), duplicates.get("a.nc"));
+        assertEquals(Arrays.asList("V.2", "V.8"), duplicates.get("b.nc"));
+        mirror.close();
+    }
+
+    @Test
+    public void testManyGranules() throws Exception {
+        FakeManager manager = new FakeManager();
+        for (int i = 0; i < 3000; i++) {
+            manager.add(new Granule(i, "2013-03-01T00:00:00Z", i, "g" + i + ".nc", 0,
+                    "2014-01-01T00:00:00.000Z"));
+        }
+        RESTStructuredCoverageGranulesMirror mirror = manager.getGranulesMirror("ws", "store", "V");
+        assertEquals(3000, mirror.sync());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i, mirror.getElevation(mirror.getRow("V." + i)), 0);
+        }
+        int[] rows = mirror.findByElevation(100, 199);
+        assertEquals(100, rows.length);
+        assertArrayEquals(new int[0], mirror.findByTime(0, 1));
+        assertTrue(mirror.findDuplicateLocations().isEmpty());
+        mirror.close();
+    }
+}